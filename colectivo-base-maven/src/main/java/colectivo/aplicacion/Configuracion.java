@@ -4,6 +4,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
@@ -46,6 +47,12 @@ import colectivo.controlador.Coordinador;
  *   <li>{@code language} - Código de idioma ISO 639 (default: "en")</li>
  *   <li>{@code country} - Código de país ISO 3166 (default: "US")</li>
  *   <li>{@code labels} - Nombre base del ResourceBundle (default: "labels")</li>
+ *   <li>{@code cache.capacidad} - Consultas guardadas en la caché de resultados (default: 256)</li>
+ *   <li>{@code cache.segundosFranja} - Duración de las franjas horarias de la caché (default: 60)</li>
+ *   <li>{@code indices.directorio} - Directorio donde se guardan los índices precalculados de la
+ *       red para no recalcularlos en cada inicio (default: ninguno, se calculan en memoria)</li>
+ *   <li>{@code indices.patrones} - Si se preparan los patrones de transbordo al cargar la
+ *       ciudad, para el motor de patrones (default: false)</li>
  * </ul>
  * </p>
  *
@@ -79,6 +86,18 @@ public class Configuracion {
 	/** Nombre base del ResourceBundle (sin locale ni extensión). */
 	private String labelsBaseName;
 
+	/** Cantidad máxima de consultas en la caché de resultados. */
+	private int capacidadCache;
+
+	/** Duración en segundos de las franjas horarias de la caché de resultados. */
+	private int segundosFranjaCache;
+
+	/** Directorio de los índices precalculados de la red, o null si no se guardan. */
+	private Path directorioIndices;
+
+	/** Indica si se preparan los patrones de transbordo al cargar la ciudad. */
+	private boolean patronesTransbordo;
+
 	/**
 	 * Constructor privado para implementar el patrón Singleton.
 	 * <p>
@@ -152,9 +171,34 @@ public class Configuracion {
         this.labelsBaseName = (this.labelsBaseName != null && !this.labelsBaseName.isBlank())
                 ? this.labelsBaseName.strip() : "labels";
 
+        capacidadCache = leerEntero(prop, "cache.capacidad", 256);
+        segundosFranjaCache = leerEntero(prop, "cache.segundosFranja", 60);
+
+        String indices = prop.getProperty("indices.directorio");
+        directorioIndices = (indices != null && !indices.isBlank()) ? Path.of(indices.strip()) : null;
+        patronesTransbordo = Boolean.parseBoolean(prop.getProperty("indices.patrones", "false").strip());
+
         cargarIdioma(lang, country);
 	}
 
+	/**
+	 * Lee una propiedad entera positiva, usando el valor por defecto si falta o no es válida.
+	 */
+	private static int leerEntero(Properties prop, String clave, int porDefecto) {
+		String valor = prop.getProperty(clave);
+		if (valor == null || valor.isBlank())
+			return porDefecto;
+		try {
+			int entero = Integer.parseInt(valor.strip());
+			if (entero > 0)
+				return entero;
+		} catch (NumberFormatException e) {
+			// se informa abajo
+		}
+		logger.warn("Valor inválido para '{}': {}. Se usa {}", clave, valor, porDefecto);
+		return porDefecto;
+	}
+
 	/**
 	 * Obtiene la instancia única de Configuracion (patrón Singleton).
 	 * <p>
@@ -264,4 +308,28 @@ public class Configuracion {
         return archivoEstiloClaro;
     }
 
+	public int getCapacidadCache() {
+		return capacidadCache;
+	}
+
+	public int getSegundosFranjaCache() {
+		return segundosFranjaCache;
+	}
+
+	/**
+	 * @return directorio de los índices precalculados de la red, o null si no se guardan
+	 * @see colectivo.logica.Ciudad#configurarIndices(Path, boolean)
+	 */
+	public Path getDirectorioIndices() {
+		return directorioIndices;
+	}
+
+	/**
+	 * @return true si se preparan los patrones de transbordo al cargar la ciudad
+	 * @see colectivo.logica.Ciudad#configurarIndices(Path, boolean)
+	 */
+	public boolean isPatronesTransbordo() {
+		return patronesTransbordo;
+	}
+
 }
@@ -119,6 +119,28 @@ public final class Constantes {
      */
     public static final String SEPARADOR = "\\s*;\\s*";
 
+    /**
+     * Cantidad máxima de rondas de la búsqueda por rondas (RAPTOR).
+     * <p>
+     * Cada ronda corresponde a un colectivo tomado, por lo que un recorrido puede
+     * tener como máximo {@code MAX_RONDAS - 1} transbordos. El límite acota el costo
+     * de las consultas sin solución.
+     * </p>
+     *
+     * @see colectivo.logica.BusquedaRaptor
+     */
+    public static final int MAX_RONDAS = 8;
+
+    /**
+     * Cantidad de segundos de un día.
+     * <p>
+     * Los horarios internos de las búsquedas se expresan en segundos desde el inicio
+     * del día de la consulta; los valores mayores o iguales a esta constante
+     * corresponden a días siguientes.
+     * </p>
+     */
+    public static final int SEGUNDOS_DIA = 86400;
+
     /**
      * Clave de API para el servicio GraphHopper.
      * <p>
@@ -1,17 +1,29 @@
 package colectivo.controlador;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import colectivo.aplicacion.Configuracion;
 import colectivo.interfaz.Formateador;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaEncuentro;
+import colectivo.logica.CacheRecorridos;
 import colectivo.logica.Calculo;
+import colectivo.logica.CalculoLote;
 import colectivo.logica.Ciudad;
+import colectivo.logica.Criterio;
+import colectivo.logica.MatrizTiempos;
+import colectivo.logica.Motores;
 import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
 import colectivo.servicio.InterfazService;
@@ -74,6 +86,9 @@ public class Coordinador {
 	/** Servicio de interfaz de usuario para interacción con el usuario. */
 	private InterfazService interfazService;
 
+	/** Caché de resultados de {@link #buscarRecorridos}, configurada al inicializar. */
+	private CacheRecorridos cache;
+
 	/** Lista de soluciones de recorridos encontrados en la última búsqueda. */
 	List<List<Recorrido>> recorridosSolucion;
 
@@ -97,6 +112,10 @@ public class Coordinador {
 	 * Los recorridos retornados están ordenados por optimalidad según los criterios
 	 * del algoritmo de cálculo (tiempo, número de transbordos, etc.).
 	 * </p>
+	 * <p>
+	 * Las consultas repetidas se resuelven con la {@link CacheRecorridos}, que se
+	 * invalida al cambiar la versión de los datos de la ciudad.
+	 * </p>
 	 *
 	 * @param paradaOrigen    la parada desde donde se inicia el recorrido
 	 * @param paradaDestino   la parada a la que se desea llegar
@@ -108,8 +127,9 @@ public class Coordinador {
 	 * @throws NullPointerException  si paradaOrigen, paradaDestino o
 	 *                               horaLlegaParada son null
 	 * @throws IllegalStateException si ciudad no está inicializada
-	 * @see Calculo#calcularRecorrido(Parada, Parada, int, LocalTime, Map)
-	 * @see #mapearTramos()
+	 * @see Calculo#calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada)
+	 * @see CacheRecorridos
+	 * @see Ciudad#getRed()
 	 */
 	public List<List<Recorrido>> buscarRecorridos(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
 			LocalTime horaLlegaParada) {
@@ -131,11 +151,301 @@ public class Coordinador {
 			throw new IllegalStateException("Ciudad no está inicializada");
 		}
 
+		recorridosSolucion = cache != null
+				? cache.buscar(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, ciudad)
+				: Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, ciudad.getRed());
+		return recorridosSolucion;
+	}
+
+	/**
+	 * Busca recorridos entre dos paradas con un motor de búsqueda elegido para esta
+	 * consulta en lugar del motor por defecto, por ejemplo para comparar motores sin
+	 * cambiar la configuración. Los resultados no pasan por la caché, que guarda los del
+	 * motor por defecto.
+	 *
+	 * @param paradaOrigen    la parada desde donde se inicia el recorrido
+	 * @param paradaDestino   la parada a la que se desea llegar
+	 * @param diaSemana       el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora a la que se llega a la parada de origen
+	 * @param motor           nombre del motor, configurado en {@code factory.properties}
+	 *                        con la clave {@code ESTRATEGIA.<motor>}
+	 * @return recorridos ordenados por duración total
+	 * @throws NullPointerException     si algún parámetro es null
+	 * @throws IllegalStateException    si la ciudad no está inicializada
+	 * @throws IllegalArgumentException si el motor no está configurado
+	 * @see Motores#obtener(String)
+	 */
+	public List<List<Recorrido>> buscarRecorridos(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, String motor) {
+		if (paradaOrigen == null || paradaDestino == null) {
+			logger.error("buscarRecorridos: paradaOrigen o paradaDestino es null");
+			throw new NullPointerException("paradaOrigen y paradaDestino no pueden ser null");
+		}
+		if (horaLlegaParada == null || motor == null) {
+			logger.error("buscarRecorridos: horaLlegaParada o motor es null");
+			throw new NullPointerException("horaLlegaParada y motor no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarRecorridos: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
 		recorridosSolucion = Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada,
-				mapearTramos());
+				ciudad.getRed(), Motores.obtener(motor));
+		return recorridosSolucion;
+	}
+
+	/**
+	 * Busca todos los recorridos óptimos que salen del origen dentro de una franja
+	 * horaria.
+	 *
+	 * @param paradaOrigen    parada de inicio
+	 * @param paradaDestino   parada de destino
+	 * @param diaSemana       día de la semana (1=lunes, 7=domingo)
+	 * @param desde           primer horario de salida de la franja
+	 * @param hasta           último horario de salida de la franja
+	 * @return recorridos ordenados por hora de salida
+	 * @throws NullPointerException  si algún parámetro es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see Calculo#calcularPerfil(Parada, Parada, int, LocalTime, LocalTime, RedCompilada)
+	 */
+	public List<List<Recorrido>> buscarRecorridosEnFranja(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime desde, LocalTime hasta) {
+		// Validaciones con log
+		if (paradaOrigen == null) {
+			logger.error("buscarRecorridosEnFranja: paradaOrigen es null");
+			throw new NullPointerException("paradaOrigen no puede ser null");
+		}
+		if (paradaDestino == null) {
+			logger.error("buscarRecorridosEnFranja: paradaDestino es null");
+			throw new NullPointerException("paradaDestino no puede ser null");
+		}
+		if (desde == null || hasta == null) {
+			logger.error("buscarRecorridosEnFranja: desde o hasta es null");
+			throw new NullPointerException("desde y hasta no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarRecorridosEnFranja: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		recorridosSolucion = Calculo.calcularPerfil(paradaOrigen, paradaDestino, diaSemana, desde, hasta,
+				ciudad.getRed());
+		return recorridosSolucion;
+	}
+
+	/**
+	 * Busca el recorrido que sale más tarde del origen y llega al destino a más tardar a
+	 * una hora dada, con un único escaneo hacia atrás en lugar de probar horarios de
+	 * salida cada vez más tempranos. No usa la caché de resultados.
+	 *
+	 * @param paradaOrigen    parada de inicio
+	 * @param paradaDestino   parada de destino
+	 * @param diaSemana       día de la semana de la llegada (1=lunes, 7=domingo)
+	 * @param llegadaMaxima   hora a la que se debe estar en el destino
+	 * @return lista con el recorrido de salida más tardía, vacía si no hay
+	 * @throws NullPointerException  si algún parámetro es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see Calculo#calcularLlegandoAntes(Parada, Parada, int, LocalTime, RedCompilada)
+	 */
+	public List<List<Recorrido>> buscarRecorridosLlegandoAntes(Parada paradaOrigen, Parada paradaDestino,
+			int diaSemana, LocalTime llegadaMaxima) {
+		if (paradaOrigen == null || paradaDestino == null) {
+			logger.error("buscarRecorridosLlegandoAntes: paradaOrigen o paradaDestino es null");
+			throw new NullPointerException("paradaOrigen y paradaDestino no pueden ser null");
+		}
+		if (llegadaMaxima == null) {
+			logger.error("buscarRecorridosLlegandoAntes: llegadaMaxima es null");
+			throw new NullPointerException("llegadaMaxima no puede ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarRecorridosLlegandoAntes: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		recorridosSolucion = Calculo.calcularLlegandoAntes(paradaOrigen, paradaDestino, diaSemana, llegadaMaxima,
+				ciudad.getRed());
 		return recorridosSolucion;
 	}
 
+	/**
+	 * Calcula en paralelo los recorridos de un lote de consultas sobre la red de la
+	 * ciudad con el motor por defecto, para procesos que resuelven muchas consultas de una
+	 * vez. No usa la caché de resultados.
+	 *
+	 * @param consultas las consultas del lote, en el orden deseado para el resultado
+	 * @return las soluciones de cada consulta en el mismo orden, con el rendimiento del lote
+	 * @throws NullPointerException  si consultas es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see CalculoLote
+	 */
+	public CalculoLote.Resultado buscarRecorridosEnLote(Stream<CalculoLote.Consulta> consultas) {
+		if (consultas == null) {
+			logger.error("buscarRecorridosEnLote: consultas es null");
+			throw new NullPointerException("consultas no puede ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarRecorridosEnLote: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return new CalculoLote(ciudad.getRed()).calcular(consultas);
+	}
+
+	/**
+	 * Calcula en paralelo los recorridos de un lote de consultas con un motor de búsqueda
+	 * elegido para el lote en lugar del motor por defecto. No usa la caché de resultados.
+	 *
+	 * @param consultas las consultas del lote, en el orden deseado para el resultado
+	 * @param motor     nombre del motor, configurado en {@code factory.properties}
+	 *                  con la clave {@code ESTRATEGIA.<motor>}
+	 * @return las soluciones de cada consulta en el mismo orden, con el rendimiento del lote
+	 * @throws NullPointerException     si consultas o motor es null
+	 * @throws IllegalStateException    si la ciudad no está inicializada
+	 * @throws IllegalArgumentException si el motor no está configurado
+	 * @see CalculoLote
+	 * @see Motores#obtener(String)
+	 */
+	public CalculoLote.Resultado buscarRecorridosEnLote(Stream<CalculoLote.Consulta> consultas, String motor) {
+		if (consultas == null || motor == null) {
+			logger.error("buscarRecorridosEnLote: consultas o motor es null");
+			throw new NullPointerException("consultas y motor no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarRecorridosEnLote: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return new CalculoLote(ciudad.getRed(), Motores.obtener(motor), Runtime.getRuntime().availableProcessors())
+				.calcular(consultas);
+	}
+
+	/**
+	 * Busca los k mejores recorridos entre dos paradas según un criterio. No usa la caché
+	 * de resultados, que guarda las soluciones completas ordenadas por duración.
+	 *
+	 * @param paradaOrigen     parada de inicio
+	 * @param paradaDestino    parada final
+	 * @param diaSemana        día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada  hora de llegada a la parada de origen
+	 * @param k                cantidad máxima de recorridos
+	 * @param criterio         criterio de orden: llegada, duración o transbordos
+	 * @return hasta k recorridos ordenados según el criterio
+	 * @throws NullPointerException  si algún parámetro es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see Calculo#calcularMejores(Parada, Parada, int, LocalTime, RedCompilada, int, Criterio)
+	 */
+	public List<List<Recorrido>> buscarMejoresRecorridos(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, int k, Criterio criterio) {
+		if (paradaOrigen == null || paradaDestino == null) {
+			logger.error("buscarMejoresRecorridos: paradaOrigen o paradaDestino es null");
+			throw new NullPointerException("paradaOrigen y paradaDestino no pueden ser null");
+		}
+		if (horaLlegaParada == null || criterio == null) {
+			logger.error("buscarMejoresRecorridos: horaLlegaParada o criterio es null");
+			throw new NullPointerException("horaLlegaParada y criterio no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarMejoresRecorridos: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return Calculo.calcularMejores(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, ciudad.getRed(), k,
+				criterio);
+	}
+
+	/**
+	 * Calcula la isócrona de una parada: la llegada más temprana a cada parada alcanzable
+	 * desde el origen, en un único escaneo de la red en lugar de una búsqueda por
+	 * destino. Pensado para dibujar mapas de alcance que se actualizan al cambiar la hora.
+	 *
+	 * @param paradaOrigen parada de inicio
+	 * @param diaSemana    día de la semana (1=lunes, 7=domingo)
+	 * @param hora         hora de llegada a la parada de origen
+	 * @param tiempoMaximo tiempo de viaje máximo, de hasta un día
+	 * @return paradas alcanzables ordenadas por tiempo de viaje, incluido el origen
+	 * @throws NullPointerException  si algún parámetro es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see Calculo#calcularIsocrona(Parada, int, LocalTime, Duration, RedCompilada)
+	 */
+	public List<BusquedaCSA.Alcance> calcularIsocrona(Parada paradaOrigen, int diaSemana, LocalTime hora,
+			Duration tiempoMaximo) {
+		if (paradaOrigen == null) {
+			logger.error("calcularIsocrona: paradaOrigen es null");
+			throw new NullPointerException("paradaOrigen no puede ser null");
+		}
+		if (hora == null || tiempoMaximo == null) {
+			logger.error("calcularIsocrona: hora o tiempoMaximo es null");
+			throw new NullPointerException("hora y tiempoMaximo no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("calcularIsocrona: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return Calculo.calcularIsocrona(paradaOrigen, diaSemana, hora, tiempoMaximo, ciudad.getRed());
+	}
+
+	/**
+	 * Busca las paradas de encuentro para un grupo que sale a la misma hora desde varias
+	 * paradas, en un único escaneo de la red con una etiqueta por origen en lugar de una
+	 * búsqueda por origen y parada candidata.
+	 *
+	 * @param origenes     paradas de origen de cada integrante del grupo
+	 * @param diaSemana    día de la semana (1=lunes, 7=domingo)
+	 * @param hora         hora de llegada a las paradas de origen
+	 * @param objetivo     minimizar el tiempo del que más tarda o la suma de los tiempos
+	 * @param cantidad     cantidad máxima de paradas a devolver
+	 * @return paradas alcanzables por todos, ordenadas según el objetivo
+	 * @throws NullPointerException  si algún parámetro es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see Calculo#calcularEncuentro(List, int, LocalTime, BusquedaEncuentro.Objetivo, int, RedCompilada)
+	 */
+	public List<BusquedaEncuentro.Encuentro> buscarPuntosEncuentro(List<Parada> origenes, int diaSemana,
+			LocalTime hora, BusquedaEncuentro.Objetivo objetivo, int cantidad) {
+		if (origenes == null) {
+			logger.error("buscarPuntosEncuentro: origenes es null");
+			throw new NullPointerException("origenes no puede ser null");
+		}
+		if (hora == null || objetivo == null) {
+			logger.error("buscarPuntosEncuentro: hora u objetivo es null");
+			throw new NullPointerException("hora y objetivo no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("buscarPuntosEncuentro: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return Calculo.calcularEncuentro(origenes, diaSemana, hora, objetivo, cantidad, ciudad.getRed());
+	}
+
+	/**
+	 * Exporta la matriz de tiempos de viaje entre todas las paradas de la ciudad para un
+	 * día y una hora, usando todos los procesadores disponibles.
+	 *
+	 * @param diaSemana día de la semana (1=lunes, 7=domingo)
+	 * @param hora      hora de llegada a cada parada de origen
+	 * @param archivo   archivo binario de destino
+	 * @return el tiempo total de cálculo y escritura
+	 * @throws IOException           si ocurre un error de escritura
+	 * @throws NullPointerException  si hora o archivo es null
+	 * @throws IllegalStateException si la ciudad no está inicializada
+	 * @see MatrizTiempos
+	 */
+	public Duration exportarMatrizTiempos(int diaSemana, LocalTime hora, Path archivo) throws IOException {
+		if (hora == null || archivo == null) {
+			logger.error("exportarMatrizTiempos: hora o archivo es null");
+			throw new NullPointerException("hora y archivo no pueden ser null");
+		}
+		if (ciudad == null) {
+			logger.error("exportarMatrizTiempos: Ciudad no inicializada");
+			throw new IllegalStateException("Ciudad no está inicializada");
+		}
+
+		return MatrizTiempos.exportar(ciudad.getRed(), diaSemana, hora, archivo,
+				Runtime.getRuntime().availableProcessors());
+	}
+
 	/**
 	 * Obtiene el módulo de cálculo de recorridos.
 	 *
@@ -145,6 +455,15 @@ public class Coordinador {
 		return calculo;
 	}
 
+	/**
+	 * Obtiene la caché de resultados de búsqueda, con sus contadores de aciertos y fallos.
+	 *
+	 * @return la {@link CacheRecorridos}, o null si la aplicación no fue inicializada
+	 */
+	public CacheRecorridos getCache() {
+		return cache;
+	}
+
 	/**
 	 * Obtiene el modelo de la ciudad.
 	 *
@@ -290,9 +609,10 @@ public class Coordinador {
 	 * <li><b>Configuración:</b> Carga {@link Configuracion} (Singleton) y establece
 	 * la referencia bidireccional con el coordinador</li>
 	 * <li><b>Ciudad:</b> Carga {@link Ciudad} (Singleton) con todos los datos de
-	 * paradas, tramos y líneas desde los DAOs</li>
+	 * paradas, tramos y líneas desde los DAOs, y sus índices precalculados desde el
+	 * directorio configurado</li>
 	 * <li><b>Cálculo:</b> Crea la instancia de {@link Calculo} para algoritmos de
-	 * búsqueda</li>
+	 * búsqueda y la {@link CacheRecorridos} según la configuración</li>
 	 * <li><b>Interfaz:</b> Crea el servicio de interfaz
 	 * ({@link InterfazServiceImpl}) para interacción con el usuario</li>
 	 * <li><b>Internacionalización:</b> Configura {@link Formateador} con el
@@ -322,6 +642,8 @@ public class Coordinador {
 		configuracion.setCoordinador(this);
 		try {
 			ciudad = Ciudad.getCiudad();
+			if (configuracion.getDirectorioIndices() != null || configuracion.isPatronesTransbordo())
+				ciudad.configurarIndices(configuracion.getDirectorioIndices(), configuracion.isPatronesTransbordo());
 			// eliminado para evitar dependencia circular
 //			ciudad.setCoordinador(this);
 		} catch (Exception e) {
@@ -332,6 +654,9 @@ public class Coordinador {
 	    // Cálculo
 	    logger.debug("Inicializando módulo de cálculo");
 		calculo = new Calculo();
+		// Resuelve el motor de factory.properties al inicio para fallar antes de la primera consulta
+		logger.debug("Motor de búsqueda: {}", Motores.predeterminado().getClass().getName());
+		cache = new CacheRecorridos(configuracion.getCapacidadCache(), configuracion.getSegundosFranjaCache());
 		// Bidirectional reference - eliminada
 //		calculo.setCoordinador(this);
 
@@ -10,6 +10,7 @@ import java.util.ResourceBundle;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import colectivo.logica.BusquedaCSA;
 import colectivo.logica.Recorrido;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
@@ -262,4 +263,28 @@ public class Formateador {
 		return json.toString();
 	}
 
+	/**
+	 * Convierte una isócrona a formato JSON para visualización en mapas. Genera un array
+	 * con un objeto por parada alcanzable: código, coordenadas y minutos de viaje.
+	 *
+	 * @param alcances las paradas alcanzables, como las devuelve la isócrona
+	 * @return cadena JSON con las paradas y sus tiempos de viaje
+	 */
+	public static String isocronaJson(List<BusquedaCSA.Alcance> alcances) {
+		StringBuilder json = new StringBuilder("[");
+		boolean primero = true;
+
+		for (BusquedaCSA.Alcance alcance : alcances) {
+			if (!primero) {
+				json.append(",");
+			}
+			Parada parada = alcance.parada();
+			json.append(String.format(Locale.US, "{\"codigo\":%d,\"lat\":%.6f,\"lng\":%.6f,\"minutos\":%d}",
+					parada.getCodigo(), parada.getLatitud(), parada.getLongitud(), alcance.segundosViaje() / 60));
+			primero = false;
+		}
+		json.append("]");
+		return json.toString();
+	}
+
 }
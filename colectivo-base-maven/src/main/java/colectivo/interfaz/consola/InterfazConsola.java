@@ -21,9 +21,9 @@ import colectivo.modelo.Parada;
  * Implementación de la interfaz de usuario basada en consola.
  *
  * <p>Esta clase proporciona una interfaz interactiva de consola utilizada para
- * desarrollo y depuración. Solicita al usuario paradas de origen/destino, día de
- * la semana y hora de llegada, e imprime los resultados de la búsqueda en la
- * salida estándar. Existe una interfaz gráfica alternativa para uso en producción
+ * desarrollo y depuración. Solicita al usuario el tipo de consulta, paradas de
+ * origen/destino, día de la semana y hora de llegada, e imprime los resultados de
+ * la búsqueda en la salida estándar. Existe una interfaz gráfica alternativa para uso en producción
  * e interacción visual.</p>
  *
  * <p>La entrada se lee desde {@link System#in} mediante un {@link Scanner} estático.
@@ -45,6 +45,10 @@ public class InterfazConsola implements Interfaz {
 	 */
 	private static final Scanner scanner = new Scanner(System.in);
 
+	/** Opciones del menú: consulta a partir de una hora y consulta por franja de salida. */
+	private static final int CONSULTA = 1;
+	private static final int CONSULTA_FRANJA = 2;
+
 	/**
 	 * Coordinador de la lógica de aplicación, establecido por el bootstrap de la aplicación.
 	 */
@@ -113,6 +117,60 @@ public class InterfazConsola implements Interfaz {
 		}
 	}
 
+    /**
+     * Solicita al usuario el final de una franja horaria de salida.
+     *
+     * <p>El formato esperado es "HH:mm" y el horario no puede ser anterior a
+     * {@code desde}. El método se repite hasta obtener una respuesta válida.</p>
+     *
+     * @param desde inicio de la franja, la hora de llegada ingresada
+     * @return el último horario de salida de la franja
+     */
+    private LocalTime ingresarFinFranja(LocalTime desde) {
+		while (true) {
+			System.out.print("Ingrese último horario de salida (HH:MM): ");
+			String horaStr = scanner.next();
+			try {
+				LocalTime hasta = LocalTime.parse(horaStr, DateTimeFormatter.ofPattern("HH:mm"));
+				if (!hasta.isBefore(desde))
+					return hasta;
+				System.out.println("El horario debe ser igual o posterior a " + desde + ". Intente de nuevo.");
+			} catch (Exception e) {
+				logger.error("Formato de hora inválido. Use HH:MM.", e);
+				System.out.println("Formato de hora inválido. Use HH:MM. Intente de nuevo.");
+			}
+		}
+	}
+
+    /**
+     * Solicita al usuario el tipo de consulta a realizar.
+     *
+     * <p>Los valores válidos son 1 (recorridos a partir de una hora) y 2 (recorridos
+     * que salen dentro de una franja horaria). El método se repite hasta que se
+     * proporcione una opción válida.</p>
+     *
+     * @return la opción elegida, {@link #CONSULTA} o {@link #CONSULTA_FRANJA}
+     */
+    private int ingresarOpcion() {
+		while (true) {
+			System.out.println(CONSULTA + ") Buscar recorridos");
+			System.out.println(CONSULTA_FRANJA + ") Buscar recorridos en una franja horaria de salida");
+			System.out.print("Ingrese una opción: ");
+			try {
+				int opcion = scanner.nextInt();
+				if (opcion == CONSULTA || opcion == CONSULTA_FRANJA) {
+					return opcion;
+				} else {
+					System.out.println("Opción inválida. Intente de nuevo.");
+				}
+			} catch (InputMismatchException ime) {
+				logger.error("Entrada inválida para la opción del menú.", ime);
+				scanner.next(); // consumir token inválido
+				System.out.println("Opción inválida. Intente de nuevo.");
+			}
+		}
+	}
+
     /**
      * Solicita al usuario que ingrese un código de parada de destino y retorna
      * la {@link Parada} correspondiente del mapa proporcionado.
@@ -173,20 +231,25 @@ public class InterfazConsola implements Interfaz {
 	 * Solicita al usuario los parámetros de búsqueda y muestra los resultados.
 	 *
 	 * <p>Este método interactúa con el usuario mediante entrada/salida estándar para
-	 * recopilar paradas de origen/destino, día de la semana y hora de llegada.
+	 * elegir el tipo de consulta y recopilar paradas de origen/destino, día de la
+	 * semana y hora de llegada; la consulta por franja pide además el último horario
+	 * de salida.
 	 * Luego invoca al coordinador de la aplicación para realizar la búsqueda e
 	 * imprime los resultados formateados en la salida estándar.</p>
 	 */
     @Override
     public void iniciarInterfaz() {
 		try {
+        int opcion = ingresarOpcion();
         this.origen = ingresarParadaOrigen(coordinador.mapearParadas());
         this.destino = ingresarParadaDestino(coordinador.mapearParadas());
         this.dia = ingresarDiaSemana();
         this.hora = ingresarHoraLlegaParada();
 
 
-        List<List<Recorrido>> recorridos = coordinador.buscarRecorridos(origen, destino, dia, hora);
+        List<List<Recorrido>> recorridos = opcion == CONSULTA_FRANJA
+                ? coordinador.buscarRecorridosEnFranja(origen, destino, dia, hora, ingresarFinFranja(hora))
+                : coordinador.buscarRecorridos(origen, destino, dia, hora);
 
         String resumen = Formateador.resumenLineas(recorridos);
         System.out.println(resumen);
@@ -1,5 +1,6 @@
 package colectivo.interfaz.javafx;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Locale;
@@ -39,6 +40,8 @@ import colectivo.modelo.Parada;
  * <p>Funcionalidades principales:</p>
  * <ul>
  *   <li>Búsqueda de recorridos de transporte entre paradas</li>
+ *   <li>Búsqueda de todos los recorridos óptimos dentro de una franja de salida</li>
+ *   <li>Isócrona del origen, que se redibuja al cambiar el día o la hora</li>
  *   <li>Visualización de resultados en mapa interactivo o vista de texto</li>
  *   <li>Cambio de idioma (español/inglés)</li>
  *   <li>Cambio de tema visual (claro/oscuro)</li>
@@ -56,6 +59,9 @@ public class Controlador {
 
     private static final Logger logger = LogManager.getLogger(Controlador.class);
 
+    /** Tiempo de viaje máximo de la isócrona; el mapa colorea hasta más de 45 minutos. */
+    private static final Duration TIEMPO_ISOCRONA = Duration.ofHours(1);
+
     private Coordinador coordinador;
     private ResourceBundle resourceBundle;
 
@@ -68,12 +74,17 @@ public class Controlador {
     private GestorTextos gestorTextos;
     private ServicioBusqueda servicioBusqueda;
 
+    // Isócrona dibujada en el mapa y la tarea que la está calculando
+    private boolean isocronaVisible;
+    private Task<String> tareaIsocrona;
+
     // FXML Components
     @FXML private Label mainTitle, secondaryTitle, labelOrigen, labelDestino, labelDia, labelLlegada, labelOpciones;
-    @FXML private Button botonBuscar, botonIdioma, botonVista;
+    @FXML private Label labelFranja;
+    @FXML private Button botonBuscar, botonIsocrona, botonIdioma, botonVista;
     @FXML private VBox mapVBox, textVBox;
     @FXML private Pane rootPane;
-    @FXML private ComboBox<Integer> comboHora, comboMinuto;
+    @FXML private ComboBox<Integer> comboHora, comboMinuto, comboFranja;
     @FXML private ComboBox<Parada> comboOrigen, comboDestino;
     @FXML private ComboBox<String> comboDia;
     @FXML private ListView<String> optionsListView;
@@ -159,7 +170,13 @@ public class Controlador {
         gestorDias.inicializar(comboDia, bundle);
         gestorTiempos.inicializarHoras(comboHora);
         gestorTiempos.inicializarMinutos(comboMinuto);
+        gestorTiempos.inicializarFranja(comboFranja);
         gestorMapa.iniciar();
+
+        comboOrigen.valueProperty().addListener((obs, anterior, actual) -> redibujarIsocrona());
+        comboDia.valueProperty().addListener((obs, anterior, actual) -> redibujarIsocrona());
+        comboHora.valueProperty().addListener((obs, anterior, actual) -> redibujarIsocrona());
+        comboMinuto.valueProperty().addListener((obs, anterior, actual) -> redibujarIsocrona());
     }
 
     /**
@@ -188,8 +205,9 @@ public class Controlador {
      *
      * <p>Valida que todos los campos estén completos (origen, destino, día, hora, minuto),
      * limpia resultados anteriores y ejecuta la búsqueda de forma asíncrona mediante
-     * {@link ServicioBusqueda}. Actualiza la interfaz según el estado de la búsqueda
-     * (en curso, exitosa o fallida).</p>
+     * {@link ServicioBusqueda}. Con una franja de salida mayor a cero busca todos los
+     * recorridos óptimos que salen dentro de ella, sin pasar de la medianoche. Actualiza la
+     * interfaz según el estado de la búsqueda (en curso, exitosa o fallida).</p>
      */
     @FXML
     public void buscarRecorridos() {
@@ -207,12 +225,21 @@ public class Controlador {
         if (inputsValidos) {
             int numeroDia = Integer.parseInt(diaStr.split(" ")[0]);
             LocalTime time = LocalTime.of(hora, minuto);
+            int franja = comboFranja.getValue() != null ? comboFranja.getValue() : 0;
 
 
-            logger.debug("Iniciando búsqueda - Origen: {}, Destino: {}, Día: {}, Hora: {}:{}",
-                    origen.getCodigo(), destino.getCodigo(), numeroDia, hora, minuto);
+            logger.debug("Iniciando búsqueda - Origen: {}, Destino: {}, Día: {}, Hora: {}:{}, Franja: {} min",
+                    origen.getCodigo(), destino.getCodigo(), numeroDia, hora, minuto, franja);
 
-            Task<ResultadoFormateado> tarea = servicioBusqueda.crearTareaBusqueda(origen, destino, numeroDia, time);
+            Task<ResultadoFormateado> tarea;
+            if (franja > 0) {
+                LocalTime hasta = time.plusMinutes(franja);
+                if (hasta.isBefore(time))
+                    hasta = LocalTime.MAX;
+                tarea = servicioBusqueda.crearTareaBusquedaEnFranja(origen, destino, numeroDia, time, hasta);
+            } else {
+                tarea = servicioBusqueda.crearTareaBusqueda(origen, destino, numeroDia, time);
+            }
 
             tarea.setOnSucceeded(event -> manejarBusquedaExitosa(tarea.getValue(), bundle));
             tarea.setOnFailed(event -> manejarBusquedaFallida(bundle));
@@ -226,6 +253,80 @@ public class Controlador {
 
     }
 
+    /**
+     * Maneja el evento del botón de isócrona: dibuja en el mapa las paradas alcanzables
+     * desde el origen en {@link #TIEMPO_ISOCRONA}, coloreadas por minutos de viaje.
+     *
+     * <p>Valida que estén completos el origen, el día, la hora y el minuto. Mientras la
+     * isócrona siga en el mapa, cambiar alguno de ellos la vuelve a calcular.</p>
+     */
+    @FXML
+    public void mostrarIsocrona() {
+        limpiarResultadosAnteriores();
+        ResourceBundle bundle = getResourceBundle();
+
+        if (camposIsocronaCompletos()) {
+            isocronaVisible = true;
+            calcularIsocrona(bundle);
+        } else {
+            logger.warn("Isócrona cancelada: campos incompletos");
+            mostrarErrorValidacion(bundle);
+        }
+    }
+
+    /**
+     * Vuelve a calcular la isócrona si está dibujada en el mapa.
+     * Se llama al cambiar el origen, el día, la hora o el minuto.
+     */
+    private void redibujarIsocrona() {
+        if (isocronaVisible && camposIsocronaCompletos()) {
+            calcularIsocrona(getResourceBundle());
+        }
+    }
+
+    /**
+     * Indica si están elegidos todos los datos que necesita la isócrona.
+     *
+     * @return true si hay origen, día, hora y minuto
+     */
+    private boolean camposIsocronaCompletos() {
+        return comboOrigen.getValue() != null && comboDia.getValue() != null && comboHora.getValue() != null
+                && comboMinuto.getValue() != null;
+    }
+
+    /**
+     * Calcula la isócrona de forma asíncrona mediante {@link ServicioBusqueda} y la dibuja
+     * al terminar. Cancela el cálculo anterior si todavía no terminó, para que una hora
+     * vieja no pise a la última elegida.
+     *
+     * @param bundle el {@link ResourceBundle} para mensajes internacionalizados
+     */
+    private void calcularIsocrona(ResourceBundle bundle) {
+        Parada origen = comboOrigen.getValue();
+        int numeroDia = Integer.parseInt(comboDia.getValue().split(" ")[0]);
+        LocalTime time = LocalTime.of(comboHora.getValue(), comboMinuto.getValue());
+
+        logger.debug("Iniciando isócrona - Origen: {}, Día: {}, Hora: {}", origen.getCodigo(), numeroDia, time);
+
+        if (tareaIsocrona != null) {
+            tareaIsocrona.cancel();
+        }
+
+        Task<String> tarea = servicioBusqueda.crearTareaIsocrona(origen, numeroDia, time, TIEMPO_ISOCRONA);
+        tarea.setOnSucceeded(event -> {
+            queryCompleted.setText(bundle.getString("search.queryCompleted"));
+            gestorMapa.dibujarIsocrona(tarea.getValue());
+        });
+        tarea.setOnFailed(event -> {
+            logger.error("Error al calcular isócrona", tarea.getException());
+            mostrarErrorValidacion(bundle);
+        });
+        tarea.setOnRunning(event -> queryCompleted.setText(bundle.getString("search.loading")));
+        tareaIsocrona = tarea;
+
+        new Thread(tarea).start();
+    }
+
     /**
      * Maneja el caso de una búsqueda exitosa.
      * Actualiza la interfaz con los resultados encontrados o muestra mensaje de ruta no encontrada.
@@ -293,9 +394,15 @@ public class Controlador {
 
     /**
      * Limpia todos los resultados de búsquedas anteriores.
-     * Borra el área de texto, la lista de opciones, el mensaje de estado y limpia la ruta del mapa.
+     * Borra el área de texto, la lista de opciones, el mensaje de estado y limpia la ruta o la
+     * isócrona del mapa.
      */
     private void limpiarResultadosAnteriores() {
+        isocronaVisible = false;
+        if (tareaIsocrona != null) {
+            tareaIsocrona.cancel();
+            tareaIsocrona = null;
+        }
         resultsArea.clear();
         optionsListView.getItems().clear();
         queryCompleted.setText("");
@@ -410,8 +517,8 @@ public class Controlador {
 
             gestorTextos.actualizar(bundle, rootPane.getScene(),
                     mainTitle, secondaryTitle, labelOrigen, labelDestino,
-                    labelDia, labelLlegada, labelOpciones, botonVista,
-                    botonIdioma, botonBuscar, comboOrigen, comboDestino,
+                    labelDia, labelLlegada, labelOpciones, labelFranja, botonVista,
+                    botonIdioma, botonBuscar, botonIsocrona, comboOrigen, comboDestino,
                     comboDia, resultsArea);
 
             limpiarResultadosAnteriores();
@@ -157,6 +157,31 @@ public class GestorMapa {
 		}
 	}
 
+	/**
+	 * Dibuja una isócrona en el mapa: las paradas alcanzables coloreadas según los
+	 * minutos de viaje desde el origen.
+	 *
+	 * <p>Ejecuta la función JavaScript 'dibujarIsocrona()'. No consulta servicios
+	 * externos, por lo que puede redibujarse cada vez que cambia la hora elegida.</p>
+	 *
+	 * <p>Solo ejecuta si el WebView está listo. Si no lo está, registra una advertencia.</p>
+	 *
+	 * @param jsonIsocrona cadena JSON con las paradas alcanzables y sus minutos de viaje
+	 * @see colectivo.interfaz.Formateador#isocronaJson(java.util.List)
+	 */
+	public void dibujarIsocrona(String jsonIsocrona) {
+		if (isWebViewReady) {
+			try {
+				String jsonEscapado = jsonIsocrona.replace("\\", "\\\\").replace("'", "\\'");
+				webView.getEngine().executeScript(String.format("dibujarIsocrona('%s');", jsonEscapado));
+			} catch (Exception e) {
+				logger.error("Error al dibujar isócrona", e);
+			}
+		} else {
+			logger.warn("WebView no está listo para dibujar isócrona");
+		}
+	}
+
 	/**
 	 * Limpia todas las rutas dibujadas en el mapa.
 	 *
@@ -56,25 +56,28 @@ public class GestorTextos {
 	 * @param labelDia etiqueta del campo de día
 	 * @param labelLlegada etiqueta del campo de hora de llegada
 	 * @param labelOpciones etiqueta del título de opciones
+	 * @param labelFranja etiqueta del campo de franja de salida
 	 * @param botonVista botón para cambiar vista
 	 * @param botonIdioma botón para cambiar idioma
 	 * @param botonBuscar botón de búsqueda
+	 * @param botonIsocrona botón para dibujar la isócrona del origen
 	 * @param comboOrigen ComboBox de selección de parada de origen
 	 * @param comboDestino ComboBox de selección de parada de destino
 	 * @param comboDia ComboBox de selección de día
 	 * @param resultsArea área de texto para mostrar resultados
 	 */
 	public void actualizar(ResourceBundle bundle, Scene scene, Label mainTitle, Label secondaryTitle, Label labelOrigen,
-			Label labelDestino, Label labelDia, Label labelLlegada, Label labelOpciones, Button botonVista,
-			Button botonIdioma, Button botonBuscar, ComboBox<Parada> comboOrigen, ComboBox<Parada> comboDestino,
-			ComboBox<String> comboDia, TextArea resultsArea) {
+			Label labelDestino, Label labelDia, Label labelLlegada, Label labelOpciones, Label labelFranja,
+			Button botonVista, Button botonIdioma, Button botonBuscar, Button botonIsocrona,
+			ComboBox<Parada> comboOrigen, ComboBox<Parada> comboDestino, ComboBox<String> comboDia,
+			TextArea resultsArea) {
 
 		if (bundle != null) {
             try {
                 actualizarLabels(bundle, mainTitle, secondaryTitle, labelOrigen, labelDestino, labelDia, labelLlegada,
-                        labelOpciones);
+                        labelOpciones, labelFranja);
 
-                actualizarBotones(bundle, botonVista, botonIdioma, botonBuscar);
+                actualizarBotones(bundle, botonVista, botonIdioma, botonBuscar, botonIsocrona);
 
                 actualizarPrompts(bundle, comboOrigen, comboDestino, comboDia, resultsArea);
 
@@ -103,7 +106,7 @@ public class GestorTextos {
 	 */
 	private void actualizarLabels(ResourceBundle bundle, Label... labels) {
 		String[] claves = { "title.main", "title.secondary", "label.origin", "label.destination", "label.day",
-				"label.arrival", "options.title" };
+				"label.arrival", "options.title", "label.window" };
 
 		for (int i = 0; i < labels.length && i < claves.length; i++) {
 			if (labels[i] != null) {
@@ -127,7 +130,7 @@ public class GestorTextos {
 	 * @param botones array variable de {@link Button} a actualizar
 	 */
 	private void actualizarBotones(ResourceBundle bundle, Button... botones) {
-		String[] claves = { "button.view", "button.language", "button.search" };
+		String[] claves = { "button.view", "button.language", "button.search", "button.isochrone" };
 
 		for (int i = 0; i < botones.length && i < claves.length; i++) {
 			if (botones[i] != null) {
@@ -9,8 +9,8 @@ import org.apache.logging.log4j.Logger;
 /**
  * Gestor especializado para la configuración de selectores de tiempo (horas y minutos).
  *
- * <p>Se encarga de inicializar y configurar los ComboBox de horas y minutos con formato
- * numérico de dos dígitos (00-23 para horas, 00-59 para minutos). Aplica formato
+ * <p>Se encarga de inicializar y configurar los ComboBox de horas, minutos y franja de
+ * salida con formato numérico de dos dígitos (00-23 para horas, 00-59 para minutos). Aplica formato
  * personalizado mediante celdas especializadas y activa autocompletado para facilitar
  * la selección rápida de valores.</p>
  *
@@ -79,6 +79,27 @@ public class GestorTiempos {
 		}
 	}
 
+	/**
+	 * Inicializa el ComboBox de la franja de salida con su duración en minutos.
+	 *
+	 * <p>El valor 0, que es el valor por defecto, indica una búsqueda desde un único
+	 * horario; los demás buscan todos los recorridos óptimos que salen dentro de la
+	 * franja.</p>
+	 *
+	 * @param comboFranja el {@link ComboBox} de la franja a inicializar
+	 * @throws RuntimeException si ocurre un error durante la inicialización
+	 */
+	public void inicializarFranja(ComboBox<Integer> comboFranja) {
+		try {
+			comboFranja.getItems().setAll(0, 30, 60, 120);
+			configurarFormatoNumerico(comboFranja);
+			comboFranja.setValue(0);
+		} catch (Exception e) {
+			logger.error("Error al inicializar comboBox de franja", e);
+			throw e;
+		}
+	}
+
 	/**
 	 * Configura el formato numérico de dos dígitos en un ComboBox de enteros.
 	 *
@@ -1,11 +1,13 @@
 package colectivo.interfaz.javafx;
 
+import java.time.Duration;
 import java.time.LocalTime;
 import java.util.List;
 
 import javafx.concurrent.Task;
 import colectivo.controlador.Coordinador;
 import colectivo.interfaz.Formateador;
+import colectivo.logica.BusquedaCSA;
 import colectivo.logica.Recorrido;
 import colectivo.modelo.Parada;
 
@@ -82,4 +84,59 @@ public class ServicioBusqueda {
             }
         };
     }
+
+    /**
+     * Crea una tarea asíncrona para buscar todos los recorridos óptimos que salen del
+     * origen dentro de una franja horaria. Los resultados se formatean igual que en
+     * {@link #crearTareaBusqueda(Parada, Parada, int, LocalTime)}, tomando el inicio de la
+     * franja como hora de llegada a la parada.
+     *
+     * @param origen {@link Parada} de inicio del recorrido
+     * @param destino {@link Parada} de destino del recorrido
+     * @param numeroDia día de la semana (1=lunes, 7=domingo)
+     * @param desde primer horario de salida de la franja
+     * @param hasta último horario de salida de la franja
+     * @return {@link Task} que producirá un {@link ResultadoFormateado} o null si no hay rutas
+     */
+    public Task<ResultadoFormateado> crearTareaBusquedaEnFranja(Parada origen, Parada destino,
+                                                                int numeroDia, LocalTime desde, LocalTime hasta) {
+        return new Task<>() {
+            @Override
+            protected ResultadoFormateado call() {
+                List<List<Recorrido>> recorridos =
+                        coordinador.buscarRecorridosEnFranja(origen, destino, numeroDia, desde, hasta);
+
+                if (!recorridos.isEmpty()) {
+                    String resumen = Formateador.resumenLineas(recorridos);
+                    String logs = Formateador.formatear(recorridos, origen, destino, desde);
+                    String jsonRuta = Formateador.recorridoJson(recorridos);
+
+                    return new ResultadoFormateado(resumen, logs, jsonRuta);
+                }
+
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Crea una tarea asíncrona que calcula la isócrona de una parada y la convierte al
+     * JSON que dibuja {@link GestorMapa#dibujarIsocrona(String)}.
+     *
+     * @param origen {@link Parada} de origen
+     * @param numeroDia día de la semana (1=lunes, 7=domingo)
+     * @param hora hora de llegada a la parada de origen
+     * @param tiempoMaximo tiempo de viaje máximo
+     * @return {@link Task} que producirá el JSON de las paradas alcanzables
+     */
+    public Task<String> crearTareaIsocrona(Parada origen, int numeroDia, LocalTime hora, Duration tiempoMaximo) {
+        return new Task<>() {
+            @Override
+            protected String call() {
+                List<BusquedaCSA.Alcance> alcances =
+                        coordinador.calcularIsocrona(origen, numeroDia, hora, tiempoMaximo);
+                return Formateador.isocronaJson(alcances);
+            }
+        };
+    }
 }
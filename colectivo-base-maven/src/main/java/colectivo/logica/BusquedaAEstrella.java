@@ -0,0 +1,453 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda A* dependiente del tiempo sobre el grafo de paradas de la
+ * {@link RedCompilada}.
+ * <p>
+ * El costo de un tramo en colectivo es la espera hasta la próxima pasada de la línea por
+ * la parada más el tiempo de viaje hasta la parada siguiente; el de un tramo caminando,
+ * su tiempo fijo. Como la espera nunca hace llegar antes a quien sale más tarde, la
+ * primera vez que se extrae el destino se tiene la llegada más temprana, igual que en
+ * {@link BusquedaCSA}.
+ * </p>
+ * <p>
+ * La cola de prioridad se ordena por la hora de llegada más una cota inferior del tiempo
+ * restante: el menor tiempo de viaje hasta el destino sin contar esperas, calculado con
+ * una búsqueda hacia atrás desde el destino sobre los tramos de las líneas y los tramos
+ * caminando. La cota no sobreestima ni decrece más que el costo de ningún tramo, por lo
+ * que el resultado es óptimo y solo se expanden las paradas que pueden mejorar la
+ * llegada; las paradas desde las que no se llega al destino no se expanden. Las cotas se
+ * guardan por hilo y se reutilizan mientras las consultas tengan el mismo destino.
+ * </p>
+ * <p>
+ * Una cota por distancia en línea recta dividida por la mayor velocidad de la red es más
+ * barata, pero con pocos tramos de coordenadas mal cargadas esa velocidad resulta
+ * irreal, y aun excluyéndolos la cota es chica frente a las esperas de una ciudad
+ * pequeña: en la red de ejemplo apenas reducía las paradas expandidas.
+ * </p>
+ * <p>
+ * Como en el resto de las estrategias, los tramos caminando solo conectan dos colectivos,
+ * y solo se consideran las salidas del día de la consulta y del siguiente. Los arreglos de
+ * trabajo se reutilizan por hilo.
+ * </p>
+ *
+ * @see BusquedaCSA
+ * @see RedCompilada
+ */
+public class BusquedaAEstrella implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaAEstrella.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	/** Modos de llegada a una parada: bajando de un colectivo o sin poder caminar. */
+	private static final int BAJO = 0;
+	private static final int A_PIE = 1;
+
+	private static final byte SIN_PADRE = 0;
+	private static final byte POR_COLECTIVO = 1;
+	private static final byte POR_CAMINATA = 2;
+
+	/** Arreglos de trabajo de cada hilo, recreados cuando cambia la red. */
+	private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+	private final boolean conCota;
+
+	public BusquedaAEstrella() {
+		this(true);
+	}
+
+	/**
+	 * @param conCota false para ordenar solo por hora de llegada (búsqueda sin cota), por
+	 *        ejemplo para comparar la cantidad de paradas expandidas
+	 */
+	public BusquedaAEstrella(boolean conCota) {
+		this.conCota = conCota;
+	}
+
+	/**
+	 * Busca el recorrido de llegada más temprana entre dos paradas.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return lista con el recorrido de llegada más temprana, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda A*", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return lista con el recorrido de llegada más temprana, vacía si no hay
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		Estado estado = estado(red);
+		estado.expandidas = 0;
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		if (red.getGrafoLineas().minimoColectivos(origen, destino, true) == RedCompilada.NINGUNA)
+			return soluciones;
+
+		if (estado.buscar(origen, destino, diaSemana, hora.toSecondOfDay(), conCota))
+			soluciones.add(estado.reconstruir(destino));
+
+		logger.debug("A*: {} soluciones, {} paradas expandidas", soluciones.size(), estado.expandidas);
+		return soluciones;
+	}
+
+	/**
+	 * @return cantidad de estados (parada y modo de llegada) expandidos por la última
+	 *         búsqueda del hilo actual, 0 si no buscó
+	 */
+	public static int getUltimasExpandidas() {
+		Estado estado = ESTADO.get();
+		return estado == null ? 0 : estado.expandidas;
+	}
+
+	private static Estado estado(RedCompilada red) {
+		Estado estado = ESTADO.get();
+		if (estado == null || estado.red != red) {
+			estado = new Estado(red);
+			ESTADO.set(estado);
+		}
+		return estado;
+	}
+
+	/**
+	 * Arreglos de trabajo de una consulta. Cada parada tiene dos estados,
+	 * {@code parada * 2 + modo}: llegó bajando de un colectivo ({@link #BAJO}), desde donde
+	 * puede caminar o subir, o llegó caminando o es el origen ({@link #A_PIE}), desde donde
+	 * solo puede subir.
+	 */
+	private static final class Estado {
+
+		private final RedCompilada red;
+		/**
+		 * Tramos de las líneas y caminando invertidos, para la búsqueda de cotas hacia
+		 * atrás: los de llegada a cada parada están en
+		 * {@code [inicioEntrantes[s], inicioEntrantes[s + 1])}.
+		 */
+		private final int[] inicioEntrantes;
+		private final int[] origenEntrantes;
+		private final int[] tiempoEntrantes;
+
+		private final int[] llegada;
+		private final boolean[] cerrado;
+		/**
+		 * Cota del tiempo restante de cada parada hasta {@link #destinoCota}, o
+		 * {@link #INFINITO} si desde la parada no se llega.
+		 */
+		private final int[] cota;
+		private int destinoCota = RedCompilada.NINGUNA;
+		private final byte[] tipoPadre;
+		private final int[] estadoPadre;
+		private final int[] lineaPadre;
+		private final int[] posicionPadre;
+		private final int[] salidaPadre;
+		/** Estados con llegada a reiniciar. */
+		private final int[] tocados;
+		private int cantidadTocados;
+
+		/** Montículo de estados por prioridad: prioridad en los 32 bits altos, estado en los bajos. */
+		private long[] monticulo = new long[64];
+		private int tamano;
+
+		private int expandidas;
+
+		Estado(RedCompilada red) {
+			this.red = red;
+			int n = red.getCantidadParadas();
+			int estados = n * 2;
+			llegada = new int[estados];
+			cerrado = new boolean[estados];
+			cota = new int[n];
+			tipoPadre = new byte[estados];
+			estadoPadre = new int[estados];
+			lineaPadre = new int[estados];
+			posicionPadre = new int[estados];
+			salidaPadre = new int[estados];
+			tocados = new int[estados];
+			Arrays.fill(llegada, INFINITO);
+
+			// Tramos entrantes a cada parada: de cada línea entre paradas consecutivas y caminando
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+			inicioEntrantes = new int[n + 1];
+			for (int l = 0; l < red.getCantidadLineas(); l++) {
+				int[] paradas = red.getParadasLinea(l);
+				for (int p = 1; p < paradas.length; p++)
+					inicioEntrantes[paradas[p] + 1]++;
+			}
+			for (int s = 0; s < n; s++)
+				for (int e = red.getInicioCaminando(s), fin = red.getFinTramos(s); e < fin; e++)
+					inicioEntrantes[destinos[e] + 1]++;
+			for (int s = 0; s < n; s++)
+				inicioEntrantes[s + 1] += inicioEntrantes[s];
+			origenEntrantes = new int[inicioEntrantes[n]];
+			tiempoEntrantes = new int[inicioEntrantes[n]];
+			int[] siguiente = Arrays.copyOf(inicioEntrantes, n);
+			for (int l = 0; l < red.getCantidadLineas(); l++) {
+				int[] paradas = red.getParadasLinea(l);
+				int[] acumulados = red.getTiemposAcumulados(l);
+				for (int p = 1; p < paradas.length; p++) {
+					int i = siguiente[paradas[p]]++;
+					origenEntrantes[i] = paradas[p - 1];
+					tiempoEntrantes[i] = acumulados[p] - acumulados[p - 1];
+				}
+			}
+			for (int s = 0; s < n; s++)
+				for (int e = red.getInicioCaminando(s), fin = red.getFinTramos(s); e < fin; e++) {
+					int i = siguiente[destinos[e]]++;
+					origenEntrantes[i] = s;
+					tiempoEntrantes[i] = tiempos[e];
+				}
+		}
+
+		/**
+		 * Calcula la cota de cada parada hasta el destino: el menor tiempo de viaje sin
+		 * esperas, con una búsqueda hacia atrás sobre los tramos entrantes. Se omite si las
+		 * cotas ya son las del destino.
+		 */
+		private void calcularCotas(int destino) {
+			if (destinoCota == destino)
+				return;
+			Arrays.fill(cota, INFINITO);
+			cota[destino] = 0;
+			tamano = 0;
+			agregar(destino, 0);
+			while (tamano > 0) {
+				long elemento = monticulo[0];
+				int parada = extraer();
+				if ((int) (elemento >>> 32) > cota[parada])
+					continue;
+				for (int i = inicioEntrantes[parada], fin = inicioEntrantes[parada + 1]; i < fin; i++) {
+					int anterior = origenEntrantes[i];
+					int tiempo = cota[parada] + tiempoEntrantes[i];
+					if (tiempo < cota[anterior]) {
+						cota[anterior] = tiempo;
+						agregar(anterior, tiempo);
+					}
+				}
+			}
+			destinoCota = destino;
+		}
+
+		/**
+		 * Expande estados en orden de llegada más cota hasta extraer el destino.
+		 *
+		 * @return true si se alcanzó el destino
+		 */
+		boolean buscar(int origen, int destino, int diaSemana, int salida, boolean conCota) {
+			reiniciar();
+			int horizonte = 2 * Constantes.SEGUNDOS_DIA;
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+
+			if (conCota)
+				calcularCotas(destino);
+			tamano = 0;
+
+			actualizar(origen * 2 + A_PIE, salida, SIN_PADRE, -1, -1, -1, -1);
+			agregar(origen * 2 + A_PIE, salida + cota(origen, conCota));
+			while (tamano > 0) {
+				int actual = extraer();
+				if (cerrado[actual])
+					continue;
+				cerrado[actual] = true;
+				expandidas++;
+				int parada = actual >> 1;
+				int hora = llegada[actual];
+				if (actual == destino * 2 + BAJO)
+					return true;
+
+				// Colectivos: próxima pasada de cada línea y viaje hasta la parada siguiente
+				int[] lineas = red.getLineasParada(parada);
+				int[] posiciones = red.getPosicionesParada(parada);
+				for (int i = 0; i < lineas.length; i++) {
+					int l = lineas[i];
+					int p = posiciones[i];
+					int[] paradasLinea = red.getParadasLinea(l);
+					if (p + 1 >= paradasLinea.length)
+						continue;
+					int pasada = red.proximaPasada(l, diaSemana, hora, p);
+					if (pasada == RedCompilada.NINGUNA || pasada >= horizonte)
+						continue;
+					int[] acumulados = red.getTiemposAcumulados(l);
+					int siguiente = paradasLinea[p + 1];
+					int arribo = pasada + acumulados[p + 1] - acumulados[p];
+					relajar(siguiente * 2 + BAJO, arribo, POR_COLECTIVO, actual, l, p, pasada, siguiente, conCota);
+				}
+
+				// Caminatas: solo al bajar de un colectivo y sin llegar caminando al destino
+				if ((actual & 1) != BAJO || parada == origen)
+					continue;
+				for (int e = red.getInicioCaminando(parada), fin = red.getFinTramos(parada); e < fin; e++) {
+					int q = destinos[e];
+					if (q == destino || q == origen)
+						continue;
+					relajar(q * 2 + A_PIE, hora + tiempos[e], POR_CAMINATA, actual, -1, e, hora, q, conCota);
+				}
+			}
+			return false;
+		}
+
+		private void relajar(int siguiente, int arribo, byte tipo, int padre, int linea, int posicion, int salida,
+				int parada, boolean conCota) {
+			if (cerrado[siguiente] || arribo >= llegada[siguiente])
+				return;
+			int restante = cota(parada, conCota);
+			if (restante == INFINITO)
+				return;
+			actualizar(siguiente, arribo, tipo, padre, linea, posicion, salida);
+			agregar(siguiente, arribo + restante);
+		}
+
+		private void actualizar(int estado, int arribo, byte tipo, int padre, int linea, int posicion, int salida) {
+			if (llegada[estado] == INFINITO && !cerrado[estado])
+				tocados[cantidadTocados++] = estado;
+			llegada[estado] = arribo;
+			tipoPadre[estado] = tipo;
+			estadoPadre[estado] = padre;
+			lineaPadre[estado] = linea;
+			posicionPadre[estado] = posicion;
+			salidaPadre[estado] = salida;
+		}
+
+		/** Segundos que como mínimo faltan desde la parada hasta el destino, o {@link #INFINITO}. */
+		private int cota(int parada, boolean conCota) {
+			return conCota ? cota[parada] : 0;
+		}
+
+		/** Deja los arreglos como nuevos recorriendo solo lo que tocó la consulta anterior. */
+		private void reiniciar() {
+			for (int i = 0; i < cantidadTocados; i++) {
+				llegada[tocados[i]] = INFINITO;
+				cerrado[tocados[i]] = false;
+			}
+			cantidadTocados = 0;
+			tamano = 0;
+		}
+
+		private void agregar(int estado, int prioridad) {
+			if (tamano == monticulo.length)
+				monticulo = Arrays.copyOf(monticulo, tamano * 2);
+			long elemento = ((long) prioridad << 32) | estado;
+			int i = tamano++;
+			while (i > 0) {
+				int padre = (i - 1) >>> 1;
+				if (monticulo[padre] <= elemento)
+					break;
+				monticulo[i] = monticulo[padre];
+				i = padre;
+			}
+			monticulo[i] = elemento;
+		}
+
+		private int extraer() {
+			long primero = monticulo[0];
+			long ultimo = monticulo[--tamano];
+			int i = 0;
+			while (true) {
+				int hijo = 2 * i + 1;
+				if (hijo >= tamano)
+					break;
+				if (hijo + 1 < tamano && monticulo[hijo + 1] < monticulo[hijo])
+					hijo++;
+				if (ultimo <= monticulo[hijo])
+					break;
+				monticulo[i] = monticulo[hijo];
+				i = hijo;
+			}
+			monticulo[i] = ultimo;
+			return (int) primero;
+		}
+
+		/**
+		 * Reconstruye el recorrido desde el destino. Los tramos consecutivos en la misma
+		 * línea sin espera corresponden al mismo colectivo y se unen en un solo recorrido.
+		 */
+		List<Recorrido> reconstruir(int destino) {
+			List<Recorrido> tramos = new ArrayList<>();
+			int estado = destino * 2 + BAJO;
+			int[] tiempos = red.getTiempoTramos();
+			while (tipoPadre[estado] != SIN_PADRE) {
+				int padre = estadoPadre[estado];
+				if (tipoPadre[estado] == POR_CAMINATA) {
+					tramos.add(0, new Recorrido(null, Arrays.asList(red.getParada(padre >> 1),
+							red.getParada(estado >> 1)), Horario.aHora(salidaPadre[estado]),
+							tiempos[posicionPadre[estado]]));
+					estado = padre;
+					continue;
+				}
+
+				// Retrocede mientras el tramo anterior sea el mismo colectivo
+				int linea = lineaPadre[estado];
+				int arribo = llegada[estado];
+				int hasta = posicionPadre[estado] + 1;
+				int subida = estado;
+				while (tipoPadre[estadoPadre[subida]] == POR_COLECTIVO && lineaPadre[estadoPadre[subida]] == linea
+						&& posicionPadre[estadoPadre[subida]] + 1 == posicionPadre[subida]
+						&& llegada[estadoPadre[subida]] == salidaPadre[subida])
+					subida = estadoPadre[subida];
+				Linea colectivo = red.getLinea(linea);
+				int salida = salidaPadre[subida];
+				tramos.add(0, new Recorrido(colectivo,
+						colectivo.getParadas().subList(posicionPadre[subida], hasta + 1), Horario.aHora(salida),
+						arribo - salida));
+				estado = estadoPadre[subida];
+			}
+			return tramos;
+		}
+	}
+}
@@ -0,0 +1,376 @@
+package colectivo.logica;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda por escaneo de conexiones (Connection Scan Algorithm).
+ * <p>
+ * Recorre una única vez, en orden de salida, las conexiones elementales de la
+ * {@link TablaConexiones} a partir de la hora de consulta (y las del día siguiente),
+ * marcando los viajes alcanzables y la llegada más temprana a cada parada. El escaneo
+ * termina cuando la próxima conexión sale después de la mejor llegada al destino.
+ * </p>
+ * <p>
+ * Devuelve el recorrido de llegada más temprana, sin importar la cantidad de
+ * transbordos. Como en el resto de las estrategias, los tramos caminando solo
+ * conectan dos colectivos. Los arreglos de trabajo se reutilizan por hilo, por lo
+ * que la consulta solo crea los objetos del recorrido resultante.
+ * </p>
+ * <p>
+ * El mismo escaneo sin destino calcula la llegada más temprana a todas las paradas
+ * alcanzables desde un origen dentro de un tiempo máximo (isócrona), con
+ * {@link #alcanzables(Parada, int, LocalTime, Duration, RedCompilada)}.
+ * </p>
+ *
+ * @see TablaConexiones
+ * @see EstrategiaBusqueda
+ */
+public class BusquedaCSA implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaCSA.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+	private static final int SIN_VIAJE = -1;
+
+	/** Arreglos de trabajo de cada hilo, recreados cuando cambia la red. */
+	private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+	/**
+	 * Parada alcanzable desde el origen de una isócrona.
+	 *
+	 * @param parada la parada alcanzada
+	 * @param llegada hora de llegada más temprana a la parada
+	 * @param segundosViaje segundos desde la hora de consulta hasta la llegada
+	 */
+	public record Alcance(Parada parada, LocalTime llegada, int segundosViaje) {
+	}
+
+	public BusquedaCSA() {
+	}
+
+	/**
+	 * Busca el recorrido de llegada más temprana entre dos paradas.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return lista con el recorrido de llegada más temprana, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el escaneo de conexiones", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return lista con el recorrido de llegada más temprana, vacía si no hay
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		// Sin camino en el grafo de líneas no hay recorrido: se responde sin escanear
+		if (red.getGrafoLineas().minimoColectivos(origen, destino, true) == RedCompilada.NINGUNA)
+			return soluciones;
+
+		Estado estado = estado(red);
+		if (estado.escanear(origen, destino, diaSemana, hora.toSecondOfDay(), INFINITO))
+			soluciones.add(estado.reconstruir(origen, destino, diaSemana));
+
+		logger.debug("CSA: {} soluciones", soluciones.size());
+		return soluciones;
+	}
+
+	/**
+	 * Calcula en un solo escaneo la llegada más temprana a cada parada alcanzable desde el
+	 * origen sin superar un tiempo de viaje máximo. Como en las búsquedas entre dos
+	 * paradas, una parada se alcanza bajando de un colectivo; los tramos caminando solo
+	 * conectan dos colectivos. El origen se incluye con tiempo de viaje cero.
+	 *
+	 * @param paradaOrigen la parada de origen
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param tiempoMaximo tiempo de viaje máximo, de hasta un día
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return paradas alcanzables ordenadas por tiempo de viaje, vacía si el origen no está
+	 *         en la red
+	 * @throws IllegalArgumentException si algún parámetro es null, diaSemana está fuera de
+	 *         rango o tiempoMaximo es negativo o mayor a un día
+	 */
+	public List<Alcance> alcanzables(Parada paradaOrigen, int diaSemana, LocalTime hora, Duration tiempoMaximo,
+			RedCompilada red) {
+
+		if (paradaOrigen == null || hora == null || tiempoMaximo == null || red == null) {
+			logger.error("paradaOrigen, hora, tiempoMaximo y red no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, hora, tiempoMaximo y red no pueden ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+		if (tiempoMaximo.isNegative() || tiempoMaximo.getSeconds() > Constantes.SEGUNDOS_DIA) {
+			logger.error("tiempoMaximo fuera de rango: {}", tiempoMaximo);
+			throw new IllegalArgumentException("tiempoMaximo debe estar entre cero y un día");
+		}
+
+		List<Alcance> alcances = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		if (origen == RedCompilada.NINGUNA)
+			return alcances;
+
+		int salida = hora.toSecondOfDay();
+		int limite = salida + (int) tiempoMaximo.getSeconds();
+		Estado estado = estado(red);
+		estado.escanear(origen, RedCompilada.NINGUNA, diaSemana, salida, limite);
+
+		alcances.add(new Alcance(paradaOrigen, hora, 0));
+		for (int s = 0; s < red.getCantidadParadas(); s++) {
+			int arribo = estado.llegadaColectivo[s];
+			if (s != origen && arribo <= limite)
+				alcances.add(new Alcance(red.getParada(s), Horario.aHora(arribo), arribo - salida));
+		}
+		alcances.sort(Comparator.comparingInt(Alcance::segundosViaje));
+
+		logger.debug("Isócrona: {} paradas alcanzables en {}", alcances.size(), tiempoMaximo);
+		return alcances;
+	}
+
+	/**
+	 * Calcula en un solo escaneo sin límite de tiempo los segundos de viaje desde un
+	 * origen a cada parada de la red, usado para armar la matriz de tiempos. Las paradas
+	 * no alcanzables dentro del día de la consulta y el siguiente quedan en
+	 * {@link MatrizTiempos#SIN_LLEGADA}.
+	 *
+	 * @param origen índice del origen en la red
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param salida segundos del día de llegada a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @param fila arreglo de {@link RedCompilada#getCantidadParadas()} posiciones donde se
+	 *        escriben los tiempos
+	 */
+	void tiempos(int origen, int diaSemana, int salida, RedCompilada red, int[] fila) {
+		Estado estado = estado(red);
+		estado.escanear(origen, RedCompilada.NINGUNA, diaSemana, salida, INFINITO);
+		for (int s = 0; s < fila.length; s++) {
+			int arribo = estado.llegadaColectivo[s];
+			fila[s] = arribo == INFINITO ? MatrizTiempos.SIN_LLEGADA : arribo - salida;
+		}
+		fila[origen] = 0;
+	}
+
+	private static Estado estado(RedCompilada red) {
+		Estado estado = ESTADO.get();
+		if (estado == null || estado.red != red) {
+			estado = new Estado(red);
+			ESTADO.set(estado);
+		}
+		return estado;
+	}
+
+	/**
+	 * Arreglos de trabajo de una consulta. Las conexiones se referencian como
+	 * {@code posicion * 2 + dia}, con dia 0 para el día de la consulta y 1 para el siguiente.
+	 */
+	private static final class Estado {
+
+		private final RedCompilada red;
+		private final TablaConexiones tabla;
+
+		/** Mejor llegada a cada parada, en colectivo o caminando. */
+		private final int[] llegada;
+		/** Mejor llegada a cada parada bajando de un colectivo. */
+		private final int[] llegadaColectivo;
+		private final int[] subidaPadre;
+		private final int[] bajadaPadre;
+		private final boolean[] porCaminata;
+		private final int[] desdeCaminata;
+		private final int[] tiempoCaminata;
+
+		/** Conexión en la que se subió a cada viaje, o {@link #SIN_VIAJE}. */
+		private final int[] subidaViaje;
+		private final int[] viajesUsados;
+		private int cantidadViajesUsados;
+
+		Estado(RedCompilada red) {
+			this.red = red;
+			this.tabla = red.getConexiones();
+			int n = red.getCantidadParadas();
+			llegada = new int[n];
+			llegadaColectivo = new int[n];
+			subidaPadre = new int[n];
+			bajadaPadre = new int[n];
+			porCaminata = new boolean[n];
+			desdeCaminata = new int[n];
+			tiempoCaminata = new int[n];
+			subidaViaje = new int[tabla.getCantidadViajes()];
+			viajesUsados = new int[tabla.getCantidadViajes()];
+			Arrays.fill(subidaViaje, SIN_VIAJE);
+		}
+
+		/**
+		 * Escanea las conexiones del día de la consulta y del siguiente, intercalándolas
+		 * por hora de salida, hasta la mejor llegada al destino o hasta el límite. Sin
+		 * destino ({@link RedCompilada#NINGUNA}) calcula la llegada a todas las paradas.
+		 *
+		 * @return true si se alcanzó el destino
+		 */
+		boolean escanear(int origen, int destino, int diaSemana, int salida, int limite) {
+			Arrays.fill(llegada, INFINITO);
+			Arrays.fill(llegadaColectivo, INFINITO);
+			Arrays.fill(porCaminata, false);
+			for (int i = 0; i < cantidadViajesUsados; i++)
+				subidaViaje[viajesUsados[i]] = SIN_VIAJE;
+			cantidadViajesUsados = 0;
+			llegada[origen] = salida;
+
+			int diaSiguiente = diaSemana % 7 + 1;
+			int[] salidaHoy = tabla.getSalida(diaSemana);
+			int[] salidaManana = tabla.getSalida(diaSiguiente);
+			int i = tabla.primeraDesde(diaSemana, salida);
+			int j = 0;
+
+			while (i < salidaHoy.length || j < salidaManana.length) {
+				int salidaI = i < salidaHoy.length ? salidaHoy[i] : INFINITO;
+				int salidaJ = j < salidaManana.length ? salidaManana[j] + Constantes.SEGUNDOS_DIA : INFINITO;
+				int cota = destino == RedCompilada.NINGUNA ? limite : Math.min(limite, llegadaColectivo[destino]);
+				int referencia;
+				if (salidaI <= salidaJ) {
+					if (salidaI > cota)
+						break;
+					referencia = i++ * 2;
+				} else {
+					if (salidaJ > cota)
+						break;
+					referencia = j++ * 2 + 1;
+				}
+				procesar(referencia, origen, destino, diaSemana);
+			}
+			return destino != RedCompilada.NINGUNA && llegadaColectivo[destino] != INFINITO;
+		}
+
+		private void procesar(int referencia, int origen, int destino, int diaSemana) {
+			int dia = diaDe(referencia, diaSemana);
+			int c = referencia >> 1;
+			int desplazamiento = (referencia & 1) * Constantes.SEGUNDOS_DIA;
+			int viaje = tabla.getViaje(dia)[c];
+			int salida = tabla.getSalida(dia)[c] + desplazamiento;
+
+			if (subidaViaje[viaje] == SIN_VIAJE) {
+				if (llegada[tabla.getDesde(dia)[c]] > salida)
+					return;
+				subidaViaje[viaje] = referencia;
+				viajesUsados[cantidadViajesUsados++] = viaje;
+			}
+
+			int hasta = tabla.getHasta(dia)[c];
+			int arribo = tabla.getLlegada(dia)[c] + desplazamiento;
+			if (arribo >= llegadaColectivo[hasta])
+				return;
+			llegadaColectivo[hasta] = arribo;
+			subidaPadre[hasta] = subidaViaje[viaje];
+			bajadaPadre[hasta] = referencia;
+			if (arribo < llegada[hasta]) {
+				llegada[hasta] = arribo;
+				porCaminata[hasta] = false;
+			}
+			if (hasta == destino)
+				return;
+
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+			for (int k = red.getInicioCaminando(hasta), fin = red.getFinTramos(hasta); k < fin; k++) {
+				int q = destinos[k];
+				int caminando = arribo + tiempos[k];
+				if (q != destino && q != origen && caminando < llegada[q]) {
+					llegada[q] = caminando;
+					porCaminata[q] = true;
+					desdeCaminata[q] = hasta;
+					tiempoCaminata[q] = tiempos[k];
+				}
+			}
+		}
+
+		/** Reconstruye el recorrido desde el destino siguiendo subidas, bajadas y caminatas. */
+		List<Recorrido> reconstruir(int origen, int destino, int diaSemana) {
+			List<Recorrido> tramos = new ArrayList<>();
+			int s = destino;
+			boolean colectivo = true;
+			for (int pasos = 0; s != origen && pasos <= 2 * llegada.length; pasos++) {
+				if (!colectivo && porCaminata[s]) {
+					int desde = desdeCaminata[s];
+					tramos.add(0, new Recorrido(null, Arrays.asList(red.getParada(desde), red.getParada(s)),
+							Horario.aHora(llegadaColectivo[desde]), tiempoCaminata[s]));
+					s = desde;
+					colectivo = true;
+					continue;
+				}
+				int subida = subidaPadre[s];
+				int bajada = bajadaPadre[s];
+				int diaSubida = diaDe(subida, diaSemana);
+				int diaBajada = diaDe(bajada, diaSemana);
+				int salida = tabla.getSalida(diaSubida)[subida >> 1] + (subida & 1) * Constantes.SEGUNDOS_DIA;
+				int arribo = tabla.getLlegada(diaBajada)[bajada >> 1] + (bajada & 1) * Constantes.SEGUNDOS_DIA;
+				Linea linea = red.getLinea(tabla.getLineaViaje(tabla.getViaje(diaSubida)[subida >> 1]));
+				int desdePosicion = tabla.getPosicion(diaSubida)[subida >> 1];
+				int hastaPosicion = tabla.getPosicion(diaBajada)[bajada >> 1] + 1;
+				tramos.add(0, new Recorrido(linea, linea.getParadas().subList(desdePosicion, hastaPosicion + 1),
+						Horario.aHora(salida), arribo - salida));
+				s = tabla.getDesde(diaSubida)[subida >> 1];
+				colectivo = false;
+			}
+			return tramos;
+		}
+
+		private static int diaDe(int referencia, int diaSemana) {
+			return (referencia & 1) == 0 ? diaSemana : diaSemana % 7 + 1;
+		}
+	}
+}
@@ -3,13 +3,18 @@ package colectivo.logica;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
 
@@ -18,6 +23,8 @@ import colectivo.modelo.Tramo;
  * Busca combinaciones donde el usuario puede caminar entre dos paradas para conectar
  * diferentes líneas de transporte, expandiendo así las posibilidades de rutas.
  * Utiliza internamente una búsqueda directa para conectar origen-bajada y subida-destino.
+ * Solo considera los tramos caminando que unen paradas alcanzables desde el origen con
+ * paradas desde las que se llega al destino.
  */
 public class BusquedaCaminando implements EstrategiaBusqueda {
 
@@ -34,8 +41,8 @@ public class BusquedaCaminando implements EstrategiaBusqueda {
 
     /**
      * Busca recorridos que incluyen tramos caminando entre paradas.
-     * Itera sobre todos los tramos de tipo CAMINANDO y combina rutas directas
-     * (origen -> bajada) con (subida -> destino) para formar soluciones completas.
+     * Valida los parámetros y delega en {@link #buscar(Parada, Parada, int, LocalTime, RedCompilada)}
+     * con la red compilada a partir de los tramos.
      *
      * @param paradaOrigen la parada de origen del recorrido
      * @param paradaDestino la parada de destino del recorrido
@@ -58,36 +65,133 @@ public class BusquedaCaminando implements EstrategiaBusqueda {
             logger.error("conexionesParadas y todosLosTramos no pueden ser null");
             throw new IllegalArgumentException("conexionesParadas y todosLosTramos no pueden ser null");
         }
-        
+
+        try {
+            return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+        } catch (Exception e) {
+            logger.error("Error inesperado durante la búsqueda con tramo caminando", e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Busca recorridos con un tramo caminando usando las conexiones de la red compilada.
+     * Solo se evalúan los tramos caminando que salen de una parada posterior al origen en
+     * alguna de sus líneas y llegan a una parada anterior al destino en alguna de las suyas;
+     * el resto no puede formar parte de una solución. Las rutas directas de cada parada de
+     * bajada se calculan una sola vez por consulta y las de cada parada de subida, una vez
+     * por hora de llegada caminando a ella.
+     *
+     * @param paradaOrigen la parada de origen del recorrido
+     * @param paradaDestino la parada de destino del recorrido
+     * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+     * @param hora la hora de salida deseada
+     * @param red la {@link RedCompilada} con los tramos que salen de cada parada
+     * @return lista de listas de recorridos, cada lista representa una solución completa
+     */
+    @Override
+    public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+                                        RedCompilada red) {
+        return buscar(paradaOrigen, paradaDestino, diaSemana, hora, red, null, null);
+    }
+
+    /**
+     * Busca los k mejores recorridos con un tramo caminando. Cada combinación de ruta
+     * inicial, tramo caminando y línea final se evalúa en segundos: la ruta inicial con su
+     * resumen y la línea final con su próxima pasada desde la llegada caminando. Solo se
+     * arman los recorridos que quedan entre los k mejores.
+     *
+     * @param paradaOrigen la parada de origen del recorrido
+     * @param paradaDestino la parada de destino del recorrido
+     * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+     * @param hora la hora de salida deseada
+     * @param red la {@link RedCompilada} con los tramos que salen de cada parada
+     * @param k cantidad máxima de recorridos a devolver
+     * @param criterio el {@link Criterio} de orden
+     * @return hasta k recorridos ordenados según el criterio
+     * @throws IllegalArgumentException si k es menor a 1 o criterio es null
+     */
+    @Override
+    public List<List<Recorrido>> buscarMejores(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+                                               LocalTime hora, RedCompilada red, int k, Criterio criterio) {
+        if (criterio == null) {
+            logger.error("criterio no puede ser null");
+            throw new IllegalArgumentException("criterio no puede ser null");
+        }
+        MejoresK<List<Recorrido>> mejores = new MejoresK<>(k);
+        buscar(paradaOrigen, paradaDestino, diaSemana, hora, red, mejores, criterio);
+        return mejores.ordenados();
+    }
+
+    /**
+     * Combina las rutas directas con los tramos caminando. Sin montículo agrega todas las
+     * combinaciones a la lista devuelta; con montículo solo arma las que entran en él.
+     */
+    private List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+                                         RedCompilada red, MejoresK<List<Recorrido>> mejores, Criterio criterio) {
+
         List<List<Recorrido>> soluciones = new ArrayList<>();
-        
+        Map<Parada, List<Tramo>> conexionesParadas = red.getConexionesParadas();
+        Map<String, Tramo> todosLosTramos = red.getTramos();
+        int[] destinos = red.getDestinoTramos();
+        int[] tiempos = red.getTiempoTramos();
+
         try {
-            for (Tramo tramoCaminando : todosLosTramos.values()) {
-                if (tramoCaminando.getTipo() == Constantes.CAMINANDO) {
+            Set<Parada> paradasSubida = paradasAnteriores(paradaDestino);
+            if (paradasSubida.isEmpty())
+                return soluciones;
 
-                    Parada paradaBajada = tramoCaminando.getInicio();
-                    Parada paradaSubida = tramoCaminando.getFin();
+            // Las rutas finales dependen de la parada de subida y de la hora en que se llega a
+            // ella caminando, en segundos desde el inicio del día de la consulta
+            Map<Long, List<List<Recorrido>>> rutasFinalesPorSubida = new HashMap<>();
+            int segundos = Horario.segundos(hora);
+            for (Parada paradaBajada : paradasPosteriores(paradaOrigen)) {
+                // Cancelada desde BusquedaConcurrente: el resultado ya no se usa
+                if (Thread.currentThread().isInterrupted())
+                    break;
+                List<List<Recorrido>> rutasIniciales = null;
+                int[] llegadasBajada = null;
+                List<Criterio.Resumen> resumenesIniciales = null;
+                int bajada = red.indice(paradaBajada);
+                if (bajada == RedCompilada.NINGUNA)
+                    continue;
+
+                for (int e = red.getInicioCaminando(bajada), ultimo = red.getFinTramos(bajada); e < ultimo; e++) {
+                    Parada paradaSubida = red.getParada(destinos[e]);
+                    if (!paradasSubida.contains(paradaSubida))
+                        continue;
 
                     // Origen -> Bajada
-                    List<List<Recorrido>> rutasIniciales = busquedaDirecta.buscar(paradaOrigen, paradaBajada, diaSemana, hora, conexionesParadas, todosLosTramos);
-                    if (!rutasIniciales.isEmpty()) {
-                        // Subida -> Destino
-                        List<List<Recorrido>> rutasFinales = busquedaDirecta.buscar(paradaSubida, paradaDestino, diaSemana, hora, conexionesParadas, todosLosTramos);
-                        if (!rutasFinales.isEmpty()) {
-                            for (List<Recorrido> inicio : rutasIniciales) {
-                                for (List<Recorrido> fin : rutasFinales) {
-                                    Recorrido ultimoInicio = inicio.getLast();
-                                    LocalTime horaInicioCaminando = ultimoInicio.getHoraSalida().plusSeconds(ultimoInicio.getDuracion());
-                                    Recorrido recorridoCaminando = new Recorrido(null, Arrays.asList(paradaBajada, paradaSubida), horaInicioCaminando, tramoCaminando.getTiempo());
-
-                                    List<Recorrido> solucionCompleta = new ArrayList<>(inicio);
-                                    solucionCompleta.add(recorridoCaminando);
-                                    solucionCompleta.addAll(fin);
-                                    soluciones.add(solucionCompleta);
-                                }
-                            }
+                    if (rutasIniciales == null) {
+                        rutasIniciales = busquedaDirecta.buscar(paradaOrigen, paradaBajada, diaSemana, hora, conexionesParadas, todosLosTramos);
+                        resumenesIniciales = rutasIniciales.stream().map(Criterio::resumir).toList();
+                        llegadasBajada = new int[rutasIniciales.size()];
+                        for (int i = 0; i < llegadasBajada.length; i++) {
+                            Criterio.Resumen resumen = resumenesIniciales.get(i);
+                            llegadasBajada[i] = segundos + Horario.espera(segundos, resumen.salida()) + resumen.recorrido();
                         }
                     }
+                    if (rutasIniciales.isEmpty())
+                        break;
+
+                    for (int i = 0; i < rutasIniciales.size(); i++) {
+                        List<Recorrido> inicio = rutasIniciales.get(i);
+
+                        // Subida -> Destino, desde la llegada caminando a la parada de subida
+                        int llegadaSubida = llegadasBajada[i] + tiempos[e];
+                        if (mejores != null) {
+                            agregarMejores(red, inicio, resumenesIniciales.get(i), paradaSubida, paradaDestino,
+                                    diaSemana, segundos, llegadaSubida, tiempos[e], mejores, criterio);
+                            continue;
+                        }
+                        long subida = ((long) destinos[e] << 32) | llegadaSubida;
+                        List<List<Recorrido>> rutasFinales = rutasFinalesPorSubida.computeIfAbsent(subida,
+                                s -> busquedaDirecta.buscar(paradaSubida, paradaDestino,
+                                        diaDe(diaSemana, llegadaSubida), Horario.aHora(llegadaSubida),
+                                        conexionesParadas, todosLosTramos));
+                        for (List<Recorrido> fin : rutasFinales)
+                            soluciones.add(combinar(inicio, paradaSubida, tiempos[e], fin));
+                    }
                 }
             }
         } catch (Exception e) {
@@ -95,4 +199,83 @@ public class BusquedaCaminando implements EstrategiaBusqueda {
         }
         return soluciones;
     }
+
+    /**
+     * Agrega al montículo las combinaciones de una ruta inicial y un tramo caminando con
+     * cada línea que va de la parada de subida al destino. La pasada de cada línea se busca
+     * con {@link RedCompilada#proximaPasada(int, int, int, int)} desde la llegada caminando
+     * y el {@link Recorrido} final solo se crea si la combinación entra en el montículo.
+     * La clave es la de {@link Criterio#clave(List, LocalTime)} sobre el recorrido armado.
+     */
+    private static void agregarMejores(RedCompilada red, List<Recorrido> inicio, Criterio.Resumen resumenInicio,
+                                       Parada paradaSubida, Parada paradaDestino, int diaSemana, int hora,
+                                       int llegadaSubida, int caminando, MejoresK<List<Recorrido>> mejores,
+                                       Criterio criterio) {
+        for (Linea linea : paradaSubida.getLineas()) {
+            int l = red.indice(linea);
+            int posicionSubida = linea.getPosicion(paradaSubida);
+            int posicionDestino = linea.getPosicion(paradaDestino);
+            if (l == RedCompilada.NINGUNA || posicionDestino <= posicionSubida)
+                continue;
+            int pasada = red.proximaPasada(l, diaSemana, llegadaSubida, posicionSubida);
+            if (pasada == RedCompilada.NINGUNA)
+                continue;
+            int[] acumulados = red.getTiemposAcumulados(l);
+            int duracion = acumulados[posicionDestino] - acumulados[posicionSubida];
+
+            long clave = criterio.clave(pasada + duracion - hora, resumenInicio.duracion() + caminando + duracion,
+                    resumenInicio.colectivos() + 1);
+            if (!mejores.entra(clave))
+                continue;
+            Recorrido fin = new Recorrido(linea, linea.getParadas().subList(posicionSubida, posicionDestino + 1),
+                    Horario.aHora(pasada), duracion);
+            mejores.agregar(clave, combinar(inicio, paradaSubida, caminando, List.of(fin)));
+        }
+    }
+
+    /** Arma la solución completa: ruta inicial, tramo caminando hasta la subida y ruta final. */
+    private static List<Recorrido> combinar(List<Recorrido> inicio, Parada paradaSubida, int caminando,
+                                            List<Recorrido> fin) {
+        Recorrido ultimoInicio = inicio.getLast();
+        LocalTime horaInicioCaminando = ultimoInicio.getHoraSalida().plusSeconds(ultimoInicio.getDuracion());
+        Recorrido recorridoCaminando = new Recorrido(null,
+                Arrays.asList(ultimoInicio.getParadas().getLast(), paradaSubida), horaInicioCaminando, caminando);
+
+        List<Recorrido> solucionCompleta = new ArrayList<>(inicio);
+        solucionCompleta.add(recorridoCaminando);
+        solucionCompleta.addAll(fin);
+        return solucionCompleta;
+    }
+
+    /** Día de la semana que corresponde a segundos contados desde el inicio del día de la consulta. */
+    private static int diaDe(int diaSemana, int segundos) {
+        return (diaSemana - 1 + segundos / Constantes.SEGUNDOS_DIA) % 7 + 1;
+    }
+
+    /**
+     * Paradas a las que se puede llegar en colectivo desde la parada, en alguna de sus líneas.
+     */
+    private static Set<Parada> paradasPosteriores(Parada parada) {
+        Set<Parada> posteriores = new LinkedHashSet<>();
+        for (Linea linea : parada.getLineas()) {
+            List<Parada> paradas = linea.getParadas();
+            for (int i = linea.getPosicion(parada) + 1; i < paradas.size(); i++)
+                posteriores.add(paradas.get(i));
+        }
+        return posteriores;
+    }
+
+    /**
+     * Paradas desde las que se puede llegar en colectivo a la parada, en alguna de sus líneas.
+     */
+    private static Set<Parada> paradasAnteriores(Parada parada) {
+        Set<Parada> anteriores = new HashSet<>();
+        for (Linea linea : parada.getLineas()) {
+            List<Parada> paradas = linea.getParadas();
+            int posicion = linea.getPosicion(parada);
+            for (int i = 0; i < posicion; i++)
+                anteriores.add(paradas.get(i));
+        }
+        return anteriores;
+    }
 }
@@ -3,24 +3,24 @@ package colectivo.logica;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import colectivo.logica.TablaTransbordos.Transbordo;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
-import colectivo.util.CalculosAuxiliares;
 
 /**
  * Estrategia de búsqueda que encuentra recorridos con un transbordo entre dos líneas.
  * Busca combinaciones donde el usuario toma una primera línea desde el origen hasta una
  * parada de transbordo, y luego cambia a otra línea para llegar al destino final.
  * La parada de transbordo debe ser común a ambas líneas y estar en la ruta correcta.
+ * Las paradas de transbordo de cada par de líneas se obtienen de la
+ * {@link TablaTransbordos} calculada al compilar la red.
  */
 public class BusquedaConTransbordo implements EstrategiaBusqueda {
 
@@ -31,8 +31,8 @@ public class BusquedaConTransbordo implements EstrategiaBusqueda {
 
 	/**
 	 * Busca recorridos que requieren un transbordo entre dos líneas diferentes.
-	 * Itera sobre las líneas del origen y destino, busca paradas comunes de transbordo
-	 * y construye soluciones de dos tramos que conectan origen-transbordo-destino.
+	 * Valida los parámetros y delega en {@link #buscar(Parada, Parada, int, LocalTime, RedCompilada)}
+	 * con la red compilada a partir de los tramos.
 	 *
 	 * @param paradaOrigen la parada de origen del recorrido
 	 * @param paradaDestino la parada de destino del recorrido
@@ -60,43 +60,87 @@ public class BusquedaConTransbordo implements EstrategiaBusqueda {
 			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
 		}
 
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda con transbordo", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Busca recorridos con un transbordo usando la tabla de transbordos de la red.
+	 * Para cada par de líneas (una del origen y otra del destino) evalúa todas las paradas
+	 * de transbordo válidas y se queda con la que llega antes al destino; a igual llegada
+	 * se prefiere el transbordo más cercano al origen. Los candidatos se evalúan con
+	 * horarios en segundos ({@link Horario}) y solo se crean los {@link Recorrido} del
+	 * mejor transbordo de cada par.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de salida deseada desde el origen
+	 * @param red la {@link RedCompilada} con la tabla de transbordos
+	 * @return lista de listas de recorridos, cada lista contiene dos recorridos (tramo1 y tramo2)
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+
 		List<List<Recorrido>> soluciones = new ArrayList<>();
+		TablaTransbordos tabla = red.getTransbordos();
+		int segundos = Horario.segundos(hora);
 
 		try {
 			for (Linea lineaOrigen : paradaOrigen.getLineas()) {
-				List<Parada> paradasOrigen = lineaOrigen.getParadas();
-				int indiceOrigen = paradasOrigen.indexOf(paradaOrigen);
+				int origen = red.indice(lineaOrigen);
+				if (origen == RedCompilada.NINGUNA)
+					continue;
+				int[] acumuladosOrigen = red.getTiemposAcumulados(origen);
+				int indiceOrigen = lineaOrigen.getPosicion(paradaOrigen);
+				int pasada1 = red.proximaPasada(origen, diaSemana, segundos, indiceOrigen);
+				if (pasada1 == RedCompilada.NINGUNA)
+					continue;
+				int salida1 = Horario.delDia(pasada1);
 
 				for (Linea lineaDestino : paradaDestino.getLineas()) {
-					// Se busca una parada común que no sea el destino final
-					Parada interseccion = buscarParadaTransbordo(
-							paradasOrigen.subList(indiceOrigen + 1, paradasOrigen.size()), lineaDestino.getParadas(),
-							paradaDestino);
-
-					if (interseccion != null) {
-						List<Parada> paradasDestino = lineaDestino.getParadas();
-						int indiceInterseccionOrigen = paradasOrigen.indexOf(interseccion);
-						int indiceInterseccionDestino = paradasDestino.indexOf(interseccion);
-						int indiceParadaDestino = paradasDestino.indexOf(paradaDestino);
-
-						// Se verifica que el flujo del viaje sea correcto en la segunda línea
-						if (indiceParadaDestino > indiceInterseccionDestino) {
-							Recorrido tramo1 = CalculosAuxiliares.crearRecorridoColectivo(lineaOrigen, paradasOrigen,
-									indiceOrigen, indiceInterseccionOrigen, diaSemana, hora, conexionesParadas);
-							if (tramo1 != null) {
-								// Para el segundo tramo, la hora de llegada es la hora de salida del tramo1 +
-								// duración del tramo1
-								LocalTime horaLlegadaTramo2 = tramo1.getHoraSalida().plusSeconds(tramo1.getDuracion());
-
-								Recorrido tramo2 = CalculosAuxiliares.crearRecorridoColectivo(lineaDestino,
-										paradasDestino, indiceInterseccionDestino, indiceParadaDestino, diaSemana,
-										horaLlegadaTramo2, conexionesParadas);
-
-								if (tramo2 != null)
-									soluciones.add(new ArrayList<>(Arrays.asList(tramo1, tramo2)));
-							}
+					int destino = red.indice(lineaDestino);
+					if (destino == RedCompilada.NINGUNA)
+						continue;
+					int[] acumuladosDestino = red.getTiemposAcumulados(destino);
+					int indiceParadaDestino = lineaDestino.getPosicion(paradaDestino);
+
+					// Los candidatos se comparan en segundos; solo el mejor se convierte en recorridos
+					Transbordo mejor = null;
+					int mejorSalida2 = 0;
+					int mejorLlegada = Integer.MAX_VALUE;
+					for (Transbordo transbordo : tabla.getTransbordos(lineaOrigen, lineaDestino)) {
+						// El transbordo debe estar después del origen y antes del destino
+						if (transbordo.posicionOrigen() <= indiceOrigen
+								|| transbordo.posicionDestino() >= indiceParadaDestino
+								|| transbordo.parada().equals(paradaDestino))
+							continue;
+
+						// La llegada al transbordo se mantiene en segundos desde el inicio del día de
+						// la consulta: si pasa la medianoche, el segundo tramo se busca en el día siguiente
+						int duracion1 = acumuladosOrigen[transbordo.posicionOrigen()] - acumuladosOrigen[indiceOrigen];
+						int pasada2 = red.proximaPasada(destino, diaSemana, pasada1 + duracion1,
+								transbordo.posicionDestino());
+						if (pasada2 == RedCompilada.NINGUNA)
+							continue;
+						int duracion2 = acumuladosDestino[indiceParadaDestino] - acumuladosDestino[transbordo.posicionDestino()];
+
+						int llegada = pasada2 + duracion2;
+						if (llegada < mejorLlegada) {
+							mejorLlegada = llegada;
+							mejorSalida2 = Horario.delDia(pasada2);
+							mejor = transbordo;
 						}
 					}
+					if (mejor != null)
+						soluciones.add(new ArrayList<>(Arrays.asList(
+								tramo(red, origen, indiceOrigen, mejor.posicionOrigen(), salida1),
+								tramo(red, destino, mejor.posicionDestino(), indiceParadaDestino, mejorSalida2))));
 				}
 			}
 		} catch (Exception e) {
@@ -106,31 +150,10 @@ public class BusquedaConTransbordo implements EstrategiaBusqueda {
 		return soluciones;
 	}
 
-	/**
-	 * Busca una parada común entre las paradas posteriores al origen y las paradas de la línea destino.
-	 * La parada de transbordo debe estar presente en ambas listas pero no puede ser la parada final del destino.
-	 * Este método permite encontrar el punto de conexión óptimo para realizar el cambio de línea.
-	 *
-	 * @param paradasPosterioresOrigen lista de paradas posteriores al origen en la primera línea
-	 * @param paradasLineaDestino lista de todas las paradas de la línea de destino
-	 * @param paradaDestinoFinal la parada final del destino que debe excluirse como punto de transbordo
-	 * @return la primera parada común encontrada o null si no existe intersección válida
-	 * @throws IllegalArgumentException si algún parámetro es null
-	 */
-	private Parada buscarParadaTransbordo(List<Parada> paradasPosterioresOrigen, List<Parada> paradasLineaDestino,
-			Parada paradaDestinoFinal) {
-        if (paradasPosterioresOrigen == null || paradasLineaDestino == null || paradaDestinoFinal == null) {
-            logger.error("paradasPosterioresOrigen, paradasLineaDestino y paradaDestinoFinal no pueden ser null");
-            throw new IllegalArgumentException("Parámetros de búsqueda de transbordo inválidos");
-        }
-
-		Set<Parada> paradasDestinoSet = new HashSet<>(paradasLineaDestino);
-		paradasDestinoSet.remove(paradaDestinoFinal);
-
-		for (Parada parada : paradasPosterioresOrigen)
-			if (paradasDestinoSet.contains(parada))
-				return parada;
-
-		return null;
+	/** Arma el recorrido de una línea entre dos posiciones, con salida en segundos del día. */
+	private static Recorrido tramo(RedCompilada red, int linea, int desde, int hasta, int salida) {
+		int[] acumulados = red.getTiemposAcumulados(linea);
+		return new Recorrido(red.getLinea(linea), red.getLinea(linea).getParadas().subList(desde, hasta + 1),
+				Horario.aHora(salida), acumulados[hasta] - acumulados[desde]);
 	}
-}
\ No newline at end of file
+}
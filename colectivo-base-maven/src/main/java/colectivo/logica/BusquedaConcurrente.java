@@ -0,0 +1,211 @@
+package colectivo.logica;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia que ejecuta otras estrategias en paralelo, cada una en un hilo virtual, con
+ * un plazo máximo por consulta.
+ * <p>
+ * Las estrategias se reciben en orden de preferencia (por ejemplo directa, con
+ * transbordo y caminando). En el modo por preferencia, apenas una estrategia devuelve
+ * soluciones y todas las anteriores terminaron sin soluciones, ese resultado es el
+ * aceptado y se cancelan las posteriores: se obtiene la misma respuesta que al
+ * ejecutarlas una tras otra, con la demora de la más lenta necesaria en lugar de la suma.
+ * En el modo combinado se esperan todas y se unen sus soluciones sin repetidas.
+ * </p>
+ * <p>
+ * Si se cumple el plazo se cancelan las estrategias pendientes y se responde con lo que
+ * ya terminó: la primera estrategia con soluciones según la preferencia o, en el modo
+ * combinado, la unión de las terminadas.
+ * </p>
+ *
+ * @see Calculo#calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada, EstrategiaBusqueda)
+ */
+public class BusquedaConcurrente implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaConcurrente.class);
+
+	/** Plazo por defecto de cada consulta. */
+	public static final Duration PLAZO = Duration.ofSeconds(2);
+
+	/** Ejecutor compartido: un hilo virtual nuevo por estrategia y consulta. */
+	private static final ExecutorService HILOS = Executors.newVirtualThreadPerTaskExecutor();
+
+	private final List<EstrategiaBusqueda> estrategias;
+	private final Duration plazo;
+	private final boolean combinar;
+
+	/**
+	 * Estrategias directa, con transbordo y caminando, en ese orden de preferencia y con
+	 * el plazo por defecto.
+	 */
+	public BusquedaConcurrente() {
+		this(List.of(new BusquedaDirecta(), new BusquedaConTransbordo(), new BusquedaCaminando()), PLAZO, false);
+	}
+
+	/**
+	 * @param estrategias estrategias a ejecutar, en orden de preferencia
+	 * @param plazo tiempo máximo de espera por consulta
+	 * @param combinar true para unir las soluciones de todas las estrategias, false para
+	 *        quedarse con la primera que encuentra soluciones según la preferencia
+	 * @throws IllegalArgumentException si estrategias es null o vacía, o plazo es null o
+	 *         no positivo
+	 */
+	public BusquedaConcurrente(List<EstrategiaBusqueda> estrategias, Duration plazo, boolean combinar) {
+		if (estrategias == null || estrategias.isEmpty() || estrategias.stream().anyMatch(Objects::isNull)) {
+			logger.error("estrategias no puede ser null, vacía ni contener null");
+			throw new IllegalArgumentException("estrategias no puede ser null, vacía ni contener null");
+		}
+		if (plazo == null || plazo.isNegative() || plazo.isZero()) {
+			logger.error("plazo debe ser positivo: {}", plazo);
+			throw new IllegalArgumentException("plazo debe ser positivo");
+		}
+		this.estrategias = List.copyOf(estrategias);
+		this.plazo = plazo;
+		this.combinar = combinar;
+	}
+
+	/**
+	 * Compila (o reutiliza) la red de los tramos y delega en
+	 * {@link #buscar(Parada, Parada, int, LocalTime, RedCompilada)}.
+	 *
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (conexionesParadas == null || todosLosTramos == null) {
+			logger.error("conexionesParadas y todosLosTramos no pueden ser null");
+			throw new IllegalArgumentException("conexionesParadas y todosLosTramos no pueden ser null");
+		}
+		return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+	}
+
+	/**
+	 * Ejecuta las estrategias en paralelo sobre la red compilada y combina sus resultados.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @return lista de listas de recorridos, vacía si ninguna estrategia encontró solución
+	 *         dentro del plazo
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null || red == null) {
+			logger.error("paradaOrigen, paradaDestino, hora y red no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino, hora y red no pueden ser null");
+		}
+
+		int cantidad = estrategias.size();
+		List<List<List<Recorrido>>> resultados = new ArrayList<>();
+		Map<Future<List<List<Recorrido>>>, Integer> indices = new HashMap<>();
+		CompletionService<List<List<Recorrido>>> completadas = new ExecutorCompletionService<>(HILOS);
+		for (int i = 0; i < cantidad; i++) {
+			EstrategiaBusqueda estrategia = estrategias.get(i);
+			resultados.add(null);
+			indices.put(completadas.submit(() -> estrategia.buscar(paradaOrigen, paradaDestino, diaSemana, hora, red)),
+					i);
+		}
+
+		long limite = System.nanoTime() + plazo.toNanos();
+		int pendientes = cantidad;
+		try {
+			while (pendientes > 0 && (combinar || aceptada(resultados) < 0)) {
+				Future<List<List<Recorrido>>> terminada = completadas.poll(limite - System.nanoTime(),
+						TimeUnit.NANOSECONDS);
+				if (terminada == null) {
+					logger.warn("Plazo de {} ms cumplido con {} estrategias pendientes", plazo.toMillis(), pendientes);
+					break;
+				}
+				pendientes--;
+				int i = indices.get(terminada);
+				try {
+					resultados.set(i, terminada.get());
+				} catch (ExecutionException e) {
+					logger.error("Error en la estrategia {}", estrategias.get(i).getClass().getSimpleName(),
+							e.getCause());
+					resultados.set(i, List.of());
+				}
+			}
+		} catch (InterruptedException e) {
+			logger.warn("Búsqueda concurrente interrumpida");
+			Thread.currentThread().interrupt();
+		} finally {
+			for (Future<List<List<Recorrido>>> tarea : indices.keySet())
+				tarea.cancel(true);
+		}
+
+		return combinar ? unir(resultados) : primeraConSoluciones(resultados);
+	}
+
+	/**
+	 * @return índice de la estrategia cuyo resultado ya puede aceptarse (tiene soluciones
+	 *         y todas las anteriores terminaron sin soluciones), o -1 si todavía no hay
+	 */
+	private static int aceptada(List<List<List<Recorrido>>> resultados) {
+		for (int i = 0; i < resultados.size(); i++) {
+			List<List<Recorrido>> resultado = resultados.get(i);
+			if (resultado == null)
+				return -1;
+			if (!resultado.isEmpty())
+				return i;
+		}
+		return -1;
+	}
+
+	private static List<List<Recorrido>> primeraConSoluciones(List<List<List<Recorrido>>> resultados) {
+		for (List<List<Recorrido>> resultado : resultados)
+			if (resultado != null && !resultado.isEmpty())
+				return new ArrayList<>(resultado);
+		return new ArrayList<>();
+	}
+
+	/** Une las soluciones de las estrategias terminadas, sin repetir recorridos iguales. */
+	private static List<List<Recorrido>> unir(List<List<List<Recorrido>>> resultados) {
+		Map<String, List<Recorrido>> unidas = new LinkedHashMap<>();
+		for (List<List<Recorrido>> resultado : resultados)
+			if (resultado != null)
+				for (List<Recorrido> recorrido : resultado)
+					unidas.putIfAbsent(clave(recorrido), recorrido);
+		return new ArrayList<>(unidas.values());
+	}
+
+	/** Identifica un recorrido por la línea, paradas y horario de cada tramo. */
+	private static String clave(List<Recorrido> recorrido) {
+		StringBuilder sb = new StringBuilder();
+		for (Recorrido tramo : recorrido) {
+			sb.append(tramo.getLinea() == null ? "-" : tramo.getLinea().getCodigo()).append('|');
+			for (Parada parada : tramo.getParadas())
+				sb.append(parada.getCodigo()).append(',');
+			sb.append('|').append(tramo.getHoraSalida()).append('|').append(tramo.getDuracion()).append(';');
+		}
+		return sb.toString();
+	}
+}
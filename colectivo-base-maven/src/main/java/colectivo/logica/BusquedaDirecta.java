@@ -68,8 +68,8 @@ public class BusquedaDirecta implements EstrategiaBusqueda {
 			for (Linea linea : paradaOrigen.getLineas()) {
 				if (lineasDestino.contains(linea)) {
 					List<Parada> paradas = linea.getParadas();
-					int indiceOrigen = paradas.indexOf(paradaOrigen);
-					int indiceDestino = paradas.indexOf(paradaDestino);
+					int indiceOrigen = linea.getPosicion(paradaOrigen);
+					int indiceDestino = linea.getPosicion(paradaDestino);
 
 					if (indiceDestino > indiceOrigen) {
 						Recorrido recorrido = CalculosAuxiliares.crearRecorridoColectivo(linea, paradas, indiceOrigen,
@@ -0,0 +1,217 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Parada;
+
+/**
+ * Búsqueda de puntos de encuentro: las paradas a las que un grupo de personas, cada una
+ * desde su propio origen, llega mejor saliendo todas a la misma hora.
+ * <p>
+ * Es el escaneo de conexiones de {@link BusquedaCSA} con una etiqueta por origen: las
+ * conexiones de la {@link TablaConexiones} del día de la consulta y del siguiente se
+ * recorren una sola vez en orden de salida y cada una actualiza la llegada más temprana
+ * de todos los orígenes que pueden usarla. El costo es el de un escaneo por la cantidad
+ * de orígenes, sin importar cuántas paradas se evalúen como candidatas.
+ * </p>
+ * <p>
+ * Como en la isócrona, una parada se alcanza bajando de un colectivo, los tramos
+ * caminando solo conectan dos colectivos y cada origen llega a su propia parada con
+ * tiempo de viaje cero. Solo son candidatas las paradas alcanzables desde todos los
+ * orígenes, ordenadas según el {@link Objetivo} pedido.
+ * </p>
+ *
+ * @see BusquedaCSA
+ * @see TablaConexiones
+ */
+public class BusquedaEncuentro {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaEncuentro.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	/** Valor a minimizar sobre los tiempos de viaje de todos los orígenes. */
+	public enum Objetivo {
+		/** El tiempo de viaje del que más tarda; a igual máximo, la menor suma. */
+		MAXIMO,
+		/** La suma de los tiempos de viaje; a igual suma, el menor máximo. */
+		SUMA
+	}
+
+	/**
+	 * Parada candidata para el encuentro.
+	 *
+	 * @param parada la parada de encuentro
+	 * @param segundosViaje segundos de viaje desde cada origen, en el orden de los orígenes
+	 * @param segundosMaximo el mayor de los tiempos de viaje
+	 * @param segundosTotal la suma de los tiempos de viaje
+	 */
+	public record Encuentro(Parada parada, List<Integer> segundosViaje, int segundosMaximo, long segundosTotal) {
+
+		/** @return hora en que llega el último del grupo, saliendo a la hora indicada */
+		public LocalTime llegadaUltimo(LocalTime hora) {
+			return Horario.aHora(hora.toSecondOfDay() + segundosMaximo);
+		}
+	}
+
+	public BusquedaEncuentro() {
+	}
+
+	/**
+	 * Busca las paradas que minimizan el tiempo de viaje del grupo.
+	 *
+	 * @param origenes paradas de origen de cada integrante, al menos una
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora a la que todos llegan a sus paradas de origen
+	 * @param objetivo el valor a minimizar
+	 * @param cantidad cantidad máxima de paradas a devolver
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return hasta cantidad paradas ordenadas según el objetivo, vacía si ninguna es
+	 *         alcanzable desde todos los orígenes
+	 * @throws IllegalArgumentException si algún parámetro u origen es null, no hay orígenes,
+	 *         diaSemana está fuera de rango o cantidad es menor a 1
+	 */
+	public List<Encuentro> buscar(List<Parada> origenes, int diaSemana, LocalTime hora, Objetivo objetivo,
+			int cantidad, RedCompilada red) {
+
+		if (origenes == null || hora == null || objetivo == null || red == null) {
+			logger.error("origenes, hora, objetivo y red no pueden ser null");
+			throw new IllegalArgumentException("origenes, hora, objetivo y red no pueden ser null");
+		}
+		if (origenes.isEmpty() || origenes.stream().anyMatch(Objects::isNull)) {
+			logger.error("origenes debe tener al menos una parada y ninguna null: {}", origenes);
+			throw new IllegalArgumentException("origenes debe tener al menos una parada y ninguna null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+		if (cantidad < 1) {
+			logger.error("cantidad debe ser al menos 1: {}", cantidad);
+			throw new IllegalArgumentException("cantidad debe ser al menos 1");
+		}
+
+		List<Encuentro> encuentros = new ArrayList<>();
+		int k = origenes.size();
+		int[] origen = new int[k];
+		for (int o = 0; o < k; o++) {
+			origen[o] = red.indice(origenes.get(o));
+			if (origen[o] == RedCompilada.NINGUNA)
+				return encuentros;
+		}
+
+		int salida = hora.toSecondOfDay();
+		int[] llegada = escanear(red, origen, diaSemana, salida);
+
+		int n = red.getCantidadParadas();
+		for (int s = 0; s < n; s++) {
+			Integer[] tiempos = new Integer[k];
+			int maximo = 0;
+			long total = 0;
+			boolean alcanzada = true;
+			for (int o = 0; o < k && alcanzada; o++) {
+				int arribo = llegada[s * k + o];
+				alcanzada = arribo != INFINITO;
+				if (alcanzada) {
+					tiempos[o] = arribo - salida;
+					maximo = Math.max(maximo, tiempos[o]);
+					total += tiempos[o];
+				}
+			}
+			if (alcanzada)
+				encuentros.add(new Encuentro(red.getParada(s), List.of(tiempos), maximo, total));
+		}
+
+		Comparator<Encuentro> porMaximo = Comparator.comparingInt(Encuentro::segundosMaximo);
+		Comparator<Encuentro> porTotal = Comparator.comparingLong(Encuentro::segundosTotal);
+		encuentros.sort(objetivo == Objetivo.MAXIMO ? porMaximo.thenComparing(porTotal)
+				: porTotal.thenComparing(porMaximo));
+
+		logger.debug("Encuentro: {} orígenes, {} paradas alcanzables por todos", k, encuentros.size());
+		return new ArrayList<>(encuentros.subList(0, Math.min(cantidad, encuentros.size())));
+	}
+
+	/**
+	 * Escanea las conexiones del día de la consulta y del siguiente, intercalándolas por
+	 * hora de salida, con una etiqueta por origen.
+	 *
+	 * @return llegada más temprana bajando de un colectivo de cada origen a cada parada, en
+	 *         la posición {@code parada * origenes + origen}; la del propio origen es la
+	 *         hora de salida
+	 */
+	private static int[] escanear(RedCompilada red, int[] origen, int diaSemana, int salida) {
+		TablaConexiones tabla = red.getConexiones();
+		int k = origen.length;
+		int n = red.getCantidadParadas();
+		// Los arreglos dependen de la cantidad de orígenes, por eso se crean en cada consulta
+		int[] llegada = new int[n * k];
+		int[] llegadaColectivo = new int[n * k];
+		boolean[] subido = new boolean[tabla.getCantidadViajes() * k];
+		Arrays.fill(llegada, INFINITO);
+		Arrays.fill(llegadaColectivo, INFINITO);
+		for (int o = 0; o < k; o++)
+			llegada[origen[o] * k + o] = salida;
+
+		int[] destinos = red.getDestinoTramos();
+		int[] tiempos = red.getTiempoTramos();
+		int diaSiguiente = diaSemana % 7 + 1;
+		int i = tabla.primeraDesde(diaSemana, salida);
+		int j = 0;
+		int[] salidaHoy = tabla.getSalida(diaSemana);
+		int[] salidaManana = tabla.getSalida(diaSiguiente);
+
+		while (i < salidaHoy.length || j < salidaManana.length) {
+			int salidaI = i < salidaHoy.length ? salidaHoy[i] : INFINITO;
+			int salidaJ = j < salidaManana.length ? salidaManana[j] + Constantes.SEGUNDOS_DIA : INFINITO;
+			int dia;
+			int c;
+			int desplazamiento;
+			if (salidaI <= salidaJ) {
+				dia = diaSemana;
+				c = i++;
+				desplazamiento = 0;
+			} else {
+				dia = diaSiguiente;
+				c = j++;
+				desplazamiento = Constantes.SEGUNDOS_DIA;
+			}
+
+			int viaje = tabla.getViaje(dia)[c] * k;
+			int desde = tabla.getDesde(dia)[c] * k;
+			int hasta = tabla.getHasta(dia)[c];
+			int partida = tabla.getSalida(dia)[c] + desplazamiento;
+			int arribo = tabla.getLlegada(dia)[c] + desplazamiento;
+			for (int o = 0; o < k; o++) {
+				if (!subido[viaje + o]) {
+					if (llegada[desde + o] > partida)
+						continue;
+					subido[viaje + o] = true;
+				}
+				if (arribo >= llegadaColectivo[hasta * k + o])
+					continue;
+				llegadaColectivo[hasta * k + o] = arribo;
+				if (arribo < llegada[hasta * k + o])
+					llegada[hasta * k + o] = arribo;
+				for (int e = red.getInicioCaminando(hasta), fin = red.getFinTramos(hasta); e < fin; e++) {
+					int q = destinos[e];
+					int caminando = arribo + tiempos[e];
+					if (q != origen[o] && caminando < llegada[q * k + o])
+						llegada[q * k + o] = caminando;
+				}
+			}
+		}
+
+		for (int o = 0; o < k; o++)
+			llegadaColectivo[origen[o] * k + o] = salida;
+		return llegadaColectivo;
+	}
+}
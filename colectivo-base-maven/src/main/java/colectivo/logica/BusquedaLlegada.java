@@ -0,0 +1,282 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+
+/**
+ * Búsqueda de salida más tardía: el recorrido que sale lo más tarde posible del
+ * origen y llega al destino a más tardar a una hora dada.
+ * <p>
+ * Es el escaneo de conexiones de {@link BusquedaCSA} recorrido al revés: las conexiones
+ * de la {@link TablaConexiones} se procesan de la última a la primera salida, empezando
+ * por la hora de llegada pedida, y se guarda para cada parada el horario más tarde en
+ * que se puede estar en ella y todavía llegar a tiempo. Un viaje sirve si alguna de sus
+ * conexiones posteriores baja en el destino o en una parada desde la que se llega a
+ * tiempo; el escaneo termina cuando la próxima conexión sale antes de la mejor salida ya
+ * encontrada desde el origen. Se consideran las conexiones del día de la consulta y las
+ * del anterior, de modo que una llegada de madrugada puede salir la noche previa.
+ * </p>
+ * <p>
+ * Reemplaza a repetir búsquedas hacia adelante con horarios de salida cada vez más
+ * tempranos: una consulta es un único escaneo. Como en el resto de las estrategias, los
+ * tramos caminando solo conectan dos colectivos.
+ * </p>
+ *
+ * @see BusquedaCSA
+ * @see TablaConexiones
+ */
+public class BusquedaLlegada {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaLlegada.class);
+
+	private static final int MENOS_INFINITO = Integer.MIN_VALUE;
+	private static final int SIN_VIAJE = -1;
+
+	/** Arreglos de trabajo de cada hilo, recreados cuando cambia la red. */
+	private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+	public BusquedaLlegada() {
+	}
+
+	/**
+	 * Busca el recorrido que sale más tarde del origen llegando al destino a más tardar a
+	 * la hora indicada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana de la llegada (1=lunes, 7=domingo)
+	 * @param llegadaMaxima la hora a la que se debe estar en el destino
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return lista con el recorrido de salida más tardía, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro es null o diaSemana está fuera
+	 *         de rango
+	 */
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime llegadaMaxima, RedCompilada red) {
+
+		if (paradaOrigen == null || paradaDestino == null || llegadaMaxima == null || red == null) {
+			logger.error("paradaOrigen, paradaDestino, llegadaMaxima y red no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino, llegadaMaxima y red no pueden ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		// Sin camino en el grafo de líneas no hay recorrido: se responde sin escanear
+		if (red.getGrafoLineas().minimoColectivos(origen, destino, true) == RedCompilada.NINGUNA)
+			return soluciones;
+
+		Estado estado = estado(red);
+		if (estado.escanear(origen, destino, diaSemana, llegadaMaxima.toSecondOfDay()))
+			soluciones.add(estado.reconstruir(origen, destino, diaSemana));
+
+		logger.debug("Salida más tardía: {} soluciones", soluciones.size());
+		return soluciones;
+	}
+
+	private static Estado estado(RedCompilada red) {
+		Estado estado = ESTADO.get();
+		if (estado == null || estado.red != red) {
+			estado = new Estado(red);
+			ESTADO.set(estado);
+		}
+		return estado;
+	}
+
+	/**
+	 * Arreglos de trabajo de una consulta. Las conexiones se referencian como
+	 * {@code posicion * 2 + dia}, con dia 0 para el día de la consulta y 1 para el anterior.
+	 */
+	private static final class Estado {
+
+		private final RedCompilada red;
+		private final TablaConexiones tabla;
+
+		/** Salida más tardía desde cada parada, subiendo a un colectivo o caminando. */
+		private final int[] partida;
+		/** Salida más tardía desde cada parada subiendo a un colectivo en ella. */
+		private final int[] partidaColectivo;
+		private final int[] subidaPadre;
+		private final boolean[] porCaminata;
+		private final int[] haciaCaminata;
+		private final int[] tiempoCaminata;
+
+		/** Tramos caminando invertidos: para cada parada, los tramos que llegan a ella. */
+		private final int[] inicioEntrantes;
+		private final int[] desdeEntrantes;
+		private final int[] tiempoEntrantes;
+
+		/** Conexión en la que se baja de cada viaje para llegar a tiempo, o {@link #SIN_VIAJE}. */
+		private final int[] bajadaViaje;
+		private final int[] viajesUsados;
+		private int cantidadViajesUsados;
+
+		Estado(RedCompilada red) {
+			this.red = red;
+			this.tabla = red.getConexiones();
+			int n = red.getCantidadParadas();
+			partida = new int[n];
+			partidaColectivo = new int[n];
+			subidaPadre = new int[n];
+			porCaminata = new boolean[n];
+			haciaCaminata = new int[n];
+			tiempoCaminata = new int[n];
+			bajadaViaje = new int[tabla.getCantidadViajes()];
+			viajesUsados = new int[tabla.getCantidadViajes()];
+			Arrays.fill(bajadaViaje, SIN_VIAJE);
+
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+			inicioEntrantes = new int[n + 1];
+			for (int s = 0; s < n; s++)
+				for (int k = red.getInicioCaminando(s), fin = red.getFinTramos(s); k < fin; k++)
+					inicioEntrantes[destinos[k] + 1]++;
+			for (int s = 0; s < n; s++)
+				inicioEntrantes[s + 1] += inicioEntrantes[s];
+			desdeEntrantes = new int[inicioEntrantes[n]];
+			tiempoEntrantes = new int[inicioEntrantes[n]];
+			int[] siguiente = Arrays.copyOf(inicioEntrantes, n);
+			for (int s = 0; s < n; s++)
+				for (int k = red.getInicioCaminando(s), fin = red.getFinTramos(s); k < fin; k++) {
+					int e = siguiente[destinos[k]]++;
+					desdeEntrantes[e] = s;
+					tiempoEntrantes[e] = tiempos[k];
+				}
+		}
+
+		/**
+		 * Escanea hacia atrás las conexiones del día de la consulta y del anterior,
+		 * intercalándolas por hora de salida, desde la llegada máxima hasta la mejor
+		 * salida desde el origen.
+		 *
+		 * @return true si se puede llegar a tiempo al destino
+		 */
+		boolean escanear(int origen, int destino, int diaSemana, int llegadaMaxima) {
+			Arrays.fill(partida, MENOS_INFINITO);
+			Arrays.fill(partidaColectivo, MENOS_INFINITO);
+			Arrays.fill(porCaminata, false);
+			for (int i = 0; i < cantidadViajesUsados; i++)
+				bajadaViaje[viajesUsados[i]] = SIN_VIAJE;
+			cantidadViajesUsados = 0;
+
+			// Solo las conexiones que salen hasta la llegada máxima pueden llegar a tiempo
+			int diaAnterior = (diaSemana + 5) % 7 + 1;
+			int[] salidaHoy = tabla.getSalida(diaSemana);
+			int[] salidaAyer = tabla.getSalida(diaAnterior);
+			int i = tabla.primeraDesde(diaSemana, llegadaMaxima + 1) - 1;
+			int j = tabla.primeraDesde(diaAnterior, llegadaMaxima + Constantes.SEGUNDOS_DIA + 1) - 1;
+
+			while (i >= 0 || j >= 0) {
+				int salidaI = i >= 0 ? salidaHoy[i] : MENOS_INFINITO;
+				int salidaJ = j >= 0 ? salidaAyer[j] - Constantes.SEGUNDOS_DIA : MENOS_INFINITO;
+				int referencia;
+				if (salidaI >= salidaJ) {
+					if (salidaI < partidaColectivo[origen])
+						break;
+					referencia = i-- * 2;
+				} else {
+					if (salidaJ < partidaColectivo[origen])
+						break;
+					referencia = j-- * 2 + 1;
+				}
+				procesar(referencia, origen, destino, diaSemana, llegadaMaxima);
+			}
+			return partidaColectivo[origen] != MENOS_INFINITO;
+		}
+
+		private void procesar(int referencia, int origen, int destino, int diaSemana, int llegadaMaxima) {
+			int dia = diaDe(referencia, diaSemana);
+			int c = referencia >> 1;
+			int desplazamiento = (referencia & 1) * Constantes.SEGUNDOS_DIA;
+			int viaje = tabla.getViaje(dia)[c];
+
+			if (bajadaViaje[viaje] == SIN_VIAJE) {
+				int hasta = tabla.getHasta(dia)[c];
+				int arribo = tabla.getLlegada(dia)[c] - desplazamiento;
+				boolean aTiempo = hasta == destino ? arribo <= llegadaMaxima : arribo <= partida[hasta];
+				if (!aTiempo)
+					return;
+				bajadaViaje[viaje] = referencia;
+				viajesUsados[cantidadViajesUsados++] = viaje;
+			}
+
+			int desde = tabla.getDesde(dia)[c];
+			int salida = tabla.getSalida(dia)[c] - desplazamiento;
+			if (salida <= partidaColectivo[desde])
+				return;
+			partidaColectivo[desde] = salida;
+			subidaPadre[desde] = referencia;
+			if (salida > partida[desde]) {
+				partida[desde] = salida;
+				porCaminata[desde] = false;
+			}
+			if (desde == destino || desde == origen)
+				return;
+
+			// Se puede bajar en otra parada y caminar hasta esta antes de la salida
+			for (int k = inicioEntrantes[desde], fin = inicioEntrantes[desde + 1]; k < fin; k++) {
+				int p = desdeEntrantes[k];
+				int caminando = salida - tiempoEntrantes[k];
+				if (p != destino && caminando > partida[p]) {
+					partida[p] = caminando;
+					porCaminata[p] = true;
+					haciaCaminata[p] = desde;
+					tiempoCaminata[p] = tiempoEntrantes[k];
+				}
+			}
+		}
+
+		/** Reconstruye el recorrido desde el origen siguiendo subidas, bajadas y caminatas. */
+		List<Recorrido> reconstruir(int origen, int destino, int diaSemana) {
+			List<Recorrido> tramos = new ArrayList<>();
+			int s = origen;
+			boolean colectivo = true;
+			int actual = partidaColectivo[origen];
+			for (int pasos = 0; s != destino && pasos <= 2 * partida.length; pasos++) {
+				if (!colectivo && porCaminata[s]) {
+					int hacia = haciaCaminata[s];
+					tramos.add(new Recorrido(null, Arrays.asList(red.getParada(s), red.getParada(hacia)),
+							Horario.aHora(actual), tiempoCaminata[s]));
+					s = hacia;
+					colectivo = true;
+					continue;
+				}
+				int subida = subidaPadre[s];
+				int diaSubida = diaDe(subida, diaSemana);
+				int viaje = tabla.getViaje(diaSubida)[subida >> 1];
+				int bajada = bajadaViaje[viaje];
+				int diaBajada = diaDe(bajada, diaSemana);
+				int salida = tabla.getSalida(diaSubida)[subida >> 1] - (subida & 1) * Constantes.SEGUNDOS_DIA;
+				int arribo = tabla.getLlegada(diaBajada)[bajada >> 1] - (bajada & 1) * Constantes.SEGUNDOS_DIA;
+				Linea linea = red.getLinea(tabla.getLineaViaje(viaje));
+				int desdePosicion = tabla.getPosicion(diaSubida)[subida >> 1];
+				int hastaPosicion = tabla.getPosicion(diaBajada)[bajada >> 1] + 1;
+				tramos.add(new Recorrido(linea, linea.getParadas().subList(desdePosicion, hastaPosicion + 1),
+						Horario.aHora(salida), arribo - salida));
+				s = tabla.getHasta(diaBajada)[bajada >> 1];
+				actual = arribo;
+				colectivo = false;
+			}
+			return tramos;
+		}
+
+		private static int diaDe(int referencia, int diaSemana) {
+			return (referencia & 1) == 0 ? diaSemana : (diaSemana + 5) % 7 + 1;
+		}
+	}
+}
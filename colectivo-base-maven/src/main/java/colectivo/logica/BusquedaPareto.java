@@ -0,0 +1,383 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda multicriterio por rondas (McRAPTOR) sobre la {@link RedCompilada}.
+ * <p>
+ * Devuelve el conjunto de Pareto de los recorridos según tres criterios: hora de
+ * llegada, cantidad de transbordos y segundos caminando. Un recorrido se descarta solo
+ * si otro es igual o mejor en los tres criterios, por lo que un directo que llega tarde
+ * y un recorrido con transbordo que llega antes se devuelven juntos.
+ * </p>
+ * <p>
+ * Cada parada guarda una bolsa de etiquetas no dominadas. Las etiquetas parciales se
+ * descartan apenas las domina otra de la misma parada o una de las ya llegadas al
+ * destino (los tres criterios solo pueden empeorar al extender un recorrido), lo que
+ * mantiene las bolsas chicas y acota el trabajo de cada ronda.
+ * </p>
+ * <p>
+ * Como en el resto de las estrategias, los tramos caminando solo conectan dos colectivos.
+ * </p>
+ *
+ * @see BusquedaRaptor
+ * @see RedCompilada
+ */
+public class BusquedaPareto implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaPareto.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	/** Orden de las soluciones: llegada, luego transbordos y luego caminata. */
+	private static final Comparator<Etiqueta> POR_LLEGADA = Comparator.comparingInt((Etiqueta e) -> e.llegada)
+			.thenComparingInt(e -> e.ronda).thenComparingInt(e -> e.caminata);
+
+	private final int maxRondas;
+
+	public BusquedaPareto() {
+		this(Constantes.MAX_RONDAS);
+	}
+
+	/**
+	 * @param maxRondas cantidad máxima de colectivos por recorrido
+	 * @throws IllegalArgumentException si maxRondas es menor a 1
+	 */
+	public BusquedaPareto(int maxRondas) {
+		if (maxRondas < 1) {
+			logger.error("maxRondas debe ser al menos 1: {}", maxRondas);
+			throw new IllegalArgumentException("maxRondas debe ser al menos 1");
+		}
+		this.maxRondas = maxRondas;
+	}
+
+	/**
+	 * Busca los recorridos no dominados entre dos paradas.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return recorridos del conjunto de Pareto ordenados por hora de llegada
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda multicriterio", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return recorridos del conjunto de Pareto ordenados por hora de llegada
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		int minimo = red.getGrafoLineas().minimoColectivos(origen, destino, true);
+		if (minimo == RedCompilada.NINGUNA || minimo > maxRondas)
+			return soluciones;
+
+		Rondas rondas = new Rondas(red, diaSemana, destino);
+		List<Etiqueta> llegadas = rondas.ejecutar(origen, hora.toSecondOfDay(), maxRondas);
+		llegadas.sort(POR_LLEGADA);
+		for (Etiqueta etiqueta : llegadas)
+			soluciones.add(rondas.reconstruir(etiqueta));
+
+		logger.debug("McRAPTOR: {} soluciones no dominadas", soluciones.size());
+		return soluciones;
+	}
+
+	/**
+	 * Recorrido parcial hasta una parada. Guarda los criterios y el último tramo, y
+	 * apunta a la etiqueta desde la que se tomó ese tramo.
+	 */
+	private static final class Etiqueta {
+
+		/** Llegada a la parada, en segundos desde el inicio del día de la consulta. */
+		final int llegada;
+		/** Cantidad de colectivos usados (transbordos + 1). */
+		final int ronda;
+		/** Segundos caminando acumulados. */
+		final int caminata;
+		final Etiqueta padre;
+		final int parada;
+
+		/** Último tramo en colectivo; {@code linea} es {@link RedCompilada#NINGUNA} si se llegó caminando. */
+		final int linea;
+		final int subida;
+		final int bajada;
+		final int salidaCabecera;
+
+		boolean descartada;
+
+		Etiqueta(int llegada, int ronda, int caminata, Etiqueta padre, int parada, int linea, int subida,
+				int bajada, int salidaCabecera) {
+			this.llegada = llegada;
+			this.ronda = ronda;
+			this.caminata = caminata;
+			this.padre = padre;
+			this.parada = parada;
+			this.linea = linea;
+			this.subida = subida;
+			this.bajada = bajada;
+			this.salidaCabecera = salidaCabecera;
+		}
+
+		boolean porCaminata() {
+			return linea == RedCompilada.NINGUNA && padre != null;
+		}
+
+		/**
+		 * Una etiqueta domina a otra si no es peor en ningún criterio. Una llegada caminando
+		 * no domina a una en colectivo, porque solo desde esta se puede volver a caminar.
+		 */
+		boolean domina(Etiqueta otra) {
+			return llegada <= otra.llegada && ronda <= otra.ronda && caminata <= otra.caminata
+					&& (!porCaminata() || otra.porCaminata());
+		}
+	}
+
+	/**
+	 * Servicio al que se subió en la línea que se está recorriendo, con la etiqueta
+	 * desde la que se subió.
+	 */
+	private record Abordaje(int salidaCabecera, int subida, Etiqueta etiqueta) {
+
+		boolean domina(Abordaje otro) {
+			return salidaCabecera <= otro.salidaCabecera && etiqueta.caminata <= otro.etiqueta.caminata;
+		}
+	}
+
+	/** Estado de una consulta: bolsas de etiquetas por parada y paradas marcadas por ronda. */
+	private static final class Rondas {
+
+		private final RedCompilada red;
+		private final int diaSemana;
+		private final int destino;
+
+		/** Etiquetas no dominadas de cada parada, de todas las rondas. */
+		private final List<List<Etiqueta>> bolsas;
+		/** Etiquetas agregadas en la ronda anterior, por parada. */
+		private List<List<Etiqueta>> nuevas;
+		private final int[] inicioLinea;
+
+		Rondas(RedCompilada red, int diaSemana, int destino) {
+			this.red = red;
+			this.diaSemana = diaSemana;
+			this.destino = destino;
+			int n = red.getCantidadParadas();
+			bolsas = new ArrayList<>(n);
+			for (int s = 0; s < n; s++)
+				bolsas.add(new ArrayList<>(2));
+			nuevas = crearListas(n);
+			inicioLinea = new int[red.getCantidadLineas()];
+		}
+
+		/**
+		 * Ejecuta las rondas hasta que ninguna parada mejore o se llegue al límite.
+		 *
+		 * @return las etiquetas no dominadas del destino
+		 */
+		List<Etiqueta> ejecutar(int origen, int salida, int limite) {
+			Etiqueta inicial = new Etiqueta(salida, 0, 0, null, origen, RedCompilada.NINGUNA, 0, 0, 0);
+			bolsas.get(origen).add(inicial);
+			nuevas.get(origen).add(inicial);
+
+			for (int k = 1; k <= limite; k++) {
+				List<List<Etiqueta>> anteriores = nuevas;
+				nuevas = crearListas(anteriores.size());
+
+				Arrays.fill(inicioLinea, INFINITO);
+				boolean hayLineas = false;
+				for (int s = 0; s < anteriores.size(); s++) {
+					if (anteriores.get(s).isEmpty())
+						continue;
+					int[] lineas = red.getLineasParada(s);
+					int[] posiciones = red.getPosicionesParada(s);
+					for (int i = 0; i < lineas.length; i++) {
+						if (posiciones[i] < inicioLinea[lineas[i]]) {
+							inicioLinea[lineas[i]] = posiciones[i];
+							hayLineas = true;
+						}
+					}
+				}
+				if (!hayLineas)
+					break;
+
+				boolean[] enColectivo = new boolean[anteriores.size()];
+				for (int l = 0; l < inicioLinea.length; l++)
+					if (inicioLinea[l] != INFINITO)
+						recorrerLinea(k, l, inicioLinea[l], anteriores, enColectivo);
+
+				relajarCaminatas(k, enColectivo);
+			}
+
+			List<Etiqueta> llegadas = new ArrayList<>();
+			for (Etiqueta etiqueta : bolsas.get(destino))
+				if (!etiqueta.porCaminata())
+					llegadas.add(etiqueta);
+			return llegadas;
+		}
+
+		/**
+		 * Recorre una línea desde una posición con una bolsa de servicios abordados:
+		 * en cada parada baja a los pasajeros de todos los servicios y sube a los de las
+		 * etiquetas de la ronda anterior.
+		 */
+		private void recorrerLinea(int k, int l, int desde, List<List<Etiqueta>> anteriores,
+				boolean[] enColectivo) {
+			int[] paradasLinea = red.getParadasLinea(l);
+			int[] acumulado = red.getTiemposAcumulados(l);
+			List<Abordaje> abordajes = new ArrayList<>(2);
+
+			for (int p = desde; p < paradasLinea.length; p++) {
+				int s = paradasLinea[p];
+				for (Abordaje abordaje : abordajes) {
+					Etiqueta etiqueta = new Etiqueta(abordaje.salidaCabecera() + acumulado[p], k,
+							abordaje.etiqueta().caminata, abordaje.etiqueta(), s, l, abordaje.subida(), p,
+							abordaje.salidaCabecera());
+					if (agregar(s, etiqueta))
+						enColectivo[s] = true;
+				}
+				if (s == destino)
+					continue;
+
+				for (Etiqueta previa : anteriores.get(s)) {
+					if (previa.descartada)
+						continue;
+					int salida = red.proximaSalida(l, diaSemana, previa.llegada - acumulado[p]);
+					if (salida != RedCompilada.NINGUNA)
+						agregar(abordajes, new Abordaje(salida, p, previa));
+				}
+			}
+		}
+
+		/** Extiende con un tramo caminando las paradas alcanzadas en colectivo en esta ronda. */
+		private void relajarCaminatas(int k, boolean[] enColectivo) {
+			for (int s = 0; s < enColectivo.length; s++) {
+				if (!enColectivo[s])
+					continue;
+				for (Etiqueta etiqueta : new ArrayList<>(nuevas.get(s))) {
+					if (etiqueta.descartada || etiqueta.porCaminata())
+						continue;
+					int[] destinos = red.getDestinoTramos();
+					int[] tiempos = red.getTiempoTramos();
+					for (int i = red.getInicioCaminando(s), fin = red.getFinTramos(s); i < fin; i++) {
+						if (destinos[i] == destino)
+							continue;
+						agregar(destinos[i], new Etiqueta(etiqueta.llegada + tiempos[i], k,
+								etiqueta.caminata + tiempos[i], etiqueta, destinos[i], RedCompilada.NINGUNA, 0, 0, 0));
+					}
+				}
+			}
+		}
+
+		/**
+		 * Agrega una etiqueta a la bolsa de una parada si no la domina ninguna de esa
+		 * parada ni del destino, y descarta las que pasan a estar dominadas.
+		 *
+		 * @return true si la etiqueta se agregó
+		 */
+		private boolean agregar(int s, Etiqueta etiqueta) {
+			if (s != destino && dominada(bolsas.get(destino), etiqueta))
+				return false;
+			List<Etiqueta> bolsa = bolsas.get(s);
+			if (dominada(bolsa, etiqueta))
+				return false;
+			bolsa.removeIf(otra -> {
+				if (!etiqueta.domina(otra))
+					return false;
+				otra.descartada = true;
+				return true;
+			});
+			bolsa.add(etiqueta);
+			nuevas.get(s).add(etiqueta);
+			return true;
+		}
+
+		private static boolean dominada(List<Etiqueta> bolsa, Etiqueta etiqueta) {
+			for (Etiqueta otra : bolsa)
+				if (otra.domina(etiqueta))
+					return true;
+			return false;
+		}
+
+		private static void agregar(List<Abordaje> abordajes, Abordaje abordaje) {
+			for (Abordaje otro : abordajes)
+				if (otro.domina(abordaje))
+					return;
+			abordajes.removeIf(abordaje::domina);
+			abordajes.add(abordaje);
+		}
+
+		/** Reconstruye el recorrido de una etiqueta siguiendo los padres hasta el origen. */
+		List<Recorrido> reconstruir(Etiqueta etiqueta) {
+			List<Recorrido> tramos = new ArrayList<>();
+			for (Etiqueta e = etiqueta; e.padre != null; e = e.padre) {
+				if (e.porCaminata()) {
+					tramos.add(0, new Recorrido(null, Arrays.asList(red.getParada(e.padre.parada),
+							red.getParada(e.parada)), Horario.aHora(e.padre.llegada), e.caminata - e.padre.caminata));
+				} else {
+					Linea linea = red.getLinea(e.linea);
+					int[] acumulado = red.getTiemposAcumulados(e.linea);
+					tramos.add(0, new Recorrido(linea, linea.getParadas().subList(e.subida, e.bajada + 1),
+							Horario.aHora(e.salidaCabecera + acumulado[e.subida]), acumulado[e.bajada] - acumulado[e.subida]));
+				}
+			}
+			return tramos;
+		}
+
+		private static List<List<Etiqueta>> crearListas(int n) {
+			List<List<Etiqueta>> listas = new ArrayList<>(n);
+			for (int s = 0; s < n; s++)
+				listas.add(new ArrayList<>(0));
+			return listas;
+		}
+	}
+}
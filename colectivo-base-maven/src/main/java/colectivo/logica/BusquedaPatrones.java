@@ -0,0 +1,208 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda que evalúa los {@link PatronesTransbordo} precalculados de la
+ * red en lugar de explorarla.
+ * <p>
+ * Cada patrón se evalúa contra los horarios tramo por tramo: entre una subida y una
+ * bajada se toma la primera pasada de cualquier línea que recorra ambas paradas en ese
+ * orden, y entre una bajada y la subida siguiente se suma el tramo caminando. Como los
+ * patrones de un par de paradas son pocos, la consulta no depende del tamaño de la red.
+ * </p>
+ * <p>
+ * Devuelve, igual que {@link BusquedaViajes}, el recorrido que llega antes con cada
+ * cantidad de colectivos que mejora la llegada. Si la red no tiene patrones o no se
+ * calcularon desde el origen, la consulta se resuelve con {@link BusquedaViajes}. La
+ * {@link Ciudad} prepara los patrones de su red con {@code indices.patrones=true} en
+ * config.properties.
+ * </p>
+ *
+ * @see PatronesTransbordo
+ * @see EstrategiaBusqueda
+ */
+public class BusquedaPatrones implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaPatrones.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+	/** Las pasadas se buscan, como en el resto de las estrategias, el día de la consulta y el siguiente. */
+	private static final int HORIZONTE = 2 * Constantes.SEGUNDOS_DIA;
+
+	private final BusquedaViajes sinPatrones = new BusquedaViajes();
+
+	public BusquedaPatrones() {
+	}
+
+	/**
+	 * Busca los recorridos de llegada más temprana entre dos paradas para cada cantidad
+	 * de colectivos.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return lista de recorridos ordenada por cantidad de colectivos, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda por patrones de transbordo", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return lista de recorridos ordenada por cantidad de colectivos, vacía si no hay
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return new ArrayList<>();
+		PatronesTransbordo patrones = red.getPatronesTransbordo();
+		if (patrones == null || !patrones.isCalculado(origen))
+			return sinPatrones.buscar(paradaOrigen, paradaDestino, diaSemana, hora, red);
+
+		// Mejor patrón para cada cantidad de colectivos
+		int salida = hora.toSecondOfDay();
+		int[][] candidatos = patrones.patrones(origen, destino);
+		int[] mejorLlegada = new int[Constantes.MAX_RONDAS + 1];
+		int[][] mejorPatron = new int[Constantes.MAX_RONDAS + 1][];
+		Arrays.fill(mejorLlegada, INFINITO);
+		for (int[] patron : candidatos) {
+			int colectivos = patron.length / 2;
+			int llegada = evaluar(red, patron, diaSemana, salida, null);
+			if (colectivos < mejorLlegada.length && llegada < mejorLlegada[colectivos]) {
+				mejorLlegada[colectivos] = llegada;
+				mejorPatron[colectivos] = patron;
+			}
+		}
+
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int mejor = INFINITO;
+		for (int colectivos = 1; colectivos < mejorLlegada.length; colectivos++)
+			if (mejorLlegada[colectivos] < mejor) {
+				mejor = mejorLlegada[colectivos];
+				List<Recorrido> recorrido = new ArrayList<>();
+				evaluar(red, mejorPatron[colectivos], diaSemana, salida, recorrido);
+				soluciones.add(recorrido);
+			}
+
+		logger.debug("Patrones: {} evaluados, {} soluciones", candidatos.length, soluciones.size());
+		return soluciones;
+	}
+
+	/**
+	 * Evalúa un patrón desde un horario de llegada al origen.
+	 *
+	 * @param recorrido si no es null, se le agregan los tramos del recorrido
+	 * @return llegada al destino en segundos desde el inicio del día de la consulta, o
+	 *         {@link #INFINITO} si el patrón no se puede recorrer
+	 */
+	private static int evaluar(RedCompilada red, int[] patron, int diaSemana, int salida, List<Recorrido> recorrido) {
+		int actual = salida;
+		for (int k = 0; k + 1 < patron.length; k += 2) {
+			int subida = patron[k];
+			int bajada = patron[k + 1];
+			if (k > 0 && patron[k - 1] != subida) {
+				int caminata = caminata(red, patron[k - 1], subida);
+				if (caminata == RedCompilada.NINGUNA)
+					return INFINITO;
+				if (recorrido != null)
+					recorrido.add(new Recorrido(null, Arrays.asList(red.getParada(patron[k - 1]), red.getParada(subida)),
+							Horario.aHora(actual), caminata));
+				actual += caminata;
+			}
+
+			// Primera llegada a la bajada con cualquier línea que pase por ambas paradas
+			int mejorLlegada = INFINITO;
+			int mejorLinea = RedCompilada.NINGUNA;
+			int mejorSubida = 0;
+			int mejorBajada = 0;
+			int mejorPasada = 0;
+			int[] lineas = red.getLineasParada(subida);
+			int[] posiciones = red.getPosicionesParada(subida);
+			for (int i = 0; i < lineas.length; i++) {
+				int[] paradas = red.getParadasLinea(lineas[i]);
+				int j = posiciones[i] + 1;
+				while (j < paradas.length && paradas[j] != bajada)
+					j++;
+				if (j == paradas.length)
+					continue;
+				int pasada = red.proximaPasada(lineas[i], diaSemana, actual, posiciones[i]);
+				if (pasada == RedCompilada.NINGUNA || pasada >= HORIZONTE)
+					continue;
+				int[] acumulados = red.getTiemposAcumulados(lineas[i]);
+				int llegada = pasada + acumulados[j] - acumulados[posiciones[i]];
+				if (llegada < mejorLlegada) {
+					mejorLlegada = llegada;
+					mejorLinea = lineas[i];
+					mejorSubida = posiciones[i];
+					mejorBajada = j;
+					mejorPasada = pasada;
+				}
+			}
+			if (mejorLinea == RedCompilada.NINGUNA)
+				return INFINITO;
+			if (recorrido != null) {
+				Linea linea = red.getLinea(mejorLinea);
+				recorrido.add(new Recorrido(linea, linea.getParadas().subList(mejorSubida, mejorBajada + 1),
+						Horario.aHora(mejorPasada), mejorLlegada - mejorPasada));
+			}
+			actual = mejorLlegada;
+		}
+		return actual;
+	}
+
+	/** Segundos del tramo caminando entre dos paradas, o {@link RedCompilada#NINGUNA}. */
+	private static int caminata(RedCompilada red, int desde, int hasta) {
+		int[] destinos = red.getDestinoTramos();
+		for (int e = red.getInicioCaminando(desde), fin = red.getFinTramos(desde); e < fin; e++)
+			if (destinos[e] == hasta)
+				return red.getTiempoTramos()[e];
+		return RedCompilada.NINGUNA;
+	}
+}
@@ -0,0 +1,354 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+
+/**
+ * Búsqueda de perfil (rRAPTOR): todos los recorridos óptimos que salen del origen
+ * dentro de una franja horaria.
+ * <p>
+ * Las salidas de los colectivos desde el origen dentro de la franja se procesan de la
+ * última a la primera con una búsqueda por rondas. Las etiquetas de llegada no se
+ * reinician entre salidas: lo calculado para una salida posterior sigue siendo una cota
+ * válida para las anteriores, por lo que cada nueva salida solo recorre las paradas que
+ * efectivamente mejora.
+ * </p>
+ * <p>
+ * Se devuelve el conjunto de Pareto según hora de salida (más tarde es mejor), hora de
+ * llegada y cantidad de colectivos: un recorrido aparece solo si ningún otro sale igual
+ * o más tarde, llega igual o antes y usa igual o menos colectivos. Como en el resto de las
+ * estrategias, los tramos caminando solo conectan dos colectivos.
+ * </p>
+ *
+ * @see BusquedaRaptor
+ * @see RedCompilada
+ */
+public class BusquedaPerfil {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaPerfil.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	private static final byte SIN_PADRE = 0;
+	private static final byte POR_COLECTIVO = 1;
+	private static final byte POR_CAMINATA = 2;
+
+	private final int maxRondas;
+
+	public BusquedaPerfil() {
+		this(Constantes.MAX_RONDAS);
+	}
+
+	/**
+	 * @param maxRondas cantidad máxima de colectivos por recorrido
+	 * @throws IllegalArgumentException si maxRondas es menor a 1
+	 */
+	public BusquedaPerfil(int maxRondas) {
+		if (maxRondas < 1) {
+			logger.error("maxRondas debe ser al menos 1: {}", maxRondas);
+			throw new IllegalArgumentException("maxRondas debe ser al menos 1");
+		}
+		this.maxRondas = maxRondas;
+	}
+
+	/**
+	 * Busca los recorridos óptimos que salen del origen entre dos horarios.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param desde primer horario de salida de la franja
+	 * @param hasta último horario de salida de la franja (inclusive)
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return recorridos ordenados por hora de salida y luego por llegada, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro es null, diaSemana está fuera de
+	 *         rango o hasta es anterior a desde
+	 */
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime desde,
+			LocalTime hasta, RedCompilada red) {
+
+		if (paradaOrigen == null || paradaDestino == null || desde == null || hasta == null || red == null) {
+			logger.error("paradaOrigen, paradaDestino, desde, hasta y red no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino, desde, hasta y red no pueden ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+		if (hasta.isBefore(desde)) {
+			logger.error("hasta ({}) no puede ser anterior a desde ({})", hasta, desde);
+			throw new IllegalArgumentException("hasta no puede ser anterior a desde");
+		}
+
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		int minimo = red.getGrafoLineas().minimoColectivos(origen, destino, true);
+		if (minimo == RedCompilada.NINGUNA || minimo > maxRondas)
+			return soluciones;
+
+		List<Integer> salidas = salidasDesdeOrigen(red, origen, diaSemana, desde.toSecondOfDay(),
+				hasta.toSecondOfDay());
+		Rondas rondas = new Rondas(red, diaSemana, origen, destino, hasta.toSecondOfDay(), maxRondas);
+		for (int salida : salidas) {
+			rondas.ejecutar(salida);
+			List<List<Recorrido>> nuevas = new ArrayList<>();
+			for (int k = 1; k <= maxRondas; k++)
+				if (rondas.mejoroDestino(k))
+					nuevas.add(rondas.reconstruir(k));
+			// Las salidas se procesan de la última a la primera
+			soluciones.addAll(0, nuevas);
+		}
+
+		logger.debug("Perfil: {} salidas evaluadas, {} recorridos", salidas.size(), soluciones.size());
+		return soluciones;
+	}
+
+	/**
+	 * Horarios de salida de los colectivos desde el origen dentro de la franja, del último
+	 * al primero.
+	 */
+	private static List<Integer> salidasDesdeOrigen(RedCompilada red, int origen, int diaSemana, int desde,
+			int hasta) {
+		TreeSet<Integer> salidas = new TreeSet<>(Collections.reverseOrder());
+		int[] lineas = red.getLineasParada(origen);
+		int[] posiciones = red.getPosicionesParada(origen);
+		for (int i = 0; i < lineas.length; i++) {
+			int demora = red.getTiemposAcumulados(lineas[i])[posiciones[i]];
+			for (int salidaCabecera : red.getSalidas(lineas[i], diaSemana)) {
+				int salida = salidaCabecera + demora;
+				if (salida >= desde && salida <= hasta)
+					salidas.add(salida);
+			}
+		}
+		return new ArrayList<>(salidas);
+	}
+
+	/**
+	 * Etiquetas de llegada por ronda y parada, compartidas por todas las salidas de la
+	 * franja, y los datos necesarios para reconstruir los recorridos.
+	 */
+	private static final class Rondas {
+
+		private final RedCompilada red;
+		private final int diaSemana;
+		private final int origen;
+		private final int destino;
+		/** Última salida permitida desde el origen. */
+		private final int ultimaSalida;
+		private final int limite;
+
+		private final int[][] llegada;
+		private final byte[][] tipoPadre;
+		private final int[][] lineaPadre;
+		private final int[][] subidaPadre;
+		private final int[][] bajadaPadre;
+		private final int[][] salidaPadre;
+		private final int[][] desdePadre;
+		private final int[][] caminataPadre;
+
+		/** Paradas mejoradas en la ronda anterior y en la actual de la salida en curso. */
+		private boolean[] marcadas;
+		private boolean[] marcadasRonda;
+		private final int[] inicioLinea;
+		/** Rondas en las que la salida en curso mejoró la llegada al destino. */
+		private final boolean[] mejoradoDestino;
+
+		Rondas(RedCompilada red, int diaSemana, int origen, int destino, int ultimaSalida, int limite) {
+			this.red = red;
+			this.diaSemana = diaSemana;
+			this.origen = origen;
+			this.destino = destino;
+			this.ultimaSalida = ultimaSalida;
+			this.limite = limite;
+			int n = red.getCantidadParadas();
+			llegada = new int[limite + 1][n];
+			tipoPadre = new byte[limite + 1][n];
+			lineaPadre = new int[limite + 1][n];
+			subidaPadre = new int[limite + 1][n];
+			bajadaPadre = new int[limite + 1][n];
+			salidaPadre = new int[limite + 1][n];
+			desdePadre = new int[limite + 1][n];
+			caminataPadre = new int[limite + 1][n];
+			marcadas = new boolean[n];
+			marcadasRonda = new boolean[n];
+			inicioLinea = new int[red.getCantidadLineas()];
+			mejoradoDestino = new boolean[limite + 1];
+			for (int[] fila : llegada)
+				Arrays.fill(fila, INFINITO);
+		}
+
+		/**
+		 * Ejecuta las rondas para una salida desde el origen, partiendo de las etiquetas
+		 * que dejaron las salidas posteriores.
+		 */
+		void ejecutar(int salida) {
+			Arrays.fill(mejoradoDestino, false);
+			Arrays.fill(marcadas, false);
+			llegada[0][origen] = salida;
+			marcadas[origen] = true;
+
+			for (int k = 1; k <= limite; k++) {
+				Arrays.fill(inicioLinea, INFINITO);
+				boolean hayLineas = false;
+				for (int s = 0; s < marcadas.length; s++) {
+					if (!marcadas[s])
+						continue;
+					// Con k colectivos se llega al menos tan temprano como con k - 1
+					if (llegada[k - 1][s] < llegada[k][s]) {
+						llegada[k][s] = llegada[k - 1][s];
+						tipoPadre[k][s] = SIN_PADRE;
+					}
+					int[] lineas = red.getLineasParada(s);
+					int[] posiciones = red.getPosicionesParada(s);
+					for (int i = 0; i < lineas.length; i++) {
+						if (posiciones[i] < inicioLinea[lineas[i]]) {
+							inicioLinea[lineas[i]] = posiciones[i];
+							hayLineas = true;
+						}
+					}
+				}
+				if (llegada[k - 1][destino] < llegada[k][destino]) {
+					llegada[k][destino] = llegada[k - 1][destino];
+					tipoPadre[k][destino] = SIN_PADRE;
+				}
+				if (!hayLineas)
+					return;
+
+				Arrays.fill(marcadasRonda, false);
+				for (int l = 0; l < inicioLinea.length; l++)
+					if (inicioLinea[l] != INFINITO)
+						recorrerLinea(k, l, inicioLinea[l]);
+				relajarCaminatas(k);
+
+				boolean[] anteriores = marcadas;
+				marcadas = marcadasRonda;
+				marcadasRonda = anteriores;
+			}
+		}
+
+		/**
+		 * @return true si en la ronda k la salida en curso llegó al destino antes que
+		 *         cualquier salida posterior y que con menos colectivos
+		 */
+		boolean mejoroDestino(int k) {
+			return mejoradoDestino[k] && llegada[k][destino] < llegada[k - 1][destino];
+		}
+
+		/** Recorre una línea desde una posición, subiendo al primer servicio alcanzable. */
+		private void recorrerLinea(int k, int l, int desde) {
+			int[] paradasLinea = red.getParadasLinea(l);
+			int[] acumulado = red.getTiemposAcumulados(l);
+			int salidaCabecera = RedCompilada.NINGUNA;
+			int subida = -1;
+			int llegadaSubida = INFINITO;
+
+			for (int p = desde; p < paradasLinea.length; p++) {
+				int s = paradasLinea[p];
+				if (salidaCabecera != RedCompilada.NINGUNA) {
+					int arribo = salidaCabecera + acumulado[p];
+					if (arribo < llegada[k][s] && arribo < llegada[k][destino]) {
+						llegada[k][s] = arribo;
+						tipoPadre[k][s] = POR_COLECTIVO;
+						lineaPadre[k][s] = l;
+						subidaPadre[k][s] = subida;
+						bajadaPadre[k][s] = p;
+						salidaPadre[k][s] = salidaCabecera;
+						if (s == destino)
+							mejoradoDestino[k] = true;
+						else
+							marcadasRonda[s] = true;
+					}
+				}
+				// Subir a un servicio anterior o, con el mismo servicio, desde la parada a la
+				// que se llegó antes. Desde el origen solo se sube dentro de la franja.
+				int previa = llegada[k - 1][s];
+				if (previa != INFINITO && s != destino
+						&& (salidaCabecera == RedCompilada.NINGUNA || previa <= salidaCabecera + acumulado[p])) {
+					int nueva = red.proximaSalida(l, diaSemana, previa - acumulado[p]);
+					if (s == origen && nueva != RedCompilada.NINGUNA && nueva + acumulado[p] > ultimaSalida)
+						nueva = RedCompilada.NINGUNA;
+					if (nueva != RedCompilada.NINGUNA && (salidaCabecera == RedCompilada.NINGUNA
+							|| nueva < salidaCabecera || (nueva == salidaCabecera && previa < llegadaSubida))) {
+						salidaCabecera = nueva;
+						subida = p;
+						llegadaSubida = previa;
+					}
+				}
+			}
+		}
+
+		/** Extiende con un tramo caminando las paradas alcanzadas en colectivo en esta ronda. */
+		private void relajarCaminatas(int k) {
+			List<Integer> alcanzadas = new ArrayList<>();
+			for (int s = 0; s < marcadasRonda.length; s++)
+				if (marcadasRonda[s] && tipoPadre[k][s] == POR_COLECTIVO)
+					alcanzadas.add(s);
+
+			for (int s : alcanzadas) {
+				int llegadaColectivo = llegadaEnColectivo(k, s);
+				int[] destinos = red.getDestinoTramos();
+				int[] tiempos = red.getTiempoTramos();
+				for (int i = red.getInicioCaminando(s), fin = red.getFinTramos(s); i < fin; i++) {
+					int q = destinos[i];
+					int arribo = llegadaColectivo + tiempos[i];
+					if (q != destino && arribo < llegada[k][q] && arribo < llegada[k][destino]) {
+						llegada[k][q] = arribo;
+						tipoPadre[k][q] = POR_CAMINATA;
+						desdePadre[k][q] = s;
+						caminataPadre[k][q] = tiempos[i];
+						marcadasRonda[q] = true;
+					}
+				}
+			}
+		}
+
+		private int llegadaEnColectivo(int k, int s) {
+			return salidaPadre[k][s] + red.getTiemposAcumulados(lineaPadre[k][s])[bajadaPadre[k][s]];
+		}
+
+		/** Reconstruye el recorrido que llega al destino en la ronda k. */
+		List<Recorrido> reconstruir(int ronda) {
+			List<Recorrido> tramos = new ArrayList<>();
+			int s = destino;
+			int k = ronda;
+			while (k > 0) {
+				while (k > 0 && tipoPadre[k][s] == SIN_PADRE)
+					k--;
+				if (k == 0)
+					break;
+				if (tipoPadre[k][s] == POR_CAMINATA) {
+					int desde = desdePadre[k][s];
+					tramos.add(0, new Recorrido(null, Arrays.asList(red.getParada(desde), red.getParada(s)),
+							Horario.aHora(llegadaEnColectivo(k, desde)), caminataPadre[k][s]));
+					s = desde;
+				}
+				tramos.add(0, tramoColectivo(lineaPadre[k][s], subidaPadre[k][s], bajadaPadre[k][s],
+						salidaPadre[k][s]));
+				s = red.getParadasLinea(lineaPadre[k][s])[subidaPadre[k][s]];
+				k--;
+			}
+			return tramos;
+		}
+
+		private Recorrido tramoColectivo(int l, int subida, int bajada, int salidaCabecera) {
+			Linea linea = red.getLinea(l);
+			int[] acumulado = red.getTiemposAcumulados(l);
+			return new Recorrido(linea, linea.getParadas().subList(subida, bajada + 1),
+					Horario.aHora(salidaCabecera + acumulado[subida]), acumulado[bajada] - acumulado[subida]);
+		}
+	}
+}
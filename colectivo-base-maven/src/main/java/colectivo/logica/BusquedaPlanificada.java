@@ -0,0 +1,292 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.logica.TablaTransbordos.Transbordo;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia que planifica cada consulta antes de ejecutar las búsquedas directa, con
+ * transbordo y caminando.
+ * <p>
+ * Devuelve lo mismo que ejecutarlas una tras otra y quedarse con la primera que
+ * encuentra soluciones, pero antes de cada una comprueba con datos de la
+ * {@link RedCompilada}, sin consultar horarios ni crear recorridos, si puede tener
+ * alguna solución:
+ * </p>
+ * <ul>
+ *   <li><b>Directa:</b> alguna línea pasa por el origen y después por el destino.</li>
+ *   <li><b>Con transbordo:</b> alguna línea del origen llega a una parada de la
+ *       {@link TablaTransbordos} desde la que otra línea llega al destino, es decir, en el
+ *       grafo de líneas el destino está a un transbordo.</li>
+ *   <li><b>Caminando:</b> alguna parada posterior al origen tiene un tramo caminando
+ *       hacia una parada anterior al destino.</li>
+ * </ul>
+ * <p>
+ * Antes de esas comprobaciones se consulta la cota de colectivos del
+ * {@link GrafoLineas}, que descarta en tiempo constante las búsquedas que usarían menos
+ * colectivos de los necesarios. Las que no pueden responder se omiten, de modo que la
+ * consulta va directo a la primera (y más barata) que puede hacerlo; si ninguna puede,
+ * se responde vacío sin buscar. La comprobación estima además el costo de cada búsqueda
+ * en unidades de trabajo (líneas comunes, transbordos candidatos y tramos caminando
+ * candidatos). Por cada búsqueda se acumulan ejecuciones, omisiones, tiempos y costos
+ * estimados en {@link #getEstadisticas()}, para ajustar el modelo con consultas reales.
+ * </p>
+ *
+ * @see BusquedaConcurrente
+ */
+public class BusquedaPlanificada implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaPlanificada.class);
+
+	/** Búsquedas que planifica, en orden de preferencia. */
+	public enum Paso {
+		DIRECTA(new BusquedaDirecta()),
+		TRANSBORDO(new BusquedaConTransbordo()),
+		CAMINANDO(new BusquedaCaminando());
+
+		private final EstrategiaBusqueda estrategia;
+
+		Paso(EstrategiaBusqueda estrategia) {
+			this.estrategia = estrategia;
+		}
+	}
+
+	/**
+	 * Estadísticas acumuladas de una búsqueda.
+	 *
+	 * @param paso la búsqueda
+	 * @param ejecuciones veces que se ejecutó
+	 * @param omitidas veces que el plan la descartó sin ejecutarla
+	 * @param conSoluciones ejecuciones que encontraron soluciones
+	 * @param nanos tiempo total de las ejecuciones
+	 * @param nanosMaximo tiempo de la ejecución más lenta
+	 * @param costoEstimado suma de los costos estimados de las ejecuciones
+	 */
+	public record Estadistica(Paso paso, long ejecuciones, long omitidas, long conSoluciones, long nanos,
+			long nanosMaximo, long costoEstimado) {
+
+		/** @return tiempo medio por ejecución, 0 si no se ejecutó */
+		public double nanosPromedio() {
+			return ejecuciones == 0 ? 0 : (double) nanos / ejecuciones;
+		}
+
+		/** @return tiempo medio por unidad de costo estimado, 0 si no hay costo */
+		public double nanosPorUnidad() {
+			return costoEstimado == 0 ? 0 : (double) nanos / costoEstimado;
+		}
+	}
+
+	/** Contadores de una búsqueda, seguros para varios hilos. */
+	private static final class Contadores {
+		private final LongAdder ejecuciones = new LongAdder();
+		private final LongAdder omitidas = new LongAdder();
+		private final LongAdder conSoluciones = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAccumulator nanosMaximo = new LongAccumulator(Math::max, 0);
+		private final LongAdder costoEstimado = new LongAdder();
+
+		private void reiniciar() {
+			ejecuciones.reset();
+			omitidas.reset();
+			conSoluciones.reset();
+			nanos.reset();
+			nanosMaximo.reset();
+			costoEstimado.reset();
+		}
+	}
+
+	private final Map<Paso, Contadores> contadores = new EnumMap<>(Paso.class);
+
+	public BusquedaPlanificada() {
+		for (Paso paso : Paso.values())
+			contadores.put(paso, new Contadores());
+	}
+
+	/**
+	 * Compila (o reutiliza) la red de los tramos y delega en
+	 * {@link #buscar(Parada, Parada, int, LocalTime, RedCompilada)}.
+	 *
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (conexionesParadas == null || todosLosTramos == null) {
+			logger.error("conexionesParadas y todosLosTramos no pueden ser null");
+			throw new IllegalArgumentException("conexionesParadas y todosLosTramos no pueden ser null");
+		}
+		return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+	}
+
+	/**
+	 * Ejecuta en orden de preferencia las búsquedas que pueden tener solución y devuelve
+	 * las soluciones de la primera que encuentra alguna.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @return lista de listas de recorridos, vacía si ninguna búsqueda encontró solución
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null || red == null) {
+			logger.error("paradaOrigen, paradaDestino, hora y red no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino, hora y red no pueden ser null");
+		}
+
+		for (Paso paso : Paso.values()) {
+			Contadores contador = contadores.get(paso);
+			int costo = estimarCosto(paso, paradaOrigen, paradaDestino, red);
+			if (costo == 0) {
+				contador.omitidas.increment();
+				continue;
+			}
+
+			long inicio = System.nanoTime();
+			List<List<Recorrido>> soluciones = paso.estrategia.buscar(paradaOrigen, paradaDestino, diaSemana, hora,
+					red);
+			long nanos = System.nanoTime() - inicio;
+			contador.ejecuciones.increment();
+			contador.nanos.add(nanos);
+			contador.nanosMaximo.accumulate(nanos);
+			contador.costoEstimado.add(costo);
+			logger.debug("Plan {} -> {}: {} con costo estimado {} en {} us, {} soluciones", paradaOrigen.getCodigo(),
+					paradaDestino.getCodigo(), paso, costo, nanos / 1_000, soluciones.size());
+			if (!soluciones.isEmpty()) {
+				contador.conSoluciones.increment();
+				return soluciones;
+			}
+		}
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Estima el trabajo de una búsqueda entre dos paradas sin consultar horarios.
+	 *
+	 * @param paso la búsqueda a estimar
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @return cantidad de candidatos que evaluaría la búsqueda, 0 si no puede tener solución
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	public static int estimarCosto(Paso paso, Parada paradaOrigen, Parada paradaDestino, RedCompilada red) {
+		if (paso == null || paradaOrigen == null || paradaDestino == null || red == null) {
+			logger.error("paso, paradaOrigen, paradaDestino y red no pueden ser null");
+			throw new IllegalArgumentException("paso, paradaOrigen, paradaDestino y red no pueden ser null");
+		}
+		// Cota del grafo de líneas: la directa usa un colectivo y las otras dos, dos
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen != RedCompilada.NINGUNA && destino != RedCompilada.NINGUNA) {
+			int minimo = red.getGrafoLineas().minimoColectivos(origen, destino, paso == Paso.CAMINANDO);
+			if (minimo == RedCompilada.NINGUNA || minimo > (paso == Paso.DIRECTA ? 1 : 2))
+				return 0;
+		}
+		return switch (paso) {
+		case DIRECTA -> lineasComunes(paradaOrigen, paradaDestino);
+		case TRANSBORDO -> transbordosCandidatos(paradaOrigen, paradaDestino, red.getTransbordos());
+		case CAMINANDO -> caminatasCandidatas(paradaOrigen, paradaDestino, red);
+		};
+	}
+
+	/** Líneas que pasan por el origen y después por el destino. */
+	private static int lineasComunes(Parada paradaOrigen, Parada paradaDestino) {
+		int lineas = 0;
+		for (Linea linea : paradaOrigen.getLineas()) {
+			int destino = linea.getPosicion(paradaDestino);
+			if (destino >= 0 && destino > linea.getPosicion(paradaOrigen))
+				lineas++;
+		}
+		return lineas;
+	}
+
+	/** Transbordos posteriores al origen y anteriores al destino entre sus líneas. */
+	private static int transbordosCandidatos(Parada paradaOrigen, Parada paradaDestino, TablaTransbordos tabla) {
+		int candidatos = 0;
+		for (Linea lineaOrigen : paradaOrigen.getLineas()) {
+			int indiceOrigen = lineaOrigen.getPosicion(paradaOrigen);
+			for (Linea lineaDestino : paradaDestino.getLineas()) {
+				int indiceDestino = lineaDestino.getPosicion(paradaDestino);
+				for (Transbordo transbordo : tabla.getTransbordos(lineaOrigen, lineaDestino))
+					if (transbordo.posicionOrigen() > indiceOrigen && transbordo.posicionDestino() < indiceDestino
+							&& !transbordo.parada().equals(paradaDestino))
+						candidatos++;
+			}
+		}
+		return candidatos;
+	}
+
+	/** Tramos caminando desde una parada posterior al origen hasta una anterior al destino. */
+	private static int caminatasCandidatas(Parada paradaOrigen, Parada paradaDestino, RedCompilada red) {
+		Set<Integer> anteriores = new HashSet<>();
+		for (Linea linea : paradaDestino.getLineas()) {
+			List<Parada> paradas = linea.getParadas();
+			for (int i = 0, posicion = linea.getPosicion(paradaDestino); i < posicion; i++)
+				anteriores.add(red.indice(paradas.get(i)));
+		}
+		if (anteriores.isEmpty())
+			return 0;
+
+		Set<Integer> posteriores = new LinkedHashSet<>();
+		for (Linea linea : paradaOrigen.getLineas()) {
+			List<Parada> paradas = linea.getParadas();
+			for (int i = linea.getPosicion(paradaOrigen) + 1; i < paradas.size(); i++)
+				posteriores.add(red.indice(paradas.get(i)));
+		}
+
+		int[] destinos = red.getDestinoTramos();
+		int candidatas = 0;
+		for (int bajada : posteriores) {
+			if (bajada == RedCompilada.NINGUNA)
+				continue;
+			for (int e = red.getInicioCaminando(bajada), ultimo = red.getFinTramos(bajada); e < ultimo; e++)
+				if (anteriores.contains(destinos[e]))
+					candidatas++;
+		}
+		return candidatas;
+	}
+
+	/**
+	 * @return estadísticas acumuladas de cada búsqueda, en orden de preferencia
+	 */
+	public List<Estadistica> getEstadisticas() {
+		List<Estadistica> estadisticas = new ArrayList<>();
+		for (Paso paso : Paso.values()) {
+			Contadores contador = contadores.get(paso);
+			estadisticas.add(new Estadistica(paso, contador.ejecuciones.sum(), contador.omitidas.sum(),
+					contador.conSoluciones.sum(), contador.nanos.sum(), contador.nanosMaximo.get(),
+					contador.costoEstimado.sum()));
+		}
+		return estadisticas;
+	}
+
+	/**
+	 * Vuelve a cero las estadísticas, por ejemplo al empezar una nueva medición.
+	 */
+	public void reiniciarEstadisticas() {
+		for (Contadores contador : contadores.values())
+			contador.reiniciar();
+	}
+}
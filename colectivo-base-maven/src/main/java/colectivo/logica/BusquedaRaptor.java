@@ -0,0 +1,372 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda por rondas (RAPTOR) sobre la {@link RedCompilada}.
+ * <p>
+ * Cada ronda k calcula la llegada más temprana a cada parada usando como máximo
+ * k colectivos: se recorren una sola vez las líneas que pasan por las paradas
+ * mejoradas en la ronda anterior, subiendo al primer servicio alcanzable, y luego se
+ * extienden con un tramo caminando las paradas a las que se llegó en colectivo. El
+ * costo de cada ronda es lineal en la cantidad de paradas de las líneas recorridas,
+ * sin importar la cantidad de transbordos del recorrido.
+ * </p>
+ * <p>
+ * <b>Soluciones:</b> una sola ejecución desde el origen devuelve el conjunto de Pareto
+ * entre hora de llegada y cantidad de colectivos: un recorrido por cada ronda en la que
+ * mejoró la llegada al destino, ordenados por hora de llegada. El primero es el que
+ * llega antes y el último el que usa menos colectivos.
+ * </p>
+ * <p>
+ * Los tramos caminando solo se usan para conectar dos colectivos: no se camina
+ * desde el origen ni hasta el destino. Las paradas a las que no se llega antes que al
+ * destino no se marcan, porque ningún recorrido que siga desde ellas puede mejorarlo.
+ * </p>
+ * <p>
+ * Antes de buscar se consulta la cota de colectivos del {@link GrafoLineas}: si no hay
+ * recorrido posible con el máximo de rondas se responde vacío sin ejecutarlas.
+ * </p>
+ *
+ * @see RedCompilada
+ * @see EstrategiaBusqueda
+ */
+public class BusquedaRaptor implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaRaptor.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	private static final byte SIN_PADRE = 0;
+	private static final byte POR_COLECTIVO = 1;
+	private static final byte POR_CAMINATA = 2;
+
+	private final int maxRondas;
+
+	/**
+	 * Estado de las rondas reutilizado por hilo: las consultas sucesivas de un mismo hilo
+	 * (por ejemplo en un lote) no vuelven a reservar los arreglos de etiquetas.
+	 */
+	private final ThreadLocal<Rondas> rondasPorHilo = new ThreadLocal<>();
+
+	public BusquedaRaptor() {
+		this(Constantes.MAX_RONDAS);
+	}
+
+	/**
+	 * @param maxRondas cantidad máxima de colectivos por recorrido
+	 * @throws IllegalArgumentException si maxRondas es menor a 1
+	 */
+	public BusquedaRaptor(int maxRondas) {
+		if (maxRondas < 1) {
+			logger.error("maxRondas debe ser al menos 1: {}", maxRondas);
+			throw new IllegalArgumentException("maxRondas debe ser al menos 1");
+		}
+		this.maxRondas = maxRondas;
+	}
+
+	/**
+	 * Busca los recorridos no dominados en hora de llegada y cantidad de colectivos entre
+	 * dos paradas, con cualquier cantidad de transbordos hasta el máximo configurado.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return lista de listas de recorridos ordenados por hora de llegada
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda por rondas", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return un recorrido por cada ronda que mejoró la llegada al destino, ordenados por
+	 *         hora de llegada; vacía si no hay recorrido
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return new ArrayList<>();
+
+		// Cota del grafo de líneas: sin camino o con más colectivos que rondas no hay recorrido
+		int minimo = red.getGrafoLineas().minimoColectivos(origen, destino, true);
+		if (minimo == RedCompilada.NINGUNA || minimo > maxRondas) {
+			logger.debug("RAPTOR: sin recorrido posible según el grafo de líneas");
+			return new ArrayList<>();
+		}
+
+		Rondas rondas = rondas(red, diaSemana);
+		rondas.ejecutar(origen, destino, hora.toSecondOfDay());
+
+		// Cada ronda con llegada al destino llega antes que las anteriores
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		for (int k = maxRondas; k > 0; k--)
+			if (rondas.tipoPadre[k][destino] != SIN_PADRE)
+				soluciones.add(rondas.reconstruir(k, destino));
+
+		logger.debug("RAPTOR: {} soluciones no dominadas", soluciones.size());
+		return soluciones;
+	}
+
+	/** Estado de rondas del hilo actual, reiniciado para una nueva ejecución. */
+	private Rondas rondas(RedCompilada red, int diaSemana) {
+		Rondas rondas = rondasPorHilo.get();
+		if (rondas == null || rondas.red != red) {
+			rondas = new Rondas(red, maxRondas);
+			rondasPorHilo.set(rondas);
+		}
+		rondas.reiniciar(diaSemana);
+		return rondas;
+	}
+
+	/**
+	 * Estado de una ejecución de RAPTOR: etiquetas de llegada por ronda y parada,
+	 * y los datos necesarios para reconstruir los recorridos.
+	 */
+	private static final class Rondas {
+
+		private final RedCompilada red;
+		private final int maxRondas;
+		private int diaSemana;
+
+		private final int[][] llegada;
+		private final int[] mejorLlegada;
+		private final byte[][] tipoPadre;
+		private final int[][] lineaPadre;
+		private final int[][] subidaPadre;
+		private final int[][] bajadaPadre;
+		private final int[][] salidaPadre;
+		private final int[][] desdePadre;
+		private final int[][] caminataPadre;
+
+		private final boolean[] marcadas;
+		private final int[] inicioLinea;
+
+		/** Paradas alcanzadas en colectivo en la ronda, para extenderlas caminando. */
+		private final int[] alcanzadas;
+
+		/** Reserva los arreglos para la mayor cantidad de rondas. */
+		Rondas(RedCompilada red, int maxRondas) {
+			this.red = red;
+			this.maxRondas = maxRondas;
+			int n = red.getCantidadParadas();
+			llegada = new int[maxRondas + 1][n];
+			tipoPadre = new byte[maxRondas + 1][n];
+			lineaPadre = new int[maxRondas + 1][n];
+			subidaPadre = new int[maxRondas + 1][n];
+			bajadaPadre = new int[maxRondas + 1][n];
+			salidaPadre = new int[maxRondas + 1][n];
+			desdePadre = new int[maxRondas + 1][n];
+			caminataPadre = new int[maxRondas + 1][n];
+			mejorLlegada = new int[n];
+			marcadas = new boolean[n];
+			inicioLinea = new int[red.getCantidadLineas()];
+			alcanzadas = new int[n];
+		}
+
+		/**
+		 * Prepara una nueva ejecución. Solo se limpian la ronda inicial y los tipos de
+		 * padre: las filas de llegada de cada ronda se copian de la anterior al empezarla y
+		 * el resto de los datos de padre se leen solo donde el tipo está definido.
+		 */
+		void reiniciar(int diaSemana) {
+			this.diaSemana = diaSemana;
+			Arrays.fill(llegada[0], INFINITO);
+			for (int k = 1; k <= maxRondas; k++)
+				Arrays.fill(tipoPadre[k], SIN_PADRE);
+			Arrays.fill(mejorLlegada, INFINITO);
+			Arrays.fill(marcadas, false);
+		}
+
+		/** Ejecuta las rondas hasta agotar las paradas marcadas o llegar al máximo. */
+		void ejecutar(int origen, int destino, int salida) {
+			llegada[0][origen] = salida;
+			mejorLlegada[origen] = salida;
+			marcadas[origen] = true;
+
+			for (int k = 1; k <= maxRondas; k++) {
+				System.arraycopy(llegada[k - 1], 0, llegada[k], 0, llegada[k].length);
+
+				Arrays.fill(inicioLinea, INFINITO);
+				boolean hayLineas = false;
+				for (int s = 0; s < marcadas.length; s++) {
+					if (marcadas[s]) {
+						int[] lineas = red.getLineasParada(s);
+						int[] posiciones = red.getPosicionesParada(s);
+						for (int i = 0; i < lineas.length; i++) {
+							if (posiciones[i] < inicioLinea[lineas[i]]) {
+								inicioLinea[lineas[i]] = posiciones[i];
+								hayLineas = true;
+							}
+						}
+					}
+				}
+				Arrays.fill(marcadas, false);
+				if (!hayLineas)
+					return;
+
+				for (int l = 0; l < inicioLinea.length; l++)
+					if (inicioLinea[l] != INFINITO)
+						recorrerLinea(k, l, inicioLinea[l], destino);
+
+				relajarCaminatas(k, destino);
+			}
+		}
+
+		/**
+		 * Mejora la etiqueta de una parada en la ronda si llega antes que su mejor llegada
+		 * y que la del destino. El destino no se marca: seguir desde él no lo mejora.
+		 */
+		private boolean mejorar(int k, int s, int arribo, byte tipo, int destino) {
+			if (arribo >= mejorLlegada[s] || arribo >= mejorLlegada[destino])
+				return false;
+			llegada[k][s] = arribo;
+			mejorLlegada[s] = arribo;
+			tipoPadre[k][s] = tipo;
+			marcadas[s] = s != destino;
+			return true;
+		}
+
+		/** Recorre una línea desde una posición, subiendo al primer servicio alcanzable. */
+		private void recorrerLinea(int k, int l, int desde, int destino) {
+			int[] paradasLinea = red.getParadasLinea(l);
+			int[] acumulado = red.getTiemposAcumulados(l);
+			int salidaCabecera = RedCompilada.NINGUNA;
+			int subida = -1;
+			int llegadaSubida = INFINITO;
+
+			for (int p = desde; p < paradasLinea.length; p++) {
+				int s = paradasLinea[p];
+				if (salidaCabecera != RedCompilada.NINGUNA
+						&& mejorar(k, s, salidaCabecera + acumulado[p], POR_COLECTIVO, destino)) {
+					lineaPadre[k][s] = l;
+					subidaPadre[k][s] = subida;
+					bajadaPadre[k][s] = p;
+					salidaPadre[k][s] = salidaCabecera;
+				}
+				// Subir a un servicio anterior o, con el mismo servicio, desde la parada a la
+				// que se llegó antes (se baja lo antes posible del colectivo previo)
+				int previa = llegada[k - 1][s];
+				if (previa != INFINITO
+						&& (salidaCabecera == RedCompilada.NINGUNA || previa <= salidaCabecera + acumulado[p])) {
+					int nueva = red.proximaSalida(l, diaSemana, previa - acumulado[p]);
+					if (nueva != RedCompilada.NINGUNA && (salidaCabecera == RedCompilada.NINGUNA
+							|| nueva < salidaCabecera || (nueva == salidaCabecera && previa < llegadaSubida))) {
+						salidaCabecera = nueva;
+						subida = p;
+						llegadaSubida = previa;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Extiende las paradas alcanzadas en colectivo en esta ronda con un tramo caminando.
+		 * Las caminatas parten siempre de la llegada en colectivo, aunque la etiqueta de la
+		 * parada se mejore luego con otra caminata, y nunca terminan en el destino.
+		 */
+		private void relajarCaminatas(int k, int destino) {
+			int cantidad = 0;
+			for (int s = 0; s < marcadas.length; s++)
+				if (marcadas[s] && tipoPadre[k][s] == POR_COLECTIVO)
+					alcanzadas[cantidad++] = s;
+
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+			for (int a = 0; a < cantidad; a++) {
+				int s = alcanzadas[a];
+				int llegadaColectivo = llegadaEnColectivo(k, s);
+				for (int i = red.getInicioCaminando(s), fin = red.getFinTramos(s); i < fin; i++) {
+					int q = destinos[i];
+					if (q != destino && mejorar(k, q, llegadaColectivo + tiempos[i], POR_CAMINATA, destino)) {
+						desdePadre[k][q] = s;
+						caminataPadre[k][q] = tiempos[i];
+					}
+				}
+			}
+		}
+
+		private int llegadaEnColectivo(int k, int s) {
+			return salidaPadre[k][s] + red.getTiemposAcumulados(lineaPadre[k][s])[bajadaPadre[k][s]];
+		}
+
+		/**
+		 * Reconstruye el recorrido que llega a una parada en una ronda siguiendo las
+		 * etiquetas hacia atrás. En cada ronda, la parada de subida se busca en la última
+		 * ronda anterior que mejoró su llegada.
+		 */
+		List<Recorrido> reconstruir(int ronda, int parada) {
+			List<Recorrido> tramos = new ArrayList<>();
+			int s = parada;
+			for (int k = ronda; k > 0; k--) {
+				while (k > 0 && tipoPadre[k][s] == SIN_PADRE)
+					k--;
+				if (k == 0)
+					break;
+				if (tipoPadre[k][s] == POR_CAMINATA) {
+					int desde = desdePadre[k][s];
+					tramos.add(0, new Recorrido(null, Arrays.asList(red.getParada(desde), red.getParada(s)),
+							Horario.aHora(llegadaEnColectivo(k, desde)), caminataPadre[k][s]));
+					s = desde;
+				}
+				tramos.add(0, tramoColectivo(lineaPadre[k][s], subidaPadre[k][s], bajadaPadre[k][s],
+						salidaPadre[k][s]));
+				s = red.getParadasLinea(lineaPadre[k][s])[subidaPadre[k][s]];
+			}
+			return tramos;
+		}
+
+		private Recorrido tramoColectivo(int l, int subida, int bajada, int salidaCabecera) {
+			Linea linea = red.getLinea(l);
+			int[] acumulado = red.getTiemposAcumulados(l);
+			return new Recorrido(linea, linea.getParadas().subList(subida, bajada + 1),
+					Horario.aHora(salidaCabecera + acumulado[subida]), acumulado[bajada] - acumulado[subida]);
+		}
+	}
+}
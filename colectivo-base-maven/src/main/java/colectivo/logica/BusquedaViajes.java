@@ -0,0 +1,332 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Estrategia de búsqueda basada en viajes (Trip-Based Routing) sobre el
+ * {@link IndiceViajes} de la red.
+ * <p>
+ * La consulta es un recorrido en anchura sobre tramos de viajes: la ronda k contiene
+ * los tramos de viaje a los que se sube con k colectivos. De cada tramo se siguen
+ * solo los transbordos precalculados en el índice, sin consultar horarios. Para cada
+ * viaje se guarda la primera posición ya alcanzada, de modo que ese viaje y los
+ * siguientes de la misma línea no se vuelven a recorrer desde posiciones posteriores.
+ * Los tramos que bajan después de la mejor llegada al destino se descartan.
+ * </p>
+ * <p>
+ * Devuelve, por cada cantidad de colectivos que mejora la llegada al destino, el
+ * recorrido que llega antes, empezando por el de menos colectivos. Como en el resto de
+ * las estrategias, los tramos caminando solo conectan dos colectivos. El índice se
+ * calcula la primera vez que se usa la red, salvo que se haya indicado uno recuperado
+ * de archivo con {@link RedCompilada#usarIndiceViajes(IndiceViajes)}.
+ * </p>
+ *
+ * @see IndiceViajes
+ * @see EstrategiaBusqueda
+ */
+public class BusquedaViajes implements EstrategiaBusqueda {
+
+	private static final Logger logger = LogManager.getLogger(BusquedaViajes.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+	private static final int SIN_PADRE = -1;
+
+	/** Arreglos de trabajo de cada hilo, recreados cuando cambia el índice. */
+	private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+	private final int maxRondas;
+
+	public BusquedaViajes() {
+		this(Constantes.MAX_RONDAS);
+	}
+
+	/**
+	 * @param maxRondas cantidad máxima de colectivos por recorrido
+	 * @throws IllegalArgumentException si maxRondas es menor a 1
+	 */
+	public BusquedaViajes(int maxRondas) {
+		if (maxRondas < 1) {
+			logger.error("maxRondas debe ser al menos 1: {}", maxRondas);
+			throw new IllegalArgumentException("maxRondas debe ser al menos 1");
+		}
+		this.maxRondas = maxRondas;
+	}
+
+	/**
+	 * Busca los recorridos de llegada más temprana entre dos paradas para cada cantidad
+	 * de colectivos.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param conexionesParadas mapa de paradas con sus tramos de conexión
+	 * @param todosLosTramos mapa de todos los tramos disponibles por identificador
+	 * @return lista de recorridos ordenada por cantidad de colectivos, vacía si no hay
+	 * @throws IllegalArgumentException si algún parámetro obligatorio es null o diaSemana está fuera de rango
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			Map<Parada, List<Tramo>> conexionesParadas, Map<String, Tramo> todosLosTramos) {
+
+		if (paradaOrigen == null || paradaDestino == null || hora == null) {
+			logger.error("paradaOrigen, paradaDestino y hora no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino y hora no pueden ser null");
+		}
+		if (todosLosTramos == null) {
+			logger.error("todosLosTramos no puede ser null");
+			throw new IllegalArgumentException("todosLosTramos no puede ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+
+		try {
+			return buscar(paradaOrigen, paradaDestino, diaSemana, hora, RedCompilada.obtener(todosLosTramos));
+		} catch (Exception e) {
+			logger.error("Error inesperado durante la búsqueda por viajes", e);
+			return new ArrayList<>();
+		}
+	}
+
+	/**
+	 * Ejecuta la búsqueda sobre una red ya compilada.
+	 *
+	 * @param paradaOrigen la parada de origen del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada del usuario a la parada de origen
+	 * @param red la {@link RedCompilada} a utilizar
+	 * @return lista de recorridos ordenada por cantidad de colectivos, vacía si no hay
+	 */
+	@Override
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana, LocalTime hora,
+			RedCompilada red) {
+		List<List<Recorrido>> soluciones = new ArrayList<>();
+		int origen = red.indice(paradaOrigen);
+		int destino = red.indice(paradaDestino);
+		if (origen == RedCompilada.NINGUNA || destino == RedCompilada.NINGUNA || origen == destino)
+			return soluciones;
+		int minimo = red.getGrafoLineas().minimoColectivos(origen, destino, true);
+		if (minimo == RedCompilada.NINGUNA || minimo > maxRondas)
+			return soluciones;
+
+		Estado estado = estado(red.getIndiceViajes());
+		estado.buscar(origen, destino, diaSemana, hora.toSecondOfDay(), maxRondas);
+		for (int k = 0; k < estado.cantidadLlegadas; k++)
+			soluciones.add(estado.reconstruir(estado.tramoLlegada[k], estado.bajadaLlegada[k], diaSemana));
+
+		logger.debug("Viajes: {} soluciones", soluciones.size());
+		return soluciones;
+	}
+
+	private static Estado estado(IndiceViajes indice) {
+		Estado estado = ESTADO.get();
+		if (estado == null || estado.indice != indice) {
+			estado = new Estado(indice);
+			ESTADO.set(estado);
+		}
+		return estado;
+	}
+
+	/**
+	 * Arreglos de trabajo de una consulta. Los tramos de viaje se guardan en una cola
+	 * por rondas, con el tramo desde el que se transbordó para reconstruir el recorrido.
+	 */
+	private static final class Estado {
+
+		private final IndiceViajes indice;
+		private final RedCompilada red;
+
+		/** Primera posición alcanzada de cada viaje, o {@link #INFINITO}. */
+		private final int[] alcanzado;
+		private final int[] viajesTocados;
+		private int cantidadTocados;
+
+		/** Posición del destino en cada línea, o {@link RedCompilada#NINGUNA}. */
+		private final int[] posicionDestino;
+
+		private int[] viajeTramo = new int[64];
+		private int[] subidaTramo = new int[64];
+		private int[] finTramo = new int[64];
+		private int[] padreTramo = new int[64];
+		private int[] bajadaPadre = new int[64];
+		private int[] caminataTramo = new int[64];
+		private int cantidadTramos;
+
+		/** Tramo y posición de bajada de cada recorrido que mejoró la llegada al destino. */
+		private int[] tramoLlegada = new int[Constantes.MAX_RONDAS];
+		private int[] bajadaLlegada = new int[Constantes.MAX_RONDAS];
+		private int cantidadLlegadas;
+
+		private int diaSemana;
+
+		Estado(IndiceViajes indice) {
+			this.indice = indice;
+			this.red = indice.getRed();
+			alcanzado = new int[indice.getCantidadViajes()];
+			viajesTocados = new int[indice.getCantidadViajes()];
+			Arrays.fill(alcanzado, INFINITO);
+			posicionDestino = new int[red.getCantidadLineas()];
+			Arrays.fill(posicionDestino, RedCompilada.NINGUNA);
+		}
+
+		void buscar(int origen, int destino, int diaSemana, int salida, int maxRondas) {
+			this.diaSemana = diaSemana;
+			for (int i = 0; i < cantidadTocados; i++)
+				alcanzado[viajesTocados[i]] = INFINITO;
+			cantidadTocados = 0;
+			cantidadTramos = 0;
+			cantidadLlegadas = 0;
+			if (tramoLlegada.length < maxRondas) {
+				tramoLlegada = new int[maxRondas];
+				bajadaLlegada = new int[maxRondas];
+			}
+
+			int[] lineasDestino = red.getLineasParada(destino);
+			int[] posicionesDestino = red.getPosicionesParada(destino);
+			for (int k = 0; k < lineasDestino.length; k++)
+				posicionDestino[lineasDestino[k]] = posicionesDestino[k];
+
+			int[] lineasOrigen = red.getLineasParada(origen);
+			int[] posicionesOrigen = red.getPosicionesParada(origen);
+			for (int k = 0; k < lineasOrigen.length; k++) {
+				int linea = lineasOrigen[k];
+				int posicion = posicionesOrigen[k];
+				if (posicion + 1 >= red.getParadasLinea(linea).length)
+					continue;
+				int viaje = indice.primeroDesde(linea, posicion, diaSemana, salida);
+				if (viaje != RedCompilada.NINGUNA)
+					encolar(viaje, posicion, SIN_PADRE, 0, 0);
+			}
+
+			int mejor = INFINITO;
+			int inicio = 0;
+			for (int ronda = 1; ronda <= maxRondas && inicio < cantidadTramos; ronda++) {
+				int fin = cantidadTramos;
+				int mejorTramo = SIN_PADRE;
+				int mejorBajada = 0;
+
+				// Llegadas al destino de los tramos de la ronda
+				for (int t = inicio; t < fin; t++) {
+					int viaje = viajeTramo[t];
+					int linea = indice.getLinea(viaje);
+					int posicion = posicionDestino[linea];
+					if (posicion > subidaTramo[t] && posicion < finTramo[t]) {
+						int arribo = hora(viaje, posicion);
+						if (arribo < mejor) {
+							mejor = arribo;
+							mejorTramo = t;
+							mejorBajada = posicion;
+						}
+					}
+				}
+				if (mejorTramo != SIN_PADRE) {
+					tramoLlegada[cantidadLlegadas] = mejorTramo;
+					bajadaLlegada[cantidadLlegadas++] = mejorBajada;
+				}
+
+				// Transbordos hacia la ronda siguiente, bajando antes de la mejor llegada
+				if (ronda < maxRondas) {
+					int[] viajes = indice.getViajeTransbordos();
+					int[] posiciones = indice.getPosicionTransbordos();
+					int[] caminatas = indice.getCaminataTransbordos();
+					for (int t = inicio; t < fin; t++) {
+						int viaje = viajeTramo[t];
+						for (int i = subidaTramo[t] + 1; i < finTramo[t]; i++) {
+							if (hora(viaje, i) >= mejor)
+								break;
+							for (int e = indice.getInicioTransbordos(viaje, i), ultimo = indice.getFinTransbordos(viaje,
+									i); e < ultimo; e++)
+								encolar(viajes[e], posiciones[e], t, i, caminatas[e]);
+						}
+					}
+				}
+				inicio = fin;
+			}
+
+			for (int lineaDestino : lineasDestino)
+				posicionDestino[lineaDestino] = RedCompilada.NINGUNA;
+		}
+
+		/**
+		 * Encola el tramo del viaje desde la posición de subida hasta la primera posición ya
+		 * alcanzada inclusive, y marca la posición en el viaje y en los siguientes de la misma línea.
+		 */
+		private void encolar(int viaje, int subida, int padre, int bajada, int caminata) {
+			if (!indice.disponible(viaje, diaSemana) || subida >= alcanzado[viaje])
+				return;
+			if (cantidadTramos == viajeTramo.length)
+				ampliar();
+			int t = cantidadTramos++;
+			viajeTramo[t] = viaje;
+			subidaTramo[t] = subida;
+			// Incluye la posición ya alcanzada: el tramo que sube en ella no puede bajar ahí
+			int largo = red.getParadasLinea(indice.getLinea(viaje)).length;
+			finTramo[t] = alcanzado[viaje] == INFINITO ? largo : Math.min(alcanzado[viaje] + 1, largo);
+			padreTramo[t] = padre;
+			bajadaPadre[t] = bajada;
+			caminataTramo[t] = caminata;
+
+			for (int v = viaje; v != RedCompilada.NINGUNA && indice.disponible(v, diaSemana)
+					&& alcanzado[v] > subida; v = indice.siguiente(v)) {
+				if (alcanzado[v] == INFINITO)
+					viajesTocados[cantidadTocados++] = v;
+				alcanzado[v] = subida;
+			}
+		}
+
+		private void ampliar() {
+			int tamano = viajeTramo.length * 2;
+			viajeTramo = Arrays.copyOf(viajeTramo, tamano);
+			subidaTramo = Arrays.copyOf(subidaTramo, tamano);
+			finTramo = Arrays.copyOf(finTramo, tamano);
+			padreTramo = Arrays.copyOf(padreTramo, tamano);
+			bajadaPadre = Arrays.copyOf(bajadaPadre, tamano);
+			caminataTramo = Arrays.copyOf(caminataTramo, tamano);
+		}
+
+		/** Horario del viaje en una posición, en segundos desde el inicio del día de la consulta. */
+		private int hora(int viaje, int posicion) {
+			return indice.desplazamiento(viaje, diaSemana) + indice.getSalida(viaje)
+					+ red.getTiemposAcumulados(indice.getLinea(viaje))[posicion];
+		}
+
+		/** Reconstruye el recorrido desde el tramo que llega al destino siguiendo los transbordos. */
+		List<Recorrido> reconstruir(int tramo, int bajada, int diaSemana) {
+			this.diaSemana = diaSemana;
+			List<Recorrido> tramos = new ArrayList<>();
+			for (int t = tramo; t != SIN_PADRE; t = padreTramo[t]) {
+				int viaje = viajeTramo[t];
+				int subida = subidaTramo[t];
+				Linea linea = red.getLinea(indice.getLinea(viaje));
+				int salida = hora(viaje, subida);
+				tramos.add(0, new Recorrido(linea, linea.getParadas().subList(subida, bajada + 1),
+						Horario.aHora(salida), hora(viaje, bajada) - salida));
+
+				int padre = padreTramo[t];
+				if (padre != SIN_PADRE && caminataTramo[t] > 0) {
+					int viajePadre = viajeTramo[padre];
+					Parada desde = red.getParada(red.getParadasLinea(indice.getLinea(viajePadre))[bajadaPadre[t]]);
+					tramos.add(0, new Recorrido(null, Arrays.asList(desde, linea.getParadas().get(subida)),
+							Horario.aHora(hora(viajePadre, bajadaPadre[t])), caminataTramo[t]));
+				}
+				bajada = bajadaPadre[t];
+			}
+			return tramos;
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Parada;
+
+/**
+ * Caché acotada de resultados de {@link Calculo#calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada)}.
+ * <p>
+ * Las consultas se agrupan por origen, destino, día y franja horaria de
+ * {@code segundosFranja} segundos. Cada franja guarda el resultado de una consulta junto
+ * con la hora para la que se calculó; una consulta posterior dentro de la franja lo
+ * reutiliza si todos sus recorridos salen a partir de la hora consultada (en ese caso son
+ * también los óptimos para esa hora). En otro caso es un fallo: la consulta se calcula
+ * una sola vez para su hora exacta, y el resultado reemplaza al guardado si se calculó
+ * para una hora anterior, con lo que sirve para más consultas de la franja.
+ * </p>
+ * <p>
+ * Cuando se supera la capacidad se descarta la entrada usada hace más tiempo (LRU). La
+ * caché se vacía sola cuando cambia la {@link Ciudad#getVersion() versión} de los datos
+ * de la ciudad. Es segura para usar desde varios hilos; los cálculos se hacen fuera del
+ * bloqueo.
+ * </p>
+ *
+ * @see Calculo
+ * @see Ciudad#getVersion()
+ */
+public class CacheRecorridos {
+
+	private static final Logger logger = LogManager.getLogger(CacheRecorridos.class);
+
+	/** Clave de una consulta: códigos de parada, día y número de franja del día. */
+	private record Clave(int origen, int destino, int diaSemana, int franja) {
+	}
+
+	/** Resultado guardado y segundo del día para el que se calculó. */
+	private record Entrada(int desde, List<List<Recorrido>> recorridos) {
+	}
+
+	private final int capacidad;
+	private final int segundosFranja;
+	private final Map<Clave, Entrada> entradas;
+
+	/** Versión de la ciudad con la que se calcularon las entradas actuales. */
+	private long version = -1;
+	private long aciertos;
+	private long fallos;
+
+	/**
+	 * @param capacidad cantidad máxima de consultas guardadas
+	 * @param segundosFranja duración en segundos de cada franja horaria, entre 1 y un día
+	 * @throws IllegalArgumentException si capacidad es menor a 1 o segundosFranja está
+	 *         fuera de rango
+	 */
+	public CacheRecorridos(int capacidad, int segundosFranja) {
+		if (capacidad < 1) {
+			logger.error("capacidad debe ser al menos 1: {}", capacidad);
+			throw new IllegalArgumentException("capacidad debe ser al menos 1");
+		}
+		if (segundosFranja < 1 || segundosFranja > Constantes.SEGUNDOS_DIA) {
+			logger.error("segundosFranja fuera de rango [1..{}]: {}", Constantes.SEGUNDOS_DIA, segundosFranja);
+			throw new IllegalArgumentException("segundosFranja debe estar entre 1 y " + Constantes.SEGUNDOS_DIA);
+		}
+		this.capacidad = capacidad;
+		this.segundosFranja = segundosFranja;
+		this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+				return size() > CacheRecorridos.this.capacidad;
+			}
+		};
+	}
+
+	/**
+	 * Devuelve los recorridos entre dos paradas sobre la red de la ciudad, reutilizando
+	 * el resultado de una consulta anterior de la misma franja cuando es posible.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora de llegada a la parada de origen
+	 * @param ciudad la {@link Ciudad} con la red y la versión de los datos
+	 * @return lista de listas de recorridos posibles, vacía si no hay solución
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	public List<List<Recorrido>> buscar(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, Ciudad ciudad) {
+
+		if (paradaOrigen == null || paradaDestino == null || horaLlegaParada == null || ciudad == null) {
+			logger.error("paradaOrigen, paradaDestino, horaLlegaParada y ciudad no pueden ser null");
+			throw new IllegalArgumentException("paradaOrigen, paradaDestino, horaLlegaParada y ciudad no pueden ser null");
+		}
+
+		int segundos = horaLlegaParada.toSecondOfDay();
+		Clave clave = new Clave(paradaOrigen.getCodigo(), paradaDestino.getCodigo(), diaSemana,
+				segundos / segundosFranja);
+		long versionCiudad = ciudad.getVersion();
+
+		Entrada entrada;
+		synchronized (this) {
+			invalidarSiCambio(versionCiudad);
+			entrada = entradas.get(clave);
+			if (entrada != null && sirve(entrada, segundos)) {
+				aciertos++;
+				return new ArrayList<>(entrada.recorridos());
+			}
+			fallos++;
+		}
+
+		if (entrada != null)
+			logger.debug("Resultado de la franja no válido para las {}, se calcula la hora exacta", horaLlegaParada);
+		List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana,
+				horaLlegaParada, ciudad.getRed());
+		synchronized (this) {
+			Entrada actual = entradas.get(clave);
+			if (version == versionCiudad && (actual == null || segundos < actual.desde()))
+				entradas.put(clave, new Entrada(segundos, recorridos));
+		}
+		return new ArrayList<>(recorridos);
+	}
+
+	/**
+	 * @return true si la entrada se calculó para una hora no posterior a la consultada y
+	 *         todos sus recorridos salen a partir de la hora consultada, considerando las
+	 *         salidas del día siguiente
+	 */
+	private static boolean sirve(Entrada entrada, int segundos) {
+		int atraso = segundos - entrada.desde();
+		if (atraso < 0)
+			return false;
+		if (atraso == 0)
+			return true;
+		for (List<Recorrido> recorrido : entrada.recorridos()) {
+			int salida = recorrido.get(0).getHoraSalida().toSecondOfDay();
+			if (Math.floorMod(salida - entrada.desde(), Constantes.SEGUNDOS_DIA) < atraso)
+				return false;
+		}
+		return true;
+	}
+
+	private void invalidarSiCambio(long versionCiudad) {
+		if (version != versionCiudad) {
+			if (!entradas.isEmpty())
+				logger.info("Cambió la versión de la ciudad ({} -> {}), se vacía la caché", version, versionCiudad);
+			entradas.clear();
+			version = versionCiudad;
+		}
+	}
+
+	/** Descarta todas las entradas guardadas; los contadores se conservan. */
+	public synchronized void limpiar() {
+		entradas.clear();
+	}
+
+	public synchronized int getTamanio() {
+		return entradas.size();
+	}
+
+	public int getCapacidad() {
+		return capacidad;
+	}
+
+	public int getSegundosFranja() {
+		return segundosFranja;
+	}
+
+	/** @return cantidad de consultas resueltas con un resultado guardado */
+	public synchronized long getAciertos() {
+		return aciertos;
+	}
+
+	/**
+	 * @return cantidad de consultas que debieron calcularse, incluidas las de una franja
+	 *         guardada cuyo resultado no servía para la hora consultada
+	 */
+	public synchronized long getFallos() {
+		return fallos;
+	}
+}
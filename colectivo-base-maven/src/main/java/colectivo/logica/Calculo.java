@@ -1,7 +1,9 @@
 package colectivo.logica;
 
+import java.time.Duration;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -10,22 +12,44 @@ import org.apache.logging.log4j.Logger;
 
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
-import colectivo.util.CalculosAuxiliares;
 
 /**
  * Clase encargada de calcular recorridos óptimos entre paradas.
- * Aplica diferentes estrategias de búsqueda en orden de preferencia:
- * primero busca recorridos directos, luego con transbordo y finalmente
- * considera opciones caminando. Retorna la primera solución encontrada.
+ * Delega la búsqueda en el motor por defecto de {@link Motores}, configurado en
+ * {@code factory.properties}; si no se configura es {@link BusquedaRaptor}, que
+ * encuentra, con cualquier cantidad de transbordos, el recorrido que llega antes y los
+ * que llegan más tarde usando menos colectivos. Las soluciones se ordenan por
+ * duración total ascendente.
+ * <p>
+ * Las consultas trabajan sobre la {@link RedCompilada}: la red se compila una vez al
+ * cargar la {@link Ciudad} y no se vuelven a armar las conexiones de las paradas en
+ * cada consulta.
+ * </p>
  */
 public class Calculo {
 
 	private static final Logger logger = LogManager.getLogger(Calculo.class);
 
+	/** Escaneo de conexiones para las isócronas; guarda sus arreglos de trabajo por hilo. */
+	private static final BusquedaCSA ISOCRONA = new BusquedaCSA();
+
+	/** Búsqueda de perfil compartida; no guarda estado entre consultas. */
+	private static final BusquedaPerfil PERFIL = new BusquedaPerfil();
+
+	/** Escaneo hacia atrás para las consultas por hora de llegada; guarda sus arreglos por hilo. */
+	private static final BusquedaLlegada LLEGADA = new BusquedaLlegada();
+
+	/** Búsqueda de puntos de encuentro compartida; no guarda estado entre consultas. */
+	private static final BusquedaEncuentro ENCUENTRO = new BusquedaEncuentro();
+
+	/** Orden de las soluciones: suma de duraciones de sus tramos. */
+	private static final Comparator<List<Recorrido>> POR_DURACION_TOTAL = Comparator
+			.comparingInt(solucion -> solucion.stream().mapToInt(Recorrido::getDuracion).sum());
+
 	/**
-	 * Calcula el recorrido óptimo entre dos paradas aplicando estrategias de búsqueda.
-	 * Intenta primero con búsqueda directa, luego con transbordo y finalmente considera
-	 * tramos caminando. Retorna el primer conjunto de soluciones encontrado.
+	 * Calcula el recorrido óptimo entre dos paradas con el motor por defecto.
+	 * Con la búsqueda por rondas retorna el recorrido que llega antes y los que usan menos
+	 * colectivos llegando más tarde, ordenados por duración total.
 	 *
 	 * @param paradaOrigen la parada de inicio del recorrido
 	 * @param paradaDestino la parada de destino del recorrido
@@ -36,29 +60,294 @@ public class Calculo {
 	 */
 	public static List<List<Recorrido>> calcularRecorrido(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
 			LocalTime horaLlegaParada, Map<String, Tramo> tramos) {
+		return calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, tramos,
+				Motores.predeterminado());
+	}
+
+	/**
+	 * Calcula los recorridos entre dos paradas con una estrategia de búsqueda
+	 * determinada (por ejemplo {@link BusquedaRaptor}, {@link BusquedaCSA},
+	 * {@link BusquedaPareto} para obtener todas las alternativas no dominadas,
+	 * {@link BusquedaConcurrente} para ejecutar varias estrategias en paralelo o
+	 * {@link BusquedaPlanificada} para omitir las que no pueden tener solución).
+	 * Con los tramos de la {@link Ciudad} se usa la red que ella compiló; con otro mapa
+	 * se compila una red para la consulta.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora de llegada deseada a la parada de origen
+	 * @param tramos mapa de todos los tramos disponibles por identificador
+	 * @param estrategia la {@link EstrategiaBusqueda} a utilizar
+	 * @return lista de listas de recorridos posibles, vacía si no hay solución
+	 * @throws IllegalArgumentException si estrategia es null
+	 */
+	public static List<List<Recorrido>> calcularRecorrido(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, Map<String, Tramo> tramos, EstrategiaBusqueda estrategia) {
+
+		RedCompilada red;
+		try {
+			red = RedCompilada.obtener(tramos);
+		} catch (Exception e) {
+			logger.error("Error inesperado al compilar la red", e);
+			return new ArrayList<>();
+		}
+		return calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, red, estrategia);
+	}
+
+	/**
+	 * Calcula el recorrido óptimo entre dos paradas sobre la red compilada de la ciudad,
+	 * con el motor por defecto.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora de llegada deseada a la parada de origen
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @return lista de listas de recorridos posibles, vacía si no hay solución
+	 * @see Ciudad#getRed()
+	 */
+	public static List<List<Recorrido>> calcularRecorrido(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, RedCompilada red) {
+		return calcularRecorrido(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, red,
+				Motores.predeterminado());
+	}
+
+	/**
+	 * Calcula los recorridos entre dos paradas sobre la red compilada de la ciudad con
+	 * una estrategia de búsqueda determinada. Las soluciones se ordenan por duración total.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora de llegada deseada a la parada de origen
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @param estrategia la {@link EstrategiaBusqueda} a utilizar
+	 * @return lista de listas de recorridos posibles, vacía si no hay solución
+	 * @throws IllegalArgumentException si red o estrategia son null
+	 */
+	public static List<List<Recorrido>> calcularRecorrido(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, RedCompilada red, EstrategiaBusqueda estrategia) {
+
+		if (red == null || estrategia == null) {
+			logger.error("red y estrategia no pueden ser null");
+			throw new IllegalArgumentException("red y estrategia no pueden ser null");
+		}
 
 		logger.info("Iniciando cálculo de recorrido desde {} hasta {} para el día {} llegando a las {}",
 				paradaOrigen.getDireccion(), paradaDestino.getDireccion(), diaSemana, horaLlegaParada);
 
+		return resolver(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, red, estrategia);
+	}
+
+	/**
+	 * Ejecuta la estrategia y ordena las soluciones, sin registrar la consulta. Lo usan
+	 * los cálculos en lote, que registran un resumen por lote.
+	 */
+	static List<List<Recorrido>> resolver(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, RedCompilada red, EstrategiaBusqueda estrategia) {
         try {
 
-			Map<Parada, List<Tramo>> conexionesParadas = CalculosAuxiliares.conexionesParadas(tramos);
+			List<List<Recorrido>> soluciones = estrategia.buscar(paradaOrigen, paradaDestino, diaSemana,
+					horaLlegaParada, red);
+			soluciones.sort(POR_DURACION_TOTAL);
+			return soluciones;
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el cálculo de recorridos", e);
+		}
+
+		return new ArrayList<>();
+	}
 
-			List<EstrategiaBusqueda> estrategias = List.of(new BusquedaDirecta(), new BusquedaConTransbordo(),
-					new BusquedaCaminando());
+	/**
+	 * Calcula los k mejores recorridos entre dos paradas según un criterio, con el motor
+	 * por defecto.
+	 *
+	 * @see #calcularMejores(Parada, Parada, int, LocalTime, RedCompilada, EstrategiaBusqueda, int, Criterio)
+	 */
+	public static List<List<Recorrido>> calcularMejores(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, RedCompilada red, int k, Criterio criterio) {
+		return calcularMejores(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, red,
+				Motores.predeterminado(), k, criterio);
+	}
 
-			for (EstrategiaBusqueda estrategia : estrategias) {
-				List<List<Recorrido>> soluciones = estrategia.buscar(paradaOrigen, paradaDestino, diaSemana,
-						horaLlegaParada, conexionesParadas, tramos);
+	/**
+	 * Calcula los k mejores recorridos entre dos paradas según un criterio. En lugar de
+	 * ordenar todas las soluciones, la estrategia conserva las k mejores en un montículo
+	 * acotado y puede descartar candidatos antes de armarlos.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param horaLlegaParada la hora de llegada deseada a la parada de origen
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @param estrategia la {@link EstrategiaBusqueda} a utilizar
+	 * @param k cantidad máxima de recorridos a devolver
+	 * @param criterio el {@link Criterio} de orden
+	 * @return hasta k recorridos ordenados según el criterio, vacía si no hay solución
+	 * @throws IllegalArgumentException si red, estrategia o criterio son null o k es menor a 1
+	 */
+	public static List<List<Recorrido>> calcularMejores(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime horaLlegaParada, RedCompilada red, EstrategiaBusqueda estrategia, int k, Criterio criterio) {
 
-				if (!soluciones.isEmpty())
-					return soluciones;
-			}
+		if (red == null || estrategia == null || criterio == null) {
+			logger.error("red, estrategia y criterio no pueden ser null");
+			throw new IllegalArgumentException("red, estrategia y criterio no pueden ser null");
+		}
+		if (k < 1) {
+			logger.error("k debe ser al menos 1: {}", k);
+			throw new IllegalArgumentException("k debe ser al menos 1");
+		}
+
+		logger.info("Iniciando cálculo de los {} mejores recorridos por {} desde {} hasta {} para el día {} llegando a las {}",
+				k, criterio, paradaOrigen.getDireccion(), paradaDestino.getDireccion(), diaSemana, horaLlegaParada);
+
+		try {
+			return estrategia.buscarMejores(paradaOrigen, paradaDestino, diaSemana, horaLlegaParada, red, k,
+					criterio);
 		} catch (Exception e) {
-			logger.error("Error inesperado durante el cálculo de recorridos", e);
+			logger.error("Error inesperado durante el cálculo de los mejores recorridos", e);
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Calcula todos los recorridos óptimos que salen del origen dentro de una franja
+	 * horaria, en una sola pasada de la {@link BusquedaPerfil}. Reemplaza a consultar
+	 * {@link #calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada)} una vez por
+	 * cada horario de la franja.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param desde primer horario de salida de la franja
+	 * @param hasta último horario de salida de la franja (inclusive)
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @return recorridos ordenados por hora de salida, vacía si no hay solución
+	 * @throws IllegalArgumentException si red es null
+	 */
+	public static List<List<Recorrido>> calcularPerfil(Parada paradaOrigen, Parada paradaDestino, int diaSemana,
+			LocalTime desde, LocalTime hasta, RedCompilada red) {
+
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+
+		logger.info("Iniciando cálculo de perfil desde {} hasta {} para el día {} saliendo entre las {} y las {}",
+				paradaOrigen.getDireccion(), paradaDestino.getDireccion(), diaSemana, desde, hasta);
+
+		try {
+			return PERFIL.buscar(paradaOrigen, paradaDestino, diaSemana, desde, hasta, red);
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el cálculo de perfil", e);
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Calcula el recorrido que sale más tarde del origen llegando al destino a más tardar
+	 * a una hora dada, en un único escaneo hacia atrás de la {@link BusquedaLlegada}.
+	 * Reemplaza a consultar {@link #calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada)}
+	 * con horarios de salida cada vez más tempranos.
+	 *
+	 * @param paradaOrigen la parada de inicio del recorrido
+	 * @param paradaDestino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana de la llegada (1=lunes, 7=domingo)
+	 * @param llegadaMaxima la hora a la que se debe estar en el destino
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @return lista con el recorrido de salida más tardía, vacía si no hay solución
+	 * @throws IllegalArgumentException si red es null
+	 */
+	public static List<List<Recorrido>> calcularLlegandoAntes(Parada paradaOrigen, Parada paradaDestino,
+			int diaSemana, LocalTime llegadaMaxima, RedCompilada red) {
+
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+
+		logger.info("Iniciando cálculo de salida más tardía desde {} hasta {} para el día {} llegando antes de las {}",
+				paradaOrigen.getDireccion(), paradaDestino.getDireccion(), diaSemana, llegadaMaxima);
+
+		try {
+			return LLEGADA.buscar(paradaOrigen, paradaDestino, diaSemana, llegadaMaxima, red);
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el cálculo de salida más tardía", e);
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Calcula la isócrona de una parada: la llegada más temprana a cada parada alcanzable
+	 * desde el origen sin superar un tiempo de viaje máximo, con un único escaneo de
+	 * conexiones de {@link BusquedaCSA}.
+	 *
+	 * @param paradaOrigen la parada de origen
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada a la parada de origen
+	 * @param tiempoMaximo tiempo de viaje máximo, de hasta un día
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @return paradas alcanzables ordenadas por tiempo de viaje, incluido el origen, vacía
+	 *         si ocurre un error
+	 * @throws IllegalArgumentException si red es null
+	 */
+	public static List<BusquedaCSA.Alcance> calcularIsocrona(Parada paradaOrigen, int diaSemana, LocalTime hora,
+			Duration tiempoMaximo, RedCompilada red) {
+
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+
+		logger.info("Iniciando cálculo de isócrona desde {} para el día {} a las {} con un máximo de {}",
+				paradaOrigen, diaSemana, hora, tiempoMaximo);
+
+		try {
+			return ISOCRONA.alcanzables(paradaOrigen, diaSemana, hora, tiempoMaximo, red);
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el cálculo de isócrona", e);
+		}
+
+		return new ArrayList<>();
+	}
+
+	/**
+	 * Calcula las paradas de encuentro de un grupo que sale a la misma hora desde varias
+	 * paradas, con un único escaneo de conexiones de {@link BusquedaEncuentro} que lleva
+	 * una etiqueta de llegada por origen.
+	 *
+	 * @param origenes paradas de origen de cada integrante del grupo
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada a las paradas de origen
+	 * @param objetivo el valor a minimizar: máximo o suma de los tiempos de viaje
+	 * @param cantidad cantidad máxima de paradas a devolver
+	 * @param red la {@link RedCompilada} construida al cargar la ciudad
+	 * @return paradas alcanzables desde todos los orígenes, ordenadas según el objetivo,
+	 *         vacía si ocurre un error
+	 * @throws IllegalArgumentException si red es null
+	 */
+	public static List<BusquedaEncuentro.Encuentro> calcularEncuentro(List<Parada> origenes, int diaSemana,
+			LocalTime hora, BusquedaEncuentro.Objetivo objetivo, int cantidad, RedCompilada red) {
+
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+
+		logger.info("Iniciando cálculo de puntos de encuentro desde {} para el día {} a las {} minimizando {}",
+				origenes, diaSemana, hora, objetivo);
+
+		try {
+			return ENCUENTRO.buscar(origenes, diaSemana, hora, objetivo, cantidad, red);
+		} catch (Exception e) {
+			logger.error("Error inesperado durante el cálculo de puntos de encuentro", e);
 		}
 
 		return new ArrayList<>();
 	}
 
-}
\ No newline at end of file
+}
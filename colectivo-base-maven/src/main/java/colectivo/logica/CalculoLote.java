@@ -0,0 +1,153 @@
+package colectivo.logica;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.modelo.Parada;
+
+/**
+ * Cálculo en lote de recorridos para muchas consultas origen/destino/día/hora.
+ * <p>
+ * Las consultas se evalúan en paralelo en un {@link ForkJoinPool} propio sobre una
+ * {@link RedCompilada} compartida, con el motor por defecto de {@link Motores} salvo que
+ * se indique otro. Los hilos solo leen la red sin sincronizarse, por lo que no debe
+ * modificarse (por ejemplo, asignándole índices) mientras se ejecuta un lote. Los
+ * motores por rondas y de escaneo de conexiones reutilizan su estado de búsqueda por
+ * hilo, por lo que el lote no reserva arreglos de etiquetas por consulta. Los resultados
+ * se devuelven en el mismo orden en que se recibieron las consultas, junto con el
+ * rendimiento obtenido.
+ * </p>
+ *
+ * @see Calculo#calcularRecorrido(Parada, Parada, int, LocalTime, RedCompilada, EstrategiaBusqueda)
+ */
+public class CalculoLote {
+
+	private static final Logger logger = LogManager.getLogger(CalculoLote.class);
+
+	/**
+	 * Consulta de un lote.
+	 *
+	 * @param origen la parada de origen del recorrido
+	 * @param destino la parada de destino del recorrido
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada a la parada de origen
+	 */
+	public record Consulta(Parada origen, Parada destino, int diaSemana, LocalTime hora) {
+
+		/**
+		 * @throws IllegalArgumentException si algún parámetro es null o diaSemana está
+		 *         fuera de rango
+		 */
+		public Consulta {
+			if (origen == null || destino == null || hora == null) {
+				logger.error("origen, destino y hora no pueden ser null");
+				throw new IllegalArgumentException("origen, destino y hora no pueden ser null");
+			}
+			if (diaSemana < 1 || diaSemana > 7) {
+				logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+				throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+			}
+		}
+	}
+
+	/**
+	 * Resultado de un lote.
+	 *
+	 * @param recorridos las soluciones de cada consulta, en el orden de las consultas
+	 * @param duracion el tiempo total de cálculo del lote
+	 */
+	public record Resultado(List<List<List<Recorrido>>> recorridos, Duration duracion) {
+
+		public int getCantidad() {
+			return recorridos.size();
+		}
+
+		/** @return consultas resueltas por segundo, 0 si el lote está vacío */
+		public double getConsultasPorSegundo() {
+			long nanos = duracion.toNanos();
+			return nanos == 0 ? 0 : recorridos.size() * 1e9 / nanos;
+		}
+	}
+
+	private final RedCompilada red;
+	private final EstrategiaBusqueda estrategia;
+	private final int paralelismo;
+
+	/**
+	 * Lote con el motor por defecto de {@link Motores} y un hilo por procesador disponible.
+	 *
+	 * @param red la {@link RedCompilada} compartida por todas las consultas
+	 * @throws IllegalArgumentException si el motor por defecto no es válido
+	 * @see Motores#predeterminado()
+	 */
+	public CalculoLote(RedCompilada red) {
+		this(red, Motores.predeterminado(), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param red la {@link RedCompilada} compartida por todas las consultas
+	 * @param estrategia la {@link EstrategiaBusqueda} a utilizar; debe poder usarse desde
+	 *        varios hilos a la vez
+	 * @param paralelismo cantidad de hilos del pool
+	 * @throws IllegalArgumentException si red o estrategia son null o paralelismo es menor
+	 *         a 1
+	 */
+	public CalculoLote(RedCompilada red, EstrategiaBusqueda estrategia, int paralelismo) {
+		if (red == null || estrategia == null) {
+			logger.error("red y estrategia no pueden ser null");
+			throw new IllegalArgumentException("red y estrategia no pueden ser null");
+		}
+		if (paralelismo < 1) {
+			logger.error("paralelismo debe ser al menos 1: {}", paralelismo);
+			throw new IllegalArgumentException("paralelismo debe ser al menos 1");
+		}
+		this.red = red;
+		this.estrategia = estrategia;
+		this.paralelismo = paralelismo;
+	}
+
+	/**
+	 * Calcula los recorridos de todas las consultas.
+	 *
+	 * @param consultas las consultas del lote; el orden del flujo es el orden del resultado
+	 * @return las soluciones de cada consulta en el orden recibido, y el rendimiento
+	 * @throws IllegalArgumentException si consultas es null o contiene null
+	 */
+	public Resultado calcular(Stream<Consulta> consultas) {
+		if (consultas == null) {
+			logger.error("consultas no puede ser null");
+			throw new IllegalArgumentException("consultas no puede ser null");
+		}
+
+		long inicio = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		List<List<List<Recorrido>>> recorridos;
+		try {
+			// Un flujo paralelo ejecutado dentro del pool usa sus hilos y conserva el orden
+			recorridos = pool.submit(() -> consultas.parallel().map(this::calcular).toList()).join();
+		} finally {
+			pool.shutdown();
+		}
+
+		Resultado resultado = new Resultado(recorridos, Duration.ofNanos(System.nanoTime() - inicio));
+		logger.info("Lote de {} consultas en {} ms ({} consultas/s, {} hilos)", resultado.getCantidad(),
+				resultado.duracion().toMillis(), String.format("%.1f", resultado.getConsultasPorSegundo()),
+				paralelismo);
+		return resultado;
+	}
+
+	private List<List<Recorrido>> calcular(Consulta consulta) {
+		if (consulta == null) {
+			logger.error("El lote contiene una consulta null");
+			throw new IllegalArgumentException("El lote contiene una consulta null");
+		}
+		return Calculo.resolver(consulta.origen(), consulta.destino(), consulta.diaSemana(), consulta.hora(), red,
+				estrategia);
+	}
+}
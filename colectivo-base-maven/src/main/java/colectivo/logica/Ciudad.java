@@ -1,8 +1,15 @@
 package colectivo.logica;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
@@ -62,6 +69,13 @@ import colectivo.servicio.TramoServiceImpl;
  */
 public class Ciudad {
 
+	private static final Logger logger = LogManager.getLogger(Ciudad.class);
+
+	/** Nombre del archivo del índice de viajes dentro del directorio de índices. */
+	private static final String ARCHIVO_VIAJES = "viajes.bin";
+	/** Nombre del archivo de los patrones de transbordo dentro del directorio de índices. */
+	private static final String ARCHIVO_PATRONES = "patrones.bin";
+
 	// Instancia Singleton -> Bandera
 	/** Instancia única de Ciudad (patrón Singleton). */
 	private static Ciudad ciudad = null;
@@ -78,6 +92,24 @@ public class Ciudad {
 	/** Mapa de tramos indexados por clave compuesta (inicio-fin-tipo). */
 	private final Map<String, Tramo> tramos;
 
+	/**
+	 * Red compilada a partir de los tramos, compartida por todas las búsquedas. Se vuelve
+	 * a compilar en {@link #incrementarVersion()}.
+	 */
+	private volatile RedCompilada red;
+
+	/**
+	 * Versión de los datos de la ciudad. Los resultados calculados con una versión
+	 * anterior (por ejemplo en {@link CacheRecorridos}) dejan de ser válidos.
+	 */
+	private long version;
+
+	/** Directorio de los índices precalculados de la red, o null si no se guardan. */
+	private Path directorioIndices;
+
+	/** Indica si se preparan los patrones de transbordo de cada red compilada. */
+	private boolean patronesTransbordo;
+
 	/** Servicio para gestión de líneas. */
 	private final LineaService lineaService;
 
@@ -111,6 +143,16 @@ public class Ciudad {
 		return ciudad;
 	}
 
+	/**
+	 * Obtiene la instancia de Ciudad si ya fue creada, sin cargarla.
+	 *
+	 * @return la instancia única de {@link Ciudad}, o null si todavía no se cargó
+	 * @see RedCompilada#obtener(Map)
+	 */
+	static Ciudad getCiudadCargada() {
+		return ciudad;
+	}
+
 	/**
 	 * Constructor privado para implementar el patrón Singleton.
 	 * <p>
@@ -129,6 +171,12 @@ public class Ciudad {
 	 *       frecuencias desde el servicio correspondiente.</li>
 	 *   <li><b>Cargar tramos:</b> Se cargan todos los tramos (conexiones entre paradas)
 	 *       desde el servicio correspondiente.</li>
+	 *   <li><b>Compilar la red:</b> Se construye una {@link RedCompilada} inmutable con
+	 *       las conexiones, posiciones, tiempos acumulados y salidas de cada línea, que
+	 *       se reutiliza en todas las consultas hasta que se modifiquen los datos
+	 *       ({@link #incrementarVersion()}).</li>
+	 *   <li><b>Tiempos de las líneas:</b> Cada {@link Linea} calcula sus tiempos acumulados
+	 *       desde la cabecera; la red compilada guarda los suyos y no modifica las líneas.</li>
 	 * </ol>
 	 * <p>
 	 * <b>Orden de carga crítico:</b> El orden de las operaciones es fundamental.
@@ -166,9 +214,27 @@ public class Ciudad {
         // 4. Cargar lineas y tramos
         lineas = new TreeMap<>(lineaService.buscarTodos());
         tramos = new TreeMap<>(tramoService.buscarTodos());
+
+        // 5 y 6. Compilar la red para todas las consultas y calcular los tiempos de las líneas
+        compilarRed(null);
        
 	}
 
+	/**
+	 * Compila la red a partir de los tramos actuales y recalcula los tiempos acumulados de
+	 * las líneas de la ciudad, para los cálculos que trabajan con {@link Linea} en lugar de
+	 * la red compilada. Los índices configurados se preparan antes de publicar la red.
+	 *
+	 * @param modificadas las líneas modificadas desde la red actual, o null si no se conocen
+	 */
+	private void compilarRed(Collection<Linea> modificadas) {
+		RedCompilada compilada = RedCompilada.compilar(tramos);
+		for (Linea linea : lineas.values())
+			linea.calcularTiemposAcumulados(compilada.getConexionesParadas());
+		prepararIndices(compilada, modificadas);
+		red = compilada;
+	}
+
 	public String getNombre() {
 		return nombre;
 	}
@@ -186,4 +252,147 @@ public class Ciudad {
 		return tramos;
 	}
 
+	/**
+	 * Obtiene la red compilada para la versión actual de los datos de la ciudad.
+	 *
+	 * @return la {@link RedCompilada} construida a partir de los tramos
+	 */
+	public RedCompilada getRed() {
+		return red;
+	}
+
+	/**
+	 * Obtiene la versión actual de los datos de la ciudad.
+	 *
+	 * @return número de versión, que aumenta con cada modificación informada
+	 * @see #incrementarVersion()
+	 */
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Indica cómo preparar los índices precalculados de la red, para no calcularlos en cada
+	 * inicio. Con un directorio, el índice de viajes se lee de él si corresponde a los
+	 * horarios de la red actual; si falta o se calculó con otros, se calcula y se guarda.
+	 * Con patrones, los {@link PatronesTransbordo} desde todas las paradas se leen del
+	 * directorio de la misma forma, o se calculan, y se asignan a la red para
+	 * {@link BusquedaPatrones}. Lo mismo se repite al compilar cada versión nueva de la red.
+	 *
+	 * @param directorio el directorio de los índices, que se crea si no existe, o null
+	 *        para calcularlos en memoria
+	 * @param patrones true para preparar también los patrones de transbordo
+	 * @see IndiceViajes#abrir(Path, RedCompilada)
+	 * @see PatronesTransbordo#abrir(Path, RedCompilada)
+	 */
+	public synchronized void configurarIndices(Path directorio, boolean patrones) {
+		directorioIndices = directorio;
+		patronesTransbordo = patrones;
+		prepararIndices(red, null);
+	}
+
+	/**
+	 * Prepara los índices de una red según la configuración. Un archivo que no se puede
+	 * leer o escribir no impide usar la red: el índice se calcula en memoria.
+	 *
+	 * @param compilada la red a preparar, antes de publicarla
+	 * @param modificadas las líneas modificadas desde la red actual, o null si no se conocen
+	 *        o no hay red anterior
+	 */
+	private void prepararIndices(RedCompilada compilada, Collection<Linea> modificadas) {
+		if (directorioIndices != null)
+			prepararIndiceViajes(compilada);
+		if (patronesTransbordo)
+			prepararPatrones(compilada, modificadas);
+	}
+
+	private void prepararIndiceViajes(RedCompilada compilada) {
+		Path archivo = directorioIndices.resolve(ARCHIVO_VIAJES);
+		if (Files.exists(archivo)) {
+			try {
+				compilada.usarIndiceViajes(IndiceViajes.abrir(archivo, compilada));
+				logger.info("Índice de viajes recuperado de {}", archivo);
+				return;
+			} catch (IOException e) {
+				logger.warn("No se usa el índice de viajes guardado, se vuelve a calcular: {}", e.getMessage());
+			}
+		}
+		try {
+			Files.createDirectories(directorioIndices);
+			compilada.getIndiceViajes().guardar(archivo);
+		} catch (IOException e) {
+			logger.error("No se pudo guardar el índice de viajes en {}", archivo, e);
+		}
+	}
+
+	/**
+	 * Asigna a la red los patrones de transbordo. Si la red actual tiene patrones y se
+	 * conocen las líneas modificadas, se actualizan recalculando solo los orígenes
+	 * afectados; si no, se leen del directorio o se calculan desde todas las paradas.
+	 */
+	private void prepararPatrones(RedCompilada compilada, Collection<Linea> modificadas) {
+		int hilos = Runtime.getRuntime().availableProcessors();
+		Path archivo = directorioIndices != null ? directorioIndices.resolve(ARCHIVO_PATRONES) : null;
+		PatronesTransbordo anteriores = red != null ? red.getPatronesTransbordo() : null;
+
+		PatronesTransbordo patrones = null;
+		if (anteriores != null && modificadas != null) {
+			patrones = anteriores.actualizar(compilada, modificadas, hilos);
+		} else if (archivo != null && Files.exists(archivo)) {
+			try {
+				compilada.usarPatronesTransbordo(PatronesTransbordo.abrir(archivo, compilada));
+				logger.info("Patrones de transbordo recuperados de {}", archivo);
+				return;
+			} catch (IOException e) {
+				logger.warn("No se usan los patrones de transbordo guardados, se vuelven a calcular: {}",
+						e.getMessage());
+			}
+		}
+		if (patrones == null)
+			patrones = PatronesTransbordo.calcular(compilada, hilos);
+		compilada.usarPatronesTransbordo(patrones);
+
+		if (archivo != null) {
+			try {
+				Files.createDirectories(directorioIndices);
+				patrones.guardar(archivo);
+			} catch (IOException e) {
+				logger.error("No se pudieron guardar los patrones de transbordo en {}", archivo, e);
+			}
+		}
+	}
+
+	/**
+	 * Informa que se modificaron las paradas, líneas, tramos o frecuencias de la ciudad,
+	 * invalidando los resultados calculados hasta el momento. La red se vuelve a compilar
+	 * con los datos modificados; las búsquedas en curso terminan con la red anterior.
+	 * Como no se sabe qué cambió, los patrones de transbordo configurados se calculan de
+	 * nuevo desde todas las paradas.
+	 *
+	 * @see #incrementarVersion(Collection)
+	 */
+	public synchronized void incrementarVersion() {
+		compilarRed(null);
+		version++;
+	}
+
+	/**
+	 * Informa que se modificaron solo el recorrido, los tiempos o las frecuencias de
+	 * algunas líneas, o que se agregaron o quitaron líneas. Igual que
+	 * {@link #incrementarVersion()}, pero los patrones de transbordo configurados se
+	 * actualizan recalculando solo los orígenes que esas líneas pueden afectar
+	 * ({@link PatronesTransbordo#actualizar(RedCompilada, Collection, int)}).
+	 *
+	 * @param modificadas las líneas modificadas, agregadas o quitadas
+	 * @throws IllegalArgumentException si modificadas es null
+	 */
+	public synchronized void incrementarVersion(Collection<Linea> modificadas) {
+		if (modificadas == null) {
+			logger.error("modificadas no puede ser null");
+			throw new IllegalArgumentException("modificadas no puede ser null");
+		}
+		compilarRed(modificadas);
+		version++;
+	}
+
 }
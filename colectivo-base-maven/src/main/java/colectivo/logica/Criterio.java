@@ -0,0 +1,87 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Criterios para elegir los mejores recorridos de una consulta con
+ * {@code buscarMejores} de {@link EstrategiaBusqueda}.
+ * <p>
+ * Cada criterio reduce un recorrido a una clave entera (menor es mejor) calculada con
+ * horarios en segundos ({@link Horario}), de modo que una estrategia puede descartar un
+ * candidato antes de crear sus {@link Recorrido}.
+ * </p>
+ */
+public enum Criterio {
+
+	/** Llegada más temprana al destino, contando las esperas; a igual llegada, menor duración. */
+	LLEGADA,
+	/** Menor suma de duraciones de los tramos, el orden por defecto de {@link Calculo}. */
+	DURACION,
+	/** Menos transbordos entre colectivos; a igual cantidad, menor duración. */
+	TRANSBORDOS;
+
+	/**
+	 * Resumen en segundos de un recorrido o de una parte de él.
+	 *
+	 * @param salida segundos del día en que sale el primer tramo
+	 * @param recorrido segundos desde esa salida hasta la llegada, con las esperas intermedias
+	 * @param duracion suma de las duraciones de los tramos
+	 * @param colectivos cantidad de tramos en colectivo
+	 */
+	record Resumen(int salida, int recorrido, int duracion, int colectivos) {
+	}
+
+	/**
+	 * @param tramos tramos consecutivos, no vacío, con la hora de salida asignada
+	 * @return el resumen de los tramos
+	 */
+	static Resumen resumir(List<Recorrido> tramos) {
+		int salida = Horario.segundos(tramos.getFirst().getHoraSalida());
+		int hora = salida;
+		int duracion = 0;
+		int colectivos = 0;
+		for (Recorrido tramo : tramos) {
+			hora += Horario.espera(Horario.delDia(hora), Horario.segundos(tramo.getHoraSalida())) + tramo.getDuracion();
+			duracion += tramo.getDuracion();
+			if (tramo.getLinea() != null)
+				colectivos++;
+		}
+		return new Resumen(salida, hora - salida, duracion, colectivos);
+	}
+
+	/**
+	 * Clave de un recorrido a partir de sus valores en segundos.
+	 *
+	 * @param llegada segundos desde la hora de consulta hasta la llegada al destino
+	 * @param duracion suma de las duraciones de los tramos
+	 * @param colectivos cantidad de tramos en colectivo
+	 * @return clave del recorrido según el criterio, menor es mejor
+	 */
+	long clave(int llegada, int duracion, int colectivos) {
+		return switch (this) {
+		case LLEGADA -> combinar(llegada, duracion);
+		case DURACION -> combinar(duracion, 0);
+		case TRANSBORDOS -> combinar(Math.max(colectivos - 1, 0), duracion);
+		};
+	}
+
+	/**
+	 * Clave de un recorrido ya armado.
+	 *
+	 * @param solucion tramos del recorrido, con la hora de salida asignada
+	 * @param hora hora de llegada a la parada de origen
+	 * @return clave del recorrido según el criterio, menor es mejor
+	 */
+	public long clave(List<Recorrido> solucion, LocalTime hora) {
+		if (solucion.isEmpty())
+			return 0;
+		Resumen resumen = resumir(solucion);
+		int llegada = Horario.espera(Horario.segundos(hora), resumen.salida()) + resumen.recorrido();
+		return clave(llegada, resumen.duracion(), resumen.colectivos());
+	}
+
+	private static long combinar(int principal, int desempate) {
+		return ((long) principal << 32) | (desempate & 0xFFFFFFFFL);
+	}
+}
@@ -15,4 +15,50 @@ public interface EstrategiaBusqueda {
     List<List<Recorrido>> buscar(Parada origen, Parada destino, int diaSemana, LocalTime hora,
                                  Map<Parada, List<Tramo>> conexionesParadas,
                                  Map<String, Tramo> todosLosTramos);
+
+    /**
+     * Busca recorridos sobre la red compilada al cargar la ciudad.
+     * <p>
+     * Por defecto usa las conexiones y tramos ya calculados por la red; las estrategias
+     * que trabajan sobre los arreglos compilados sobrescriben este método.
+     * </p>
+     *
+     * @param origen la parada de origen del recorrido
+     * @param destino la parada de destino del recorrido
+     * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+     * @param hora la hora de llegada del usuario a la parada de origen
+     * @param red la {@link RedCompilada} de la ciudad
+     * @return lista de listas de recorridos, vacía si no hay solución
+     */
+    default List<List<Recorrido>> buscar(Parada origen, Parada destino, int diaSemana, LocalTime hora,
+                                         RedCompilada red) {
+        return buscar(origen, destino, diaSemana, hora, red.getConexionesParadas(), red.getTramos());
+    }
+
+    /**
+     * Busca los k mejores recorridos según un criterio, del mejor al peor.
+     * <p>
+     * Por defecto pasa las soluciones de {@link #buscar(Parada, Parada, int, LocalTime, RedCompilada)}
+     * por un montículo acotado a k en lugar de ordenarlas todas; las estrategias que
+     * combinan muchos candidatos sobrescriben este método para descartar los que no
+     * pueden quedar entre los k mejores antes de crear sus recorridos.
+     * </p>
+     *
+     * @param origen la parada de origen del recorrido
+     * @param destino la parada de destino del recorrido
+     * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+     * @param hora la hora de llegada del usuario a la parada de origen
+     * @param red la {@link RedCompilada} de la ciudad
+     * @param k cantidad máxima de recorridos a devolver
+     * @param criterio el {@link Criterio} de orden
+     * @return hasta k recorridos ordenados según el criterio, vacía si no hay solución
+     * @throws IllegalArgumentException si k es menor a 1
+     */
+    default List<List<Recorrido>> buscarMejores(Parada origen, Parada destino, int diaSemana, LocalTime hora,
+                                                RedCompilada red, int k, Criterio criterio) {
+        MejoresK<List<Recorrido>> mejores = new MejoresK<>(k);
+        for (List<Recorrido> solucion : buscar(origen, destino, diaSemana, hora, red))
+            mejores.agregar(criterio.clave(solucion, hora), solucion);
+        return mejores.ordenados();
+    }
 }
@@ -0,0 +1,133 @@
+package colectivo.logica;
+
+import java.util.Arrays;
+
+/**
+ * Grafo de líneas de la red, calculado una vez al compilar la {@link RedCompilada}.
+ * <p>
+ * Los nodos son las líneas y dos líneas están unidas si comparten una parada o si un
+ * tramo caminando une una parada de una con una parada de la otra. Para cada par de
+ * líneas se guarda la cantidad mínima de saltos entre ellas, con y sin las uniones
+ * caminando, calculada con un recorrido en anchura desde cada línea.
+ * </p>
+ * <p>
+ * El grafo no tiene en cuenta el sentido de las líneas ni los horarios, por lo que la
+ * cantidad de colectivos que devuelve {@link #minimoColectivos(int, int, boolean)} es
+ * una cota inferior: ningún recorrido entre las dos paradas usa menos colectivos, y si
+ * las paradas no están conectadas en el grafo no hay recorrido. Las búsquedas la usan
+ * para responder sin buscar cuando no hay recorrido posible y para omitir pasadas o
+ * estrategias que no pueden llegar al destino.
+ * </p>
+ *
+ * @see RedCompilada#getGrafoLineas()
+ */
+public final class GrafoLineas {
+
+	/** Saltos guardados en un byte; distancias mayores se guardan como este valor. */
+	private static final int MAXIMO_SALTOS = Byte.MAX_VALUE - 1;
+	private static final byte SIN_CAMINO = -1;
+
+	private final RedCompilada red;
+	private final int cantidadLineas;
+
+	/** Saltos entre cada par de líneas, por fila de línea de origen. */
+	private final byte[] saltosColectivo;
+	private final byte[] saltosCaminando;
+
+	/**
+	 * Arma el grafo y calcula las distancias entre todas las líneas de la red.
+	 *
+	 * @param red la red compilada, con sus líneas y tramos ya indexados
+	 */
+	GrafoLineas(RedCompilada red) {
+		this.red = red;
+		cantidadLineas = red.getCantidadLineas();
+
+		boolean[][] comparten = new boolean[cantidadLineas][cantidadLineas];
+		boolean[][] caminando = new boolean[cantidadLineas][cantidadLineas];
+		int[] destinos = red.getDestinoTramos();
+		for (int s = 0; s < red.getCantidadParadas(); s++) {
+			int[] lineas = red.getLineasParada(s);
+			for (int a : lineas)
+				for (int b : lineas) {
+					comparten[a][b] = true;
+					caminando[a][b] = true;
+				}
+			for (int e = red.getInicioCaminando(s), ultimo = red.getFinTramos(s); e < ultimo; e++)
+				for (int a : lineas)
+					for (int b : red.getLineasParada(destinos[e])) {
+						caminando[a][b] = true;
+						caminando[b][a] = true;
+					}
+		}
+
+		saltosColectivo = distancias(comparten);
+		saltosCaminando = distancias(caminando);
+	}
+
+	/** Recorrido en anchura desde cada línea sobre la matriz de adyacencia. */
+	private byte[] distancias(boolean[][] unidas) {
+		int n = cantidadLineas;
+		byte[] saltos = new byte[n * n];
+		Arrays.fill(saltos, SIN_CAMINO);
+		int[] cola = new int[n];
+		for (int origen = 0; origen < n; origen++) {
+			int fila = origen * n;
+			int inicio = 0;
+			int fin = 0;
+			saltos[fila + origen] = 0;
+			cola[fin++] = origen;
+			while (inicio < fin) {
+				int linea = cola[inicio++];
+				int siguiente = Math.min(saltos[fila + linea] + 1, MAXIMO_SALTOS);
+				for (int otra = 0; otra < n; otra++)
+					if (unidas[linea][otra] && saltos[fila + otra] == SIN_CAMINO) {
+						saltos[fila + otra] = (byte) siguiente;
+						cola[fin++] = otra;
+					}
+			}
+		}
+		return saltos;
+	}
+
+	/**
+	 * Cantidad mínima de saltos entre dos líneas.
+	 *
+	 * @param origen índice de la línea de origen
+	 * @param destino índice de la línea de destino
+	 * @param caminando true para contar las uniones por tramos caminando
+	 * @return saltos entre las líneas (0 si son la misma), o {@link RedCompilada#NINGUNA}
+	 *         si no están conectadas
+	 */
+	public int saltos(int origen, int destino, boolean caminando) {
+		byte saltos = (caminando ? saltosCaminando : saltosColectivo)[origen * cantidadLineas + destino];
+		return saltos == SIN_CAMINO ? RedCompilada.NINGUNA : saltos;
+	}
+
+	/**
+	 * Cota inferior de la cantidad de colectivos de un recorrido entre dos paradas: uno
+	 * más que la menor cantidad de saltos entre una línea del origen y una del destino.
+	 * El costo depende solo de la cantidad de líneas de ambas paradas.
+	 *
+	 * @param origen índice de la parada de origen
+	 * @param destino índice de la parada de destino
+	 * @param caminando true si el recorrido puede caminar entre dos colectivos
+	 * @return cantidad mínima de colectivos, 0 si las paradas son la misma, o
+	 *         {@link RedCompilada#NINGUNA} si no hay recorrido posible
+	 */
+	public int minimoColectivos(int origen, int destino, boolean caminando) {
+		if (origen == destino)
+			return 0;
+		byte[] saltos = caminando ? saltosCaminando : saltosColectivo;
+		int minimo = Integer.MAX_VALUE;
+		for (int a : red.getLineasParada(origen)) {
+			int fila = a * cantidadLineas;
+			for (int b : red.getLineasParada(destino)) {
+				int s = saltos[fila + b];
+				if (s != SIN_CAMINO && s < minimo)
+					minimo = s;
+			}
+		}
+		return minimo == Integer.MAX_VALUE ? RedCompilada.NINGUNA : minimo + 1;
+	}
+}
@@ -0,0 +1,77 @@
+package colectivo.logica;
+
+import java.time.LocalTime;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+
+/**
+ * Modelo interno de horarios de las búsquedas: segundos enteros desde el inicio del día
+ * de la consulta.
+ * <p>
+ * Un valor mayor o igual a {@link Constantes#SEGUNDOS_DIA} corresponde al día siguiente,
+ * de modo que un viaje que cruza la medianoche se compara y se suma sin casos especiales.
+ * Las búsquedas calculan y comparan candidatos con estos enteros, sin crear
+ * {@link LocalTime}, y solo convierten con {@link #aHora(int)} al armar los
+ * {@link Recorrido} de las soluciones que devuelven.
+ * </p>
+ */
+public final class Horario {
+
+	private Horario() {
+	}
+
+	/**
+	 * @param hora una hora del día
+	 * @return segundos desde el inicio del día
+	 */
+	public static int segundos(LocalTime hora) {
+		return hora.toSecondOfDay();
+	}
+
+	/**
+	 * @param segundos segundos desde el inicio del día de la consulta, de cualquier día
+	 * @return la hora del día correspondiente
+	 */
+	public static LocalTime aHora(int segundos) {
+		return LocalTime.ofSecondOfDay(delDia(segundos));
+	}
+
+	/**
+	 * @param segundos segundos desde el inicio del día de la consulta, de cualquier día
+	 * @return los segundos dentro de su día, entre 0 y {@link Constantes#SEGUNDOS_DIA} - 1
+	 */
+	public static int delDia(int segundos) {
+		return Math.floorMod(segundos, Constantes.SEGUNDOS_DIA);
+	}
+
+	/**
+	 * Espera desde una hora del día hasta la próxima vez que el reloj marca otra, pasando
+	 * la medianoche si hace falta.
+	 *
+	 * @param desde segundos del día de inicio
+	 * @param hasta segundos del día de fin
+	 * @return segundos de espera, entre 0 y {@link Constantes#SEGUNDOS_DIA} - 1
+	 */
+	public static int espera(int desde, int hasta) {
+		return delDia(hasta - desde);
+	}
+
+	/**
+	 * Próxima pasada de una línea por una posición de su recorrido a partir de un horario,
+	 * con la búsqueda binaria de {@link Linea#getProximaSalida(int, int)} y los tiempos
+	 * acumulados de la línea.
+	 *
+	 * @param linea la línea, con los tiempos acumulados calculados
+	 * @param diaSemana el día de la semana de referencia (1=lunes, 7=domingo)
+	 * @param desde horario mínimo en la parada, en segundos desde el inicio del día
+	 * @param posicion posición de la parada en el recorrido de la línea
+	 * @return segundos desde el inicio del día de referencia en que el colectivo pasa por
+	 *         la parada, o {@link RedCompilada#NINGUNA} si no hay salidas
+	 */
+	public static int proximaPasada(Linea linea, int diaSemana, int desde, int posicion) {
+		int hastaParada = posicion > 0 ? linea.getTiempoEntre(0, posicion) : 0;
+		int salida = linea.getProximaSalida(diaSemana, desde - hastaParada);
+		return salida < 0 ? RedCompilada.NINGUNA : salida + hastaParada;
+	}
+}
@@ -0,0 +1,556 @@
+package colectivo.logica;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+
+/**
+ * Índice de transbordos entre viajes para la búsqueda basada en viajes
+ * ({@link BusquedaViajes}).
+ * <p>
+ * Un viaje es una salida desde cabecera de una línea en un día de la semana. Los viajes
+ * se numeran por línea, día y hora de salida, de modo que los de una misma línea quedan
+ * contiguos. Para cada viaje y cada posición de su recorrido se guardan los transbordos
+ * útiles: bajando en esa parada (y caminando como máximo un tramo) se sube al primer
+ * viaje de otra línea que pasa después. Un transbordo se descarta si ninguna parada del
+ * viaje al que sube, ni las alcanzables caminando desde ellas, se alcanza antes que
+ * siguiendo en el viaje actual y transbordando más adelante; como no se camina hasta el
+ * destino, las llegadas bajando y caminando se comparan por separado.
+ * </p>
+ * <p>
+ * El cálculo se reparte por líneas entre los hilos de un {@link ForkJoinPool}. El
+ * resultado se puede guardar con {@link #guardar(Path)} y recuperar con
+ * {@link #abrir(Path, RedCompilada)}, que lo rechaza si la red tiene otros recorridos,
+ * tiempos o salidas ({@link RedCompilada#getHuella()}); {@link Ciudad} lo hace al cargar
+ * la red si se configuró un directorio de índices. El archivo binario, en orden de bytes
+ * big-endian, contiene una cabecera (marca, versión, huella de la red y cantidad de
+ * paradas, líneas, viajes, posiciones y transbordos), el primer transbordo de cada
+ * posición de cada viaje y, por transbordo, el viaje, la posición de subida y los
+ * segundos caminando.
+ * </p>
+ *
+ * @see BusquedaViajes
+ * @see RedCompilada#getIndiceViajes()
+ */
+public final class IndiceViajes {
+
+	private static final Logger logger = LogManager.getLogger(IndiceViajes.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+
+	/** Marca de inicio del archivo ("CTBV"). */
+	private static final int MARCA = 0x43544256;
+	private static final int VERSION = 2;
+	/** Marca, versión, huella (dos enteros) y cinco cantidades. */
+	private static final int ENTEROS_CABECERA = 9;
+
+	private final RedCompilada red;
+
+	/** Primer viaje de cada línea y día, en {@code linea * 7 + dia - 1}; la última posición es el total. */
+	private final int[] primerViaje;
+	private final int[] lineaViaje;
+	private final int[] diaViaje;
+	private final int[] salidaViaje;
+	/** Primera posición de cada viaje en {@link #primerTransbordo}. */
+	private final int[] primeraPosicion;
+
+	/** Primer transbordo de cada posición de cada viaje; la última posición es el total. */
+	private final int[] primerTransbordo;
+	private final int[] viajeTransbordo;
+	private final int[] posicionTransbordo;
+	private final int[] caminataTransbordo;
+
+	/** Viajes de la red, sin transbordos. */
+	private IndiceViajes(RedCompilada red, int[] primerTransbordo, int[] viajeTransbordo, int[] posicionTransbordo,
+			int[] caminataTransbordo) {
+		this.red = red;
+		int lineas = red.getCantidadLineas();
+		primerViaje = new int[lineas * 7 + 1];
+		int cantidad = 0;
+		for (int l = 0; l < lineas; l++)
+			for (int dia = 1; dia <= 7; dia++) {
+				primerViaje[l * 7 + dia - 1] = cantidad;
+				cantidad += red.getSalidas(l, dia).length;
+			}
+		primerViaje[lineas * 7] = cantidad;
+
+		lineaViaje = new int[cantidad];
+		diaViaje = new int[cantidad];
+		salidaViaje = new int[cantidad];
+		primeraPosicion = new int[cantidad + 1];
+		int v = 0;
+		for (int l = 0; l < lineas; l++)
+			for (int dia = 1; dia <= 7; dia++)
+				for (int salida : red.getSalidas(l, dia)) {
+					lineaViaje[v] = l;
+					diaViaje[v] = dia;
+					salidaViaje[v] = salida;
+					primeraPosicion[v + 1] = primeraPosicion[v] + red.getParadasLinea(l).length;
+					v++;
+				}
+
+		this.primerTransbordo = primerTransbordo;
+		this.viajeTransbordo = viajeTransbordo;
+		this.posicionTransbordo = posicionTransbordo;
+		this.caminataTransbordo = caminataTransbordo;
+	}
+
+	/**
+	 * Calcula los transbordos útiles entre los viajes de la red.
+	 *
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @param paralelismo cantidad de hilos
+	 * @return el índice calculado
+	 * @throws IllegalArgumentException si red es null o paralelismo es menor a 1
+	 */
+	public static IndiceViajes calcular(RedCompilada red, int paralelismo) {
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+		if (paralelismo < 1) {
+			logger.error("paralelismo debe ser al menos 1: {}", paralelismo);
+			throw new IllegalArgumentException("paralelismo debe ser al menos 1");
+		}
+
+		long inicio = System.nanoTime();
+		IndiceViajes viajes = new IndiceViajes(red, null, null, null, null);
+		int lineas = red.getCantidadLineas();
+		int[][][] porLinea = new int[lineas][][];
+		ForkJoinPool pool = new ForkJoinPool(paralelismo);
+		try {
+			pool.submit(() -> IntStream.range(0, lineas).parallel()
+					.forEach(l -> porLinea[l] = viajes.transbordosLinea(l))).join();
+		} finally {
+			pool.shutdown();
+		}
+
+		// Los viajes de cada línea son contiguos: se concatenan los resultados en orden
+		int posiciones = viajes.primeraPosicion[viajes.lineaViaje.length];
+		int total = 0;
+		for (int[][] resultado : porLinea)
+			total += resultado[1].length;
+		int[] primero = new int[posiciones + 1];
+		int[] viaje = new int[total];
+		int[] posicion = new int[total];
+		int[] caminata = new int[total];
+		int ranura = 0;
+		int t = 0;
+		for (int[][] resultado : porLinea) {
+			for (int cantidad : resultado[0]) {
+				primero[ranura + 1] = primero[ranura] + cantidad;
+				ranura++;
+			}
+			System.arraycopy(resultado[1], 0, viaje, t, resultado[1].length);
+			System.arraycopy(resultado[2], 0, posicion, t, resultado[2].length);
+			System.arraycopy(resultado[3], 0, caminata, t, resultado[3].length);
+			t += resultado[1].length;
+		}
+
+		IndiceViajes indice = new IndiceViajes(red, primero, viaje, posicion, caminata);
+		logger.info("Índice de viajes: {} viajes, {} transbordos en {} ms con {} hilos", indice.getCantidadViajes(),
+				total, (System.nanoTime() - inicio) / 1_000_000, paralelismo);
+		return indice;
+	}
+
+	/**
+	 * Transbordos de los viajes de una línea, recorriendo cada viaje desde la última
+	 * parada hacia la primera.
+	 *
+	 * @return cantidad de transbordos por posición de cada viaje de la línea, y viaje,
+	 *         posición y caminata de cada transbordo
+	 */
+	private int[][] transbordosLinea(int linea) {
+		int[] paradasLinea = red.getParadasLinea(linea);
+		int[] acumulados = red.getTiemposAcumulados(linea);
+		int[] destinos = red.getDestinoTramos();
+		int[] tiempos = red.getTiempoTramos();
+		int primero = primerViaje[linea * 7];
+		int ultimo = primerViaje[linea * 7 + 7];
+
+		int[] cantidades = new int[(ultimo - primero) * paradasLinea.length];
+		Arreglo viajes = new Arreglo();
+		Arreglo posiciones = new Arreglo();
+		Arreglo caminatas = new Arreglo();
+		Llegadas llegadas = new Llegadas(red.getCantidadParadas());
+		for (int v = primero; v < ultimo; v++) {
+			llegadas.reiniciar();
+			int dia = diaViaje[v];
+			int base = (v - primero) * paradasLinea.length;
+			int inicioViaje = viajes.tamano;
+			for (int i = paradasLinea.length - 1; i >= 1; i--) {
+				int parada = paradasLinea[i];
+				int arribo = salidaViaje[v] + acumulados[i];
+				llegadas.mejorar(parada, arribo, true);
+				for (int e = red.getInicioCaminando(parada), fin = red.getFinTramos(parada); e < fin; e++)
+					llegadas.mejorar(destinos[e], arribo + tiempos[e], false);
+
+				// Bajando en la parada o caminando un tramo desde ella
+				int inicio = viajes.tamano;
+				transbordos(linea, dia, parada, arribo, 0, llegadas, viajes, posiciones, caminatas);
+				for (int e = red.getInicioCaminando(parada), fin = red.getFinTramos(parada); e < fin; e++)
+					transbordos(linea, dia, destinos[e], arribo + tiempos[e], tiempos[e], llegadas, viajes, posiciones,
+							caminatas);
+				cantidades[base + i] = viajes.tamano - inicio;
+			}
+			// Las posiciones se recorrieron de la última a la primera: se invierte el orden de los bloques
+			int[] orden = new int[viajes.tamano - inicioViaje];
+			for (int i = 1, t = 0, fin = orden.length; i < paradasLinea.length; i++) {
+				fin -= cantidades[base + i];
+				for (int k = 0; k < cantidades[base + i]; k++)
+					orden[t++] = inicioViaje + fin + k;
+			}
+			viajes.reordenar(inicioViaje, orden);
+			posiciones.reordenar(inicioViaje, orden);
+			caminatas.reordenar(inicioViaje, orden);
+		}
+		return new int[][] { cantidades, viajes.recortar(), posiciones.recortar(), caminatas.recortar() };
+	}
+
+	/**
+	 * Agrega los transbordos a las otras líneas que pasan por una parada, subiendo al
+	 * primer viaje de cada una desde el horario de llegada.
+	 */
+	private void transbordos(int linea, int dia, int subida, int llegada, int caminata, Llegadas llegadas,
+			Arreglo viajes, Arreglo posiciones, Arreglo caminatas) {
+		int[] lineas = red.getLineasParada(subida);
+		int[] posicionesSubida = red.getPosicionesParada(subida);
+		for (int k = 0; k < lineas.length; k++) {
+			int otra = lineas[k];
+			int j = posicionesSubida[k];
+			if (otra == linea || j + 1 >= red.getParadasLinea(otra).length)
+				continue;
+			int u = primeroDesde(otra, j, dia, llegada);
+			if (u != RedCompilada.NINGUNA && mejora(u, j, desplazamiento(u, dia), llegadas)) {
+				viajes.agregar(u);
+				posiciones.agregar(j);
+				caminatas.agregar(caminata);
+			}
+		}
+	}
+
+	/**
+	 * Registra las llegadas del viaje desde la posición de subida y las caminatas desde
+	 * sus paradas.
+	 *
+	 * @return true si alguna mejora las llegadas ya registradas
+	 */
+	private boolean mejora(int viaje, int subida, int desplazamiento, Llegadas llegadas) {
+		int[] destinos = red.getDestinoTramos();
+		int[] tiempos = red.getTiempoTramos();
+		int linea = lineaViaje[viaje];
+		int[] paradas = red.getParadasLinea(linea);
+		int[] acumulados = red.getTiemposAcumulados(linea);
+		boolean mejora = false;
+		for (int k = subida + 1; k < paradas.length; k++) {
+			int arribo = desplazamiento + salidaViaje[viaje] + acumulados[k];
+			mejora |= llegadas.mejorar(paradas[k], arribo, true);
+			for (int e = red.getInicioCaminando(paradas[k]), fin = red.getFinTramos(paradas[k]); e < fin; e++)
+				mejora |= llegadas.mejorar(destinos[e], arribo + tiempos[e], false);
+		}
+		return mejora;
+	}
+
+	/**
+	 * Mejor llegada a cada parada desde el viaje que se está procesando, bajando de un
+	 * colectivo y de cualquier forma. Se separan porque caminando no se llega al destino:
+	 * una llegada caminando más temprana sirve para subir, pero no reemplaza a una bajada.
+	 */
+	private static final class Llegadas {
+		private final int[] colectivo;
+		private final int[] cualquiera;
+		private final int[] tocadas;
+		private int cantidadTocadas;
+
+		Llegadas(int paradas) {
+			colectivo = new int[paradas];
+			cualquiera = new int[paradas];
+			tocadas = new int[paradas];
+			Arrays.fill(colectivo, INFINITO);
+			Arrays.fill(cualquiera, INFINITO);
+		}
+
+		/** @return true si la llegada mejora alguna de las registradas en la parada */
+		boolean mejorar(int parada, int arribo, boolean bajando) {
+			boolean mejoraColectivo = bajando && arribo < colectivo[parada];
+			boolean mejoraCualquiera = arribo < cualquiera[parada];
+			if (!mejoraColectivo && !mejoraCualquiera)
+				return false;
+			if (cualquiera[parada] == INFINITO)
+				tocadas[cantidadTocadas++] = parada;
+			if (mejoraColectivo)
+				colectivo[parada] = arribo;
+			if (mejoraCualquiera)
+				cualquiera[parada] = arribo;
+			return true;
+		}
+
+		void reiniciar() {
+			for (int i = 0; i < cantidadTocadas; i++) {
+				colectivo[tocadas[i]] = INFINITO;
+				cualquiera[tocadas[i]] = INFINITO;
+			}
+			cantidadTocadas = 0;
+		}
+	}
+
+	/** Arreglo de enteros que crece a medida que se agregan valores. */
+	private static final class Arreglo {
+		private int[] valores = new int[16];
+		private int tamano;
+
+		void agregar(int valor) {
+			if (tamano == valores.length)
+				valores = Arrays.copyOf(valores, tamano * 2);
+			valores[tamano++] = valor;
+		}
+
+		/** Reemplaza los valores desde inicio por los de las posiciones indicadas, en ese orden. */
+		void reordenar(int inicio, int[] orden) {
+			int[] copia = new int[orden.length];
+			for (int k = 0; k < orden.length; k++)
+				copia[k] = valores[orden[k]];
+			System.arraycopy(copia, 0, valores, inicio, copia.length);
+		}
+
+		int[] recortar() {
+			return Arrays.copyOf(valores, tamano);
+		}
+	}
+
+	/**
+	 * Primer viaje de una línea que pasa por una posición en o después de un horario, del
+	 * día indicado o del siguiente.
+	 *
+	 * @param linea índice de la línea
+	 * @param posicion posición de la parada en la línea
+	 * @param diaSemana día de referencia del horario (1=lunes, 7=domingo)
+	 * @param desde horario en segundos desde el inicio del día de referencia
+	 * @return el viaje, o {@link RedCompilada#NINGUNA} si no pasa ninguno
+	 */
+	public int primeroDesde(int linea, int posicion, int diaSemana, int desde) {
+		int minimo = desde - red.getTiemposAcumulados(linea)[posicion];
+		int base = linea * 7;
+		int inicio = primerViaje[base + diaSemana - 1];
+		int fin = primerViaje[base + diaSemana];
+		int k = primeraNoMenor(inicio, fin, minimo);
+		if (k < fin)
+			return k;
+		int siguiente = diaSemana % 7 + 1;
+		inicio = primerViaje[base + siguiente - 1];
+		fin = primerViaje[base + siguiente];
+		k = primeraNoMenor(inicio, fin, minimo - Constantes.SEGUNDOS_DIA);
+		return k < fin ? k : RedCompilada.NINGUNA;
+	}
+
+	/** Búsqueda binaria del primer viaje entre inicio y fin que sale en o después de un horario. */
+	private int primeraNoMenor(int inicio, int fin, int salida) {
+		int bajo = inicio;
+		int alto = fin;
+		while (bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if (salidaViaje[medio] < salida)
+				bajo = medio + 1;
+			else
+				alto = medio;
+		}
+		return bajo;
+	}
+
+	/**
+	 * Viaje siguiente de la misma línea, del mismo día o, si era el último, el primero del
+	 * día siguiente.
+	 *
+	 * @param viaje el viaje
+	 * @return el viaje siguiente, o {@link RedCompilada#NINGUNA} si la línea no tiene más
+	 *         viajes ese día ni el siguiente
+	 */
+	public int siguiente(int viaje) {
+		int linea = lineaViaje[viaje];
+		int dia = diaViaje[viaje];
+		if (viaje + 1 < primerViaje[linea * 7 + dia])
+			return viaje + 1;
+		int otroDia = dia % 7 + 1;
+		int inicio = primerViaje[linea * 7 + otroDia - 1];
+		return inicio < primerViaje[linea * 7 + otroDia] ? inicio : RedCompilada.NINGUNA;
+	}
+
+	/**
+	 * Indica si una búsqueda desde un día puede usar el viaje: solo usa los de ese día y
+	 * los del siguiente.
+	 *
+	 * @param viaje el viaje
+	 * @param diaSemana día de referencia (1=lunes, 7=domingo)
+	 * @return true si el viaje sale el día de referencia o el siguiente
+	 */
+	public boolean disponible(int viaje, int diaSemana) {
+		int dia = diaViaje[viaje];
+		return dia == diaSemana || dia == diaSemana % 7 + 1;
+	}
+
+	/**
+	 * @param viaje el viaje, {@link #disponible(int, int) disponible} el día de referencia
+	 * @param diaSemana día de referencia (1=lunes, 7=domingo)
+	 * @return segundos a sumar a los horarios del viaje para expresarlos desde el inicio
+	 *         del día de referencia: 0 el mismo día o un día el siguiente
+	 * @throws IllegalArgumentException si el viaje no sale el día de referencia ni el siguiente
+	 */
+	public int desplazamiento(int viaje, int diaSemana) {
+		int dia = diaViaje[viaje];
+		if (dia == diaSemana)
+			return 0;
+		if (dia != diaSemana % 7 + 1) {
+			logger.error("El viaje {} no sale el día {} ni el siguiente", viaje, diaSemana);
+			throw new IllegalArgumentException("El viaje no sale el día de referencia ni el siguiente");
+		}
+		return Constantes.SEGUNDOS_DIA;
+	}
+
+	/**
+	 * Guarda el índice en un archivo, que se reemplaza si existe.
+	 *
+	 * @param archivo el archivo de destino
+	 * @throws IOException si ocurre un error de escritura
+	 * @throws IllegalArgumentException si archivo es null
+	 */
+	public void guardar(Path archivo) throws IOException {
+		if (archivo == null) {
+			logger.error("archivo no puede ser null");
+			throw new IllegalArgumentException("archivo no puede ser null");
+		}
+		try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+			salida.writeInt(MARCA);
+			salida.writeInt(VERSION);
+			salida.writeLong(red.getHuella());
+			salida.writeInt(red.getCantidadParadas());
+			salida.writeInt(red.getCantidadLineas());
+			salida.writeInt(lineaViaje.length);
+			salida.writeInt(primerTransbordo.length - 1);
+			salida.writeInt(viajeTransbordo.length);
+			for (int[] arreglo : new int[][] { primerTransbordo, viajeTransbordo, posicionTransbordo,
+					caminataTransbordo })
+				for (int valor : arreglo)
+					salida.writeInt(valor);
+		}
+		logger.info("Índice de viajes guardado: {}", archivo);
+	}
+
+	/**
+	 * Recupera un índice guardado con {@link #guardar(Path)} para una red.
+	 *
+	 * @param archivo el archivo a leer
+	 * @param red la {@link RedCompilada} para la que se calculó el índice
+	 * @return el índice
+	 * @throws IOException si ocurre un error de lectura o el archivo no es un índice
+	 *         válido para la red, por ejemplo si se calculó con otros horarios
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	public static IndiceViajes abrir(Path archivo, RedCompilada red) throws IOException {
+		if (archivo == null || red == null) {
+			logger.error("archivo y red no pueden ser null");
+			throw new IllegalArgumentException("archivo y red no pueden ser null");
+		}
+
+		IndiceViajes viajes = new IndiceViajes(red, null, null, null, null);
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+			long tamanio = canal.size();
+			if (tamanio < ENTEROS_CABECERA * Integer.BYTES || tamanio > Integer.MAX_VALUE)
+				throw invalido(archivo);
+			IntBuffer enteros = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio).asIntBuffer();
+			int posiciones = viajes.primeraPosicion[viajes.lineaViaje.length];
+			if (enteros.get(0) != MARCA || enteros.get(1) != VERSION)
+				throw invalido(archivo);
+			long huella = (long) enteros.get(2) << 32 | enteros.get(3) & 0xFFFFFFFFL;
+			if (huella != red.getHuella()) {
+				logger.error("El índice de viajes {} se calculó con otros horarios de la red", archivo);
+				throw new IOException("El índice de viajes se calculó con otros horarios de la red: " + archivo);
+			}
+			int transbordos = enteros.get(8);
+			if (enteros.get(4) != red.getCantidadParadas() || enteros.get(5) != red.getCantidadLineas()
+					|| enteros.get(6) != viajes.lineaViaje.length || enteros.get(7) != posiciones || transbordos < 0
+					|| tamanio != (ENTEROS_CABECERA + posiciones + 1 + 3L * transbordos) * Integer.BYTES)
+				throw invalido(archivo);
+
+			int[] primero = new int[posiciones + 1];
+			int[] viaje = new int[transbordos];
+			int[] posicion = new int[transbordos];
+			int[] caminata = new int[transbordos];
+			enteros.position(ENTEROS_CABECERA);
+			enteros.get(primero).get(viaje).get(posicion).get(caminata);
+			return new IndiceViajes(red, primero, viaje, posicion, caminata);
+		}
+	}
+
+	private static IOException invalido(Path archivo) {
+		logger.error("Archivo de índice de viajes inválido: {}", archivo);
+		return new IOException("Archivo de índice de viajes inválido: " + archivo);
+	}
+
+	/** @return la red para la que se calculó el índice */
+	public RedCompilada getRed() {
+		return red;
+	}
+
+	/** @return cantidad de viajes de toda la semana */
+	public int getCantidadViajes() {
+		return lineaViaje.length;
+	}
+
+	/** @return cantidad de transbordos guardados */
+	public int getCantidadTransbordos() {
+		return viajeTransbordo.length;
+	}
+
+	/** @return índice de la línea del viaje */
+	public int getLinea(int viaje) {
+		return lineaViaje[viaje];
+	}
+
+	/** @return día de la semana del viaje (1=lunes, 7=domingo) */
+	public int getDia(int viaje) {
+		return diaViaje[viaje];
+	}
+
+	/** @return salida desde cabecera del viaje en segundos desde el inicio de su día */
+	public int getSalida(int viaje) {
+		return salidaViaje[viaje];
+	}
+
+	/** @return posición del primer transbordo al bajar del viaje en la posición indicada */
+	public int getInicioTransbordos(int viaje, int posicion) {
+		return primerTransbordo[primeraPosicion[viaje] + posicion];
+	}
+
+	/** @return posición siguiente al último transbordo al bajar del viaje en la posición indicada */
+	public int getFinTransbordos(int viaje, int posicion) {
+		return primerTransbordo[primeraPosicion[viaje] + posicion + 1];
+	}
+
+	/** @return viaje al que se sube en cada transbordo (no modificar) */
+	public int[] getViajeTransbordos() {
+		return viajeTransbordo;
+	}
+
+	/** @return posición de subida en cada transbordo (no modificar) */
+	public int[] getPosicionTransbordos() {
+		return posicionTransbordo;
+	}
+
+	/** @return segundos caminando de cada transbordo, 0 si se sube en la misma parada (no modificar) */
+	public int[] getCaminataTransbordos() {
+		return caminataTransbordo;
+	}
+}
@@ -0,0 +1,256 @@
+package colectivo.logica;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Parada;
+
+/**
+ * Matriz de tiempos de viaje entre todas las paradas de la red para un día y una hora.
+ * <p>
+ * {@link #exportar(RedCompilada, int, LocalTime, Path, int)} calcula cada fila con un
+ * único escaneo de {@link BusquedaCSA} desde la parada de origen, repartiendo los
+ * orígenes entre los hilos de un {@link ForkJoinPool}, y escribe cada fila en su posición
+ * del archivo apenas se calcula: en memoria solo hay una fila por hilo.
+ * </p>
+ * <p>
+ * El archivo binario, en orden de bytes big-endian, contiene una cabecera de enteros
+ * (marca, versión, cantidad de paradas N, día de la semana y segundos del día de la
+ * hora), los N códigos de parada y luego N×N enteros con los segundos de viaje, fila por
+ * origen y columna por destino, o {@link #SIN_LLEGADA} si el destino no es alcanzable.
+ * {@link #abrir(Path)} lo mapea en memoria sin leerlo completo.
+ * </p>
+ *
+ * @see BusquedaCSA
+ */
+public final class MatrizTiempos {
+
+	private static final Logger logger = LogManager.getLogger(MatrizTiempos.class);
+
+	/** Segundos de viaje de un destino no alcanzable. */
+	public static final int SIN_LLEGADA = -1;
+
+	/** Marca de inicio del archivo ("CMTZ"). */
+	private static final int MARCA = 0x434D545A;
+	private static final int VERSION = 1;
+	private static final int ENTEROS_CABECERA = 5;
+
+	private final int cantidad;
+	private final int diaSemana;
+	private final LocalTime hora;
+	private final int[] codigos;
+	private final Map<Integer, Integer> indices;
+	private final IntBuffer tiempos;
+
+	private MatrizTiempos(int diaSemana, LocalTime hora, int[] codigos, IntBuffer tiempos) {
+		this.cantidad = codigos.length;
+		this.diaSemana = diaSemana;
+		this.hora = hora;
+		this.codigos = codigos;
+		this.tiempos = tiempos;
+		this.indices = new HashMap<>();
+		for (int i = 0; i < codigos.length; i++)
+			indices.put(codigos[i], i);
+	}
+
+	/**
+	 * Calcula la matriz de tiempos de la red y la escribe en un archivo, que se reemplaza
+	 * si existe.
+	 *
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @param hora la hora de llegada a cada parada de origen
+	 * @param archivo el archivo de destino
+	 * @param paralelismo cantidad de hilos
+	 * @return el tiempo total de cálculo y escritura
+	 * @throws IOException si ocurre un error de escritura
+	 * @throws IllegalArgumentException si algún parámetro es null, diaSemana está fuera de
+	 *         rango, paralelismo es menor a 1 o la matriz no entra en un archivo mapeable
+	 */
+	public static Duration exportar(RedCompilada red, int diaSemana, LocalTime hora, Path archivo, int paralelismo)
+			throws IOException {
+
+		if (red == null || hora == null || archivo == null) {
+			logger.error("red, hora y archivo no pueden ser null");
+			throw new IllegalArgumentException("red, hora y archivo no pueden ser null");
+		}
+		if (diaSemana < 1 || diaSemana > 7) {
+			logger.error("diaSemana fuera de rango [1..7]: {}", diaSemana);
+			throw new IllegalArgumentException("diaSemana debe estar entre 1 y 7");
+		}
+		if (paralelismo < 1) {
+			logger.error("paralelismo debe ser al menos 1: {}", paralelismo);
+			throw new IllegalArgumentException("paralelismo debe ser al menos 1");
+		}
+		int n = red.getCantidadParadas();
+		long bytesTiempos = (long) n * n * Integer.BYTES;
+		long inicioTiempos = (long) (ENTEROS_CABECERA + n) * Integer.BYTES;
+		if (inicioTiempos + bytesTiempos > Integer.MAX_VALUE) {
+			logger.error("La matriz de {} paradas no entra en un archivo mapeable", n);
+			throw new IllegalArgumentException("Demasiadas paradas para la matriz: " + n);
+		}
+
+		long inicio = System.nanoTime();
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer cabecera = ByteBuffer.allocate((int) inicioTiempos);
+			cabecera.putInt(MARCA).putInt(VERSION).putInt(n).putInt(diaSemana).putInt(hora.toSecondOfDay());
+			for (int i = 0; i < n; i++)
+				cabecera.putInt(red.getParada(i).getCodigo());
+			escribir(canal, cabecera.flip(), 0);
+
+			BusquedaCSA csa = new BusquedaCSA();
+			int salida = hora.toSecondOfDay();
+			ForkJoinPool pool = new ForkJoinPool(paralelismo);
+			try {
+				pool.submit(() -> IntStream.range(0, n).parallel().forEach(origen -> {
+					int[] fila = new int[n];
+					csa.tiempos(origen, diaSemana, salida, red, fila);
+					ByteBuffer bytes = ByteBuffer.allocate(n * Integer.BYTES);
+					bytes.asIntBuffer().put(fila);
+					escribir(canal, bytes, inicioTiempos + (long) origen * n * Integer.BYTES);
+				})).join();
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+		Duration duracion = Duration.ofNanos(System.nanoTime() - inicio);
+		logger.info("Matriz de tiempos de {} paradas (día {}, {}) en {} ms con {} hilos: {}", n, diaSemana, hora,
+				duracion.toMillis(), paralelismo, archivo);
+		return duracion;
+	}
+
+	/** Escritura posicional: varios hilos pueden escribir filas distintas a la vez. */
+	private static void escribir(FileChannel canal, ByteBuffer bytes, long posicion) {
+		try {
+			while (bytes.hasRemaining())
+				posicion += canal.write(bytes, posicion);
+		} catch (IOException e) {
+			logger.error("Error al escribir la matriz de tiempos", e);
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Abre una matriz exportada mapeando el archivo en memoria.
+	 *
+	 * @param archivo el archivo generado por
+	 *        {@link #exportar(RedCompilada, int, LocalTime, Path, int)}
+	 * @return la matriz, de solo lectura
+	 * @throws IOException si ocurre un error de lectura o el archivo no es una matriz
+	 *         válida
+	 * @throws IllegalArgumentException si archivo es null
+	 */
+	public static MatrizTiempos abrir(Path archivo) throws IOException {
+		if (archivo == null) {
+			logger.error("archivo no puede ser null");
+			throw new IllegalArgumentException("archivo no puede ser null");
+		}
+
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+			long tamanio = canal.size();
+			if (tamanio < ENTEROS_CABECERA * Integer.BYTES || tamanio > Integer.MAX_VALUE)
+				throw invalido(archivo);
+			IntBuffer enteros = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio).asIntBuffer();
+			if (enteros.get(0) != MARCA || enteros.get(1) != VERSION)
+				throw invalido(archivo);
+			int n = enteros.get(2);
+			int diaSemana = enteros.get(3);
+			int segundos = enteros.get(4);
+			if (n < 0 || diaSemana < 1 || diaSemana > 7 || segundos < 0 || segundos >= Constantes.SEGUNDOS_DIA
+					|| tamanio != (ENTEROS_CABECERA + n + (long) n * n) * Integer.BYTES)
+				throw invalido(archivo);
+
+			int[] codigos = new int[n];
+			enteros.get(ENTEROS_CABECERA, codigos);
+			IntBuffer tiempos = enteros.slice(ENTEROS_CABECERA + n, n * n);
+			return new MatrizTiempos(diaSemana, LocalTime.ofSecondOfDay(segundos), codigos, tiempos);
+		}
+	}
+
+	private static IOException invalido(Path archivo) {
+		logger.error("Archivo de matriz de tiempos inválido: {}", archivo);
+		return new IOException("Archivo de matriz de tiempos inválido: " + archivo);
+	}
+
+	/**
+	 * Segundos de viaje entre dos paradas.
+	 *
+	 * @param origen la parada de origen
+	 * @param destino la parada de destino
+	 * @return segundos de viaje, 0 si son la misma parada o {@link #SIN_LLEGADA} si el
+	 *         destino no es alcanzable
+	 * @throws IllegalArgumentException si alguna parada es null o no está en la matriz
+	 */
+	public int getSegundos(Parada origen, Parada destino) {
+		if (origen == null || destino == null) {
+			logger.error("origen y destino no pueden ser null");
+			throw new IllegalArgumentException("origen y destino no pueden ser null");
+		}
+		return getSegundos(indice(origen.getCodigo()), indice(destino.getCodigo()));
+	}
+
+	/**
+	 * Segundos de viaje entre dos posiciones de la matriz.
+	 *
+	 * @param origen posición del origen, entre 0 y {@link #getCantidadParadas()} - 1
+	 * @param destino posición del destino, entre 0 y {@link #getCantidadParadas()} - 1
+	 * @return segundos de viaje o {@link #SIN_LLEGADA}
+	 */
+	public int getSegundos(int origen, int destino) {
+		return tiempos.get(origen * cantidad + destino);
+	}
+
+	/**
+	 * @param codigo código de parada
+	 * @return posición de la parada en la matriz
+	 * @throws IllegalArgumentException si la parada no está en la matriz
+	 */
+	public int indice(int codigo) {
+		Integer indice = indices.get(codigo);
+		if (indice == null) {
+			logger.error("La parada {} no está en la matriz", codigo);
+			throw new IllegalArgumentException("La parada " + codigo + " no está en la matriz");
+		}
+		return indice;
+	}
+
+	/**
+	 * @param indice posición en la matriz
+	 * @return código de la parada en esa posición
+	 */
+	public int getCodigoParada(int indice) {
+		return codigos[indice];
+	}
+
+	public int getCantidadParadas() {
+		return cantidad;
+	}
+
+	public int getDiaSemana() {
+		return diaSemana;
+	}
+
+	public LocalTime getHora() {
+		return hora;
+	}
+}
@@ -0,0 +1,72 @@
+package colectivo.logica;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Los k mejores elementos vistos según una clave entera (menor es mejor), en un montículo
+ * acotado que tiene arriba al peor de los conservados.
+ * <p>
+ * {@link #entra(long)} permite descartar un candidato antes de construirlo. A igual clave
+ * se conserva el que llegó primero, por lo que el resultado coincide con ordenar todos
+ * los candidatos de forma estable y quedarse con los primeros k.
+ * </p>
+ *
+ * @param <T> tipo de los elementos
+ */
+final class MejoresK<T> {
+
+	private static final Logger logger = LogManager.getLogger(MejoresK.class);
+
+	private record Entrada<T>(long clave, int orden, T valor) {
+	}
+
+	private static final Comparator<Entrada<?>> DEL_PEOR = Comparator.<Entrada<?>>comparingLong(Entrada::clave)
+			.thenComparingInt(Entrada::orden).reversed();
+
+	private final int k;
+	private final PriorityQueue<Entrada<T>> conservados;
+	private int orden;
+
+	/**
+	 * @param k cantidad de elementos a conservar
+	 * @throws IllegalArgumentException si k es menor a 1
+	 */
+	MejoresK(int k) {
+		if (k < 1) {
+			logger.error("k debe ser al menos 1: {}", k);
+			throw new IllegalArgumentException("k debe ser al menos 1");
+		}
+		this.k = k;
+		this.conservados = new PriorityQueue<>(Math.min(k, 64) + 1, DEL_PEOR);
+	}
+
+	/** @return true si un elemento con esta clave quedaría entre los k mejores */
+	boolean entra(long clave) {
+		return conservados.size() < k || clave < conservados.peek().clave();
+	}
+
+	/** Agrega un elemento si queda entre los k mejores, descartando al peor si sobra. */
+	void agregar(long clave, T valor) {
+		if (!entra(clave))
+			return;
+		conservados.add(new Entrada<>(clave, orden++, valor));
+		if (conservados.size() > k)
+			conservados.poll();
+	}
+
+	/** @return los elementos conservados, del mejor al peor */
+	List<T> ordenados() {
+		List<Entrada<T>> entradas = new ArrayList<>(conservados);
+		entradas.sort(DEL_PEOR.reversed());
+		List<T> valores = new ArrayList<>(entradas.size());
+		for (Entrada<T> entrada : entradas)
+			valores.add(entrada.valor());
+		return valores;
+	}
+}
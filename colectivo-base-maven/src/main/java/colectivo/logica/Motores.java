@@ -0,0 +1,107 @@
+package colectivo.logica;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.util.Factory;
+
+/**
+ * Motores de búsqueda de recorridos configurados en {@code factory.properties}, igual
+ * que los DAO de {@link Factory}.
+ * <p>
+ * La clave {@value #CLAVE} indica la clase del motor por defecto y cada clave
+ * {@code ESTRATEGIA.<NOMBRE>} un motor que puede pedirse por consulta con
+ * {@link #obtener(String)}. Las opciones del motor se indican con claves que agregan un
+ * sufijo a la del motor; por ahora {@code .rondas}, la cantidad máxima de colectivos de
+ * las búsquedas por rondas, que se pasa a su constructor con un entero. Por ejemplo:
+ * </p>
+ *
+ * <pre>
+ * ESTRATEGIA=colectivo.logica.BusquedaRaptor
+ * ESTRATEGIA.CSA=colectivo.logica.BusquedaCSA
+ * ESTRATEGIA.PARETO=colectivo.logica.BusquedaPareto
+ * ESTRATEGIA.PARETO.rondas=3
+ * </pre>
+ * <p>
+ * Cada motor se crea una sola vez y se comparte entre hilos, por lo que debe poder
+ * usarse desde varios hilos a la vez. Si el archivo no define {@value #CLAVE}, el motor
+ * por defecto es {@link BusquedaRaptor}.
+ * </p>
+ */
+public final class Motores {
+
+	private static final Logger logger = LogManager.getLogger(Motores.class);
+
+	/** Clave del motor por defecto. */
+	public static final String CLAVE = "ESTRATEGIA";
+
+	/** Sufijo de la opción de rondas máximas. */
+	private static final String RONDAS = ".rondas";
+
+	/** Motores creados, indexados por su clave. */
+	private static final Map<String, EstrategiaBusqueda> MOTORES = new ConcurrentHashMap<>();
+
+	private Motores() {
+	}
+
+	/**
+	 * @return el motor por defecto de {@value #CLAVE}
+	 * @throws IllegalArgumentException si la clase o sus opciones no son válidas
+	 */
+	public static EstrategiaBusqueda predeterminado() {
+		return MOTORES.computeIfAbsent(CLAVE, Motores::crear);
+	}
+
+	/**
+	 * Motor elegido por nombre para una consulta.
+	 *
+	 * @param nombre el nombre del motor, sin el prefijo {@code ESTRATEGIA.}
+	 * @return el motor de la clave {@code ESTRATEGIA.<nombre>}
+	 * @throws IllegalArgumentException si nombre es null, no está configurado o su clase
+	 *         u opciones no son válidas
+	 */
+	public static EstrategiaBusqueda obtener(String nombre) {
+		if (nombre == null) {
+			logger.error("nombre no puede ser null");
+			throw new IllegalArgumentException("nombre no puede ser null");
+		}
+		return MOTORES.computeIfAbsent(CLAVE + "." + nombre, Motores::crear);
+	}
+
+	private static EstrategiaBusqueda crear(String clave) {
+		ResourceBundle rb = ResourceBundle.getBundle("factory");
+		if (!rb.containsKey(clave)) {
+			if (clave.equals(CLAVE)) {
+				logger.info("Sin {} en factory.properties, se usa la búsqueda por rondas", CLAVE);
+				return new BusquedaRaptor();
+			}
+			logger.error("Motor de búsqueda no configurado: {}", clave);
+			throw new IllegalArgumentException("Motor de búsqueda no configurado: " + clave);
+		}
+
+		String clase = rb.getString(clave).strip();
+		try {
+			Class<? extends EstrategiaBusqueda> tipo = Class.forName(clase).asSubclass(EstrategiaBusqueda.class);
+			EstrategiaBusqueda motor;
+			if (rb.containsKey(clave + RONDAS)) {
+				int rondas = Integer.parseInt(rb.getString(clave + RONDAS).strip());
+				Constructor<? extends EstrategiaBusqueda> constructor = tipo.getDeclaredConstructor(int.class);
+				motor = constructor.newInstance(rondas);
+			} else {
+				motor = tipo.getDeclaredConstructor().newInstance();
+			}
+			logger.info("Motor de búsqueda '{}': {}", clave, clase);
+			return motor;
+		} catch (MissingResourceException | ReflectiveOperationException | ClassCastException
+				| NumberFormatException e) {
+			logger.error("Error al crear el motor de búsqueda '{}' ({})", clave, clase, e);
+			throw new IllegalArgumentException("Motor de búsqueda inválido: " + clave, e);
+		}
+	}
+}
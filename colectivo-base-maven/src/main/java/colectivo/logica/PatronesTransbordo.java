@@ -0,0 +1,1027 @@
+package colectivo.logica;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+
+/**
+ * Patrones de transbordo de los recorridos óptimos desde cada parada de origen, para
+ * responder consultas repetidas evaluando solo esos patrones ({@link BusquedaPatrones}).
+ * <p>
+ * Un patrón es la secuencia de paradas donde se sube y se baja de cada colectivo:
+ * subida, bajada, subida, bajada... hasta el destino. Si una bajada y la subida
+ * siguiente son paradas distintas, entre ellas se camina. Para cada origen se ejecuta
+ * una búsqueda basada en viajes sobre el {@link IndiceViajes} hacia todas las paradas,
+ * desde cada horario en que pasa un colectivo por el origen en toda la semana, y se
+ * guardan los patrones de los recorridos que mejoran la llegada a cada parada con cada
+ * cantidad de colectivos. Los patrones de un origen comparten prefijos en un árbol, que
+ * conserva solo los nodos de algún patrón, y cada destino guarda el nodo donde termina
+ * cada uno de sus patrones.
+ * </p>
+ * <p>
+ * El cálculo es opcional y puede hacerse solo para los orígenes más consultados; las
+ * consultas desde los demás se resuelven con {@link BusquedaViajes}. Se reparte por
+ * orígenes entre los hilos de un {@link ForkJoinPool}, y
+ * {@link #actualizar(RedCompilada, Collection, int)} recalcula solo los orígenes que
+ * pueden verse afectados por líneas modificadas. {@link Ciudad} los calcula o los
+ * recupera al cargar la red si se configuró, y los actualiza con cada versión nueva. El
+ * archivo binario de {@link #guardar(Path)}, en orden de bytes big-endian, contiene una
+ * cabecera (marca, versión, huella de la red y cantidad de paradas, nodos y patrones),
+ * los códigos de parada, si cada origen fue calculado, el primer nodo y el primer patrón
+ * de cada origen, el padre y la parada de cada nodo, y el destino y el nodo final de cada
+ * patrón. {@link #abrir(Path, RedCompilada)} rechaza un archivo calculado con otros
+ * horarios ({@link RedCompilada#getHuella()}).
+ * </p>
+ *
+ * @see BusquedaPatrones
+ * @see RedCompilada#usarPatronesTransbordo(PatronesTransbordo)
+ */
+public final class PatronesTransbordo {
+
+	private static final Logger logger = LogManager.getLogger(PatronesTransbordo.class);
+
+	private static final int INFINITO = Integer.MAX_VALUE;
+	/** Padre de los nodos que empiezan un patrón. */
+	public static final int RAIZ = -1;
+
+	/** Marca de inicio del archivo ("CTPT"). */
+	private static final int MARCA = 0x43545054;
+	private static final int VERSION = 2;
+	/** Marca, versión, huella (dos enteros) y tres cantidades. */
+	private static final int ENTEROS_CABECERA = 7;
+
+	private final RedCompilada red;
+
+	private final boolean[] calculado;
+	/** Primer nodo de cada origen; la última posición es el total. */
+	private final int[] primerNodo;
+	/** Padre de cada nodo, relativo al primer nodo de su origen, o {@link #RAIZ}. */
+	private final int[] padreNodo;
+	private final int[] paradaNodo;
+	/** Primer patrón de cada origen; la última posición es el total. */
+	private final int[] primerPatron;
+	/** Patrones de cada origen ordenados por destino. */
+	private final int[] destinoPatron;
+	/** Nodo final de cada patrón, relativo al primer nodo de su origen. */
+	private final int[] nodoPatron;
+	/** Orígenes buscados para obtener estos patrones; los demás se copiaron o se leyeron. */
+	private final int recalculados;
+
+	private PatronesTransbordo(RedCompilada red, boolean[] calculado, int[] primerNodo, int[] padreNodo,
+			int[] paradaNodo, int[] primerPatron, int[] destinoPatron, int[] nodoPatron, int recalculados) {
+		this.red = red;
+		this.calculado = calculado;
+		this.primerNodo = primerNodo;
+		this.padreNodo = padreNodo;
+		this.paradaNodo = paradaNodo;
+		this.primerPatron = primerPatron;
+		this.destinoPatron = destinoPatron;
+		this.nodoPatron = nodoPatron;
+		this.recalculados = recalculados;
+	}
+
+	/**
+	 * Calcula los patrones de transbordo desde todas las paradas de la red.
+	 *
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @param paralelismo cantidad de hilos
+	 * @return los patrones calculados
+	 * @throws IllegalArgumentException si red es null o paralelismo es menor a 1
+	 */
+	public static PatronesTransbordo calcular(RedCompilada red, int paralelismo) {
+		if (red == null) {
+			logger.error("red no puede ser null");
+			throw new IllegalArgumentException("red no puede ser null");
+		}
+		boolean[] origenes = new boolean[red.getCantidadParadas()];
+		Arrays.fill(origenes, true);
+		return calcular(red, origenes, null, paralelismo);
+	}
+
+	/**
+	 * Calcula los patrones de transbordo desde algunas paradas de origen, por ejemplo las
+	 * más consultadas.
+	 *
+	 * @param red la {@link RedCompilada} de la ciudad
+	 * @param origenes las paradas de origen; las que no están en la red se ignoran
+	 * @param paralelismo cantidad de hilos
+	 * @return los patrones calculados
+	 * @throws IllegalArgumentException si algún parámetro es null o paralelismo es menor a 1
+	 */
+	public static PatronesTransbordo calcular(RedCompilada red, Collection<Parada> origenes, int paralelismo) {
+		if (red == null || origenes == null) {
+			logger.error("red y origenes no pueden ser null");
+			throw new IllegalArgumentException("red y origenes no pueden ser null");
+		}
+		boolean[] elegidos = new boolean[red.getCantidadParadas()];
+		for (Parada parada : origenes) {
+			int origen = red.indice(parada);
+			if (origen != RedCompilada.NINGUNA)
+				elegidos[origen] = true;
+		}
+		return calcular(red, elegidos, null, paralelismo);
+	}
+
+	/**
+	 * Patrones para una red en la que cambiaron algunas líneas. Los viajes modificados
+	 * son los que están en una sola de las dos redes: los que se agregaron o quitaron de
+	 * una línea, o todos los de una línea agregada, quitada o con otro recorrido. Se
+	 * recalculan los orígenes ya calculados por los que pasa una línea con viajes
+	 * modificados. Para los demás, las cotas de llegada de sus búsquedas delimitan las
+	 * salidas desde las que se alcanza a subir a un viaje modificado y este puede mejorar
+	 * o igualar alguna llegada; esas búsquedas se repiten en las dos redes y el origen
+	 * conserva sus patrones si las de la nueva encuentran todos los de la anterior y
+	 * ninguno que no esté guardado. Si cambiaron las paradas de la red se recalculan todos
+	 * los orígenes calculados.
+	 *
+	 * @param nueva la red compilada con las líneas modificadas
+	 * @param modificadas las líneas agregadas, quitadas o con recorrido o frecuencias
+	 *        modificados, en su versión anterior o nueva
+	 * @param paralelismo cantidad de hilos
+	 * @return los patrones para la nueva red
+	 * @throws IllegalArgumentException si algún parámetro es null o paralelismo es menor a 1
+	 */
+	public PatronesTransbordo actualizar(RedCompilada nueva, Collection<Linea> modificadas, int paralelismo) {
+		if (nueva == null || modificadas == null) {
+			logger.error("nueva y modificadas no pueden ser null");
+			throw new IllegalArgumentException("nueva y modificadas no pueden ser null");
+		}
+		if (!mismasParadas(nueva)) {
+			logger.info("Cambiaron las paradas de la red: se recalculan todos los orígenes");
+			boolean[] origenes = new boolean[nueva.getCantidadParadas()];
+			for (int o = 0; o < calculado.length; o++) {
+				int origen = nueva.indice(red.getParada(o));
+				if (calculado[o] && origen != RedCompilada.NINGUNA)
+					origenes[origen] = true;
+			}
+			return calcular(nueva, origenes, null, paralelismo);
+		}
+
+		int n = nueva.getCantidadParadas();
+		boolean[] recalcular = new boolean[n];
+		Modificaciones cambios = new Modificaciones(this, nueva, modificadas);
+		ForkJoinPool pool = crearPool(paralelismo);
+		try {
+			pool.submit(() -> IntStream.range(0, n).parallel().filter(o -> calculado[o])
+					.forEach(o -> recalcular[o] = cambios.afecta(o))).join();
+		} finally {
+			pool.shutdown();
+		}
+		int cantidad = 0;
+		for (boolean origen : recalcular)
+			if (origen)
+				cantidad++;
+		logger.info("Patrones de transbordo: {} orígenes afectados por {} líneas modificadas", cantidad,
+				modificadas.size());
+		return calcular(nueva, recalcular, this, paralelismo);
+	}
+
+	private boolean mismasParadas(RedCompilada otra) {
+		if (otra.getCantidadParadas() != red.getCantidadParadas())
+			return false;
+		for (int s = 0; s < red.getCantidadParadas(); s++)
+			if (otra.getParada(s).getCodigo() != red.getParada(s).getCodigo())
+				return false;
+		return true;
+	}
+
+	/** Cantidad de paradas desde la raíz hasta el nodo, incluido. */
+	private int profundidad(int base, int nodo) {
+		int profundidad = 0;
+		for (int actual = nodo - base; actual != RAIZ; actual = padreNodo[base + actual])
+			profundidad++;
+		return profundidad;
+	}
+
+	private static ForkJoinPool crearPool(int paralelismo) {
+		if (paralelismo < 1) {
+			logger.error("paralelismo debe ser al menos 1: {}", paralelismo);
+			throw new IllegalArgumentException("paralelismo debe ser al menos 1");
+		}
+		return new ForkJoinPool(paralelismo);
+	}
+
+	/**
+	 * Calcula los orígenes marcados y copia los demás orígenes ya calculados de los
+	 * patrones anteriores, que deben ser de una red con las mismas paradas.
+	 */
+	private static PatronesTransbordo calcular(RedCompilada red, boolean[] origenes, PatronesTransbordo anteriores,
+			int paralelismo) {
+		long inicio = System.nanoTime();
+		int n = red.getCantidadParadas();
+		Origen[] resultados = new Origen[n];
+		ForkJoinPool pool = crearPool(paralelismo);
+		try {
+			IndiceViajes indice = red.getIndiceViajes();
+			pool.submit(() -> IntStream.range(0, n).parallel().filter(o -> origenes[o])
+					.forEach(o -> resultados[o] = new Origen(indice, o).calcular())).join();
+		} finally {
+			pool.shutdown();
+		}
+
+		boolean[] calculado = new boolean[n];
+		int[] primerNodo = new int[n + 1];
+		int[] primerPatron = new int[n + 1];
+		for (int o = 0; o < n; o++) {
+			if (resultados[o] == null && anteriores != null && anteriores.calculado[o])
+				resultados[o] = anteriores.origen(o);
+			calculado[o] = resultados[o] != null;
+			primerNodo[o + 1] = primerNodo[o] + (calculado[o] ? resultados[o].padre.length : 0);
+			primerPatron[o + 1] = primerPatron[o] + (calculado[o] ? resultados[o].destino.length : 0);
+		}
+		int[] padreNodo = new int[primerNodo[n]];
+		int[] paradaNodo = new int[primerNodo[n]];
+		int[] destinoPatron = new int[primerPatron[n]];
+		int[] nodoPatron = new int[primerPatron[n]];
+		for (int o = 0; o < n; o++) {
+			if (!calculado[o])
+				continue;
+			Origen resultado = resultados[o];
+			System.arraycopy(resultado.padre, 0, padreNodo, primerNodo[o], resultado.padre.length);
+			System.arraycopy(resultado.parada, 0, paradaNodo, primerNodo[o], resultado.parada.length);
+			System.arraycopy(resultado.destino, 0, destinoPatron, primerPatron[o], resultado.destino.length);
+			System.arraycopy(resultado.nodo, 0, nodoPatron, primerPatron[o], resultado.nodo.length);
+		}
+
+		int recalculados = 0;
+		for (boolean origen : origenes)
+			if (origen)
+				recalculados++;
+		PatronesTransbordo patrones = new PatronesTransbordo(red, calculado, primerNodo, padreNodo, paradaNodo,
+				primerPatron, destinoPatron, nodoPatron, recalculados);
+		logger.info("Patrones de transbordo: {} nodos, {} patrones en {} ms con {} hilos", primerNodo[n],
+				primerPatron[n], (System.nanoTime() - inicio) / 1_000_000, paralelismo);
+		return patrones;
+	}
+
+	/** Copia los arreglos de un origen ya calculado. */
+	private Origen origen(int o) {
+		Origen copia = new Origen(null, o);
+		copia.padre = Arrays.copyOfRange(padreNodo, primerNodo[o], primerNodo[o + 1]);
+		copia.parada = Arrays.copyOfRange(paradaNodo, primerNodo[o], primerNodo[o + 1]);
+		copia.destino = Arrays.copyOfRange(destinoPatron, primerPatron[o], primerPatron[o + 1]);
+		copia.nodo = Arrays.copyOfRange(nodoPatron, primerPatron[o], primerPatron[o + 1]);
+		return copia;
+	}
+
+	/**
+	 * Cálculo de los patrones de un origen: búsquedas por viajes hacia todas las paradas
+	 * desde cada horario de paso por el origen, y árbol de prefijos de los patrones.
+	 */
+	private static final class Origen {
+
+		private final IndiceViajes indice;
+		private final RedCompilada red;
+		private final int origen;
+
+		private int[] padre;
+		private int[] parada;
+		private int[] destino;
+		private int[] nodo;
+
+		/** Nodos del árbol por padre y parada, y cantidad de nodos. */
+		private final Map<Long, Integer> hijos = new HashMap<>();
+		private int cantidadNodos;
+		/** Patrones encontrados, por destino y nodo final. */
+		private final TreeSet<Long> patrones = new TreeSet<>();
+
+		private int[] alcanzado;
+		private int[] viajesTocados;
+		private int cantidadTocados;
+		private int[] llegada;
+		private int[] llegadaRonda;
+		private int[] nodoRonda;
+		private int[] paradasTocadas;
+		private int cantidadParadasTocadas;
+
+		private int[] viajeTramo = new int[64];
+		private int[] subidaTramo = new int[64];
+		private int[] finTramo = new int[64];
+		private int[] nodoTramo = new int[64];
+		private int cantidadTramos;
+		private int diaSemana;
+		private int raiz;
+
+		Origen(IndiceViajes indice, int origen) {
+			this.indice = indice;
+			this.red = indice == null ? null : indice.getRed();
+			this.origen = origen;
+		}
+
+		Origen calcular() {
+			preparar();
+			for (int dia = 1; dia <= 7; dia++)
+				for (int salida : salidas(dia))
+					buscar(dia, salida, null);
+			compactar();
+			return this;
+		}
+
+		private void preparar() {
+			alcanzado = new int[indice.getCantidadViajes()];
+			viajesTocados = new int[indice.getCantidadViajes()];
+			Arrays.fill(alcanzado, INFINITO);
+			int n = red.getCantidadParadas();
+			llegada = new int[n];
+			llegadaRonda = new int[n];
+			nodoRonda = new int[n];
+			paradasTocadas = new int[n];
+			Arrays.fill(llegadaRonda, INFINITO);
+			padre = new int[64];
+			parada = new int[64];
+			raiz = hijo(RAIZ, origen);
+		}
+
+		/** Horarios ordenados de un día en que pasa por el origen un colectivo que sigue viaje. */
+		int[] salidas(int dia) {
+			TreeSet<Integer> salidas = new TreeSet<>();
+			int[] lineas = red.getLineasParada(origen);
+			int[] posiciones = red.getPosicionesParada(origen);
+			for (int k = 0; k < lineas.length; k++) {
+				if (posiciones[k] + 1 >= red.getParadasLinea(lineas[k]).length)
+					continue;
+				int demora = red.getTiemposAcumulados(lineas[k])[posiciones[k]];
+				for (int salida : red.getSalidas(lineas[k], dia))
+					salidas.add(salida + demora);
+			}
+			return salidas.stream().mapToInt(Integer::intValue).toArray();
+		}
+
+		/**
+		 * Mejores llegadas de una sola búsqueda desde el origen.
+		 *
+		 * @return llegada a cada parada bajando de hasta r colectivos en la fila r, o
+		 *         {@link #INFINITO}
+		 */
+		int[][] llegadas(int dia, int salida) {
+			if (alcanzado == null)
+				preparar();
+			int[][] rondas = new int[Constantes.MAX_RONDAS + 1][];
+			buscar(dia, salida, rondas);
+			patrones.clear();
+			return rondas;
+		}
+
+		/**
+		 * Patrones de una sola búsqueda desde el origen.
+		 *
+		 * @return paradas de cada patrón seguidas del destino
+		 */
+		Set<List<Integer>> patronesSalida(int dia, int salida) {
+			if (alcanzado == null)
+				preparar();
+			patrones.clear();
+			buscar(dia, salida, null);
+			Set<List<Integer>> resultado = new HashSet<>();
+			for (long patron : patrones) {
+				List<Integer> paradas = new ArrayList<>();
+				for (int v = (int) patron; v != RAIZ; v = padre[v])
+					paradas.add(parada[v]);
+				Collections.reverse(paradas);
+				paradas.add((int) (patron >>> 32));
+				resultado.add(paradas);
+			}
+			patrones.clear();
+			return resultado;
+		}
+
+		/**
+		 * Mejores llegadas subiendo a un viaje en una posición, como
+		 * {@link #llegadas(int, int)}: la fila 1 es la del propio viaje.
+		 */
+		int[][] llegadasViaje(int dia, int viaje, int subida) {
+			if (alcanzado == null)
+				preparar();
+			int[][] rondas = new int[Constantes.MAX_RONDAS + 1][];
+			reiniciar(dia);
+			encolar(viaje, subida, raiz);
+			recorrer(rondas);
+			patrones.clear();
+			return rondas;
+		}
+
+		/**
+		 * Deja en el árbol solo los nodos de algún patrón, numerados por profundidad, número
+		 * del padre y parada, para que no dependan del orden en que se recorrieron.
+		 */
+		private void compactar() {
+			boolean[] usado = new boolean[cantidadNodos];
+			for (long patron : patrones)
+				for (int v = (int) patron; v != RAIZ && !usado[v]; v = padre[v])
+					usado[v] = true;
+			// Cada nodo se crea después de su padre, así que los niveles se arman en orden
+			int[] nivel = new int[cantidadNodos];
+			List<List<Integer>> niveles = new ArrayList<>();
+			for (int v = 0; v < cantidadNodos; v++) {
+				if (!usado[v])
+					continue;
+				nivel[v] = padre[v] == RAIZ ? 0 : nivel[padre[v]] + 1;
+				if (nivel[v] == niveles.size())
+					niveles.add(new ArrayList<>());
+				niveles.get(nivel[v]).add(v);
+			}
+			int[] numero = new int[cantidadNodos];
+			int[] nuevoPadre = new int[cantidadNodos];
+			int[] nuevaParada = new int[cantidadNodos];
+			int cantidad = 0;
+			for (List<Integer> nodos : niveles) {
+				nodos.sort(Comparator.<Integer>comparingInt(v -> padre[v] == RAIZ ? RAIZ : numero[padre[v]])
+						.thenComparingInt(v -> parada[v]));
+				for (int v : nodos) {
+					numero[v] = cantidad;
+					nuevoPadre[cantidad] = padre[v] == RAIZ ? RAIZ : numero[padre[v]];
+					nuevaParada[cantidad++] = parada[v];
+				}
+			}
+			padre = Arrays.copyOf(nuevoPadre, cantidad);
+			parada = Arrays.copyOf(nuevaParada, cantidad);
+
+			long[] ordenados = new long[patrones.size()];
+			int k = 0;
+			for (long patron : patrones)
+				ordenados[k++] = (patron & 0xFFFFFFFF00000000L) | numero[(int) patron];
+			Arrays.sort(ordenados);
+			destino = new int[ordenados.length];
+			nodo = new int[ordenados.length];
+			for (k = 0; k < ordenados.length; k++) {
+				destino[k] = (int) (ordenados[k] >>> 32);
+				nodo[k] = (int) ordenados[k];
+			}
+		}
+
+		/** Nodo hijo de un nodo con una parada, creado si no existe. */
+		private int hijo(int nodoPadre, int paradaHijo) {
+			long clave = ((long) (nodoPadre + 1) << 32) | paradaHijo;
+			Integer existente = hijos.get(clave);
+			if (existente != null)
+				return existente;
+			if (cantidadNodos == padre.length) {
+				padre = Arrays.copyOf(padre, cantidadNodos * 2);
+				parada = Arrays.copyOf(parada, cantidadNodos * 2);
+			}
+			padre[cantidadNodos] = nodoPadre;
+			parada[cantidadNodos] = paradaHijo;
+			hijos.put(clave, cantidadNodos);
+			return cantidadNodos++;
+		}
+
+		/**
+		 * Búsqueda por viajes desde el origen hacia todas las paradas. Al terminar cada
+		 * ronda, las paradas cuya llegada mejoró agregan el patrón del recorrido y, si se
+		 * indican rondas, se copian las llegadas de la ronda.
+		 */
+		private void buscar(int dia, int salida, int[][] rondas) {
+			reiniciar(dia);
+			int[] lineas = red.getLineasParada(origen);
+			int[] posiciones = red.getPosicionesParada(origen);
+			for (int k = 0; k < lineas.length; k++) {
+				if (posiciones[k] + 1 >= red.getParadasLinea(lineas[k]).length)
+					continue;
+				int viaje = indice.primeroDesde(lineas[k], posiciones[k], dia, salida);
+				if (viaje != RedCompilada.NINGUNA)
+					encolar(viaje, posiciones[k], raiz);
+			}
+			recorrer(rondas);
+		}
+
+		private void reiniciar(int dia) {
+			diaSemana = dia;
+			for (int i = 0; i < cantidadTocados; i++)
+				alcanzado[viajesTocados[i]] = INFINITO;
+			cantidadTocados = 0;
+			cantidadTramos = 0;
+			Arrays.fill(llegada, INFINITO);
+		}
+
+		/** Procesa por rondas los tramos encolados. */
+		private void recorrer(int[][] rondas) {
+			int[] viajes = indice.getViajeTransbordos();
+			int[] posicionesTransbordo = indice.getPosicionTransbordos();
+			int inicio = 0;
+			for (int ronda = 1; ronda <= Constantes.MAX_RONDAS && inicio < cantidadTramos; ronda++) {
+				int fin = cantidadTramos;
+				for (int t = inicio; t < fin; t++) {
+					int viaje = viajeTramo[t];
+					int[] paradas = red.getParadasLinea(indice.getLinea(viaje));
+					for (int i = subidaTramo[t] + 1; i < finTramo[t]; i++) {
+						int s = paradas[i];
+						int arribo = hora(viaje, i);
+						if (arribo < llegada[s] && arribo < llegadaRonda[s]) {
+							if (llegadaRonda[s] == INFINITO)
+								paradasTocadas[cantidadParadasTocadas++] = s;
+							llegadaRonda[s] = arribo;
+							nodoRonda[s] = hijo(nodoTramo[t], s);
+						}
+					}
+				}
+				for (int k = 0; k < cantidadParadasTocadas; k++) {
+					int s = paradasTocadas[k];
+					llegada[s] = llegadaRonda[s];
+					llegadaRonda[s] = INFINITO;
+					if (s != origen)
+						patrones.add(((long) s << 32) | nodoRonda[s]);
+				}
+				cantidadParadasTocadas = 0;
+				if (rondas != null)
+					rondas[ronda] = llegada.clone();
+
+				if (ronda < Constantes.MAX_RONDAS)
+					for (int t = inicio; t < fin; t++) {
+						int viaje = viajeTramo[t];
+						int[] paradas = red.getParadasLinea(indice.getLinea(viaje));
+						for (int i = subidaTramo[t] + 1; i < finTramo[t]; i++)
+							for (int e = indice.getInicioTransbordos(viaje, i), ultimo = indice.getFinTransbordos(viaje,
+									i); e < ultimo; e++)
+								encolarTransbordo(t, paradas[i], viajes[e], posicionesTransbordo[e]);
+					}
+				inicio = fin;
+			}
+			if (rondas != null) {
+				rondas[0] = new int[llegada.length];
+				Arrays.fill(rondas[0], INFINITO);
+				for (int ronda = 1; ronda < rondas.length; ronda++)
+					if (rondas[ronda] == null)
+						rondas[ronda] = rondas[ronda - 1];
+			}
+		}
+
+		private void encolarTransbordo(int tramo, int bajada, int viaje, int subida) {
+			if (!indice.disponible(viaje, diaSemana) || subida >= alcanzado[viaje])
+				return;
+			int nodoBajada = hijo(nodoTramo[tramo], bajada);
+			encolar(viaje, subida, hijo(nodoBajada, red.getParadasLinea(indice.getLinea(viaje))[subida]));
+		}
+
+		private void encolar(int viaje, int subida, int nodoSubida) {
+			if (!indice.disponible(viaje, diaSemana) || subida >= alcanzado[viaje])
+				return;
+			if (cantidadTramos == viajeTramo.length) {
+				int tamano = cantidadTramos * 2;
+				viajeTramo = Arrays.copyOf(viajeTramo, tamano);
+				subidaTramo = Arrays.copyOf(subidaTramo, tamano);
+				finTramo = Arrays.copyOf(finTramo, tamano);
+				nodoTramo = Arrays.copyOf(nodoTramo, tamano);
+			}
+			int t = cantidadTramos++;
+			viajeTramo[t] = viaje;
+			subidaTramo[t] = subida;
+			// Incluye la posición ya alcanzada: el tramo que sube en ella no puede bajar ahí
+			int largo = red.getParadasLinea(indice.getLinea(viaje)).length;
+			finTramo[t] = alcanzado[viaje] == INFINITO ? largo : Math.min(alcanzado[viaje] + 1, largo);
+			nodoTramo[t] = nodoSubida;
+			for (int v = viaje; v != RedCompilada.NINGUNA && indice.disponible(v, diaSemana)
+					&& alcanzado[v] > subida; v = indice.siguiente(v)) {
+				if (alcanzado[v] == INFINITO)
+					viajesTocados[cantidadTocados++] = v;
+				alcanzado[v] = subida;
+			}
+		}
+
+		private int hora(int viaje, int posicion) {
+			return indice.desplazamiento(viaje, diaSemana) + indice.getSalida(viaje)
+					+ red.getTiemposAcumulados(indice.getLinea(viaje))[posicion];
+		}
+	}
+
+	/**
+	 * Viajes modificados entre dos redes con las mismas paradas, con lo necesario para
+	 * decidir desde qué orígenes pueden cambiar las búsquedas.
+	 */
+	private static final class Modificaciones {
+
+		private final PatronesTransbordo anteriores;
+		/** La red anterior y la nueva, cada una con sus viajes que no están en la otra. */
+		private final Version[] versiones;
+		/** Paradas por las que pasa una línea con viajes modificados. */
+		private final boolean[] enLinea;
+
+		Modificaciones(PatronesTransbordo anteriores, RedCompilada nueva, Collection<Linea> lineas) {
+			this.anteriores = anteriores;
+			RedCompilada anterior = anteriores.red;
+			versiones = new Version[] { new Version(anterior, nueva, lineas), new Version(nueva, anterior, lineas) };
+			enLinea = new boolean[nueva.getCantidadParadas()];
+			for (Version version : versiones)
+				for (int l : version.lineas)
+					for (int p : version.red.getParadasLinea(l))
+						enLinea[p] = true;
+		}
+
+		/**
+		 * Busca en las dos redes desde las salidas del origen que pueden usar un viaje
+		 * modificado; las búsquedas desde las demás salidas no cambian. Los patrones del
+		 * origen se conservan si las búsquedas en la red nueva no encuentran patrones que no
+		 * estén guardados y encuentran todos los de la red anterior.
+		 *
+		 * @return true si pueden cambiar los patrones del origen
+		 */
+		boolean afecta(int origen) {
+			if (enLinea[origen])
+				return true;
+			Set<Long> salidas = new TreeSet<>();
+			for (Version version : versiones)
+				version.salidasAfectadas(origen, salidas);
+			if (salidas.isEmpty())
+				return false;
+			Origen anterior = new Origen(versiones[0].red.getIndiceViajes(), origen);
+			Origen nueva = new Origen(versiones[1].red.getIndiceViajes(), origen);
+			Set<List<Integer>> encontrados = new HashSet<>();
+			Set<List<Integer>> previos = new HashSet<>();
+			for (long salida : salidas) {
+				int dia = (int) (salida >>> 32);
+				int hora = (int) salida;
+				encontrados.addAll(nueva.patronesSalida(dia, hora));
+				previos.addAll(anterior.patronesSalida(dia, hora));
+			}
+			if (!encontrados.containsAll(previos))
+				return true;
+			Set<List<Integer>> guardados = new HashSet<>();
+			for (int destino = 0; destino < anteriores.red.getCantidadParadas(); destino++)
+				for (int[] patron : anteriores.patrones(origen, destino)) {
+					List<Integer> paradas = new ArrayList<>();
+					for (int parada : patron)
+						paradas.add(parada);
+					paradas.add(destino);
+					guardados.add(paradas);
+				}
+			return !guardados.containsAll(encontrados);
+		}
+	}
+
+	/** Una de las dos redes de una actualización, con sus viajes que no están en la otra. */
+	private static final class Version {
+
+		private final RedCompilada red;
+		/** Índices de las líneas con viajes modificados. */
+		private final int[] lineas;
+		/** Salidas desde cabecera de los viajes modificados, por línea y día. */
+		private final int[][][] salidas;
+		/** Tramos caminando que llegan a cada parada, como pares de parada de salida y segundos. */
+		private final int[][] caminandoHasta;
+		/** Llegadas subiendo a cada viaje modificado en cada posición, compartidas entre orígenes. */
+		private final Map<List<Integer>, int[][]> llegadasViaje = new ConcurrentHashMap<>();
+
+		Version(RedCompilada red, RedCompilada otra, Collection<Linea> modificadas) {
+			this.red = red;
+			List<Integer> indices = new ArrayList<>();
+			List<int[][]> porLinea = new ArrayList<>();
+			for (Linea linea : modificadas) {
+				int l = red.indice(linea);
+				if (l == RedCompilada.NINGUNA || indices.contains(l))
+					continue;
+				int m = otra.indice(linea);
+				// Con el mismo recorrido solo cambian los viajes que no están en la otra red
+				boolean mismoRecorrido = m != RedCompilada.NINGUNA
+						&& Arrays.equals(red.getParadasLinea(l), otra.getParadasLinea(m))
+						&& Arrays.equals(red.getTiemposAcumulados(l), otra.getTiemposAcumulados(m));
+				int[][] porDia = new int[7][];
+				int cantidad = 0;
+				for (int dia = 1; dia <= 7; dia++) {
+					porDia[dia - 1] = mismoRecorrido ? diferencia(red.getSalidas(l, dia), otra.getSalidas(m, dia))
+							: red.getSalidas(l, dia);
+					cantidad += porDia[dia - 1].length;
+				}
+				if (cantidad > 0) {
+					indices.add(l);
+					porLinea.add(porDia);
+				}
+			}
+			lineas = indices.stream().mapToInt(Integer::intValue).toArray();
+			salidas = porLinea.toArray(new int[0][][]);
+
+			int n = red.getCantidadParadas();
+			int[] destinos = red.getDestinoTramos();
+			int[] tiempos = red.getTiempoTramos();
+			int[] cantidad = new int[n];
+			for (int s = 0; s < n; s++)
+				for (int e = red.getInicioCaminando(s), fin = red.getFinTramos(s); e < fin; e++)
+					cantidad[destinos[e]]++;
+			caminandoHasta = new int[n][];
+			for (int s = 0; s < n; s++)
+				caminandoHasta[s] = new int[cantidad[s] * 2];
+			Arrays.fill(cantidad, 0);
+			for (int s = 0; s < n; s++)
+				for (int e = red.getInicioCaminando(s), fin = red.getFinTramos(s); e < fin; e++) {
+					int q = destinos[e];
+					caminandoHasta[q][cantidad[q]++] = s;
+					caminandoHasta[q][cantidad[q]++] = tiempos[e];
+				}
+			if (lineas.length > 0)
+				red.getIndiceViajes();
+		}
+
+		/** Salidas ordenadas de la primera que no están en la segunda, contando repetidas. */
+		private static int[] diferencia(int[] salidas, int[] otras) {
+			int[] resultado = new int[salidas.length];
+			int cantidad = 0;
+			int j = 0;
+			for (int salida : salidas) {
+				while (j < otras.length && otras[j] < salida)
+					j++;
+				if (j < otras.length && otras[j] == salida)
+					j++;
+				else
+					resultado[cantidad++] = salida;
+			}
+			return Arrays.copyOf(resultado, cantidad);
+		}
+
+		/**
+		 * Agrega las salidas del origen cuyas búsquedas pueden usar un viaje modificado de
+		 * esta red. Para cada viaje y posición de subida, las búsquedas que llegan a tiempo a
+		 * la parada son las de un prefijo de las salidas del día. Un recorrido con el viaje
+		 * no llega a ninguna parada antes que subiendo al viaje ahí mismo, ni con menos
+		 * colectivos que los que usa la primera salida del día en llegar a tiempo, más uno;
+		 * como las mejores llegadas no bajan con salidas más tardías, las búsquedas en las
+		 * que puede igualar o mejorar alguna son las de un sufijo de ese prefijo. Las salidas
+		 * del día del viaje y del anterior se buscan por separado porque cada búsqueda solo
+		 * usa viajes de su día y del siguiente.
+		 *
+		 * @param origen índice de la parada de origen, por la que no pasa la línea
+		 * @param afectadas día en los 32 bits altos y salida en los bajos de cada salida
+		 */
+		void salidasAfectadas(int origen, Set<Long> afectadas) {
+			if (lineas.length == 0)
+				return;
+			Origen busqueda = new Origen(red.getIndiceViajes(), origen);
+			Map<Long, int[][]> llegadas = new HashMap<>();
+			int ultima = Constantes.MAX_RONDAS - 1;
+
+			for (int k = 0; k < lineas.length; k++) {
+				int[] paradas = red.getParadasLinea(lineas[k]);
+				int[] acumulados = red.getTiemposAcumulados(lineas[k]);
+				for (int dia = 1; dia <= 7; dia++)
+					for (int salida : salidas[k][dia - 1])
+						for (int desplazamiento = 0; desplazamiento <= Constantes.SEGUNDOS_DIA;
+								desplazamiento += Constantes.SEGUNDOS_DIA) {
+							int diaBusqueda = desplazamiento == 0 ? dia : (dia + 5) % 7 + 1;
+							int[] horarios = busqueda.salidas(diaBusqueda);
+							for (int i = 0; i + 1 < paradas.length; i++) {
+								int paso = desplazamiento + salida + acumulados[i];
+								int fin = 0;
+								int alto = ultimaHasta(horarios, paso) + 1;
+								while (fin < alto) {
+									int medio = (fin + alto) >>> 1;
+									if (llega(llegadas(busqueda, llegadas, diaBusqueda, horarios[medio])[ultima],
+											paradas[i], paso))
+										fin = medio + 1;
+									else
+										alto = medio;
+								}
+								if (fin == 0)
+									continue;
+								int[][] primera = llegadas(busqueda, llegadas, diaBusqueda, horarios[0]);
+								int antes = 1;
+								while (!llega(primera[antes], paradas[i], paso))
+									antes++;
+								int[][] conViaje = llegadasViaje(k, dia, salida, i);
+								int inicio = 0;
+								alto = fin;
+								while (inicio < alto) {
+									int medio = (inicio + alto) >>> 1;
+									if (mejora(conViaje, desplazamiento, antes,
+											llegadas(busqueda, llegadas, diaBusqueda, horarios[medio]), origen))
+										alto = medio;
+									else
+										inicio = medio + 1;
+								}
+								for (int p = inicio; p < fin; p++)
+									afectadas.add(((long) diaBusqueda << 32) | horarios[p]);
+							}
+						}
+			}
+		}
+
+		private static int[][] llegadas(Origen busqueda, Map<Long, int[][]> llegadas, int dia, int salida) {
+			return llegadas.computeIfAbsent(((long) dia << 32) | salida, clave -> busqueda.llegadas(dia, salida));
+		}
+
+		private int[][] llegadasViaje(int linea, int dia, int salida, int subida) {
+			return llegadasViaje.computeIfAbsent(List.of(linea, dia, salida, subida), clave -> {
+				IndiceViajes indice = red.getIndiceViajes();
+				int viaje = indice.primeroDesde(lineas[linea], 0, dia, salida);
+				return new Origen(indice, red.getParadasLinea(lineas[linea])[subida]).llegadasViaje(dia, viaje,
+						subida);
+			});
+		}
+
+		/** True si la búsqueda llega a la parada a tiempo para subir, bajando allí o caminando. */
+		private boolean llega(int[] llegada, int parada, int hora) {
+			if (llegada[parada] <= hora)
+				return true;
+			int[] caminatas = caminandoHasta[parada];
+			for (int e = 0; e < caminatas.length; e += 2)
+				if (llegada[caminatas[e]] != INFINITO && llegada[caminatas[e]] + caminatas[e + 1] <= hora)
+					return true;
+			return false;
+		}
+
+		/**
+		 * True si subiendo al viaje después de usar antes colectivos se llega a alguna
+		 * parada no más tarde que la mejor llegada con la misma cantidad de colectivos.
+		 */
+		private static boolean mejora(int[][] conViaje, int desplazamiento, int antes, int[][] mejor, int origen) {
+			for (int despues = 1; antes + despues <= Constantes.MAX_RONDAS; despues++) {
+				int[] llegada = conViaje[despues];
+				int[] referencia = mejor[antes + despues];
+				for (int s = 0; s < llegada.length; s++)
+					if (s != origen && llegada[s] != INFINITO && llegada[s] + desplazamiento <= referencia[s])
+						return true;
+			}
+			return false;
+		}
+
+		/** Posición del último horario que no supera el límite, o -1. */
+		private static int ultimaHasta(int[] horarios, int limite) {
+			int bajo = 0;
+			int alto = horarios.length;
+			while (bajo < alto) {
+				int medio = (bajo + alto) >>> 1;
+				if (horarios[medio] <= limite)
+					bajo = medio + 1;
+				else
+					alto = medio;
+			}
+			return bajo - 1;
+		}
+	}
+
+	/**
+	 * Guarda los patrones en un archivo, que se reemplaza si existe.
+	 *
+	 * @param archivo el archivo de destino
+	 * @throws IOException si ocurre un error de escritura
+	 * @throws IllegalArgumentException si archivo es null
+	 */
+	public void guardar(Path archivo) throws IOException {
+		if (archivo == null) {
+			logger.error("archivo no puede ser null");
+			throw new IllegalArgumentException("archivo no puede ser null");
+		}
+		int n = red.getCantidadParadas();
+		try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo)))) {
+			salida.writeInt(MARCA);
+			salida.writeInt(VERSION);
+			salida.writeLong(red.getHuella());
+			salida.writeInt(n);
+			salida.writeInt(padreNodo.length);
+			salida.writeInt(destinoPatron.length);
+			for (int s = 0; s < n; s++)
+				salida.writeInt(red.getParada(s).getCodigo());
+			for (boolean origen : calculado)
+				salida.writeInt(origen ? 1 : 0);
+			for (int[] arreglo : new int[][] { primerNodo, primerPatron, padreNodo, paradaNodo, destinoPatron,
+					nodoPatron })
+				for (int valor : arreglo)
+					salida.writeInt(valor);
+		}
+		logger.info("Patrones de transbordo guardados: {}", archivo);
+	}
+
+	/**
+	 * Recupera los patrones guardados con {@link #guardar(Path)} para una red.
+	 *
+	 * @param archivo el archivo a leer
+	 * @param red la {@link RedCompilada} para la que se calcularon los patrones
+	 * @return los patrones
+	 * @throws IOException si ocurre un error de lectura o el archivo no contiene patrones
+	 *         válidos para la red, por ejemplo si se calcularon con otros horarios
+	 * @throws IllegalArgumentException si algún parámetro es null
+	 */
+	public static PatronesTransbordo abrir(Path archivo, RedCompilada red) throws IOException {
+		if (archivo == null || red == null) {
+			logger.error("archivo y red no pueden ser null");
+			throw new IllegalArgumentException("archivo y red no pueden ser null");
+		}
+
+		try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+			long tamanio = canal.size();
+			if (tamanio < ENTEROS_CABECERA * Integer.BYTES || tamanio > Integer.MAX_VALUE)
+				throw invalido(archivo);
+			IntBuffer enteros = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio).asIntBuffer();
+			if (enteros.get(0) != MARCA || enteros.get(1) != VERSION)
+				throw invalido(archivo);
+			long huella = (long) enteros.get(2) << 32 | enteros.get(3) & 0xFFFFFFFFL;
+			if (huella != red.getHuella()) {
+				logger.error("Los patrones de transbordo {} se calcularon con otros horarios de la red", archivo);
+				throw new IOException("Los patrones de transbordo se calcularon con otros horarios de la red: "
+						+ archivo);
+			}
+			int n = red.getCantidadParadas();
+			int nodos = enteros.get(5);
+			int patrones = enteros.get(6);
+			if (enteros.get(4) != n || nodos < 0
+					|| patrones < 0 || tamanio != (ENTEROS_CABECERA + 4L * n + 2 + 2L * nodos + 2L * patrones)
+							* Integer.BYTES)
+				throw invalido(archivo);
+			enteros.position(ENTEROS_CABECERA);
+			for (int s = 0; s < n; s++)
+				if (enteros.get() != red.getParada(s).getCodigo())
+					throw invalido(archivo);
+
+			boolean[] calculado = new boolean[n];
+			for (int s = 0; s < n; s++)
+				calculado[s] = enteros.get() != 0;
+			int[] primerNodo = new int[n + 1];
+			int[] primerPatron = new int[n + 1];
+			int[] padreNodo = new int[nodos];
+			int[] paradaNodo = new int[nodos];
+			int[] destinoPatron = new int[patrones];
+			int[] nodoPatron = new int[patrones];
+			enteros.get(primerNodo).get(primerPatron).get(padreNodo).get(paradaNodo).get(destinoPatron).get(nodoPatron);
+			if (primerNodo[n] != nodos || primerPatron[n] != patrones)
+				throw invalido(archivo);
+			return new PatronesTransbordo(red, calculado, primerNodo, padreNodo, paradaNodo, primerPatron,
+					destinoPatron, nodoPatron, 0);
+		}
+	}
+
+	private static IOException invalido(Path archivo) {
+		logger.error("Archivo de patrones de transbordo inválido: {}", archivo);
+		return new IOException("Archivo de patrones de transbordo inválido: " + archivo);
+	}
+
+	/** @return la red para la que se calcularon los patrones */
+	public RedCompilada getRed() {
+		return red;
+	}
+
+	/**
+	 * @param origen índice de la parada de origen
+	 * @return true si se calcularon los patrones desde el origen
+	 */
+	public boolean isCalculado(int origen) {
+		return calculado[origen];
+	}
+
+	/** @return cantidad de patrones de todos los orígenes */
+	public int getCantidadPatrones() {
+		return destinoPatron.length;
+	}
+
+	/**
+	 * @return cantidad de orígenes buscados al obtener estos patrones: los elegidos al
+	 *         calcular, solo los afectados al actualizar y ninguno al abrir un archivo
+	 */
+	public int getCantidadRecalculados() {
+		return recalculados;
+	}
+
+	/**
+	 * Patrones entre dos paradas.
+	 *
+	 * @param origen índice de la parada de origen, con los patrones calculados
+	 * @param destino índice de la parada de destino
+	 * @return paradas de subida y bajada de cada patrón, vacío si no hay recorrido
+	 */
+	public int[][] patrones(int origen, int destino) {
+		int bajo = primerPatron[origen];
+		int alto = primerPatron[origen + 1];
+		while (bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if (destinoPatron[medio] < destino)
+				bajo = medio + 1;
+			else
+				alto = medio;
+		}
+		int fin = bajo;
+		while (fin < primerPatron[origen + 1] && destinoPatron[fin] == destino)
+			fin++;
+
+		int base = primerNodo[origen];
+		int[][] patrones = new int[fin - bajo][];
+		for (int k = bajo; k < fin; k++) {
+			int[] paradas = new int[profundidad(base, base + nodoPatron[k])];
+			int i = paradas.length;
+			for (int actual = nodoPatron[k]; actual != RAIZ; actual = padreNodo[base + actual])
+				paradas[--i] = paradaNodo[base + actual];
+			patrones[k - bajo] = paradas;
+		}
+		return patrones;
+	}
+}
@@ -0,0 +1,547 @@
+package colectivo.logica;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.CalculosAuxiliares;
+
+/**
+ * Representación compilada e inmutable de la red de transporte.
+ * <p>
+ * Se construye una sola vez al cargar la {@link Ciudad} y se entrega a todas las
+ * estrategias de búsqueda. Traduce paradas, líneas, tramos y frecuencias a arreglos
+ * primitivos indexados por enteros para que las consultas no tengan que recorrer
+ * listas, armar mapas ni calcular duraciones:
+ * </p>
+ * <ul>
+ *   <li>Las conexiones de cada parada (lista de adyacencia de tramos) se calculan
+ *       una vez, en lugar de reconstruirse en cada consulta.</li>
+ *   <li>Cada {@link Parada} y cada {@link Linea} recibe un índice denso. Cuando los
+ *       códigos de parada son compactos el índice de una parada se obtiene de un
+ *       arreglo por código, sin calcular hashes.</li>
+ *   <li>Por línea se guardan las paradas en orden y los segundos acumulados desde
+ *       la cabecera, sin modificar las {@link Linea} de origen; los horarios de
+ *       salida de cada día se copian una vez, ordenados, y se consultan sin copiarlos.</li>
+ *   <li>Por parada se guardan las líneas que pasan (con la primera posición en cada una).</li>
+ *   <li>Los tramos se guardan como lista de adyacencia comprimida por filas (CSR): los
+ *       tramos que salen de la parada {@code s} ocupan las posiciones
+ *       {@code [getInicioTramos(s), getFinTramos(s))} de los arreglos de destino, tiempo y
+ *       tipo, primero los de colectivo y desde {@link #getInicioCaminando(int)} los
+ *       caminando.</li>
+ *   <li>Por cada par de líneas se guardan las paradas de transbordo ({@link TablaTransbordos})
+ *       y la cantidad mínima de saltos entre ellas ({@link GrafoLineas}).</li>
+ * </ul>
+ * <p>
+ * Los horarios se expresan en segundos desde el inicio del día de la consulta;
+ * un valor mayor o igual a {@link Constantes#SEGUNDOS_DIA} corresponde al día siguiente.
+ * </p>
+ *
+ * @see BusquedaRaptor
+ */
+public final class RedCompilada {
+
+	private static final Logger logger = LogManager.getLogger(RedCompilada.class);
+
+	/** Valor devuelto cuando no existe una salida, parada o línea. */
+	public static final int NINGUNA = -1;
+
+	/** Tramos a partir de los cuales se compiló la red. */
+	private final Map<String, Tramo> tramos;
+	/** Tramos que salen de cada parada (lista de adyacencia, no modificable). */
+	private final Map<Parada, List<Tramo>> conexionesParadas;
+
+	private final Parada[] paradas;
+	private final Map<Parada, Integer> indiceParadas;
+	/** Índice de parada por código menos {@link #codigoMinimo}, o null si los códigos no son compactos. */
+	private final int[] indicePorCodigo;
+	private final int codigoMinimo;
+	private final Linea[] lineas;
+	private final Map<Linea, Integer> indiceLineas;
+
+	/** Índices de parada de cada línea, en el orden del recorrido. */
+	private final int[][] paradasLinea;
+	/** Segundos desde la cabecera hasta cada posición de la línea. */
+	private final int[][] tiemposAcumulados;
+	/** Salidas desde cabecera ordenadas de cada línea, por día (0=lunes). */
+	private final int[][][] salidas;
+
+	/** Índices de las líneas que pasan por cada parada. */
+	private final int[][] lineasParada;
+	/** Primera posición de la parada en cada línea de {@link #lineasParada}. */
+	private final int[][] posicionesParada;
+
+	/** Primer tramo de cada parada en los arreglos de tramos; la última posición es el total. */
+	private final int[] inicioTramos;
+	/** Primer tramo caminando de cada parada, entre su inicio y el de la siguiente. */
+	private final int[] inicioCaminando;
+	/** Parada de destino, segundos y tipo de cada tramo. */
+	private final int[] destinoTramos;
+	private final int[] tiempoTramos;
+	private final int[] tipoTramos;
+
+	/** Paradas de transbordo entre cada par ordenado de líneas. */
+	private final TablaTransbordos transbordos;
+	/** Distancias entre líneas para acotar la cantidad de colectivos de un recorrido. */
+	private final GrafoLineas grafoLineas;
+
+	/** Tabla de conexiones elementales, construida la primera vez que se pide. */
+	private volatile TablaConexiones conexionesElementales;
+	/** Índice de transbordos entre viajes, calculado la primera vez que se pide o recuperado de archivo. */
+	private volatile IndiceViajes indiceViajes;
+	/** Patrones de transbordo precalculados, o null si no se indicaron. */
+	private volatile PatronesTransbordo patronesTransbordo;
+
+	/**
+	 * Obtiene la red compilada para un mapa de tramos. Si es el mapa de la {@link Ciudad}
+	 * cargada se devuelve la red que ella compiló; si no, se compila una red nueva. Permite
+	 * que las consultas que solo reciben el mapa de tramos de la ciudad no vuelvan a
+	 * compilar la red.
+	 *
+	 * @param tramos mapa de {@link Tramo} indexados por clave compuesta
+	 * @return la red compilada correspondiente
+	 * @throws IllegalArgumentException si tramos es null
+	 */
+	public static RedCompilada obtener(Map<String, Tramo> tramos) {
+		if (tramos == null) {
+			logger.error("tramos no puede ser null");
+			throw new IllegalArgumentException("tramos no puede ser null");
+		}
+		Ciudad ciudad = Ciudad.getCiudadCargada();
+		if (ciudad != null && ciudad.getTramos() == tramos)
+			return ciudad.getRed();
+		return new RedCompilada(tramos);
+	}
+
+	/**
+	 * Compila una red nueva a partir de un mapa de tramos.
+	 *
+	 * @param tramos mapa de {@link Tramo} indexados por clave compuesta
+	 * @return la red compilada
+	 * @throws IllegalArgumentException si tramos es null
+	 */
+	public static RedCompilada compilar(Map<String, Tramo> tramos) {
+		if (tramos == null) {
+			logger.error("tramos no puede ser null");
+			throw new IllegalArgumentException("tramos no puede ser null");
+		}
+		return new RedCompilada(tramos);
+	}
+
+	/**
+	 * Compila la red a partir de los tramos. Las líneas se obtienen de las paradas
+	 * que participan en algún tramo.
+	 *
+	 * @param tramos mapa de {@link Tramo} indexados por clave compuesta
+	 */
+	private RedCompilada(Map<String, Tramo> tramos) {
+		long inicio = System.nanoTime();
+		this.tramos = Collections.unmodifiableMap(tramos);
+		Map<Parada, List<Tramo>> conexiones = CalculosAuxiliares.conexionesParadas(tramos);
+		for (Map.Entry<Parada, List<Tramo>> entrada : conexiones.entrySet())
+			entrada.setValue(Collections.unmodifiableList(entrada.getValue()));
+		conexionesParadas = Collections.unmodifiableMap(conexiones);
+
+		// Paradas y líneas ordenadas por código para que los índices sean deterministas
+		Set<Linea> conjuntoLineas = new TreeSet<>(Comparator.comparing(Linea::getCodigo));
+		Set<Parada> conjuntoParadas = new TreeSet<>(Comparator.comparingInt(Parada::getCodigo));
+		for (Tramo tramo : tramos.values()) {
+			conjuntoParadas.add(tramo.getInicio());
+			conjuntoParadas.add(tramo.getFin());
+			conjuntoLineas.addAll(tramo.getInicio().getLineas());
+			conjuntoLineas.addAll(tramo.getFin().getLineas());
+		}
+		for (Linea linea : conjuntoLineas)
+			conjuntoParadas.addAll(linea.getParadas());
+
+		paradas = conjuntoParadas.toArray(new Parada[0]);
+		indiceParadas = new HashMap<>();
+		for (int i = 0; i < paradas.length; i++)
+			indiceParadas.put(paradas[i], i);
+		// Parada.equals compara códigos: buscar por código equivale a buscar en el mapa
+		int minimo = paradas.length == 0 ? 0 : paradas[0].getCodigo();
+		long rango = paradas.length == 0 ? 0 : (long) paradas[paradas.length - 1].getCodigo() - minimo + 1;
+		if (rango <= 4L * paradas.length + 64) {
+			codigoMinimo = minimo;
+			indicePorCodigo = new int[(int) rango];
+			Arrays.fill(indicePorCodigo, NINGUNA);
+			for (int i = 0; i < paradas.length; i++)
+				indicePorCodigo[paradas[i].getCodigo() - minimo] = i;
+		} else {
+			codigoMinimo = 0;
+			indicePorCodigo = null;
+		}
+
+		lineas = conjuntoLineas.toArray(new Linea[0]);
+		indiceLineas = new HashMap<>();
+		for (int i = 0; i < lineas.length; i++)
+			indiceLineas.put(lineas[i], i);
+
+		paradasLinea = new int[lineas.length][];
+		tiemposAcumulados = new int[lineas.length][];
+		salidas = new int[lineas.length][7][];
+		for (int l = 0; l < lineas.length; l++) {
+			List<Parada> recorrido = lineas[l].getParadas();
+			paradasLinea[l] = new int[recorrido.size()];
+			for (int p = 0; p < recorrido.size(); p++)
+				paradasLinea[l][p] = indiceParadas.get(recorrido.get(p));
+			// Los tiempos quedan en la red: las líneas compartidas no se modifican
+			tiemposAcumulados[l] = lineas[l].acumularTiempos(conexiones);
+			for (int dia = 1; dia <= 7; dia++)
+				salidas[l][dia - 1] = lineas[l].getSalidas(dia);
+		}
+
+		List<List<int[]>> lineasPorParada = new ArrayList<>();
+		for (int s = 0; s < paradas.length; s++)
+			lineasPorParada.add(new ArrayList<>());
+		for (int l = 0; l < lineas.length; l++) {
+			Set<Integer> vistas = new LinkedHashSet<>();
+			for (int p = 0; p < paradasLinea[l].length; p++)
+				if (vistas.add(paradasLinea[l][p]))
+					lineasPorParada.get(paradasLinea[l][p]).add(new int[] { l, p });
+		}
+		lineasParada = new int[paradas.length][];
+		posicionesParada = new int[paradas.length][];
+		for (int s = 0; s < paradas.length; s++) {
+			List<int[]> pares = lineasPorParada.get(s);
+			lineasParada[s] = new int[pares.size()];
+			posicionesParada[s] = new int[pares.size()];
+			for (int i = 0; i < pares.size(); i++) {
+				lineasParada[s][i] = pares.get(i)[0];
+				posicionesParada[s][i] = pares.get(i)[1];
+			}
+		}
+
+		// Adyacencia CSR: por parada, los tramos de colectivo y después los caminando,
+		// cada grupo ordenado por parada de destino para que el orden sea determinista
+		Comparator<Tramo> orden = Comparator.comparingInt((Tramo t) -> t.getTipo() == Constantes.CAMINANDO ? 1 : 0)
+				.thenComparingInt(t -> t.getFin().getCodigo());
+		inicioTramos = new int[paradas.length + 1];
+		inicioCaminando = new int[paradas.length];
+		List<Tramo> ordenados = new ArrayList<>();
+		for (int s = 0; s < paradas.length; s++) {
+			inicioTramos[s] = ordenados.size();
+			List<Tramo> salientes = new ArrayList<>();
+			for (Tramo tramo : conexiones.getOrDefault(paradas[s], List.of()))
+				if (indiceParadas.containsKey(tramo.getFin()))
+					salientes.add(tramo);
+			salientes.sort(orden);
+			inicioCaminando[s] = inicioTramos[s];
+			for (Tramo tramo : salientes)
+				if (tramo.getTipo() != Constantes.CAMINANDO)
+					inicioCaminando[s]++;
+			ordenados.addAll(salientes);
+		}
+		inicioTramos[paradas.length] = ordenados.size();
+		destinoTramos = new int[ordenados.size()];
+		tiempoTramos = new int[ordenados.size()];
+		tipoTramos = new int[ordenados.size()];
+		for (int e = 0; e < ordenados.size(); e++) {
+			Tramo tramo = ordenados.get(e);
+			destinoTramos[e] = indiceParadas.get(tramo.getFin());
+			tiempoTramos[e] = tramo.getTiempo();
+			tipoTramos[e] = tramo.getTipo();
+		}
+
+		transbordos = new TablaTransbordos(List.of(lineas));
+		grafoLineas = new GrafoLineas(this);
+
+		logger.debug("Red compilada: {} paradas, {} líneas en {} ms", paradas.length, lineas.length,
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/**
+	 * Obtiene la primera salida desde cabecera de una línea que sea igual o posterior
+	 * a un horario mínimo, por búsqueda binaria en las salidas ordenadas de la red.
+	 *
+	 * @param linea índice de la línea
+	 * @param diaSemana día de la semana de la consulta (1=lunes, 7=domingo)
+	 * @param minimo horario mínimo de salida en segundos desde el inicio del día de la consulta
+	 * @return la salida en segundos desde el inicio del día de la consulta, o {@link #NINGUNA}
+	 */
+	public int proximaSalida(int linea, int diaSemana, int minimo) {
+		int salida = CalculosAuxiliares.proximaSalida(salidas[linea], diaSemana, minimo);
+		return salida < 0 ? NINGUNA : salida;
+	}
+
+	/**
+	 * Próxima pasada de una línea por una posición de su recorrido a partir de un horario,
+	 * con los tiempos acumulados de la red.
+	 *
+	 * @param linea índice de la línea
+	 * @param diaSemana día de la semana de la consulta (1=lunes, 7=domingo)
+	 * @param desde horario mínimo en la parada, en segundos desde el inicio del día de la consulta
+	 * @param posicion posición de la parada en el recorrido de la línea
+	 * @return segundos desde el inicio del día de la consulta en que el colectivo pasa por
+	 *         la parada, o {@link #NINGUNA} si no hay salidas
+	 */
+	public int proximaPasada(int linea, int diaSemana, int desde, int posicion) {
+		int hastaParada = tiemposAcumulados[linea][posicion];
+		int salida = proximaSalida(linea, diaSemana, desde - hastaParada);
+		return salida == NINGUNA ? NINGUNA : salida + hastaParada;
+	}
+
+	/**
+	 * Retorna el índice de una parada, o {@link #NINGUNA} si no forma parte de la red.
+	 *
+	 * @param parada la parada a buscar
+	 * @return índice denso de la parada
+	 */
+	public int indice(Parada parada) {
+		if (indicePorCodigo != null) {
+			if (parada == null)
+				return NINGUNA;
+			int posicion = parada.getCodigo() - codigoMinimo;
+			return posicion < 0 || posicion >= indicePorCodigo.length ? NINGUNA : indicePorCodigo[posicion];
+		}
+		Integer indice = indiceParadas.get(parada);
+		return indice == null ? NINGUNA : indice;
+	}
+
+	/**
+	 * Retorna el índice de una línea, o {@link #NINGUNA} si no forma parte de la red.
+	 *
+	 * @param linea la línea a buscar
+	 * @return índice denso de la línea
+	 */
+	public int indice(Linea linea) {
+		Integer indice = indiceLineas.get(linea);
+		return indice == null ? NINGUNA : indice;
+	}
+
+	public int getCantidadParadas() {
+		return paradas.length;
+	}
+
+	public int getCantidadLineas() {
+		return lineas.length;
+	}
+
+	public Parada getParada(int indice) {
+		return paradas[indice];
+	}
+
+	public Linea getLinea(int indice) {
+		return lineas[indice];
+	}
+
+	/**
+	 * Retorna los tramos que salen de cada parada, calculados al compilar la red.
+	 *
+	 * @return mapa no modificable de paradas con sus tramos de conexión
+	 * @see CalculosAuxiliares#conexionesParadas(Map)
+	 */
+	public Map<Parada, List<Tramo>> getConexionesParadas() {
+		return conexionesParadas;
+	}
+
+	/**
+	 * Retorna los tramos a partir de los cuales se compiló la red.
+	 *
+	 * @return mapa no modificable de tramos por clave compuesta
+	 */
+	public Map<String, Tramo> getTramos() {
+		return tramos;
+	}
+
+	/**
+	 * Retorna la tabla de transbordos entre líneas, calculada al compilar la red.
+	 *
+	 * @return la {@link TablaTransbordos} de esta red
+	 */
+	public TablaTransbordos getTransbordos() {
+		return transbordos;
+	}
+
+	/**
+	 * Retorna el grafo de líneas de la red, calculado al compilarla.
+	 *
+	 * @return el {@link GrafoLineas} de esta red
+	 */
+	public GrafoLineas getGrafoLineas() {
+		return grafoLineas;
+	}
+
+	/**
+	 * Retorna la tabla de conexiones elementales de la red, construyéndola la primera vez.
+	 *
+	 * @return la {@link TablaConexiones} de esta red
+	 */
+	public TablaConexiones getConexiones() {
+		TablaConexiones tabla = conexionesElementales;
+		if (tabla == null) {
+			synchronized (this) {
+				tabla = conexionesElementales;
+				if (tabla == null) {
+					tabla = new TablaConexiones(this);
+					conexionesElementales = tabla;
+				}
+			}
+		}
+		return tabla;
+	}
+
+	/**
+	 * Retorna el índice de transbordos entre viajes de la red, calculándolo la primera vez
+	 * con un hilo por procesador si no se indicó uno con {@link #usarIndiceViajes(IndiceViajes)}.
+	 *
+	 * @return el {@link IndiceViajes} de esta red
+	 */
+	public IndiceViajes getIndiceViajes() {
+		IndiceViajes indice = indiceViajes;
+		if (indice == null) {
+			synchronized (this) {
+				indice = indiceViajes;
+				if (indice == null) {
+					indice = IndiceViajes.calcular(this, Runtime.getRuntime().availableProcessors());
+					indiceViajes = indice;
+				}
+			}
+		}
+		return indice;
+	}
+
+	/**
+	 * Indica el índice de transbordos entre viajes a usar, por ejemplo uno recuperado con
+	 * {@link IndiceViajes#abrir(java.nio.file.Path, RedCompilada)}, para no calcularlo.
+	 *
+	 * @param indice el índice, calculado para esta red
+	 * @throws IllegalArgumentException si indice es null o corresponde a otra red
+	 */
+	public void usarIndiceViajes(IndiceViajes indice) {
+		if (indice == null || indice.getRed() != this) {
+			logger.error("El índice de viajes debe corresponder a esta red");
+			throw new IllegalArgumentException("El índice de viajes debe corresponder a esta red");
+		}
+		synchronized (this) {
+			indiceViajes = indice;
+		}
+	}
+
+	/**
+	 * Retorna los patrones de transbordo indicados con
+	 * {@link #usarPatronesTransbordo(PatronesTransbordo)}. A diferencia del índice de
+	 * viajes no se calculan al pedirlos: su cálculo es opcional.
+	 *
+	 * @return los {@link PatronesTransbordo} de esta red, o null si no se indicaron
+	 */
+	public PatronesTransbordo getPatronesTransbordo() {
+		return patronesTransbordo;
+	}
+
+	/**
+	 * Indica los patrones de transbordo a usar en las consultas de {@link BusquedaPatrones}.
+	 *
+	 * @param patrones los patrones, calculados para esta red
+	 * @throws IllegalArgumentException si patrones es null o corresponde a otra red
+	 */
+	public void usarPatronesTransbordo(PatronesTransbordo patrones) {
+		if (patrones == null || patrones.getRed() != this) {
+			logger.error("Los patrones de transbordo deben corresponder a esta red");
+			throw new IllegalArgumentException("Los patrones de transbordo deben corresponder a esta red");
+		}
+		patronesTransbordo = patrones;
+	}
+
+	/**
+	 * Calcula una huella de los datos de la red que usan los índices guardados en archivo:
+	 * los códigos de parada, el recorrido, los tiempos acumulados y las salidas de cada
+	 * línea, y los tramos. Dos redes con la misma huella dan los mismos índices, por lo
+	 * que sirve para rechazar un archivo calculado con otros horarios aunque coincidan las
+	 * cantidades de paradas, líneas y viajes.
+	 *
+	 * @return la huella de la red
+	 * @see IndiceViajes#abrir(java.nio.file.Path, RedCompilada)
+	 */
+	public long getHuella() {
+		long huella = paradas.length;
+		for (Parada parada : paradas)
+			huella = huella * 1_000_003 + parada.getCodigo();
+		for (int l = 0; l < lineas.length; l++) {
+			huella = mezclar(huella, paradasLinea[l]);
+			huella = mezclar(huella, tiemposAcumulados[l]);
+			for (int[] porDia : salidas[l])
+				huella = mezclar(huella, porDia);
+		}
+		huella = mezclar(huella, inicioTramos);
+		huella = mezclar(huella, inicioCaminando);
+		huella = mezclar(huella, destinoTramos);
+		return mezclar(huella, tiempoTramos);
+	}
+
+	private static long mezclar(long huella, int[] valores) {
+		huella = huella * 1_000_003 + valores.length;
+		for (int valor : valores)
+			huella = huella * 1_000_003 + valor;
+		return huella;
+	}
+
+	/** @return salidas desde cabecera ordenadas del día indicado, 1=lunes (no modificar) */
+	public int[] getSalidas(int linea, int diaSemana) {
+		return salidas[linea][diaSemana - 1];
+	}
+
+	/** @return índices de parada de la línea en orden de recorrido (no modificar) */
+	public int[] getParadasLinea(int linea) {
+		return paradasLinea[linea];
+	}
+
+	/** @return segundos acumulados desde la cabecera por posición (no modificar) */
+	public int[] getTiemposAcumulados(int linea) {
+		return tiemposAcumulados[linea];
+	}
+
+	/** @return índices de las líneas que pasan por la parada (no modificar) */
+	public int[] getLineasParada(int parada) {
+		return lineasParada[parada];
+	}
+
+	/** @return primera posición de la parada en cada línea de {@link #getLineasParada(int)} (no modificar) */
+	public int[] getPosicionesParada(int parada) {
+		return posicionesParada[parada];
+	}
+
+	/** @return posición del primer tramo que sale de la parada */
+	public int getInicioTramos(int parada) {
+		return inicioTramos[parada];
+	}
+
+	/** @return posición del primer tramo caminando que sale de la parada */
+	public int getInicioCaminando(int parada) {
+		return inicioCaminando[parada];
+	}
+
+	/** @return posición siguiente al último tramo que sale de la parada */
+	public int getFinTramos(int parada) {
+		return inicioTramos[parada + 1];
+	}
+
+	/** @return índice de la parada de destino de cada tramo (no modificar) */
+	public int[] getDestinoTramos() {
+		return destinoTramos;
+	}
+
+	/** @return segundos de cada tramo (no modificar) */
+	public int[] getTiempoTramos() {
+		return tiempoTramos;
+	}
+
+	/** @return tipo de cada tramo: 1 colectivo o {@link Constantes#CAMINANDO} (no modificar) */
+	public int[] getTipoTramos() {
+		return tipoTramos;
+	}
+}
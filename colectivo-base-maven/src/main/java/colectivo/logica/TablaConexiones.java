@@ -0,0 +1,176 @@
+package colectivo.logica;
+
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import colectivo.util.CalculosAuxiliares;
+
+/**
+ * Tabla de conexiones elementales de la red, usada por {@link BusquedaCSA}.
+ * <p>
+ * Cada servicio (salida desde cabecera de una línea en un día) se expande en una
+ * conexión por cada par de paradas consecutivas: parada de salida, parada de llegada,
+ * hora de salida, hora de llegada y viaje. Las conexiones de cada día se guardan en
+ * arreglos primitivos paralelos ordenados por hora de salida, de modo que una consulta
+ * las recorre una sola vez en orden, sin crear objetos.
+ * </p>
+ * <p>
+ * Los horarios se expresan en segundos desde el inicio del día del servicio; un
+ * servicio que cruza la medianoche tiene conexiones con valores mayores a un día.
+ * Los viajes se numeran de forma única para toda la semana.
+ * </p>
+ *
+ * @see RedCompilada#getConexiones()
+ */
+public final class TablaConexiones {
+
+	private static final Logger logger = LogManager.getLogger(TablaConexiones.class);
+
+	/** Datos de cada conexión por día (0=lunes), ordenados por hora de salida. */
+	private final int[][] desde;
+	private final int[][] hasta;
+	private final int[][] salida;
+	private final int[][] llegada;
+	private final int[][] viaje;
+	/** Posición de la parada de salida en la línea del viaje. */
+	private final int[][] posicion;
+
+	/** Línea de cada viaje. */
+	private final int[] lineaViaje;
+
+	/**
+	 * Expande los servicios de todas las líneas de la red.
+	 *
+	 * @param red la red compilada de origen
+	 */
+	TablaConexiones(RedCompilada red) {
+		long inicio = System.nanoTime();
+
+		int cantidadViajes = 0;
+		for (int l = 0; l < red.getCantidadLineas(); l++)
+			for (int dia = 1; dia <= 7; dia++)
+				cantidadViajes += red.getSalidas(l, dia).length;
+		lineaViaje = new int[cantidadViajes];
+
+		desde = new int[7][];
+		hasta = new int[7][];
+		salida = new int[7][];
+		llegada = new int[7][];
+		viaje = new int[7][];
+		posicion = new int[7][];
+
+		int v = 0;
+		for (int dia = 1; dia <= 7; dia++) {
+			int cantidad = 0;
+			for (int l = 0; l < red.getCantidadLineas(); l++)
+				cantidad += red.getSalidas(l, dia).length * Math.max(red.getParadasLinea(l).length - 1, 0);
+
+			int[] d = new int[cantidad], h = new int[cantidad], s = new int[cantidad], a = new int[cantidad],
+					t = new int[cantidad], p = new int[cantidad];
+			int c = 0;
+			for (int l = 0; l < red.getCantidadLineas(); l++) {
+				int[] paradasLinea = red.getParadasLinea(l);
+				int[] acumulado = red.getTiemposAcumulados(l);
+				for (int cabecera : red.getSalidas(l, dia)) {
+					lineaViaje[v] = l;
+					for (int i = 0; i + 1 < paradasLinea.length; i++, c++) {
+						d[c] = paradasLinea[i];
+						h[c] = paradasLinea[i + 1];
+						s[c] = cabecera + acumulado[i];
+						a[c] = cabecera + acumulado[i + 1];
+						t[c] = v;
+						p[c] = i;
+					}
+					v++;
+				}
+			}
+
+			// Orden por salida; a igual salida se conserva el orden de generación
+			long[] claves = new long[cantidad];
+			for (int i = 0; i < cantidad; i++)
+				claves[i] = ((long) s[i] << 32) | i;
+			Arrays.sort(claves);
+
+			int i0 = dia - 1;
+			desde[i0] = new int[cantidad];
+			hasta[i0] = new int[cantidad];
+			salida[i0] = new int[cantidad];
+			llegada[i0] = new int[cantidad];
+			viaje[i0] = new int[cantidad];
+			posicion[i0] = new int[cantidad];
+			for (int i = 0; i < cantidad; i++) {
+				int j = (int) claves[i];
+				desde[i0][i] = d[j];
+				hasta[i0][i] = h[j];
+				salida[i0][i] = s[j];
+				llegada[i0][i] = a[j];
+				viaje[i0][i] = t[j];
+				posicion[i0][i] = p[j];
+			}
+		}
+
+		logger.debug("Tabla de conexiones: {} viajes en {} ms", cantidadViajes,
+				(System.nanoTime() - inicio) / 1_000_000);
+	}
+
+	/** @return cantidad de viajes de toda la semana */
+	public int getCantidadViajes() {
+		return lineaViaje.length;
+	}
+
+	/** @return índice de la línea del viaje */
+	public int getLineaViaje(int viaje) {
+		return lineaViaje[viaje];
+	}
+
+	/**
+	 * @param diaSemana día de la semana (1=lunes, 7=domingo)
+	 * @return cantidad de conexiones de los servicios del día
+	 */
+	public int getCantidad(int diaSemana) {
+		return salida[diaSemana - 1].length;
+	}
+
+	/**
+	 * Posición de la primera conexión del día que sale en o después de un horario.
+	 *
+	 * @param diaSemana día de la semana (1=lunes, 7=domingo)
+	 * @param segundos horario en segundos desde el inicio del día
+	 * @return posición de la conexión, o {@link #getCantidad(int)} si no hay
+	 */
+	public int primeraDesde(int diaSemana, int segundos) {
+		return CalculosAuxiliares.primeraNoMenor(salida[diaSemana - 1], segundos);
+	}
+
+	/** @return índices de parada de salida del día, ordenados por salida (no modificar) */
+	public int[] getDesde(int diaSemana) {
+		return desde[diaSemana - 1];
+	}
+
+	/** @return índices de parada de llegada del día (no modificar) */
+	public int[] getHasta(int diaSemana) {
+		return hasta[diaSemana - 1];
+	}
+
+	/** @return horas de salida del día en segundos (no modificar) */
+	public int[] getSalida(int diaSemana) {
+		return salida[diaSemana - 1];
+	}
+
+	/** @return horas de llegada del día en segundos (no modificar) */
+	public int[] getLlegada(int diaSemana) {
+		return llegada[diaSemana - 1];
+	}
+
+	/** @return viaje de cada conexión del día (no modificar) */
+	public int[] getViaje(int diaSemana) {
+		return viaje[diaSemana - 1];
+	}
+
+	/** @return posición de la parada de salida en la línea, por conexión del día (no modificar) */
+	public int[] getPosicion(int diaSemana) {
+		return posicion[diaSemana - 1];
+	}
+}
@@ -0,0 +1,93 @@
+package colectivo.logica;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+
+/**
+ * Tabla de transbordos entre líneas, calculada una vez al compilar la red.
+ * <p>
+ * Para cada par ordenado de líneas distintas (línea de origen, línea de destino)
+ * guarda todas las paradas en las que se puede cambiar de una a otra, con la posición
+ * de la parada en cada línea. Si una parada aparece más de una vez en una línea se
+ * incluye cada combinación de posiciones. Los transbordos de cada par se ordenan por
+ * posición en la línea de origen.
+ * </p>
+ *
+ * @see BusquedaConTransbordo
+ * @see RedCompilada#getTransbordos()
+ */
+public final class TablaTransbordos {
+
+	/**
+	 * Parada de transbordo entre dos líneas.
+	 *
+	 * @param parada la parada común a ambas líneas
+	 * @param posicionOrigen posición de la parada en la línea de origen
+	 * @param posicionDestino posición de la parada en la línea de destino
+	 */
+	public record Transbordo(Parada parada, int posicionOrigen, int posicionDestino) {
+	}
+
+	private final Map<Linea, Map<Linea, List<Transbordo>>> transbordos;
+
+	/**
+	 * Calcula los transbordos entre todas las líneas.
+	 *
+	 * @param lineas las líneas de la red
+	 */
+	TablaTransbordos(Collection<Linea> lineas) {
+		// Posiciones de cada parada en cada línea
+		Map<Linea, Map<Parada, List<Integer>>> ocurrencias = new HashMap<>();
+		for (Linea linea : lineas) {
+			Map<Parada, List<Integer>> posiciones = new HashMap<>();
+			List<Parada> recorrido = linea.getParadas();
+			for (int p = 0; p < recorrido.size(); p++)
+				posiciones.computeIfAbsent(recorrido.get(p), k -> new ArrayList<>()).add(p);
+			ocurrencias.put(linea, posiciones);
+		}
+
+		transbordos = new HashMap<>();
+		for (Linea origen : lineas) {
+			Map<Linea, List<Transbordo>> porDestino = new HashMap<>();
+			List<Parada> recorrido = origen.getParadas();
+			for (int p = 0; p < recorrido.size(); p++) {
+				Parada parada = recorrido.get(p);
+				Set<Linea> otras = new LinkedHashSet<>(parada.getLineas());
+				for (Linea destino : otras) {
+					Map<Parada, List<Integer>> posicionesDestino = ocurrencias.get(destino);
+					if (destino.equals(origen) || posicionesDestino == null)
+						continue;
+					for (int q : posicionesDestino.getOrDefault(parada, List.of()))
+						porDestino.computeIfAbsent(destino, k -> new ArrayList<>()).add(new Transbordo(parada, p, q));
+				}
+			}
+			for (Map.Entry<Linea, List<Transbordo>> entrada : porDestino.entrySet())
+				entrada.setValue(Collections.unmodifiableList(entrada.getValue()));
+			transbordos.put(origen, porDestino);
+		}
+	}
+
+	/**
+	 * Obtiene las paradas de transbordo de una línea a otra, ordenadas por posición en
+	 * la línea de origen.
+	 *
+	 * @param origen la línea en la que se viaja antes del transbordo
+	 * @param destino la línea a la que se sube en el transbordo
+	 * @return lista no modificable de transbordos, vacía si las líneas no se cruzan
+	 */
+	public List<Transbordo> getTransbordos(Linea origen, Linea destino) {
+		Map<Linea, List<Transbordo>> porDestino = transbordos.get(origen);
+		if (porDestino == null)
+			return List.of();
+		return porDestino.getOrDefault(destino, List.of());
+	}
+}
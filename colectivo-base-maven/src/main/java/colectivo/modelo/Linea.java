@@ -2,13 +2,30 @@ package colectivo.modelo;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.util.CalculosAuxiliares;
 
 /**
  * Representa una línea de transporte público (colectivo/autobús).
  * Una línea tiene un código identificador, un nombre, una secuencia ordenada de paradas
  * por las que pasa, y frecuencias que indican los horarios de salida según el día de la semana.
  * Las paradas se agregan en orden secuencial formando el recorrido de la línea.
+ * <p>
+ * Para que las búsquedas no recorran la lista de paradas ni los tramos en cada consulta,
+ * la línea mantiene un índice de la posición de cada parada y, una vez calculados con
+ * {@link #calcularTiemposAcumulados(Map)}, los segundos acumulados desde la cabecera
+ * hasta cada posición.
+ * </p>
+ * <p>
+ * Las salidas desde cabecera se guardan además por día como arreglos ordenados de
+ * segundos del día, de modo que la próxima salida se obtiene por búsqueda binaria
+ * sin crear listas ({@link #getProximaSalida(int, int)}).
+ * </p>
  */
 public class Linea {
 
@@ -16,10 +33,17 @@ public class Linea {
 	private String nombre;
 	private final List<Parada> paradas;
 	private final List<Frecuencia> frecuencias;
+	/** Primera posición de cada parada en el recorrido de la línea. */
+	private final Map<Parada, Integer> posiciones;
+	/** Segundos desde la cabecera hasta cada posición; null si no fueron calculados. */
+	private int[] tiemposAcumulados;
+	/** Salidas ordenadas en segundos del día, por día (0=lunes); null si deben recalcularse. */
+	private volatile int[][] salidasPorDia;
 
 	public Linea() {
 		this.paradas = new ArrayList<Parada>();
 		this.frecuencias = new ArrayList<Frecuencia>();
+		this.posiciones = new HashMap<Parada, Integer>();
 	}
 
 	public Linea(String codigo, String nombre) {
@@ -28,16 +52,167 @@ public class Linea {
 		this.nombre = nombre;
 		this.paradas = new ArrayList<Parada>();
 		this.frecuencias = new ArrayList<Frecuencia>();
+		this.posiciones = new HashMap<Parada, Integer>();
 	}
 
 	// Agrega una parada a la línea y también agrega esta línea a la parada
 	public void agregarParada(Parada parada) {
 		paradas.add(parada);
+		posiciones.putIfAbsent(parada, paradas.size() - 1);
+		// El recorrido cambió: los tiempos acumulados deben recalcularse
+		tiemposAcumulados = null;
 		parada.agregarLinea(this);
 	}
 
+	/**
+	 * Obtiene la posición de una parada en el recorrido de la línea en tiempo constante.
+	 * Si la parada aparece más de una vez se devuelve la primera posición, igual que
+	 * {@link List#indexOf(Object)}.
+	 *
+	 * @param parada la parada a buscar
+	 * @return la posición de la parada, o -1 si la línea no pasa por ella
+	 */
+	public int getPosicion(Parada parada) {
+		Integer posicion = posiciones.get(parada);
+		return posicion == null ? -1 : posicion;
+	}
+
+	/**
+	 * Calcula los segundos acumulados desde la cabecera hasta cada parada del recorrido
+	 * (suma de prefijos de los tiempos de los tramos consecutivos). Entre dos paradas se usa
+	 * el tramo en colectivo y, si no existe, el tramo caminando; si no hay tramo se suma 0.
+	 *
+	 * @param conexionesParadas mapa de paradas con sus tramos salientes
+	 * @throws IllegalArgumentException si conexionesParadas es null
+	 */
+	public void calcularTiemposAcumulados(Map<Parada, List<Tramo>> conexionesParadas) {
+		tiemposAcumulados = acumularTiempos(conexionesParadas);
+	}
+
+	/**
+	 * Calcula los segundos acumulados desde la cabecera hasta cada parada del recorrido
+	 * igual que {@link #calcularTiemposAcumulados(Map)}, pero sin guardarlos en la línea.
+	 *
+	 * @param conexionesParadas mapa de paradas con sus tramos salientes
+	 * @return arreglo nuevo de tiempos acumulados por posición
+	 * @throws IllegalArgumentException si conexionesParadas es null
+	 */
+	public int[] acumularTiempos(Map<Parada, List<Tramo>> conexionesParadas) {
+		if (conexionesParadas == null)
+			throw new IllegalArgumentException("conexionesParadas no puede ser null");
+
+		int[] acumulados = new int[paradas.size()];
+		for (int i = 1; i < paradas.size(); i++)
+			acumulados[i] = acumulados[i - 1] + tiempoTramo(conexionesParadas, paradas.get(i - 1), paradas.get(i));
+		return acumulados;
+	}
+
+	// Tiempo del tramo entre dos paradas consecutivas, priorizando el tramo en colectivo
+	private static int tiempoTramo(Map<Parada, List<Tramo>> conexionesParadas, Parada origen, Parada destino) {
+		List<Tramo> salientes = conexionesParadas.get(origen);
+		if (salientes == null)
+			return 0;
+		Tramo caminando = null;
+		for (Tramo tramo : salientes) {
+			if (tramo.getFin().equals(destino)) {
+				if (tramo.getTipo() != Constantes.CAMINANDO)
+					return tramo.getTiempo();
+				if (caminando == null)
+					caminando = tramo;
+			}
+		}
+		return caminando == null ? 0 : caminando.getTiempo();
+	}
+
+	/**
+	 * Indica si los tiempos acumulados ya fueron calculados para el recorrido actual.
+	 *
+	 * @return true si se puede usar {@link #getTiempoEntre(int, int)}
+	 */
+	public boolean tieneTiemposAcumulados() {
+		return tiemposAcumulados != null;
+	}
+
+	/**
+	 * Obtiene los segundos de viaje entre dos posiciones del recorrido como una resta
+	 * de la suma de prefijos.
+	 *
+	 * @param desde posición de la parada de inicio
+	 * @param hasta posición de la parada de fin
+	 * @return segundos de viaje entre ambas posiciones
+	 * @throws IllegalStateException si los tiempos acumulados no fueron calculados
+	 */
+	public int getTiempoEntre(int desde, int hasta) {
+		if (tiemposAcumulados == null)
+			throw new IllegalStateException("Tiempos acumulados no calculados para la línea " + codigo);
+		return tiemposAcumulados[hasta] - tiemposAcumulados[desde];
+	}
+
+	/**
+	 * Obtiene una copia de los segundos acumulados desde la cabecera por posición.
+	 *
+	 * @return arreglo de tiempos acumulados
+	 * @throws IllegalStateException si los tiempos acumulados no fueron calculados
+	 */
+	public int[] getTiemposAcumulados() {
+		if (tiemposAcumulados == null)
+			throw new IllegalStateException("Tiempos acumulados no calculados para la línea " + codigo);
+		return Arrays.copyOf(tiemposAcumulados, tiemposAcumulados.length);
+	}
+
 	public void agregarFrecuencia(int diaSemana, LocalTime hora) {
 		frecuencias.add(new Frecuencia(diaSemana, hora));
+		salidasPorDia = null;
+	}
+
+	/**
+	 * Obtiene las salidas desde cabecera de un día como segundos del día ordenados.
+	 *
+	 * @param diaSemana el día de la semana (1=lunes, 7=domingo)
+	 * @return copia del arreglo ordenado de salidas del día
+	 */
+	public int[] getSalidas(int diaSemana) {
+		int[] salidas = salidasOrdenadas()[diaSemana - 1];
+		return Arrays.copyOf(salidas, salidas.length);
+	}
+
+	/**
+	 * Obtiene la primera salida desde cabecera igual o posterior a un horario mínimo,
+	 * por búsqueda binaria. Se busca en el día que corresponde al horario y, si ya no
+	 * quedan salidas, en el día siguiente (del domingo se pasa al lunes).
+	 *
+	 * @param diaSemana el día de la semana de referencia (1=lunes, 7=domingo)
+	 * @param minimo horario mínimo en segundos desde el inicio de ese día; un valor
+	 *        negativo equivale a 0 y uno mayor a un día corresponde a días siguientes
+	 * @return la salida en segundos desde el inicio del día de referencia (mayor o
+	 *         igual a {@link Constantes#SEGUNDOS_DIA} si es de un día siguiente), o -1 si no hay
+	 */
+	public int getProximaSalida(int diaSemana, int minimo) {
+		return CalculosAuxiliares.proximaSalida(salidasOrdenadas(), diaSemana, minimo);
+	}
+
+	// Arma (una vez por cambio de frecuencias) las salidas ordenadas de cada día
+	private int[][] salidasOrdenadas() {
+		int[][] salidas = salidasPorDia;
+		if (salidas == null) {
+			int[] cantidades = new int[7];
+			for (Frecuencia frecuencia : frecuencias)
+				if (frecuencia.getDiaSemana() >= 1 && frecuencia.getDiaSemana() <= 7)
+					cantidades[frecuencia.getDiaSemana() - 1]++;
+			salidas = new int[7][];
+			for (int d = 0; d < 7; d++)
+				salidas[d] = new int[cantidades[d]];
+			int[] usados = new int[7];
+			for (Frecuencia frecuencia : frecuencias) {
+				int d = frecuencia.getDiaSemana() - 1;
+				if (d >= 0 && d < 7)
+					salidas[d][usados[d]++] = frecuencia.getHora().toSecondOfDay();
+			}
+			for (int[] dia : salidas)
+				Arrays.sort(dia);
+			salidasPorDia = salidas;
+		}
+		return salidas;
 	}
 
 	public String getCodigo() {
@@ -9,7 +9,10 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import colectivo.aplicacion.Constantes;
+import colectivo.logica.Horario;
 import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
@@ -66,6 +69,19 @@ public class CalculosAuxiliares {
 
 		try {
 			List<Parada> tramoParadas = paradas.subList(indiceInicio, indiceFin + 1);
+			if (paradas == linea.getParadas() && linea.tieneTiemposAcumulados()) {
+				// Con los tiempos acumulados de la línea la duración es una resta y la hora se
+				// calcula en segundos, sin recorridos ni horas intermedias
+				int pasada = Horario.proximaPasada(linea, diaSemana, Horario.segundos(horaLlegadaParada),
+						indiceInicio);
+				if (pasada == RedCompilada.NINGUNA) {
+					logger.warn("No se pudo asignar hora de salida para el recorrido de línea {} en día {}",
+							linea.getNombre(), diaSemana);
+					return null;
+				}
+				return new Recorrido(linea, tramoParadas, Horario.aHora(pasada),
+						linea.getTiempoEntre(indiceInicio, indiceFin));
+			}
 			int duracion = calcularDuracion(tramoParadas, conexionesParadas);
 
 			Recorrido recorrido = new Recorrido(linea, tramoParadas, null, duracion);
@@ -131,11 +147,12 @@ public class CalculosAuxiliares {
 				if (recorrido.getLinea() != null) {
 					Linea linea = recorrido.getLinea();
 					Parada paradaInicio = recorrido.getParadas().getFirst();
-					List<Parada> paradasLinea = linea.getParadas();
-					int indiceInicio = paradasLinea.indexOf(paradaInicio);
-					int duracionHastaParada = (indiceInicio > 0)
-							? calcularDuracion(paradasLinea.subList(0, indiceInicio + 1), conexionesParadas)
-							: 0;
+					int indiceInicio = linea.getPosicion(paradaInicio);
+					int duracionHastaParada = 0;
+					if (indiceInicio > 0)
+						duracionHastaParada = linea.tieneTiemposAcumulados()
+								? linea.getTiempoEntre(0, indiceInicio)
+								: calcularDuracion(linea.getParadas().subList(0, indiceInicio + 1), conexionesParadas);
 
 					LocalTime horaSalida = obtenerProximaHoraSalida(linea, diaSemana, horaActual, duracionHastaParada);
 					recorrido.setHoraSalida(horaSalida);
@@ -157,6 +174,8 @@ public class CalculosAuxiliares {
 	/**
 	 * Calcula la duración total en segundos de un camino entre paradas.
 	 * Suma los tiempos de todos los tramos consecutivos que conectan las paradas del camino.
+	 * Solo se usa cuando la línea no tiene calculados sus tiempos acumulados
+	 * (ver {@link Linea#calcularTiemposAcumulados(Map)}).
 	 *
 	 * @param camino lista ordenada de {@link Parada} que forman el camino
 	 * @param conexionesDeParadas mapa de conexiones entre paradas con sus tramos
@@ -199,7 +218,9 @@ public class CalculosAuxiliares {
 
 	/**
 	 * Obtiene la próxima hora de salida disponible de una línea que permite llegar a tiempo.
-	 * Primero busca en el día actual, y si no encuentra opciones, busca en el día siguiente.
+	 * Primero busca en el día actual, y si no encuentra opciones, busca en el día siguiente,
+	 * con búsqueda binaria sobre las salidas ordenadas de la línea
+	 * ({@link Linea#getProximaSalida(int, int)}).
 	 * Considera la duración desde la cabecera hasta la parada del usuario para calcular
 	 * la hora mínima de salida requerida.
 	 *
@@ -227,64 +248,25 @@ public class CalculosAuxiliares {
 
         try {
 
-		List<LocalTime> horasHoy = linea.getHorasFrecuencia(diaSemana);
-        if (horasHoy == null || horasHoy.isEmpty()) {
-            logger.debug("No hay horas de frecuencia para línea {} en día {}", linea.getNombre(), diaSemana);  // ✅ DEBUG en lugar de ERROR
-        }
-
-		LocalTime horaSalidaMinima = horaLlegadaUsuario.minusSeconds(duracionHastaParada);
-        logger.debug("Buscando próxima salida para línea {} el día {} - Hora mínima requerida: {}", 
-                linea.getNombre(), diaSemana, horaSalidaMinima);  // ✅ LOG DE CONTEXTO
-
-		LocalTime mejorHoraSalidaHoy = null;
-
-		// Encuentra el bus más temprano de HOY que salga DESPUÉS de horaSalidaMinima
-		if (horasHoy != null) {
-			for (LocalTime horaCabecera : horasHoy) {
-				// Si la hora de salida es DESPUÉS o IGUAL a la mínima requerida
-				if (!horaCabecera.isBefore(horaSalidaMinima)) {
-
-					// Si es el primero que encontramos, o si es más temprano que el que ya teníamos
-					if (mejorHoraSalidaHoy == null || horaCabecera.isBefore(mejorHoraSalidaHoy)) {
-						mejorHoraSalidaHoy = horaCabecera;
-					}
-				}
-			}
-		}
-
-		if (mejorHoraSalidaHoy != null) {
-            LocalTime horaLlegada = mejorHoraSalidaHoy.plusSeconds(duracionHastaParada);
-            logger.debug("Salida encontrada hoy: {} (llegada a parada: {})", mejorHoraSalidaHoy, horaLlegada);  // ✅ LOG DE ÉXITO
-            // Devuelve la hora de llegada a la parada del usuario
-            return horaLlegada;
+		// Hora mínima de salida desde cabecera, en segundos (negativa si es antes de medianoche)
+		int salidaMinima = horaLlegadaUsuario.toSecondOfDay() - duracionHastaParada;
+        logger.debug("Buscando próxima salida para línea {} el día {} - Salida mínima requerida: {} s",
+                linea.getNombre(), diaSemana, salidaMinima);
+
+		// Búsqueda binaria en las salidas ordenadas del día, o la primera del día siguiente
+		int salida = linea.getProximaSalida(diaSemana, salidaMinima);
+		if (salida < 0) {
+            logger.warn("No hay salidas disponibles para línea {} en día {} ni día siguiente",
+                    linea.getNombre(), diaSemana);
+            return null;
 		}
 
-		int diaSiguiente = (diaSemana % 7) + 1;
-
-		List<LocalTime> horasManana = linea.getHorasFrecuencia(diaSiguiente);
+		// Devuelve la hora de llegada a la parada del usuario (ej: 06:10 de mañana)
+		LocalTime horaLlegada = LocalTime
+				.ofSecondOfDay(Math.floorMod(salida + duracionHastaParada, Constantes.SEGUNDOS_DIA));
+        logger.debug("Salida encontrada: {} s (llegada a parada: {})", salida, horaLlegada);
+        return horaLlegada;
 
-		LocalTime mejorHoraSalidaManana = null;
-
-		if (horasManana != null) {
-			for (LocalTime horaCabecera : horasManana) {
-				if (mejorHoraSalidaManana == null || horaCabecera.isBefore(mejorHoraSalidaManana)) {
-					mejorHoraSalidaManana = horaCabecera;
-				}
-			}
-		}
-
-		if (mejorHoraSalidaManana != null) {
-            LocalTime horaLlegada = mejorHoraSalidaManana.plusSeconds(duracionHastaParada);
-            logger.debug("Salida encontrada mañana (día {}): {} (llegada a parada: {})", 
-                    diaSiguiente, mejorHoraSalidaManana, horaLlegada); 
-            // Devuelve la hora de llegada a la parada (ej: 06:10 de mañana)
-            return horaLlegada;
-        }
-
-        logger.warn("No hay salidas disponibles para línea {} en día {} ni día siguiente",
-                linea.getNombre(), diaSemana);
-        return null;
-        
     } catch (Exception e) {
         logger.error("Error inesperado al obtener la próxima hora de salida para línea {}", 
                 linea.getNombre(), e); 
@@ -319,4 +301,50 @@ public class CalculosAuxiliares {
             return new HashMap<>();
         }
     }
+
+	/**
+	 * Obtiene la primera salida desde cabecera igual o posterior a un horario mínimo en
+	 * arreglos de salidas ordenadas por día, por búsqueda binaria. Se busca en el día que
+	 * corresponde al horario y, si ya no quedan salidas, en el día siguiente (del domingo
+	 * se pasa al lunes).
+	 *
+	 * @param salidasPorDia salidas ordenadas en segundos del día, por día (0=lunes)
+	 * @param diaSemana el día de la semana de referencia (1=lunes, 7=domingo)
+	 * @param minimo horario mínimo en segundos desde el inicio de ese día; un valor
+	 *        negativo equivale a 0 y uno mayor a un día corresponde a días siguientes
+	 * @return la salida en segundos desde el inicio del día de referencia, o -1 si no hay
+	 * @see Linea#getProximaSalida(int, int)
+	 */
+	public static int proximaSalida(int[][] salidasPorDia, int diaSemana, int minimo) {
+		int desde = Math.max(minimo, 0);
+		int desplazamiento = desde / Constantes.SEGUNDOS_DIA;
+		for (int d = desplazamiento; d <= desplazamiento + 1; d++) {
+			int[] horas = salidasPorDia[(diaSemana - 1 + d) % 7];
+			int base = d * Constantes.SEGUNDOS_DIA;
+			int i = primeraNoMenor(horas, desde - base);
+			if (i < horas.length)
+				return base + horas[i];
+		}
+		return -1;
+	}
+
+	/**
+	 * Búsqueda binaria del primer elemento mayor o igual a un valor en un arreglo ordenado.
+	 *
+	 * @param ordenado arreglo ordenado de menor a mayor
+	 * @param valor valor buscado
+	 * @return posición encontrada, o la longitud del arreglo si todos son menores
+	 */
+	public static int primeraNoMenor(int[] ordenado, int valor) {
+		int bajo = 0;
+		int alto = ordenado.length;
+		while (bajo < alto) {
+			int medio = (bajo + alto) >>> 1;
+			if (ordenado[medio] < valor)
+				bajo = medio + 1;
+			else
+				alto = medio;
+		}
+		return bajo;
+	}
 }
@@ -241,4 +241,57 @@ async function dibujarRutasDeColectivo(opcionesDeRutaString) {
 }
 
 // Exponer la función principal globalmente
-window.dibujarRutasDeColectivo = dibujarRutasDeColectivo;
\ No newline at end of file
+window.dibujarRutasDeColectivo = dibujarRutasDeColectivo;
+// Isócronas
+
+// Colores por franja de minutos de viaje, de la más cercana a la más lejana
+const franjasIsocrona = [
+    { hasta: 10, color: "#1a9850" },
+    { hasta: 20, color: "#91cf60" },
+    { hasta: 30, color: "#fee08b" },
+    { hasta: 45, color: "#fc8d59" },
+    { hasta: Infinity, color: "#d73027" }
+];
+
+/**
+ * Dibuja las paradas alcanzables desde un origen coloreadas según los minutos de viaje.
+ * No usa servicios externos, por lo que se puede redibujar en cada cambio de hora.
+ * @param {string} isocronaString - Un string JSON con objetos { codigo, lat, lng, minutos }.
+ */
+function dibujarIsocrona(isocronaString) {
+    try {
+        capaDeRuta.clearLayers();
+
+        const alcances = JSON.parse(isocronaString);
+        const allBounds = [];
+
+        alcances.forEach((alcance, index) => {
+            const punto = [alcance.lat, alcance.lng];
+            let marcador;
+
+            if (index === 0) {
+                // El primero es el origen
+                marcador = L.marker(punto, { icon: iconOrigen });
+            } else {
+                const franja = franjasIsocrona.find(f => alcance.minutos <= f.hasta);
+                marcador = L.circleMarker(punto, { ...estiloIntermedio, fillColor: franja.color, fillOpacity: 0.9 });
+            }
+
+            marcador.addTo(capaDeRuta).bindPopup(`Parada ${alcance.codigo} - ${alcance.minutos} min`);
+            allBounds.push(punto);
+        });
+
+        if (allBounds.length > 0) {
+            map.fitBounds(allBounds);
+        }
+    } catch (e) {
+        console.error("Error al procesar la isócrona:", e);
+    } finally {
+        if (window.javaApp) {
+            window.javaApp.notificarMapaTerminado();
+        }
+    }
+}
+
+// Exponer la función de isócronas globalmente
+window.dibujarIsocrona = dibujarIsocrona;
@@ -0,0 +1,113 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalTime;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaConTransbordo;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.EstrategiaBusqueda;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la memoria que reserva una consulta. Con los horarios en segundos y los
+ * arreglos de trabajo reutilizados, una búsqueda solo crea los objetos de las soluciones
+ * que devuelve: la memoria por consulta no depende del tamaño de la red.
+ */
+@DisplayName("Tests de Asignaciones de Memoria por Consulta")
+class AsignacionesBusquedaTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+	private static final int CALENTAMIENTO = 20_000;
+	private static final int CONSULTAS = 2_000;
+
+	/** Bytes que puede reservar una consulta sin soluciones (la lista vacía y poco más). */
+	private static final long MAXIMO_SIN_SOLUCIONES = 512;
+	/** Bytes que puede reservar cada solución devuelta (recorridos, sublistas y horas). */
+	private static final long MAXIMO_POR_SOLUCION = 1_024;
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	/**
+	 * Memoria promedio reservada por el hilo actual en cada consulta, después de repetirla
+	 * para que el compilador JIT optimice la búsqueda.
+	 */
+	private long bytesPorConsulta(EstrategiaBusqueda estrategia, Parada origen, Parada destino) {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean, "La JVM no informa memoria por hilo");
+		com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(hilos.isThreadAllocatedMemorySupported() && hilos.isThreadAllocatedMemoryEnabled(),
+				"La JVM no informa memoria por hilo");
+
+		for (int i = 0; i < CALENTAMIENTO; i++)
+			estrategia.buscar(origen, destino, 1, HORA, red);
+		long id = Thread.currentThread().threadId();
+		long antes = hilos.getThreadAllocatedBytes(id);
+		for (int i = 0; i < CONSULTAS; i++)
+			estrategia.buscar(origen, destino, 1, HORA, red);
+		return (hilos.getThreadAllocatedBytes(id) - antes) / CONSULTAS;
+	}
+
+	private void verificar(EstrategiaBusqueda estrategia, int codigoOrigen, int codigoDestino) {
+		Parada origen = paradas.get(codigoOrigen);
+		Parada destino = paradas.get(codigoDestino);
+		int soluciones = estrategia.buscar(origen, destino, 1, HORA, red).size();
+		long bytes = bytesPorConsulta(estrategia, origen, destino);
+		long maximo = MAXIMO_SIN_SOLUCIONES + soluciones * MAXIMO_POR_SOLUCION;
+
+		assertTrue(bytes <= maximo, estrategia.getClass().getSimpleName() + " de " + codigoOrigen + " a "
+				+ codigoDestino + ": " + bytes + " bytes por consulta, máximo " + maximo);
+	}
+
+	@Nested
+	@DisplayName("Memoria Acotada")
+	class MemoriaAcotadaTests {
+
+		@Test
+		@DisplayName("La búsqueda por rondas solo debe reservar memoria para las soluciones")
+		void testRaptor() {
+			BusquedaRaptor raptor = new BusquedaRaptor();
+			verificar(raptor, 88, 13);
+			verificar(raptor, 31, 66);
+			verificar(raptor, 1, 67);
+		}
+
+		@Test
+		@DisplayName("La búsqueda con transbordo no debe crear recorridos por cada candidato")
+		void testConTransbordo() {
+			BusquedaConTransbordo transbordo = new BusquedaConTransbordo();
+			verificar(transbordo, 88, 13);
+			verificar(transbordo, 44, 47);
+			verificar(transbordo, 1, 67);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.viaje;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaAEstrella;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda A* dependiente del tiempo.
+ */
+@DisplayName("Tests de Búsqueda A*")
+class BusquedaAEstrellaTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	@Nested
+	@DisplayName("Llegada Más Temprana")
+	class LlegadaTests {
+
+		@Test
+		@DisplayName("Debe llegar a la misma hora que el escaneo de conexiones")
+		void testIgualQueCSA() {
+			BusquedaAEstrella aEstrella = new BusquedaAEstrella();
+			BusquedaCSA csa = new BusquedaCSA();
+			int comparados = 0;
+			for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+					Parada origen = red.getParada(o);
+					Parada destino = red.getParada(d);
+					List<List<Recorrido>> esperado = csa.buscar(origen, destino, 1, HORA, red);
+					List<List<Recorrido>> obtenido = aEstrella.buscar(origen, destino, 1, HORA, red);
+					assertEquals(esperado.isEmpty(), obtenido.isEmpty(), "De " + origen + " a " + destino);
+					if (!esperado.isEmpty()) {
+						assertEquals(viaje(esperado.get(0), HORA), viaje(obtenido.get(0), HORA),
+								"De " + origen + " a " + destino);
+						comparados++;
+					}
+				}
+			}
+			assertTrue(comparados > 0);
+		}
+
+		@Test
+		@DisplayName("El recorrido debe ir del origen al destino sin caminar en los extremos")
+		void testRecorridoConsistente() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> soluciones = new BusquedaAEstrella().buscar(origen, destino, 1, HORA, red);
+
+			assertEquals(1, soluciones.size());
+			List<Recorrido> recorrido = soluciones.get(0);
+			assertEquals(origen, recorrido.get(0).getParadas().get(0));
+			assertEquals(destino, recorrido.getLast().getParadas().getLast());
+			assertFalse(recorrido.get(0).getLinea() == null, "No debe caminar desde el origen");
+			assertFalse(recorrido.getLast().getLinea() == null, "No debe caminar hasta el destino");
+			for (int i = 1; i < recorrido.size(); i++) {
+				assertEquals(recorrido.get(i - 1).getParadas().getLast(), recorrido.get(i).getParadas().get(0));
+				assertFalse(recorrido.get(i - 1).getLinea() == null && recorrido.get(i).getLinea() == null,
+						"No debe caminar dos veces seguidas");
+			}
+		}
+
+		@Test
+		@DisplayName("Debe responder vacío para la misma parada o una inalcanzable")
+		void testSinSolucion() {
+			BusquedaAEstrella aEstrella = new BusquedaAEstrella();
+			assertTrue(aEstrella.buscar(paradas.get(1), paradas.get(1), 1, HORA, red).isEmpty());
+			assertTrue(aEstrella.buscar(paradas.get(66), paradas.get(67), 1, HORA, red).isEmpty());
+		}
+	}
+
+	@Nested
+	@DisplayName("Expansión")
+	class ExpansionTests {
+
+		@Test
+		@DisplayName("La cota debe expandir al menos un 30 % menos de paradas que la búsqueda sin cota")
+		void testMenosExpandidas() {
+			BusquedaAEstrella conCota = new BusquedaAEstrella();
+			BusquedaAEstrella sinCota = new BusquedaAEstrella(false);
+			long totalCon = 0;
+			long totalSin = 0;
+			for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+					Parada origen = red.getParada(o);
+					Parada destino = red.getParada(d);
+					List<List<Recorrido>> con = conCota.buscar(origen, destino, 1, HORA, red);
+					int expandidasCon = BusquedaAEstrella.getUltimasExpandidas();
+					List<List<Recorrido>> sin = sinCota.buscar(origen, destino, 1, HORA, red);
+					int expandidasSin = BusquedaAEstrella.getUltimasExpandidas();
+					if (!con.isEmpty())
+						assertEquals(viaje(sin.get(0), HORA), viaje(con.get(0), HORA));
+					totalCon += expandidasCon;
+					totalSin += expandidasSin;
+				}
+			}
+			assertTrue(totalCon * 10 <= totalSin * 7, totalCon + " expandidas con cota y " + totalSin + " sin cota");
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Calculo;
+import colectivo.logica.Recorrido;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda por escaneo de conexiones (CSA).
+ * Verifica que devuelva el recorrido de llegada más temprana.
+ */
+@DisplayName("Tests de Búsqueda por Escaneo de Conexiones")
+class BusquedaCSATests {
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private final LocalTime hora = LocalTime.of(10, 35);
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+	}
+
+	/** Hora de llegada al destino del recorrido, en segundos desde el inicio del día. */
+	private static int llegada(List<Recorrido> recorrido) {
+		Recorrido ultimo = recorrido.get(recorrido.size() - 1);
+		return ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion();
+	}
+
+	@Nested
+	@DisplayName("Llegada Más Temprana")
+	class LlegadaMasTempranaTests {
+
+		@Test
+		@DisplayName("Debe elegir la línea directa que llega antes")
+		void testDirectoMasTemprano() {
+			List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradas.get(44), paradas.get(47), 1, hora,
+					tramos, new BusquedaCSA());
+
+			assertEquals(1, recorridos.size(), "Debe devolver un único recorrido");
+			Recorrido recorrido = recorridos.get(0).get(0);
+			assertEquals("L5R", recorrido.getLinea().getCodigo());
+			assertEquals(LocalTime.of(10, 47, 30), recorrido.getHoraSalida());
+			assertEquals(180, recorrido.getDuracion());
+		}
+
+		@Test
+		@DisplayName("No debe llegar después que la búsqueda por rondas")
+		void testNoPeorQueRaptor() {
+			int[][] pares = { { 88, 13 }, { 31, 66 }, { 66, 31 }, { 1, 3 } };
+			for (int[] par : pares) {
+				List<List<Recorrido>> csa = Calculo.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]), 1,
+						hora, tramos, new BusquedaCSA());
+				List<List<Recorrido>> raptor = Calculo.calcularRecorrido(paradas.get(par[0]), paradas.get(par[1]), 1,
+						hora, tramos, new BusquedaRaptor());
+
+				assertFalse(csa.isEmpty(), "Debe encontrar recorrido de " + par[0] + " a " + par[1]);
+				for (List<Recorrido> recorrido : raptor)
+					assertTrue(llegada(csa.get(0)) <= llegada(recorrido),
+							"CSA debe llegar igual o antes de " + par[0] + " a " + par[1]);
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Estructura del Recorrido")
+	class EstructuraTests {
+
+		@Test
+		@DisplayName("La caminata debe conectar dos colectivos")
+		void testCaminataEntreColectivos() {
+			List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradas.get(31), paradas.get(66), 1, hora,
+					tramos, new BusquedaCSA());
+
+			assertEquals(1, recorridos.size());
+			List<Recorrido> recorrido = recorridos.get(0);
+			assertFalse(recorrido.get(0).getLinea() == null, "No debe empezar caminando");
+			assertFalse(recorrido.get(recorrido.size() - 1).getLinea() == null, "No debe terminar caminando");
+			for (int i = 1; i < recorrido.size(); i++) {
+				Recorrido anterior = recorrido.get(i - 1);
+				assertEquals(anterior.getParadas().get(anterior.getParadas().size() - 1),
+						recorrido.get(i).getParadas().get(0), "Los tramos deben estar conectados");
+				assertFalse(recorrido.get(i).getHoraSalida()
+						.isBefore(anterior.getHoraSalida().plusSeconds(anterior.getDuracion())),
+						"Un tramo no puede salir antes de la llegada del anterior");
+			}
+		}
+
+		@Test
+		@DisplayName("Origen igual a destino no debe devolver recorridos")
+		void testOrigenIgualDestino() {
+			List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradas.get(44), paradas.get(44), 1, hora,
+					tramos, new BusquedaCSA());
+
+			assertTrue(recorridos.isEmpty());
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCaminando;
+import colectivo.logica.BusquedaConTransbordo;
+import colectivo.logica.BusquedaConcurrente;
+import colectivo.logica.BusquedaDirecta;
+import colectivo.logica.EstrategiaBusqueda;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la ejecución en paralelo de estrategias de búsqueda.
+ */
+@DisplayName("Tests de Búsqueda Concurrente")
+class BusquedaConcurrenteTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	/** Estrategia que demora en responder y avisa si empezó y si fue cancelada. */
+	private static EstrategiaBusqueda lenta(CountDownLatch iniciada, CountDownLatch cancelada) {
+		return (origen, destino, dia, hora, conexiones, todos) -> {
+			iniciada.countDown();
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				cancelada.countDown();
+			}
+			return List.of();
+		};
+	}
+
+	private static String describir(List<Recorrido> recorrido) {
+		StringBuilder sb = new StringBuilder();
+		for (Recorrido tramo : recorrido)
+			sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+					.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(';');
+		return sb.toString();
+	}
+
+	@Nested
+	@DisplayName("Resultados")
+	class ResultadosTests {
+
+		@Test
+		@DisplayName("Por preferencia debe devolver lo mismo que ejecutar las estrategias en orden")
+		void testIgualQueSecuencial() {
+			List<EstrategiaBusqueda> orden = List.of(new BusquedaDirecta(), new BusquedaConTransbordo(),
+					new BusquedaCaminando());
+			BusquedaConcurrente concurrente = new BusquedaConcurrente();
+
+			for (int[] par : new int[][] { { 44, 47 }, { 88, 13 }, { 31, 66 }, { 1, 2 }, { 66, 67 } }) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				List<List<Recorrido>> esperado = List.of();
+				for (EstrategiaBusqueda estrategia : orden) {
+					esperado = estrategia.buscar(origen, destino, 1, HORA, red);
+					if (!esperado.isEmpty())
+						break;
+				}
+
+				List<List<Recorrido>> obtenido = concurrente.buscar(origen, destino, 1, HORA, red);
+				assertEquals(esperado.stream().map(BusquedaConcurrenteTests::describir).toList(),
+						obtenido.stream().map(BusquedaConcurrenteTests::describir).toList(),
+						"De " + par[0] + " a " + par[1]);
+			}
+		}
+
+		@Test
+		@DisplayName("Combinando debe unir las soluciones de todas las estrategias sin repetidas")
+		void testCombinar() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<EstrategiaBusqueda> estrategias = List.of(new BusquedaConTransbordo(), new BusquedaConTransbordo(),
+					new BusquedaCaminando());
+			List<List<Recorrido>> obtenido = new BusquedaConcurrente(estrategias, Duration.ofSeconds(10), true)
+					.buscar(origen, destino, 1, HORA, red);
+
+			Set<String> esperado = new HashSet<>();
+			for (EstrategiaBusqueda estrategia : estrategias)
+				estrategia.buscar(origen, destino, 1, HORA, red).forEach(r -> esperado.add(describir(r)));
+			Set<String> unicos = new HashSet<>();
+			obtenido.forEach(r -> unicos.add(describir(r)));
+
+			assertEquals(obtenido.size(), unicos.size(), "No debe repetir recorridos");
+			assertEquals(esperado, unicos);
+		}
+	}
+
+	@Nested
+	@DisplayName("Plazo y Cancelación")
+	class CancelacionTests {
+
+		@Test
+		@DisplayName("Debe cancelar las estrategias posteriores cuando hay una respuesta aceptable")
+		void testCancelaPosteriores() throws InterruptedException {
+			CountDownLatch iniciada = new CountDownLatch(1);
+			CountDownLatch cancelada = new CountDownLatch(1);
+			BusquedaConcurrente concurrente = new BusquedaConcurrente(
+					List.of(new BusquedaDirecta(), lenta(iniciada, cancelada)), Duration.ofSeconds(30), false);
+
+			long inicio = System.nanoTime();
+			List<List<Recorrido>> obtenido = concurrente.buscar(paradas.get(44), paradas.get(47), 1, HORA, red);
+
+			assertFalse(obtenido.isEmpty());
+			assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(5), "No debe esperar a la lenta");
+			// Cancelada antes de empezar no llega a ejecutarse; si empezó, se interrumpe
+			assertTrue(iniciada.getCount() == 1 || cancelada.await(5, TimeUnit.SECONDS),
+					"La estrategia lenta debe ser interrumpida");
+		}
+
+		@Test
+		@DisplayName("Al cumplirse el plazo debe responder con las estrategias ya terminadas")
+		void testPlazo() throws InterruptedException {
+			CountDownLatch iniciada = new CountDownLatch(1);
+			CountDownLatch cancelada = new CountDownLatch(1);
+			BusquedaConcurrente concurrente = new BusquedaConcurrente(
+					List.of(lenta(iniciada, cancelada), new BusquedaConTransbordo()), Duration.ofMillis(300), false);
+
+			long inicio = System.nanoTime();
+			List<List<Recorrido>> obtenido = concurrente.buscar(paradas.get(88), paradas.get(13), 1, HORA, red);
+
+			assertFalse(obtenido.isEmpty(), "Debe usar la estrategia que terminó a tiempo");
+			assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(5), "Debe respetar el plazo");
+			assertTrue(cancelada.await(5, TimeUnit.SECONDS), "La estrategia pendiente debe ser interrumpida");
+		}
+
+		@Test
+		@DisplayName("Debe rechazar estrategias vacías o un plazo no positivo")
+		void testParametrosInvalidos() {
+			assertThrows(IllegalArgumentException.class,
+					() -> new BusquedaConcurrente(List.of(), Duration.ofSeconds(1), false));
+			assertThrows(IllegalArgumentException.class,
+					() -> new BusquedaConcurrente(List.of(new BusquedaDirecta()), Duration.ZERO, false));
+		}
+	}
+}
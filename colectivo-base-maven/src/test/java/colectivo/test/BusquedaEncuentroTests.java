@@ -0,0 +1,138 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaEncuentro;
+import colectivo.logica.BusquedaEncuentro.Encuentro;
+import colectivo.logica.BusquedaEncuentro.Objetivo;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda de puntos de encuentro desde varios orígenes.
+ */
+@DisplayName("Tests de Búsqueda de Puntos de Encuentro")
+class BusquedaEncuentroTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+
+	private RedCompilada red;
+	private List<Parada> origenes;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		Map<String, Tramo> tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+		origenes = List.of(paradas.get(1), paradas.get(31), paradas.get(44), paradas.get(63), paradas.get(88));
+	}
+
+	/** Tiempos de viaje desde un origen a cada parada alcanzable, con una isócrona de un día. */
+	private Map<Parada, Integer> tiempos(Parada origen, int dia, LocalTime hora) {
+		Map<Parada, Integer> tiempos = new HashMap<>();
+		for (BusquedaCSA.Alcance alcance : new BusquedaCSA().alcanzables(origen, dia, hora, Duration.ofDays(1), red))
+			tiempos.put(alcance.parada(), alcance.segundosViaje());
+		return tiempos;
+	}
+
+	@Nested
+	@DisplayName("Encuentros")
+	class EncuentrosTests {
+
+		@Test
+		@DisplayName("Los tiempos de cada origen deben ser los de su isócrona")
+		void testIgualQueIsocronas() {
+			BusquedaEncuentro encuentro = new BusquedaEncuentro();
+			for (int dia = 1; dia <= 7; dia += 3) {
+				for (LocalTime hora : List.of(LocalTime.of(0, 17), HORA, LocalTime.of(22, 50))) {
+					List<Map<Parada, Integer>> esperados = new ArrayList<>();
+					for (Parada origen : origenes)
+						esperados.add(tiempos(origen, dia, hora));
+					int alcanzadas = 0;
+					for (int s = 0; s < red.getCantidadParadas(); s++) {
+						Parada parada = red.getParada(s);
+						if (esperados.stream().allMatch(t -> t.containsKey(parada)))
+							alcanzadas++;
+					}
+
+					List<Encuentro> obtenidos = encuentro.buscar(origenes, dia, hora, Objetivo.MAXIMO,
+							red.getCantidadParadas(), red);
+					assertEquals(alcanzadas, obtenidos.size(), "Día " + dia + " a las " + hora);
+					for (Encuentro e : obtenidos)
+						for (int o = 0; o < origenes.size(); o++)
+							assertEquals(esperados.get(o).get(e.parada()), e.segundosViaje().get(o),
+									"Hacia " + e.parada() + " desde " + origenes.get(o) + " el día " + dia);
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Debe ordenar por el máximo o por la suma según el objetivo")
+		void testOrdenPorObjetivo() {
+			BusquedaEncuentro encuentro = new BusquedaEncuentro();
+			List<Encuentro> porMaximo = encuentro.buscar(origenes, 1, HORA, Objetivo.MAXIMO, 10, red);
+			List<Encuentro> porSuma = encuentro.buscar(origenes, 1, HORA, Objetivo.SUMA, 10, red);
+
+			assertEquals(10, porMaximo.size());
+			assertEquals(10, porSuma.size());
+			for (int i = 1; i < porMaximo.size(); i++) {
+				assertTrue(porMaximo.get(i - 1).segundosMaximo() <= porMaximo.get(i).segundosMaximo());
+				assertTrue(porSuma.get(i - 1).segundosTotal() <= porSuma.get(i).segundosTotal());
+			}
+			List<Encuentro> todas = encuentro.buscar(origenes, 1, HORA, Objetivo.MAXIMO, red.getCantidadParadas(), red);
+			assertEquals(todas.stream().mapToLong(Encuentro::segundosTotal).min().getAsLong(),
+					porSuma.get(0).segundosTotal());
+		}
+
+		@Test
+		@DisplayName("Con un solo origen, el mejor encuentro es el propio origen")
+		void testUnOrigen() {
+			Parada origen = paradas.get(88);
+			List<Encuentro> encuentros = new BusquedaEncuentro().buscar(List.of(origen), 1, HORA, Objetivo.SUMA, 3, red);
+
+			assertFalse(encuentros.isEmpty());
+			assertEquals(origen, encuentros.get(0).parada());
+			assertEquals(0, encuentros.get(0).segundosMaximo());
+			assertEquals(HORA, encuentros.get(0).llegadaUltimo(HORA));
+		}
+
+		@Test
+		@DisplayName("Debe rechazar parámetros inválidos")
+		void testParametrosInvalidos() {
+			BusquedaEncuentro encuentro = new BusquedaEncuentro();
+			assertThrows(IllegalArgumentException.class,
+					() -> encuentro.buscar(List.of(), 1, HORA, Objetivo.MAXIMO, 5, red));
+			assertThrows(IllegalArgumentException.class,
+					() -> encuentro.buscar(origenes, 0, HORA, Objetivo.MAXIMO, 5, red));
+			assertThrows(IllegalArgumentException.class,
+					() -> encuentro.buscar(origenes, 1, HORA, Objetivo.MAXIMO, 0, red));
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.viaje;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaLlegada;
+import colectivo.logica.Calculo;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda de salida más tardía para llegar a una hora dada.
+ */
+@DisplayName("Tests de Búsqueda por Hora de Llegada")
+class BusquedaLlegadaTests {
+
+	private static final int DIA = 86_400;
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		Map<String, Tramo> tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	/**
+	 * Salida del recorrido en segundos desde el inicio del día de la llegada: negativa si
+	 * sale el día anterior.
+	 */
+	private static int salida(List<Recorrido> recorrido, int llegadaMaxima) {
+		int desde = recorrido.get(0).getHoraSalida().toSecondOfDay();
+		int duracion = viaje(recorrido, desde);
+		int espera = Math.floorMod(llegadaMaxima - (desde + duracion), DIA);
+		return llegadaMaxima - espera - duracion;
+	}
+
+	@Nested
+	@DisplayName("Salida Más Tardía")
+	class SalidaTests {
+
+		@Test
+		@DisplayName("Debe llegar a tiempo y ninguna salida posterior debe llegar a tiempo")
+		void testIgualQueSondearConCSA() {
+			BusquedaLlegada llegada = new BusquedaLlegada();
+			BusquedaCSA csa = new BusquedaCSA();
+			int comparados = 0;
+			for (int dia = 1; dia <= 7; dia += 3) {
+				for (LocalTime hora : List.of(LocalTime.of(0, 40), HORA, LocalTime.of(23, 10))) {
+					int limite = hora.toSecondOfDay();
+					for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+						for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+							Parada origen = red.getParada(o);
+							Parada destino = red.getParada(d);
+							String consulta = "De " + origen + " a " + destino + " el día " + dia + " a las " + hora;
+							List<List<Recorrido>> obtenido = llegada.buscar(origen, destino, dia, hora, red);
+							if (obtenido.isEmpty())
+								continue;
+							List<Recorrido> recorrido = obtenido.get(0);
+							int salida = salida(recorrido, limite);
+							assertTrue(salida > -DIA, consulta);
+
+							// Saliendo a esa hora se llega a tiempo
+							int diaSalida = salida < 0 ? (dia + 5) % 7 + 1 : dia;
+							int segundo = Math.floorMod(salida, DIA);
+							List<List<Recorrido>> justo = csa.buscar(origen, destino, diaSalida,
+									LocalTime.ofSecondOfDay(segundo), red);
+							assertFalse(justo.isEmpty(), consulta);
+							assertTrue(salida + viaje(justo.get(0), segundo) <= limite, consulta);
+
+							// Un segundo más tarde ya no
+							if (segundo + 1 < DIA) {
+								List<List<Recorrido>> tarde = csa.buscar(origen, destino, diaSalida,
+										LocalTime.ofSecondOfDay(segundo + 1), red);
+								assertTrue(tarde.isEmpty() || salida + 1 + viaje(tarde.get(0), segundo + 1) > limite,
+										consulta);
+							}
+							comparados++;
+						}
+					}
+				}
+			}
+			assertTrue(comparados > 0);
+		}
+
+		@Test
+		@DisplayName("El recorrido debe ir del origen al destino sin caminar en los extremos")
+		void testRecorridoConsistente() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> soluciones = new BusquedaLlegada().buscar(origen, destino, 1, HORA, red);
+
+			assertEquals(1, soluciones.size());
+			List<Recorrido> recorrido = soluciones.get(0);
+			assertEquals(origen, recorrido.get(0).getParadas().get(0));
+			assertEquals(destino, recorrido.getLast().getParadas().getLast());
+			assertFalse(recorrido.get(0).getLinea() == null, "No debe caminar desde el origen");
+			assertFalse(recorrido.getLast().getLinea() == null, "No debe caminar hasta el destino");
+			for (int i = 1; i < recorrido.size(); i++)
+				assertEquals(recorrido.get(i - 1).getParadas().getLast(), recorrido.get(i).getParadas().get(0));
+		}
+
+		@Test
+		@DisplayName("Calculo debe delegar en la búsqueda por hora de llegada")
+		void testCalculo() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> esperado = new BusquedaLlegada().buscar(origen, destino, 3, HORA, red);
+			List<List<Recorrido>> obtenido = Calculo.calcularLlegandoAntes(origen, destino, 3, HORA, red);
+			assertEquals(esperado.size(), obtenido.size());
+			assertEquals(esperado.get(0).get(0).getHoraSalida(), obtenido.get(0).get(0).getHoraSalida());
+		}
+
+		@Test
+		@DisplayName("Debe responder vacío para la misma parada o una inalcanzable")
+		void testSinSolucion() {
+			BusquedaLlegada llegada = new BusquedaLlegada();
+			assertTrue(llegada.buscar(paradas.get(1), paradas.get(1), 1, HORA, red).isEmpty());
+			assertTrue(llegada.buscar(paradas.get(66), paradas.get(67), 1, HORA, red).isEmpty());
+		}
+
+		@Test
+		@DisplayName("Debe rechazar parámetros inválidos")
+		void testParametrosInvalidos() {
+			BusquedaLlegada llegada = new BusquedaLlegada();
+			assertThrows(IllegalArgumentException.class,
+					() -> llegada.buscar(paradas.get(1), paradas.get(13), 1, null, red));
+			assertThrows(IllegalArgumentException.class,
+					() -> llegada.buscar(paradas.get(1), paradas.get(13), 8, HORA, red));
+		}
+	}
+}
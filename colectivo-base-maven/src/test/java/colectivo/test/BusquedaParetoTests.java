@@ -0,0 +1,142 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.colectivos;
+import static colectivo.test.Recorridos.viaje;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaPareto;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda multicriterio (llegada, transbordos y caminata).
+ */
+@DisplayName("Tests de Búsqueda Multicriterio")
+class BusquedaParetoTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	private List<List<Recorrido>> buscar(int origen, int destino) {
+		return new BusquedaPareto().buscar(paradas.get(origen), paradas.get(destino), 1, HORA, red);
+	}
+
+	private static int caminata(List<Recorrido> recorrido) {
+		return recorrido.stream().filter(tramo -> tramo.getLinea() == null).mapToInt(Recorrido::getDuracion).sum();
+	}
+
+	@Nested
+	@DisplayName("Conjunto de Pareto")
+	class ConjuntoParetoTests {
+
+		@Test
+		@DisplayName("Debe devolver alternativas que cambian llegada por transbordos o caminata")
+		void testAlternativas() {
+			List<List<Recorrido>> recorridos = buscar(1, 2);
+
+			assertEquals(3, recorridos.size());
+			// La más rápida camina entre dos colectivos
+			assertEquals(LocalTime.of(10, 50), recorridos.get(0).get(2).getHoraSalida()
+					.plusSeconds(recorridos.get(0).get(2).getDuracion()));
+			assertEquals(120, caminata(recorridos.get(0)));
+			// La última no camina y usa dos colectivos
+			assertEquals(0, caminata(recorridos.get(2)));
+			assertEquals(2, colectivos(recorridos.get(2)));
+		}
+
+		@Test
+		@DisplayName("Ningún recorrido debe estar dominado por otro")
+		void testSinDominados() {
+			for (int destino : new int[] { 2, 8, 36, 54 }) {
+				List<List<Recorrido>> recorridos = buscar(1, destino);
+				for (List<Recorrido> a : recorridos)
+					for (List<Recorrido> b : recorridos)
+						if (a != b)
+							assertFalse(viaje(a, HORA) <= viaje(b, HORA) && colectivos(a) <= colectivos(b)
+									&& caminata(a) <= caminata(b), "Recorrido dominado hacia " + destino);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe estar ordenado por hora de llegada")
+		void testOrdenPorLlegada() {
+			List<List<Recorrido>> recorridos = buscar(1, 8);
+
+			for (int i = 1; i < recorridos.size(); i++)
+				assertTrue(viaje(recorridos.get(i - 1), HORA) <= viaje(recorridos.get(i), HORA));
+		}
+	}
+
+	@Nested
+	@DisplayName("Comparación con Otras Estrategias")
+	class ComparacionTests {
+
+		@Test
+		@DisplayName("Debe incluir la llegada más temprana y la menor cantidad de colectivos")
+		void testIncluyeExtremos() {
+			for (int[] par : new int[][] { { 1, 2 }, { 66, 31 }, { 88, 13 }, { 44, 47 } }) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				List<List<Recorrido>> pareto = buscar(par[0], par[1]);
+				List<List<Recorrido>> csa = new BusquedaCSA().buscar(origen, destino, 1, HORA, red);
+				List<List<Recorrido>> raptor = new BusquedaRaptor().buscar(origen, destino, 1, HORA, red);
+
+				assertFalse(pareto.isEmpty());
+				assertEquals(viaje(csa.get(0), HORA),
+						pareto.stream().mapToInt(recorrido -> viaje(recorrido, HORA)).min().getAsInt(),
+						"Llegada más temprana de " + par[0] + " a " + par[1]);
+				assertEquals(colectivos(raptor.getLast()),
+						pareto.stream().mapToInt(Recorridos::colectivos).min().getAsInt(),
+						"Menor cantidad de colectivos de " + par[0] + " a " + par[1]);
+			}
+		}
+
+		@Test
+		@DisplayName("Sin recorrido posible o con origen igual a destino no debe devolver soluciones")
+		void testSinSolucion() {
+			assertTrue(buscar(66, 67).isEmpty());
+			assertTrue(buscar(44, 44).isEmpty());
+		}
+
+		@Test
+		@DisplayName("Debe rechazar una cantidad de rondas menor a uno")
+		void testRondasInvalidas() {
+			assertThrows(IllegalArgumentException.class, () -> new BusquedaPareto(0));
+		}
+	}
+}
@@ -0,0 +1,289 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaPatrones;
+import colectivo.logica.BusquedaViajes;
+import colectivo.logica.Ciudad;
+import colectivo.logica.PatronesTransbordo;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de los patrones de transbordo y de la búsqueda que los evalúa.
+ */
+@DisplayName("Tests de Búsqueda por Patrones de Transbordo")
+class BusquedaPatronesTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+	private List<Parada> origenes;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+		origenes = List.of(paradas.get(1), paradas.get(31), paradas.get(44), paradas.get(63), paradas.get(88));
+	}
+
+	/** Hora de llegada al destino, en segundos del día. */
+	private static int llegada(List<Recorrido> recorrido) {
+		Recorrido ultimo = recorrido.getLast();
+		return (ultimo.getHoraSalida().toSecondOfDay() + ultimo.getDuracion()) % 86_400;
+	}
+
+	private static byte[] bytes(PatronesTransbordo patrones) throws IOException {
+		Path archivo = Files.createTempFile("patrones", ".bin");
+		try {
+			patrones.guardar(archivo);
+			return Files.readAllBytes(archivo);
+		} finally {
+			Files.deleteIfExists(archivo);
+		}
+	}
+
+	@Nested
+	@DisplayName("Consultas")
+	class ConsultasTests {
+
+		@Test
+		@DisplayName("Debe llegar a la misma hora que el escaneo de conexiones")
+		void testIgualQueCSA() {
+			red.usarPatronesTransbordo(PatronesTransbordo.calcular(red, origenes, 2));
+			BusquedaPatrones patrones = new BusquedaPatrones();
+			BusquedaCSA csa = new BusquedaCSA();
+			int comparados = 0;
+			for (int dia = 1; dia <= 7; dia += 3) {
+				for (LocalTime hora : List.of(LocalTime.of(0, 17), HORA, LocalTime.of(22, 50))) {
+					for (Parada origen : origenes) {
+						for (int d = 0; d < red.getCantidadParadas(); d += 2) {
+							Parada destino = red.getParada(d);
+							String consulta = "De " + origen + " a " + destino + " el día " + dia + " a las " + hora;
+							List<List<Recorrido>> esperado = csa.buscar(origen, destino, dia, hora, red);
+							List<List<Recorrido>> obtenido = patrones.buscar(origen, destino, dia, hora, red);
+							assertEquals(esperado.isEmpty(), obtenido.isEmpty(), consulta);
+							if (!esperado.isEmpty()) {
+								assertEquals(llegada(esperado.get(0)), llegada(obtenido.getLast()), consulta);
+								comparados++;
+							}
+						}
+					}
+				}
+			}
+			assertTrue(comparados > 0);
+		}
+
+		@Test
+		@DisplayName("El recorrido debe seguir el patrón del origen al destino")
+		void testRecorridoConsistente() {
+			red.usarPatronesTransbordo(PatronesTransbordo.calcular(red, origenes, 2));
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> soluciones = new BusquedaPatrones().buscar(origen, destino, 1, HORA, red);
+
+			assertFalse(soluciones.isEmpty());
+			for (List<Recorrido> recorrido : soluciones) {
+				assertEquals(origen, recorrido.get(0).getParadas().get(0));
+				assertEquals(destino, recorrido.getLast().getParadas().getLast());
+				for (int i = 1; i < recorrido.size(); i++)
+					assertEquals(recorrido.get(i - 1).getParadas().getLast(), recorrido.get(i).getParadas().get(0));
+			}
+		}
+
+		@Test
+		@DisplayName("Sin patrones desde el origen debe responder como la búsqueda por viajes")
+		void testSinPatrones() {
+			Parada origen = paradas.get(13);
+			Parada destino = paradas.get(88);
+			BusquedaPatrones patrones = new BusquedaPatrones();
+			assertNull(red.getPatronesTransbordo());
+			int esperado = llegada(new BusquedaViajes().buscar(origen, destino, 1, HORA, red).getLast());
+			assertEquals(esperado, llegada(patrones.buscar(origen, destino, 1, HORA, red).getLast()));
+
+			red.usarPatronesTransbordo(PatronesTransbordo.calcular(red, origenes, 2));
+			assertFalse(red.getPatronesTransbordo().isCalculado(red.indice(origen)));
+			assertEquals(esperado, llegada(patrones.buscar(origen, destino, 1, HORA, red).getLast()));
+		}
+	}
+
+	@Nested
+	@DisplayName("Cálculo")
+	class CalculoTests {
+
+		@Test
+		@DisplayName("El cálculo en paralelo debe dar los mismos patrones que con un hilo")
+		void testParaleloIgualSecuencial() throws IOException {
+			assertArrayEquals(bytes(PatronesTransbordo.calcular(red, origenes, 1)),
+					bytes(PatronesTransbordo.calcular(red, origenes, 4)));
+		}
+
+		@Test
+		@DisplayName("Actualizar debe dar lo mismo que recalcular y conservar los orígenes sin cambios")
+		void testActualizar() throws IOException {
+			PatronesTransbordo patrones = PatronesTransbordo.calcular(red, origenes, 2);
+			byte[] esperado = bytes(patrones);
+			assertArrayEquals(esperado, bytes(patrones.actualizar(red, List.of(), 2)));
+			PatronesTransbordo actualizados = patrones.actualizar(red, List.of(lineas.get("L6R")), 2);
+			assertArrayEquals(esperado, bytes(actualizados));
+			assertEquals(0, actualizados.getCantidadRecalculados());
+		}
+
+		@Test
+		@DisplayName("Cambiar frecuencias debe recalcular solo algunos orígenes y dar lo mismo que calcular")
+		void testActualizarFrecuencias() throws IOException {
+			PatronesTransbordo patrones = PatronesTransbordo.calcular(red, 2);
+			Linea linea = lineas.get("L6R");
+			linea.agregarFrecuencia(1, LocalTime.of(10, 37));
+			RedCompilada nueva = RedCompilada.compilar(tramos);
+
+			PatronesTransbordo calculados = PatronesTransbordo.calcular(nueva, 2);
+			PatronesTransbordo actualizados = patrones.actualizar(nueva, List.of(linea), 2);
+			assertTrue(actualizados.getCantidadRecalculados() > 0);
+			assertTrue(actualizados.getCantidadRecalculados() < red.getCantidadParadas());
+			assertArrayEquals(bytes(calculados), bytes(actualizados));
+
+			// Quitar el viaje agregado también da lo mismo que calcular
+			PatronesTransbordo anteriores = calculados.actualizar(red, List.of(linea), 2);
+			assertTrue(anteriores.getCantidadRecalculados() < red.getCantidadParadas());
+			assertArrayEquals(bytes(patrones), bytes(anteriores));
+		}
+
+		@Test
+		@DisplayName("Los patrones recuperados de archivo deben dar los mismos recorridos")
+		void testGuardarYAbrir() throws IOException {
+			Path archivo = Files.createTempFile("patrones", ".bin");
+			try {
+				PatronesTransbordo calculados = PatronesTransbordo.calcular(red, origenes, 2);
+				calculados.guardar(archivo);
+				PatronesTransbordo abiertos = PatronesTransbordo.abrir(archivo, red);
+				assertEquals(calculados.getCantidadPatrones(), abiertos.getCantidadPatrones());
+				for (Parada origen : origenes)
+					for (int d = 0; d < red.getCantidadParadas(); d++)
+						assertArrayEquals(calculados.patrones(red.indice(origen), d),
+								abiertos.patrones(red.indice(origen), d));
+			} finally {
+				Files.deleteIfExists(archivo);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe rechazar un archivo inválido o patrones de otra red")
+		void testArchivoInvalido() throws IOException {
+			Path archivo = Files.createTempFile("patrones", ".bin");
+			try {
+				Files.write(archivo, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20 });
+				assertThrows(IOException.class, () -> PatronesTransbordo.abrir(archivo, red));
+
+				PatronesTransbordo patrones = PatronesTransbordo.calcular(red, origenes, 2);
+				RedCompilada otra = RedCompilada.compilar(tramos);
+				assertThrows(IllegalArgumentException.class, () -> otra.usarPatronesTransbordo(patrones));
+			} finally {
+				Files.deleteIfExists(archivo);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe rechazar patrones calculados con otros tiempos aunque coincidan las paradas")
+		void testOtrosHorarios() throws IOException {
+			Path archivo = Files.createTempFile("patrones", ".bin");
+			Tramo tramo = tramos.values().stream().filter(t -> t.getTipo() != Constantes.CAMINANDO).findFirst()
+					.orElseThrow();
+			try {
+				PatronesTransbordo.calcular(red, origenes, 2).guardar(archivo);
+				tramo.setTiempo(tramo.getTiempo() + 60);
+				RedCompilada otra = RedCompilada.compilar(tramos);
+				assertThrows(IOException.class, () -> PatronesTransbordo.abrir(archivo, otra));
+			} finally {
+				tramo.setTiempo(tramo.getTiempo() - 60);
+				Files.deleteIfExists(archivo);
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Patrones de la Ciudad")
+	class CiudadTests {
+
+		@Test
+		@DisplayName("La ciudad debe preparar, guardar y actualizar los patrones de cada versión de la red")
+		void testVersiones() throws Exception {
+			Ciudad ciudad = Ciudad.getCiudad();
+			Tramo tramo = ciudad.getTramos().values().stream().filter(t -> t.getTipo() != Constantes.CAMINANDO)
+					.findFirst().orElseThrow();
+			List<Linea> modificadas = ciudad.getLineas().values().stream()
+					.filter(l -> l.getParadas().contains(tramo.getInicio()) && l.getParadas().contains(tramo.getFin()))
+					.toList();
+			int tiempo = tramo.getTiempo();
+			Path directorio = Files.createTempDirectory("indices");
+			try {
+				ciudad.configurarIndices(directorio, true);
+				PatronesTransbordo iniciales = ciudad.getRed().getPatronesTransbordo();
+				assertNotNull(iniciales);
+				assertEquals(ciudad.getRed().getCantidadParadas(), iniciales.getCantidadRecalculados());
+
+				// Con los mismos horarios se recuperan del archivo en lugar de calcularse
+				ciudad.incrementarVersion();
+				assertEquals(0, ciudad.getRed().getPatronesTransbordo().getCantidadRecalculados());
+				assertArrayEquals(bytes(iniciales), bytes(ciudad.getRed().getPatronesTransbordo()));
+
+				tramo.setTiempo(tiempo + 60);
+				ciudad.incrementarVersion(modificadas);
+				RedCompilada nueva = ciudad.getRed();
+				PatronesTransbordo actualizados = nueva.getPatronesTransbordo();
+				assertNotSame(iniciales, actualizados);
+				assertArrayEquals(bytes(PatronesTransbordo.calcular(nueva, 2)), bytes(actualizados));
+				try (var archivos = Files.list(directorio)) {
+					for (Path archivo : archivos.toList())
+						if (archivo.getFileName().toString().startsWith("patrones"))
+							assertEquals(actualizados.getCantidadPatrones(),
+									PatronesTransbordo.abrir(archivo, nueva).getCantidadPatrones());
+				}
+			} finally {
+				tramo.setTiempo(tiempo);
+				ciudad.configurarIndices(null, false);
+				ciudad.incrementarVersion();
+				try (var archivos = Files.list(directorio)) {
+					for (Path archivo : archivos.toList())
+						Files.delete(archivo);
+				}
+				Files.delete(directorio);
+			}
+			assertNull(ciudad.getRed().getPatronesTransbordo());
+		}
+	}
+}
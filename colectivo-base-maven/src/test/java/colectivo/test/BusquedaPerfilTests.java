@@ -0,0 +1,143 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.colectivos;
+import static colectivo.test.Recorridos.viaje;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaPerfil;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda de perfil sobre una franja horaria de salida.
+ */
+@DisplayName("Tests de Búsqueda de Perfil")
+class BusquedaPerfilTests {
+
+	private static final LocalTime DESDE = LocalTime.of(10, 0);
+	private static final LocalTime HASTA = LocalTime.of(11, 0);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	private List<List<Recorrido>> buscar(int origen, int destino) {
+		return new BusquedaPerfil().buscar(paradas.get(origen), paradas.get(destino), 1, DESDE, HASTA, red);
+	}
+
+	private static int salida(List<Recorrido> recorrido) {
+		return recorrido.get(0).getHoraSalida().toSecondOfDay();
+	}
+
+	/** Llegada en segundos desde la salida del primer colectivo, contando las esperas. */
+	private static int llegada(List<Recorrido> recorrido) {
+		int salida = salida(recorrido);
+		return salida + viaje(recorrido, salida);
+	}
+
+	@Nested
+	@DisplayName("Recorridos de la Franja")
+	class FranjaTests {
+
+		@Test
+		@DisplayName("Todos los recorridos deben salir dentro de la franja y en orden")
+		void testSalidasEnFranja() {
+			for (int destino : new int[] { 2, 8, 36, 54 }) {
+				List<List<Recorrido>> recorridos = buscar(1, destino);
+
+				assertFalse(recorridos.isEmpty(), "Debe haber recorridos hacia " + destino);
+				for (int i = 0; i < recorridos.size(); i++) {
+					int salida = salida(recorridos.get(i));
+					assertTrue(salida >= DESDE.toSecondOfDay() && salida <= HASTA.toSecondOfDay());
+					if (i > 0)
+						assertTrue(salida(recorridos.get(i - 1)) <= salida);
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Ningún recorrido debe estar dominado por otro")
+		void testSinDominados() {
+			for (int destino : new int[] { 2, 8, 36, 54 }) {
+				List<List<Recorrido>> recorridos = buscar(1, destino);
+				for (List<Recorrido> a : recorridos)
+					for (List<Recorrido> b : recorridos)
+						if (a != b)
+							assertFalse(salida(a) >= salida(b) && llegada(a) <= llegada(b)
+									&& colectivos(a) <= colectivos(b), "Recorrido dominado hacia " + destino);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe incluir la llegada más temprana para cada hora de la franja")
+		void testIncluyeLlegadaMasTemprana() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> perfil = buscar(88, 13);
+
+			for (LocalTime hora = DESDE; !hora.isAfter(HASTA.minusMinutes(30)); hora = hora.plusMinutes(10)) {
+				List<List<Recorrido>> csa = new BusquedaCSA().buscar(origen, destino, 1, hora, red);
+				int desde = hora.toSecondOfDay();
+				int esperada = llegada(csa.get(0));
+				boolean encontrada = perfil.stream()
+						.anyMatch(recorrido -> salida(recorrido) >= desde && llegada(recorrido) <= esperada);
+				assertTrue(encontrada, "Llegada más temprana saliendo a las " + hora);
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Casos Límite")
+	class CasosLimiteTests {
+
+		@Test
+		@DisplayName("Sin recorrido posible o con origen igual a destino no debe devolver soluciones")
+		void testSinSolucion() {
+			assertTrue(buscar(66, 67).isEmpty());
+			assertTrue(buscar(44, 44).isEmpty());
+		}
+
+		@Test
+		@DisplayName("Debe rechazar una franja invertida y parámetros inválidos")
+		void testParametrosInvalidos() {
+			BusquedaPerfil perfil = new BusquedaPerfil();
+			Parada origen = paradas.get(1);
+			Parada destino = paradas.get(2);
+
+			assertThrows(IllegalArgumentException.class, () -> perfil.buscar(origen, destino, 1, HASTA, DESDE, red));
+			assertThrows(IllegalArgumentException.class, () -> perfil.buscar(origen, destino, 8, DESDE, HASTA, red));
+			assertThrows(IllegalArgumentException.class, () -> perfil.buscar(null, destino, 1, DESDE, HASTA, red));
+			assertThrows(IllegalArgumentException.class, () -> new BusquedaPerfil(0));
+		}
+	}
+}
@@ -0,0 +1,185 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCaminando;
+import colectivo.logica.BusquedaConTransbordo;
+import colectivo.logica.BusquedaDirecta;
+import colectivo.logica.BusquedaPlanificada;
+import colectivo.logica.BusquedaPlanificada.Estadistica;
+import colectivo.logica.BusquedaPlanificada.Paso;
+import colectivo.logica.EstrategiaBusqueda;
+import colectivo.logica.Motores;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests del planificador de búsquedas.
+ */
+@DisplayName("Tests de Búsqueda Planificada")
+class BusquedaPlanificadaTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private static final int[][] PARES = { { 44, 47 }, { 88, 13 }, { 31, 66 }, { 1, 2 }, { 66, 67 }, { 1, 5 },
+			{ 13, 88 } };
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	private static String describir(List<Recorrido> recorrido) {
+		StringBuilder sb = new StringBuilder();
+		for (Recorrido tramo : recorrido)
+			sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+					.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(';');
+		return sb.toString();
+	}
+
+	private static Estadistica estadistica(BusquedaPlanificada planificada, Paso paso) {
+		return planificada.getEstadisticas().get(paso.ordinal());
+	}
+
+	@Nested
+	@DisplayName("Resultados")
+	class ResultadosTests {
+
+		@Test
+		@DisplayName("Debe devolver lo mismo que ejecutar las estrategias en orden")
+		void testIgualQueSecuencial() {
+			List<EstrategiaBusqueda> orden = List.of(new BusquedaDirecta(), new BusquedaConTransbordo(),
+					new BusquedaCaminando());
+			BusquedaPlanificada planificada = new BusquedaPlanificada();
+
+			for (int[] par : PARES) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				List<List<Recorrido>> esperado = List.of();
+				for (EstrategiaBusqueda estrategia : orden) {
+					esperado = estrategia.buscar(origen, destino, 1, HORA, red);
+					if (!esperado.isEmpty())
+						break;
+				}
+
+				List<List<Recorrido>> obtenido = planificada.buscar(origen, destino, 1, HORA, red);
+				assertEquals(esperado.stream().map(BusquedaPlanificadaTests::describir).toList(),
+						obtenido.stream().map(BusquedaPlanificadaTests::describir).toList(),
+						"De " + par[0] + " a " + par[1]);
+			}
+		}
+
+		@Test
+		@DisplayName("Una búsqueda con costo estimado cero no debe tener soluciones")
+		void testCostoCeroSinSoluciones() {
+			for (int[] par : PARES) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				for (Paso paso : Paso.values()) {
+					EstrategiaBusqueda estrategia = switch (paso) {
+					case DIRECTA -> new BusquedaDirecta();
+					case TRANSBORDO -> new BusquedaConTransbordo();
+					case CAMINANDO -> new BusquedaCaminando();
+					};
+					if (BusquedaPlanificada.estimarCosto(paso, origen, destino, red) == 0)
+						assertTrue(estrategia.buscar(origen, destino, 1, HORA, red).isEmpty(),
+								paso + " de " + par[0] + " a " + par[1]);
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Debe poder elegirse como motor desde factory.properties")
+		void testMotor() {
+			assertInstanceOf(BusquedaPlanificada.class, Motores.obtener("PLANIFICADA"));
+		}
+
+		@Test
+		@DisplayName("Debe rechazar parámetros null")
+		void testNull() {
+			BusquedaPlanificada planificada = new BusquedaPlanificada();
+			assertThrows(IllegalArgumentException.class,
+					() -> planificada.buscar(null, paradas.get(1), 1, HORA, red));
+			assertThrows(IllegalArgumentException.class,
+					() -> BusquedaPlanificada.estimarCosto(null, paradas.get(1), paradas.get(2), red));
+		}
+	}
+
+	@Nested
+	@DisplayName("Plan y Estadísticas")
+	class EstadisticasTests {
+
+		@Test
+		@DisplayName("Con una línea en común debe ejecutar solo la búsqueda directa")
+		void testSoloDirecta() {
+			Parada origen = paradas.get(44);
+			Parada destino = paradas.get(47);
+			assertTrue(BusquedaPlanificada.estimarCosto(Paso.DIRECTA, origen, destino, red) > 0);
+
+			BusquedaPlanificada planificada = new BusquedaPlanificada();
+			assertFalse(planificada.buscar(origen, destino, 1, HORA, red).isEmpty());
+
+			Estadistica directa = estadistica(planificada, Paso.DIRECTA);
+			assertEquals(1, directa.ejecuciones());
+			assertEquals(1, directa.conSoluciones());
+			assertTrue(directa.costoEstimado() > 0);
+			assertEquals(0, estadistica(planificada, Paso.TRANSBORDO).ejecuciones());
+			assertEquals(0, estadistica(planificada, Paso.CAMINANDO).ejecuciones());
+		}
+
+		@Test
+		@DisplayName("Debe omitir las búsquedas que no pueden tener solución")
+		void testOmite() {
+			BusquedaPlanificada planificada = new BusquedaPlanificada();
+			for (int[] par : PARES) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				planificada.buscar(origen, destino, 1, HORA, red);
+			}
+
+			long consultas = PARES.length;
+			long omitidas = 0;
+			for (Estadistica estadistica : planificada.getEstadisticas()) {
+				assertTrue(estadistica.conSoluciones() <= estadistica.ejecuciones());
+				assertTrue(estadistica.ejecuciones() + estadistica.omitidas() <= consultas);
+				assertTrue(estadistica.nanosMaximo() <= estadistica.nanos());
+				omitidas += estadistica.omitidas();
+			}
+			assertTrue(omitidas > 0, "Algún par debe omitir búsquedas");
+
+			planificada.reiniciarEstadisticas();
+			for (Estadistica estadistica : planificada.getEstadisticas())
+				assertEquals(0, estadistica.ejecuciones() + estadistica.omitidas());
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.colectivos;
+import static colectivo.test.Recorridos.viaje;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaDirecta;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Calculo;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.CalculosAuxiliares;
+
+/**
+ * Tests de la búsqueda por rondas (RAPTOR).
+ * Verifica recorridos con más de un transbordo y el límite de rondas.
+ */
+@DisplayName("Tests de Búsqueda por Rondas")
+class BusquedaRaptorTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+	}
+
+	private List<List<Recorrido>> buscar(BusquedaRaptor busqueda, int origen, int destino, LocalTime hora) {
+		return busqueda.buscar(paradas.get(origen), paradas.get(destino), 1, hora,
+				CalculosAuxiliares.conexionesParadas(tramos), tramos);
+	}
+
+	@Nested
+	@DisplayName("Recorridos con Varios Transbordos")
+	class MultiTransbordoTests {
+
+		@Test
+		@DisplayName("Debe encontrar el recorrido de tres colectivos y el de cuatro que llega antes")
+		void testTresColectivos() {
+			List<List<Recorrido>> recorridos = buscar(new BusquedaRaptor(), 66, 31, HORA);
+
+			assertEquals(2, recorridos.size(), "Debe devolver un recorrido por ronda que mejora la llegada");
+			assertEquals(4, recorridos.get(0).size(), "El que llega antes debe usar cuatro colectivos");
+			assertEquals(3, recorridos.get(1).size(), "El último debe usar tres colectivos");
+			assertTrue(viaje(recorridos.get(0), HORA) < viaje(recorridos.get(1), HORA));
+			for (List<Recorrido> recorrido : recorridos)
+				for (Recorrido tramo : recorrido)
+					assertNotNull(tramo.getLinea(), "Todos los tramos deben ser en colectivo");
+		}
+
+		@Test
+		@DisplayName("Cada tramo debe partir de donde terminó el anterior y después de su llegada")
+		void testEncadenamientoTramos() {
+			LocalTime hora = LocalTime.of(10, 35);
+			List<List<Recorrido>> recorridos = buscar(new BusquedaRaptor(), 1, 3, hora);
+
+			assertFalse(recorridos.isEmpty(), "Debe encontrar recorridos");
+			for (List<Recorrido> recorrido : recorridos) {
+				assertFalse(recorrido.get(0).getHoraSalida().isBefore(hora),
+						"El primer tramo no puede salir antes de la llegada del usuario");
+				assertEquals(paradas.get(1), recorrido.get(0).getParadas().get(0));
+				List<Parada> ultimas = recorrido.get(recorrido.size() - 1).getParadas();
+				assertEquals(paradas.get(3), ultimas.get(ultimas.size() - 1));
+
+				for (int i = 1; i < recorrido.size(); i++) {
+					Recorrido anterior = recorrido.get(i - 1);
+					Recorrido actual = recorrido.get(i);
+					assertEquals(anterior.getParadas().get(anterior.getParadas().size() - 1),
+							actual.getParadas().get(0), "Los tramos deben estar conectados");
+					LocalTime llegada = anterior.getHoraSalida().plusSeconds(anterior.getDuracion());
+					assertFalse(actual.getHoraSalida().isBefore(llegada),
+							"Un tramo no puede salir antes de la llegada del anterior");
+				}
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Conjunto de Pareto")
+	class ParetoTests {
+
+		@Test
+		@DisplayName("El primer recorrido debe llegar tan temprano como el escaneo de conexiones")
+		void testLlegadaMasTemprana() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+			BusquedaRaptor raptor = new BusquedaRaptor();
+			BusquedaCSA csa = new BusquedaCSA();
+			int comparados = 0;
+			for (LocalTime hora : List.of(LocalTime.of(0, 40), HORA, LocalTime.of(23, 10))) {
+				for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+					for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+						Parada origen = red.getParada(o);
+						Parada destino = red.getParada(d);
+						List<List<Recorrido>> esperado = csa.buscar(origen, destino, 1, hora, red);
+						List<List<Recorrido>> obtenido = raptor.buscar(origen, destino, 1, hora, red);
+						String consulta = "De " + origen + " a " + destino + " a las " + hora;
+						assertEquals(esperado.isEmpty(), obtenido.isEmpty(), consulta);
+						if (!esperado.isEmpty()) {
+							assertEquals(viaje(esperado.get(0), hora), viaje(obtenido.get(0), hora), consulta);
+							comparados++;
+						}
+					}
+				}
+			}
+			assertTrue(comparados > 0);
+		}
+
+		@Test
+		@DisplayName("Cada recorrido debe usar menos colectivos y llegar después que el anterior")
+		void testNoDominados() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+			BusquedaRaptor raptor = new BusquedaRaptor();
+			for (int o = 0; o < red.getCantidadParadas(); o += 2) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 3) {
+					List<List<Recorrido>> recorridos = raptor.buscar(red.getParada(o), red.getParada(d), 1, HORA,
+							red);
+					for (int i = 1; i < recorridos.size(); i++) {
+						assertTrue(colectivos(recorridos.get(i)) < colectivos(recorridos.get(i - 1)));
+						assertTrue(viaje(recorridos.get(i), HORA) > viaje(recorridos.get(i - 1), HORA));
+					}
+				}
+			}
+		}
+	}
+
+	@Nested
+	@DisplayName("Límite de Rondas")
+	class LimiteRondasTests {
+
+		@Test
+		@DisplayName("Con dos rondas no debe encontrar recorridos de tres colectivos")
+		void testLimiteDosRondas() {
+			List<List<Recorrido>> recorridos = buscar(new BusquedaRaptor(2), 66, 31, LocalTime.of(10, 35));
+
+			assertTrue(recorridos.isEmpty(), "No existe recorrido con hasta un transbordo");
+		}
+
+		@Test
+		@DisplayName("Una ronda solo debe devolver el directo que llega antes")
+		void testUnaRonda() {
+			List<List<Recorrido>> recorridos = buscar(new BusquedaRaptor(1), 44, 47, HORA);
+
+			assertEquals(1, recorridos.size(), "L1I llega después que L5R");
+			assertEquals(1, recorridos.get(0).size(), "El recorrido debe ser directo");
+			assertEquals("L5R", recorridos.get(0).get(0).getLinea().getCodigo());
+			assertEquals(LocalTime.of(10, 47, 30), recorridos.get(0).get(0).getHoraSalida());
+		}
+
+		@Test
+		@DisplayName("Debe rechazar una cantidad de rondas menor a uno")
+		void testRondasInvalidas() {
+			assertThrows(IllegalArgumentException.class, () -> new BusquedaRaptor(0));
+		}
+	}
+
+	@Nested
+	@DisplayName("Red Compilada")
+	class RedCompiladaTests {
+
+		@Test
+		@DisplayName("Compilar la red no debe modificar las líneas")
+		void testRedNoModificaLineas() {
+			Linea linea = lineas.values().iterator().next();
+			boolean antes = linea.tieneTiemposAcumulados();
+			RedCompilada red = RedCompilada.obtener(tramos);
+			assertEquals(antes, linea.tieneTiemposAcumulados());
+			assertArrayEquals(linea.acumularTiempos(red.getConexionesParadas()),
+					red.getTiemposAcumulados(red.indice(linea)));
+		}
+
+		@Test
+		@DisplayName("La consulta sobre la red compilada debe coincidir con la consulta por tramos")
+		void testConsultaSobreRed() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+			LocalTime hora = LocalTime.of(10, 35);
+
+			List<List<Recorrido>> porRed = Calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 1, hora, red);
+			List<List<Recorrido>> porTramos = Calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 1, hora,
+					tramos);
+
+			assertEquals(porTramos.size(), porRed.size());
+			for (int i = 0; i < porRed.size(); i++) {
+				assertEquals(porTramos.get(i).size(), porRed.get(i).size());
+				for (int j = 0; j < porRed.get(i).size(); j++) {
+					assertEquals(porTramos.get(i).get(j).getLinea(), porRed.get(i).get(j).getLinea());
+					assertEquals(porTramos.get(i).get(j).getHoraSalida(), porRed.get(i).get(j).getHoraSalida());
+					assertEquals(porTramos.get(i).get(j).getDuracion(), porRed.get(i).get(j).getDuracion());
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Las estrategias por tramos deben poder usar la red compilada")
+		void testEstrategiaPorTramosSobreRed() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+
+			List<List<Recorrido>> recorridos = new BusquedaDirecta().buscar(paradas.get(44), paradas.get(47), 1,
+					LocalTime.of(10, 35), red);
+
+			assertEquals(2, recorridos.size(), "Debe encontrar las dos líneas directas");
+		}
+
+		@Test
+		@DisplayName("Las conexiones de la red compilada no deben poder modificarse")
+		void testConexionesNoModificables() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+
+			assertFalse(red.getConexionesParadas().isEmpty());
+			assertThrows(UnsupportedOperationException.class, () -> red.getConexionesParadas().clear());
+			assertThrows(UnsupportedOperationException.class,
+					() -> red.getConexionesParadas().get(paradas.get(44)).clear());
+		}
+
+		@Test
+		@DisplayName("Origen igual a destino no debe devolver recorridos")
+		void testOrigenIgualDestino() {
+			assertTrue(buscar(new BusquedaRaptor(), 44, 44, LocalTime.of(10, 35)).isEmpty());
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static colectivo.test.Recorridos.colectivos;
+import static colectivo.test.Recorridos.viaje;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaViajes;
+import colectivo.logica.Ciudad;
+import colectivo.logica.IndiceViajes;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda basada en viajes y de su índice de transbordos.
+ */
+@DisplayName("Tests de Búsqueda por Viajes")
+class BusquedaViajesTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	@Nested
+	@DisplayName("Llegada Más Temprana")
+	class LlegadaTests {
+
+		@Test
+		@DisplayName("El último recorrido debe llegar a la misma hora que el escaneo de conexiones")
+		void testIgualQueCSA() {
+			BusquedaViajes viajes = new BusquedaViajes();
+			BusquedaCSA csa = new BusquedaCSA();
+			int comparados = 0;
+			for (int dia = 1; dia <= 7; dia += 3) {
+				for (LocalTime hora : List.of(LocalTime.of(0, 17), HORA, LocalTime.of(22, 50))) {
+					for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+						for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+							Parada origen = red.getParada(o);
+							Parada destino = red.getParada(d);
+							String consulta = "De " + origen + " a " + destino + " el día " + dia + " a las " + hora;
+							List<List<Recorrido>> esperado = csa.buscar(origen, destino, dia, hora, red);
+							List<List<Recorrido>> obtenido = viajes.buscar(origen, destino, dia, hora, red);
+							assertEquals(esperado.isEmpty(), obtenido.isEmpty(), consulta);
+							if (!esperado.isEmpty()) {
+								assertEquals(viaje(esperado.get(0), hora), viaje(obtenido.getLast(), hora), consulta);
+								comparados++;
+							}
+						}
+					}
+				}
+			}
+			assertTrue(comparados > 0);
+		}
+
+		@Test
+		@DisplayName("Cada recorrido debe usar más colectivos y llegar antes que el anterior")
+		void testFrentePareto() {
+			BusquedaViajes viajes = new BusquedaViajes();
+			for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+					List<List<Recorrido>> soluciones = viajes.buscar(red.getParada(o), red.getParada(d), 1, HORA, red);
+					for (int i = 1; i < soluciones.size(); i++) {
+						assertTrue(colectivos(soluciones.get(i)) > colectivos(soluciones.get(i - 1)));
+						assertTrue(viaje(soluciones.get(i), HORA) < viaje(soluciones.get(i - 1), HORA));
+					}
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("El recorrido debe ir del origen al destino sin caminar en los extremos")
+		void testRecorridoConsistente() {
+			Parada origen = paradas.get(88);
+			Parada destino = paradas.get(13);
+			List<List<Recorrido>> soluciones = new BusquedaViajes().buscar(origen, destino, 1, HORA, red);
+
+			assertFalse(soluciones.isEmpty());
+			for (List<Recorrido> recorrido : soluciones) {
+				assertEquals(origen, recorrido.get(0).getParadas().get(0));
+				assertEquals(destino, recorrido.getLast().getParadas().getLast());
+				assertFalse(recorrido.get(0).getLinea() == null, "No debe caminar desde el origen");
+				assertFalse(recorrido.getLast().getLinea() == null, "No debe caminar hasta el destino");
+				for (int i = 1; i < recorrido.size(); i++)
+					assertEquals(recorrido.get(i - 1).getParadas().getLast(), recorrido.get(i).getParadas().get(0));
+			}
+		}
+
+		@Test
+		@DisplayName("Debe responder vacío para la misma parada o una inalcanzable")
+		void testSinSolucion() {
+			BusquedaViajes viajes = new BusquedaViajes();
+			assertTrue(viajes.buscar(paradas.get(1), paradas.get(1), 1, HORA, red).isEmpty());
+			assertTrue(viajes.buscar(paradas.get(66), paradas.get(67), 1, HORA, red).isEmpty());
+		}
+	}
+
+	@Nested
+	@DisplayName("Índice de Viajes")
+	class IndiceTests {
+
+		@Test
+		@DisplayName("El cálculo en paralelo debe dar el mismo índice que con un hilo")
+		void testParaleloIgualSecuencial() throws IOException {
+			Path uno = Files.createTempFile("viajes", ".bin");
+			Path varios = Files.createTempFile("viajes", ".bin");
+			try {
+				IndiceViajes.calcular(red, 1).guardar(uno);
+				IndiceViajes.calcular(red, 4).guardar(varios);
+				assertArrayEquals(Files.readAllBytes(uno), Files.readAllBytes(varios));
+			} finally {
+				Files.deleteIfExists(uno);
+				Files.deleteIfExists(varios);
+			}
+		}
+
+		@Test
+		@DisplayName("Un índice recuperado de archivo debe dar los mismos recorridos")
+		void testGuardarYAbrir() throws IOException {
+			Path archivo = Files.createTempFile("viajes", ".bin");
+			try {
+				IndiceViajes calculado = red.getIndiceViajes();
+				calculado.guardar(archivo);
+				IndiceViajes abierto = IndiceViajes.abrir(archivo, red);
+				assertEquals(calculado.getCantidadViajes(), abierto.getCantidadViajes());
+				assertEquals(calculado.getCantidadTransbordos(), abierto.getCantidadTransbordos());
+
+				BusquedaViajes viajes = new BusquedaViajes();
+				Parada origen = paradas.get(88);
+				Parada destino = paradas.get(13);
+				int esperado = viaje(viajes.buscar(origen, destino, 1, HORA, red).getLast(), HORA);
+				red.usarIndiceViajes(abierto);
+				assertSame(abierto, red.getIndiceViajes());
+				assertEquals(esperado, viaje(viajes.buscar(origen, destino, 1, HORA, red).getLast(), HORA));
+			} finally {
+				Files.deleteIfExists(archivo);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe rechazar un archivo que no es un índice o un índice de otra red")
+		void testArchivoInvalido() throws IOException {
+			Path archivo = Files.createTempFile("viajes", ".bin");
+			try {
+				Files.write(archivo, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+				assertThrows(IOException.class, () -> IndiceViajes.abrir(archivo, red));
+
+				IndiceViajes indice = red.getIndiceViajes();
+				RedCompilada otra = RedCompilada.compilar(tramos);
+				assertThrows(IllegalArgumentException.class, () -> otra.usarIndiceViajes(indice));
+			} finally {
+				Files.deleteIfExists(archivo);
+			}
+		}
+
+		@Test
+		@DisplayName("Debe rechazar un índice calculado con otros tiempos aunque coincidan las cantidades")
+		void testOtrosHorarios() throws IOException {
+			Path archivo = Files.createTempFile("viajes", ".bin");
+			Tramo tramo = tramos.values().stream().filter(t -> t.getTipo() != Constantes.CAMINANDO).findFirst()
+					.orElseThrow();
+			try {
+				red.getIndiceViajes().guardar(archivo);
+				tramo.setTiempo(tramo.getTiempo() + 60);
+				RedCompilada otra = RedCompilada.compilar(tramos);
+				assertEquals(red.getCantidadParadas(), otra.getCantidadParadas());
+				assertTrue(red.getHuella() != otra.getHuella());
+				assertThrows(IOException.class, () -> IndiceViajes.abrir(archivo, otra));
+			} finally {
+				tramo.setTiempo(tramo.getTiempo() - 60);
+				Files.deleteIfExists(archivo);
+			}
+		}
+
+		@Test
+		@DisplayName("Un viaje de otro día no debe estar disponible ni tener desplazamiento")
+		void testDisponible() {
+			IndiceViajes indice = red.getIndiceViajes();
+			int viaje = 0;
+			int dia = indice.getDia(viaje);
+			assertTrue(indice.disponible(viaje, dia));
+			assertEquals(0, indice.desplazamiento(viaje, dia));
+			int anterior = (dia + 5) % 7 + 1;
+			assertTrue(indice.disponible(viaje, anterior));
+			assertEquals(Constantes.SEGUNDOS_DIA, indice.desplazamiento(viaje, anterior));
+			int otro = dia % 7 + 1;
+			assertFalse(indice.disponible(viaje, otro));
+			assertThrows(IllegalArgumentException.class, () -> indice.desplazamiento(viaje, otro));
+		}
+
+		@Test
+		@DisplayName("La ciudad debe guardar el índice en su directorio y reemplazar uno inválido")
+		void testDirectorioCiudad() throws Exception {
+			Ciudad ciudad = Ciudad.getCiudad();
+			Path directorio = Files.createTempDirectory("indices");
+			try {
+				ciudad.configurarIndices(directorio, false);
+				Path archivo;
+				try (var archivos = Files.list(directorio)) {
+					archivo = archivos.findFirst().orElseThrow();
+				}
+				IndiceViajes guardado = IndiceViajes.abrir(archivo, ciudad.getRed());
+				assertEquals(ciudad.getRed().getIndiceViajes().getCantidadTransbordos(),
+						guardado.getCantidadTransbordos());
+
+				Files.write(archivo, new byte[] { 1, 2, 3, 4 });
+				ciudad.incrementarVersion();
+				assertEquals(guardado.getCantidadTransbordos(),
+						IndiceViajes.abrir(archivo, ciudad.getRed()).getCantidadTransbordos());
+			} finally {
+				ciudad.configurarIndices(null, false);
+				try (var archivos = Files.list(directorio)) {
+					for (Path archivo : archivos.toList())
+						Files.delete(archivo);
+				}
+				Files.delete(directorio);
+			}
+		}
+	}
+}
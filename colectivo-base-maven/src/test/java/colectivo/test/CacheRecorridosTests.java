@@ -0,0 +1,200 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.logica.CacheRecorridos;
+import colectivo.logica.Calculo;
+import colectivo.logica.Ciudad;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la caché de resultados de búsqueda.
+ */
+@DisplayName("Tests de Caché de Recorridos")
+class CacheRecorridosTests {
+
+	private Ciudad ciudad;
+	private Map<Integer, Parada> paradas;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		ciudad = Ciudad.getCiudad();
+		paradas = ciudad.getParadas();
+	}
+
+	private List<List<Recorrido>> buscar(CacheRecorridos cache, int origen, int destino, LocalTime hora) {
+		return cache.buscar(paradas.get(origen), paradas.get(destino), 1, hora, ciudad);
+	}
+
+	/** Representación comparable de los recorridos: línea, paradas y horario de cada tramo. */
+	private static String describir(List<List<Recorrido>> recorridos) {
+		StringBuilder sb = new StringBuilder();
+		for (List<Recorrido> recorrido : recorridos) {
+			for (Recorrido tramo : recorrido)
+				sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+						.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(' ')
+						.append(tramo.getDuracion()).append(';');
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Nested
+	@DisplayName("Aciertos y Fallos")
+	class AciertosTests {
+
+		@Test
+		@DisplayName("Una consulta repetida debe resolverse con la caché y devolver lo mismo")
+		void testConsultaRepetida() {
+			CacheRecorridos cache = new CacheRecorridos(16, 60);
+			LocalTime hora = LocalTime.of(10, 35);
+
+			List<List<Recorrido>> primera = buscar(cache, 88, 13, hora);
+			List<List<Recorrido>> segunda = buscar(cache, 88, 13, hora);
+
+			assertFalse(primera.isEmpty());
+			assertEquals(describir(primera), describir(segunda));
+			assertEquals(1, cache.getFallos());
+			assertEquals(1, cache.getAciertos());
+		}
+
+		@Test
+		@DisplayName("Dentro de una franja debe devolver lo mismo que el cálculo a la hora exacta")
+		void testFranjaEquivalente() {
+			CacheRecorridos cache = new CacheRecorridos(64, 1800);
+			int[][] pares = { { 1, 2 }, { 88, 13 }, { 44, 47 }, { 1, 54 } };
+
+			for (LocalTime hora = LocalTime.of(7, 0); hora.isBefore(LocalTime.of(9, 0)); hora = hora.plusMinutes(7)) {
+				for (int[] par : pares) {
+					List<List<Recorrido>> esperado = Calculo.calcularRecorrido(paradas.get(par[0]),
+							paradas.get(par[1]), 1, hora, ciudad.getRed());
+					assertEquals(describir(esperado), describir(buscar(cache, par[0], par[1], hora)),
+							"De " + par[0] + " a " + par[1] + " a las " + hora);
+				}
+			}
+			assertTrue(cache.getAciertos() > 0, "Debe reutilizar resultados dentro de la franja");
+		}
+
+		@Test
+		@DisplayName("Un resultado guardado que ya no sirve para la hora debe contarse como fallo")
+		void testResultadoVencidoEsFallo() {
+			CacheRecorridos cache = new CacheRecorridos(16, Constantes.SEGUNDOS_DIA);
+			LocalTime hora = LocalTime.of(10, 35);
+			List<List<Recorrido>> primera = buscar(cache, 88, 13, hora);
+			LocalTime tarde = primera.get(0).get(0).getHoraSalida().plusMinutes(1);
+
+			List<List<Recorrido>> esperado = Calculo.calcularRecorrido(paradas.get(88), paradas.get(13), 1, tarde,
+					ciudad.getRed());
+			assertEquals(describir(esperado), describir(buscar(cache, 88, 13, tarde)));
+			assertEquals(0, cache.getAciertos());
+			assertEquals(2, cache.getFallos());
+
+			// El resultado de la hora anterior sigue guardado
+			assertEquals(describir(primera), describir(buscar(cache, 88, 13, hora)));
+			assertEquals(1, cache.getAciertos());
+			assertEquals(1, cache.getTamanio());
+		}
+
+		@Test
+		@DisplayName("Modificar el resultado devuelto no debe alterar la caché")
+		void testResultadoIndependiente() {
+			CacheRecorridos cache = new CacheRecorridos(16, 60);
+			LocalTime hora = LocalTime.of(10, 35);
+
+			buscar(cache, 88, 13, hora).clear();
+
+			assertFalse(buscar(cache, 88, 13, hora).isEmpty());
+		}
+	}
+
+	@Nested
+	@DisplayName("Desalojo e Invalidación")
+	class InvalidacionTests {
+
+		@Test
+		@DisplayName("Debe descartar la consulta usada hace más tiempo al superar la capacidad")
+		void testDesalojoLRU() {
+			CacheRecorridos cache = new CacheRecorridos(2, 60);
+			LocalTime hora = LocalTime.of(10, 35);
+
+			buscar(cache, 1, 2, hora);
+			buscar(cache, 88, 13, hora);
+			buscar(cache, 1, 2, hora); // acierto: 88-13 pasa a ser la menos usada
+			buscar(cache, 44, 47, hora);
+
+			assertEquals(2, cache.getTamanio());
+			buscar(cache, 1, 2, hora);
+			assertEquals(2, cache.getAciertos());
+			buscar(cache, 88, 13, hora);
+			assertEquals(4, cache.getFallos());
+		}
+
+		@Test
+		@DisplayName("Debe vaciarse cuando cambia la versión de la ciudad")
+		void testInvalidacionPorVersion() {
+			CacheRecorridos cache = new CacheRecorridos(16, 60);
+			LocalTime hora = LocalTime.of(10, 35);
+
+			buscar(cache, 88, 13, hora);
+			ciudad.incrementarVersion();
+			buscar(cache, 88, 13, hora);
+
+			assertEquals(0, cache.getAciertos());
+			assertEquals(2, cache.getFallos());
+			assertEquals(1, cache.getTamanio());
+		}
+
+		@Test
+		@DisplayName("Al cambiar la versión la ciudad debe compilar la red con los datos modificados")
+		void testRedRecompilada() {
+			Tramo tramo = ciudad.getTramos().values().stream()
+					.filter(t -> t.getTipo() != Constantes.CAMINANDO).findFirst().orElseThrow();
+			Linea linea = tramo.getInicio().getLineas().stream()
+					.filter(l -> l.getPosicion(tramo.getFin()) == l.getPosicion(tramo.getInicio()) + 1)
+					.findFirst().orElseThrow();
+			RedCompilada anterior = ciudad.getRed();
+			int l = anterior.indice(linea);
+			int posicion = linea.getPosicion(tramo.getFin());
+			int tiempo = tramo.getTiempo();
+			try {
+				tramo.setTiempo(tiempo + 60);
+				ciudad.incrementarVersion();
+
+				RedCompilada red = ciudad.getRed();
+				assertNotSame(anterior, red);
+				assertEquals(anterior.getTiemposAcumulados(l)[posicion] + 60, red.getTiemposAcumulados(l)[posicion]);
+				assertEquals(red.getTiemposAcumulados(l)[posicion], linea.getTiempoEntre(0, posicion));
+			} finally {
+				tramo.setTiempo(tiempo);
+				ciudad.incrementarVersion();
+			}
+			assertEquals(anterior.getTiemposAcumulados(l)[posicion], ciudad.getRed().getTiemposAcumulados(l)[posicion]);
+		}
+
+		@Test
+		@DisplayName("Debe rechazar capacidad o franja inválidas")
+		void testParametrosInvalidos() {
+			assertThrows(IllegalArgumentException.class, () -> new CacheRecorridos(0, 60));
+			assertThrows(IllegalArgumentException.class, () -> new CacheRecorridos(16, 0));
+			assertThrows(IllegalArgumentException.class, () -> new CacheRecorridos(16, 86401));
+		}
+	}
+}
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 
 import colectivo.datos.CargarDatos;
 import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaDirecta;
 import colectivo.logica.Calculo;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
@@ -55,9 +56,9 @@ class CalculoBasicTests {
 			int diaSemana = 1; // Lunes
 			LocalTime horaLlegada = LocalTime.of(10, 35);
 
-			// When: Calculamos el recorrido
+			// When: Calculamos el recorrido con la búsqueda directa, que devuelve todas las líneas
 			List<List<colectivo.logica.Recorrido>> recorridos =
-				Calculo.calcularRecorrido(origen, destino, diaSemana, horaLlegada, tramos);
+				Calculo.calcularRecorrido(origen, destino, diaSemana, horaLlegada, tramos, new BusquedaDirecta());
 
 			// Then: Debe encontrar al menos una ruta
 			assertFalse(recorridos.isEmpty(), "Debe encontrar al menos una ruta directa");
@@ -130,8 +131,8 @@ class CalculoBasicTests {
 		@DisplayName("Debe retornar lista vacía cuando no hay rutas posibles")
 		void testCalculaRecorridoSinRutasPosibles() {
 			// Given: Paradas sin conexión posible
-			Parada origen = paradas.get(66); // Parada aislada
-			Parada destino = paradas.get(31); // Destino no accesible
+			Parada origen = paradas.get(66);
+			Parada destino = paradas.get(67); // Cabecera de L5R: ningún colectivo llega a ella
 			int diaSemana = 1;
 			LocalTime horaLlegada = LocalTime.of(10, 35);
 
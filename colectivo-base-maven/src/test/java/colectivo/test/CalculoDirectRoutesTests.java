@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 
 import colectivo.datos.CargarDatos;
 import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaDirecta;
 import colectivo.logica.Calculo;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
@@ -54,9 +55,9 @@ class CalculoDirectRoutesTests {
 			int diaSemana = 1;
 			LocalTime horaLlegada = LocalTime.of(10, 35);
 
-			// When
+			// When: L1I llega después que L5R, solo la búsqueda directa devuelve ambas
 			List<List<colectivo.logica.Recorrido>> recorridos =
-				Calculo.calcularRecorrido(origen, destino, diaSemana, horaLlegada, tramos);
+				Calculo.calcularRecorrido(origen, destino, diaSemana, horaLlegada, tramos, new BusquedaDirecta());
 
 			// Then: Debe encontrar L1I como opción
 			assertFalse(recorridos.isEmpty());
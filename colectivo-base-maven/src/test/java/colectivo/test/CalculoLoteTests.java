@@ -0,0 +1,143 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Calculo;
+import colectivo.logica.CalculoLote;
+import colectivo.logica.CalculoLote.Consulta;
+import colectivo.logica.Motores;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests del cálculo de recorridos en lote.
+ */
+@DisplayName("Tests de Cálculo en Lote")
+class CalculoLoteTests {
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	/** Todas las combinaciones de un grupo de paradas a varias horas del día. */
+	private List<Consulta> consultas() {
+		int[] codigos = { 1, 2, 8, 13, 31, 44, 47, 54, 66, 67, 88 };
+		List<Consulta> consultas = new ArrayList<>();
+		for (int hora = 6; hora < 23; hora += 4)
+			for (int origen : codigos)
+				for (int destino : codigos)
+					consultas.add(new Consulta(paradas.get(origen), paradas.get(destino), 1 + hora % 7,
+							LocalTime.of(hora, 35)));
+		return consultas;
+	}
+
+	private static String describir(List<List<Recorrido>> recorridos) {
+		StringBuilder sb = new StringBuilder();
+		for (List<Recorrido> recorrido : recorridos) {
+			for (Recorrido tramo : recorrido)
+				sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+						.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(';');
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Nested
+	@DisplayName("Resultados del Lote")
+	class ResultadosTests {
+
+		@Test
+		@DisplayName("Debe devolver lo mismo que consultar de a una y en el orden de las consultas")
+		void testIgualQueIndividual() {
+			List<Consulta> consultas = consultas();
+			CalculoLote.Resultado resultado = new CalculoLote(red, new BusquedaRaptor(), 4)
+					.calcular(consultas.stream());
+
+			assertEquals(consultas.size(), resultado.getCantidad());
+			for (int i = 0; i < consultas.size(); i++) {
+				Consulta consulta = consultas.get(i);
+				List<List<Recorrido>> esperado = Calculo.calcularRecorrido(consulta.origen(), consulta.destino(),
+						consulta.diaSemana(), consulta.hora(), red);
+				assertEquals(describir(esperado), describir(resultado.recorridos().get(i)), "Consulta " + i);
+			}
+		}
+
+		@Test
+		@DisplayName("Sin estrategia debe usar el motor por defecto")
+		void testMotorPorDefecto() {
+			List<Consulta> consultas = consultas();
+			CalculoLote.Resultado porDefecto = new CalculoLote(red).calcular(consultas.stream());
+			CalculoLote.Resultado conMotor = new CalculoLote(red, Motores.predeterminado(), 2)
+					.calcular(consultas.stream());
+
+			for (int i = 0; i < consultas.size(); i++)
+				assertEquals(describir(conMotor.recorridos().get(i)), describir(porDefecto.recorridos().get(i)),
+						"Consulta " + i);
+		}
+
+		@Test
+		@DisplayName("Debe informar el rendimiento del lote")
+		void testRendimiento() {
+			CalculoLote.Resultado resultado = new CalculoLote(red).calcular(consultas().stream());
+
+			assertTrue(resultado.getConsultasPorSegundo() > 0);
+			assertTrue(resultado.duracion().toNanos() > 0);
+		}
+
+		@Test
+		@DisplayName("Un lote vacío no debe devolver resultados")
+		void testLoteVacio() {
+			CalculoLote.Resultado resultado = new CalculoLote(red).calcular(Stream.empty());
+
+			assertEquals(0, resultado.getCantidad());
+		}
+	}
+
+	@Nested
+	@DisplayName("Validaciones")
+	class ValidacionesTests {
+
+		@Test
+		@DisplayName("Debe rechazar consultas y parámetros inválidos")
+		void testParametrosInvalidos() {
+			Parada parada = paradas.get(1);
+
+			assertThrows(IllegalArgumentException.class, () -> new Consulta(null, parada, 1, LocalTime.NOON));
+			assertThrows(IllegalArgumentException.class, () -> new Consulta(parada, parada, 0, LocalTime.NOON));
+			assertThrows(IllegalArgumentException.class, () -> new CalculoLote(red, new BusquedaRaptor(), 0));
+			assertThrows(IllegalArgumentException.class, () -> new CalculoLote(red).calcular(null));
+		}
+	}
+}
@@ -17,7 +17,9 @@ import org.junit.jupiter.api.Test;
 
 import colectivo.datos.CargarDatos;
 import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaConTransbordo;
 import colectivo.logica.Calculo;
+import colectivo.logica.RedCompilada;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
@@ -190,6 +192,37 @@ class CalculoTransbordoTests {
 					"Segundo segmento debe salir después de llegada al transbordo");
 			}
 		}
+
+		@Test
+		@DisplayName("Si el primer tramo pasa la medianoche, el segundo debe salir con los horarios del día siguiente")
+		void testTransbordoDespuesDeMedianoche() {
+			// Given: la línea X llega al transbordo a las 00:10 del martes; la línea Y pasa a
+			// las 00:15 solo los lunes y a la 01:00 los martes
+			Parada a = new Parada(901, "A", 0, 0);
+			Parada b = new Parada(902, "B", 0, 0);
+			Parada c = new Parada(903, "C", 0, 0);
+			Linea x = new Linea("X", "X");
+			x.agregarParada(a);
+			x.agregarParada(b);
+			x.agregarFrecuencia(1, LocalTime.of(23, 50));
+			Linea y = new Linea("Y", "Y");
+			y.agregarParada(b);
+			y.agregarParada(c);
+			y.agregarFrecuencia(1, LocalTime.of(0, 15));
+			y.agregarFrecuencia(2, LocalTime.of(1, 0));
+			RedCompilada red = RedCompilada.compilar(Map.of(
+					"901-902-1", new Tramo(a, b, 1200, 1),
+					"902-903-1", new Tramo(b, c, 600, 1)));
+
+			// When
+			List<List<colectivo.logica.Recorrido>> recorridos =
+				new BusquedaConTransbordo().buscar(a, c, 1, LocalTime.of(23, 0), red);
+
+			// Then
+			assertEquals(1, recorridos.size());
+			assertEquals(LocalTime.of(23, 50), recorridos.get(0).get(0).getHoraSalida());
+			assertEquals(LocalTime.of(1, 0), recorridos.get(0).get(1).getHoraSalida());
+		}
 	}
 
 	@Nested
@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -15,12 +17,18 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
+import colectivo.aplicacion.Constantes;
 import colectivo.datos.CargarDatos;
 import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCaminando;
+import colectivo.logica.BusquedaDirecta;
 import colectivo.logica.Calculo;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
 import colectivo.modelo.Linea;
 import colectivo.modelo.Parada;
 import colectivo.modelo.Tramo;
+import colectivo.util.CalculosAuxiliares;
 
 /**
  * Tests específicos para rutas que incluyen segmentos caminando en la clase Calculo.
@@ -385,4 +393,117 @@ class CalculoWalkingTests {
 			}
 		}
 	}
-}
\ No newline at end of file
+
+	@Nested
+	@DisplayName("Estrategia con Caminata")
+	class BusquedaCaminandoTests {
+
+		@Test
+		@DisplayName("La caminata debe salir de una parada alcanzable desde el origen y llegar a una que lleve al destino")
+		void testTramoCaminandoAlcanzable() {
+			// Given
+			Parada origen = paradas.get(31);
+			Parada destino = paradas.get(66);
+
+			// When
+			List<List<Recorrido>> recorridos = new BusquedaCaminando().buscar(origen, destino, 1, LocalTime.of(10, 35),
+					RedCompilada.compilar(tramos));
+
+			// Then
+			assertFalse(recorridos.isEmpty(), "Debe encontrar rutas con caminata");
+			for (List<Recorrido> ruta : recorridos) {
+				assertEquals(3, ruta.size(), "Colectivo + caminando + colectivo");
+				Recorrido caminata = ruta.get(1);
+				Parada bajada = caminata.getParadas().get(0);
+				Parada subida = caminata.getParadas().get(1);
+
+				assertNotNull(tramos.get(bajada.getCodigo() + "-" + subida.getCodigo() + "-2"),
+						"La caminata debe corresponder a un tramo caminando");
+				assertTrue(ruta.get(0).getLinea().getPosicion(bajada) > ruta.get(0).getLinea().getPosicion(origen));
+				assertTrue(ruta.get(2).getLinea().getPosicion(subida) < ruta.get(2).getLinea().getPosicion(destino));
+			}
+		}
+
+		@Test
+		@DisplayName("Filtrar los tramos caminando debe dar las mismas rutas que evaluarlos todos")
+		void testIgualQueBusquedaExhaustiva() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+			BusquedaCaminando busqueda = new BusquedaCaminando();
+			int comparadas = 0;
+			for (int dia = 1; dia <= 7; dia += 3) {
+				for (LocalTime hora : List.of(LocalTime.of(10, 35), LocalTime.of(23, 40))) {
+					for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+						for (int d = 1; d < red.getCantidadParadas(); d += 4) {
+							Parada origen = red.getParada(o);
+							Parada destino = red.getParada(d);
+							List<String> esperadas = firmas(exhaustiva(origen, destino, dia, hora));
+							List<String> obtenidas = firmas(busqueda.buscar(origen, destino, dia, hora, red));
+							assertEquals(esperadas, obtenidas,
+									"De " + origen + " a " + destino + " el día " + dia + " a las " + hora);
+							comparadas += obtenidas.size();
+						}
+					}
+				}
+			}
+			assertTrue(comparadas > 0, "Debe comparar al menos una ruta con tramo caminando");
+		}
+
+		/**
+		 * Evalúa todos los tramos caminando: ruta directa hasta el inicio del tramo y ruta
+		 * directa desde su fin, buscada a la hora en que se termina de caminar.
+		 */
+		private List<List<Recorrido>> exhaustiva(Parada origen, Parada destino, int dia, LocalTime hora) {
+			Map<Parada, List<Tramo>> conexiones = CalculosAuxiliares.conexionesParadas(tramos);
+			BusquedaDirecta directa = new BusquedaDirecta();
+			List<List<Recorrido>> soluciones = new ArrayList<>();
+			for (Tramo caminando : tramos.values()) {
+				if (caminando.getTipo() != Constantes.CAMINANDO)
+					continue;
+				for (List<Recorrido> inicio : directa.buscar(origen, caminando.getInicio(), dia, hora, conexiones,
+						tramos)) {
+					int llegada = hora.toSecondOfDay();
+					for (Recorrido tramo : inicio)
+						llegada += Math.floorMod(tramo.getHoraSalida().toSecondOfDay() - llegada % 86_400, 86_400)
+								+ tramo.getDuracion();
+					llegada += caminando.getTiempo();
+					for (List<Recorrido> fin : directa.buscar(caminando.getFin(), destino,
+							(dia - 1 + llegada / 86_400) % 7 + 1, LocalTime.ofSecondOfDay(llegada % 86_400),
+							conexiones, tramos)) {
+						List<Recorrido> solucion = new ArrayList<>(inicio);
+						solucion.add(new Recorrido(null, List.of(caminando.getInicio(), caminando.getFin()),
+								null, caminando.getTiempo()));
+						solucion.addAll(fin);
+						soluciones.add(solucion);
+					}
+				}
+			}
+			return soluciones;
+		}
+
+		/** Líneas, paradas y horarios de cada ruta, ordenadas para comparar sin importar el orden. */
+		private List<String> firmas(List<List<Recorrido>> soluciones) {
+			List<String> firmas = new ArrayList<>();
+			for (List<Recorrido> solucion : soluciones) {
+				StringBuilder firma = new StringBuilder();
+				for (Recorrido tramo : solucion)
+					firma.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo())
+							.append(tramo.getParadas())
+							.append(tramo.getLinea() == null ? "" : tramo.getHoraSalida())
+							.append(';');
+				firmas.add(firma.toString());
+			}
+			Collections.sort(firmas);
+			return firmas;
+		}
+
+		@Test
+		@DisplayName("Sin paradas que lleven al destino no debe devolver rutas")
+		void testDestinoInalcanzable() {
+			// Given: 67 es cabecera de L5R, ningún colectivo llega a ella
+			List<List<Recorrido>> recorridos = new BusquedaCaminando().buscar(paradas.get(31), paradas.get(67), 1,
+					LocalTime.of(10, 35), RedCompilada.compilar(tramos));
+
+			assertTrue(recorridos.isEmpty());
+		}
+	}
+}
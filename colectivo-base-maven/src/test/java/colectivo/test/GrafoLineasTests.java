@@ -0,0 +1,141 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.GrafoLineas;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests del grafo de líneas y de la cota de colectivos que usan las búsquedas.
+ */
+@DisplayName("Tests de Grafo de Líneas")
+class GrafoLineasTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+	private GrafoLineas grafo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+		grafo = red.getGrafoLineas();
+	}
+
+	@Nested
+	@DisplayName("Distancias")
+	class DistanciasTests {
+
+		@Test
+		@DisplayName("Las distancias deben ser simétricas y cero de una línea a sí misma")
+		void testSimetria() {
+			for (int a = 0; a < red.getCantidadLineas(); a++) {
+				assertEquals(0, grafo.saltos(a, a, false));
+				for (int b = 0; b < red.getCantidadLineas(); b++) {
+					assertEquals(grafo.saltos(a, b, false), grafo.saltos(b, a, false));
+					assertEquals(grafo.saltos(a, b, true), grafo.saltos(b, a, true));
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Las líneas que comparten una parada deben estar a un salto como máximo")
+		void testComparten() {
+			for (int s = 0; s < red.getCantidadParadas(); s++)
+				for (int a : red.getLineasParada(s))
+					for (int b : red.getLineasParada(s)) {
+						assertTrue(grafo.saltos(a, b, false) <= 1);
+						assertTrue(grafo.saltos(a, b, true) <= 1);
+					}
+		}
+
+		@Test
+		@DisplayName("Las uniones caminando no deben alargar ninguna distancia")
+		void testCaminandoNoAlarga() {
+			for (int a = 0; a < red.getCantidadLineas(); a++)
+				for (int b = 0; b < red.getCantidadLineas(); b++) {
+					int colectivo = grafo.saltos(a, b, false);
+					int caminando = grafo.saltos(a, b, true);
+					if (colectivo != RedCompilada.NINGUNA) {
+						assertNotEquals(RedCompilada.NINGUNA, caminando);
+						assertTrue(caminando <= colectivo);
+					}
+				}
+		}
+	}
+
+	@Nested
+	@DisplayName("Cota de Colectivos")
+	class CotaTests {
+
+		@Test
+		@DisplayName("Ningún recorrido debe usar menos colectivos que la cota")
+		void testCotaInferior() {
+			BusquedaRaptor raptor = new BusquedaRaptor();
+			for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 5) {
+					List<List<Recorrido>> soluciones = raptor.buscar(red.getParada(o), red.getParada(d), 1, HORA,
+							red);
+					if (soluciones.isEmpty())
+						continue;
+					int minimo = grafo.minimoColectivos(o, d, true);
+					assertNotEquals(RedCompilada.NINGUNA, minimo);
+					for (List<Recorrido> solucion : soluciones) {
+						long colectivos = solucion.stream().filter(r -> r.getLinea() != null).count();
+						assertTrue(colectivos >= minimo, "De " + red.getParada(o) + " a " + red.getParada(d));
+					}
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Con una línea que pasa por ambas paradas la cota debe ser un colectivo")
+		void testDirecto() {
+			int origen = red.indice(paradas.get(44));
+			int destino = red.indice(paradas.get(47));
+			assertEquals(1, grafo.minimoColectivos(origen, destino, false));
+			assertEquals(1, grafo.minimoColectivos(origen, destino, true));
+			assertEquals(0, grafo.minimoColectivos(origen, origen, true));
+		}
+
+		@Test
+		@DisplayName("Con más colectivos que rondas la búsqueda debe responder vacío")
+		void testMasColectivosQueRondas() {
+			for (int o = 0; o < red.getCantidadParadas(); o += 3) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 5) {
+					if (grafo.minimoColectivos(o, d, true) > 1)
+						assertTrue(new BusquedaRaptor(1).buscar(red.getParada(o), red.getParada(d), 1, HORA, red)
+								.isEmpty());
+				}
+			}
+		}
+	}
+}
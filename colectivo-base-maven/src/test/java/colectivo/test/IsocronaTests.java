@@ -0,0 +1,148 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaCSA.Alcance;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests del cálculo de isócronas desde una parada.
+ */
+@DisplayName("Tests de Isócronas")
+class IsocronaTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+	private BusquedaCSA csa;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+		csa = new BusquedaCSA();
+	}
+
+	@Nested
+	@DisplayName("Paradas Alcanzables")
+	class AlcanzablesTests {
+
+		@Test
+		@DisplayName("La llegada a cada parada debe coincidir con la llegada más temprana entre dos paradas")
+		void testIgualQueLlegadaMasTemprana() {
+			for (int codigo : new int[] { 1, 31, 44, 88 }) {
+				Parada origen = paradas.get(codigo);
+				Map<Parada, Alcance> porParada = csa.alcanzables(origen, 1, HORA, Duration.ofHours(3), red).stream()
+						.collect(Collectors.toMap(Alcance::parada, a -> a));
+
+				for (Parada destino : paradas.values()) {
+					if (destino == origen)
+						continue;
+					List<List<Recorrido>> recorridos = csa.buscar(origen, destino, 1, HORA, red);
+					Alcance alcance = porParada.get(destino);
+					if (recorridos.isEmpty()) {
+						assertTrue(alcance == null, "De " + codigo + " a " + destino.getCodigo());
+						continue;
+					}
+					Recorrido ultimo = recorridos.get(0).getLast();
+					LocalTime llegada = ultimo.getHoraSalida().plusSeconds(ultimo.getDuracion());
+					if (alcance != null)
+						assertEquals(llegada, alcance.llegada(), "De " + codigo + " a " + destino.getCodigo());
+					else
+						assertTrue(Duration.between(HORA, llegada).compareTo(Duration.ofHours(3)) > 0
+								|| llegada.isBefore(HORA), "De " + codigo + " a " + destino.getCodigo());
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Debe empezar por el origen y estar ordenada sin superar el tiempo máximo")
+		void testOrdenYLimite() {
+			Parada origen = paradas.get(44);
+			Duration maximo = Duration.ofMinutes(30);
+			List<Alcance> alcances = csa.alcanzables(origen, 1, HORA, maximo, red);
+
+			assertFalse(alcances.isEmpty());
+			assertEquals(origen, alcances.get(0).parada());
+			assertEquals(0, alcances.get(0).segundosViaje());
+			for (int i = 1; i < alcances.size(); i++) {
+				assertTrue(alcances.get(i - 1).segundosViaje() <= alcances.get(i).segundosViaje());
+				assertTrue(alcances.get(i).segundosViaje() <= maximo.getSeconds());
+			}
+		}
+
+		@Test
+		@DisplayName("Un tiempo máximo menor debe alcanzar un subconjunto de las paradas")
+		void testSubconjunto() {
+			Parada origen = paradas.get(88);
+			Set<Parada> cerca = csa.alcanzables(origen, 1, HORA, Duration.ofMinutes(15), red).stream()
+					.map(Alcance::parada).collect(Collectors.toSet());
+			Set<Parada> lejos = csa.alcanzables(origen, 1, HORA, Duration.ofHours(1), red).stream()
+					.map(Alcance::parada).collect(Collectors.toSet());
+
+			assertTrue(lejos.containsAll(cerca));
+			assertTrue(lejos.size() > cerca.size());
+		}
+
+		@Test
+		@DisplayName("Con tiempo máximo cero solo debe alcanzar el origen")
+		void testTiempoCero() {
+			Parada origen = paradas.get(1);
+			List<Alcance> alcances = csa.alcanzables(origen, 1, HORA, Duration.ZERO, red);
+
+			assertEquals(1, alcances.size());
+			assertEquals(origen, alcances.get(0).parada());
+		}
+	}
+
+	@Nested
+	@DisplayName("Validaciones")
+	class ValidacionesTests {
+
+		@Test
+		@DisplayName("Debe rechazar parámetros inválidos")
+		void testParametrosInvalidos() {
+			Parada parada = paradas.get(1);
+			Duration hora = Duration.ofHours(1);
+
+			assertThrows(IllegalArgumentException.class, () -> csa.alcanzables(null, 1, HORA, hora, red));
+			assertThrows(IllegalArgumentException.class, () -> csa.alcanzables(parada, 0, HORA, hora, red));
+			assertThrows(IllegalArgumentException.class, () -> csa.alcanzables(parada, 1, HORA, null, red));
+			assertThrows(IllegalArgumentException.class,
+					() -> csa.alcanzables(parada, 1, HORA, Duration.ofMinutes(-1), red));
+			assertThrows(IllegalArgumentException.class,
+					() -> csa.alcanzables(parada, 1, HORA, Duration.ofDays(2), red));
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+import colectivo.util.CalculosAuxiliares;
+
+/**
+ * Tests de los índices precalculados de {@link Linea}: posición de cada parada,
+ * tiempos acumulados desde la cabecera y salidas ordenadas por día.
+ */
+@DisplayName("Tests de Índices de Línea")
+class LineaIndicesTests {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+	}
+
+	@Nested
+	@DisplayName("Posición de Paradas")
+	class PosicionTests {
+
+		@Test
+		@DisplayName("La posición debe coincidir con indexOf en todas las líneas")
+		void testPosicionIgualIndexOf() {
+			for (Linea linea : lineas.values())
+				for (Parada parada : paradas.values())
+					assertEquals(linea.getParadas().indexOf(parada), linea.getPosicion(parada),
+							"Posición de parada " + parada.getCodigo() + " en línea " + linea.getCodigo());
+		}
+
+		@Test
+		@DisplayName("Agregar una parada debe actualizar el índice")
+		void testAgregarParada() {
+			Linea linea = new Linea("X", "Prueba");
+			Parada primera = paradas.get(44);
+			Parada segunda = paradas.get(47);
+
+			assertEquals(-1, linea.getPosicion(primera));
+			linea.agregarParada(primera);
+			linea.agregarParada(segunda);
+			linea.agregarParada(primera);
+
+			assertEquals(0, linea.getPosicion(primera), "Debe devolver la primera aparición");
+			assertEquals(1, linea.getPosicion(segunda));
+		}
+	}
+
+	@Nested
+	@DisplayName("Tiempos Acumulados")
+	class TiemposAcumuladosTests {
+
+		@Test
+		@DisplayName("El tiempo entre paradas debe ser la suma de los tramos consecutivos")
+		void testTiempoEntreParadas() {
+			Map<Parada, List<Tramo>> conexiones = CalculosAuxiliares.conexionesParadas(tramos);
+			for (Linea linea : lineas.values()) {
+				linea.calcularTiemposAcumulados(conexiones);
+				List<Parada> recorrido = linea.getParadas();
+				int suma = 0;
+				for (int i = 1; i < recorrido.size(); i++) {
+					String clave = recorrido.get(i - 1).getCodigo() + "-" + recorrido.get(i).getCodigo() + "-";
+					Tramo tramo = tramos.containsKey(clave + "1") ? tramos.get(clave + "1") : tramos.get(clave + "2");
+					if (tramo != null)
+						suma += tramo.getTiempo();
+					assertEquals(suma, linea.getTiempoEntre(0, i),
+							"Tiempo hasta la posición " + i + " de la línea " + linea.getCodigo());
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Sin calcular, la línea no debe tener tiempos acumulados")
+		void testSinCalcular() {
+			Linea linea = lineas.values().iterator().next();
+
+			assertFalse(linea.tieneTiemposAcumulados());
+			assertThrows(IllegalStateException.class, () -> linea.getTiempoEntre(0, 1));
+		}
+
+		@Test
+		@DisplayName("Agregar una parada debe invalidar los tiempos acumulados")
+		void testInvalidacion() {
+			Linea linea = lineas.values().iterator().next();
+			linea.calcularTiemposAcumulados(CalculosAuxiliares.conexionesParadas(tramos));
+			assertTrue(linea.tieneTiemposAcumulados());
+
+			linea.agregarParada(paradas.get(44));
+
+			assertFalse(linea.tieneTiemposAcumulados());
+		}
+
+		@Test
+		@DisplayName("En una línea circular la salida debe calcularse desde la posición de inicio pedida")
+		void testLineaCircular() {
+			Parada a = new Parada(901, "A", 0, 0);
+			Parada b = new Parada(902, "B", 0, 0);
+			Parada c = new Parada(903, "C", 0, 0);
+			Linea circular = new Linea("C1", "Circular");
+			circular.agregarParada(a);
+			circular.agregarParada(b);
+			circular.agregarParada(a);
+			circular.agregarParada(c);
+			circular.agregarFrecuencia(1, LocalTime.of(8, 0));
+			Map<Parada, List<Tramo>> conexiones = CalculosAuxiliares.conexionesParadas(Map.of(
+					"901-902-1", new Tramo(a, b, 600, 1),
+					"902-901-1", new Tramo(b, a, 600, 1),
+					"901-903-1", new Tramo(a, c, 300, 1)));
+
+			Recorrido lento = CalculosAuxiliares.crearRecorridoColectivo(circular, List.copyOf(circular.getParadas()),
+					2, 3, 1, LocalTime.of(8, 0), conexiones);
+			circular.calcularTiemposAcumulados(conexiones);
+			Recorrido rapido = CalculosAuxiliares.crearRecorridoColectivo(circular, circular.getParadas(), 2, 3, 1,
+					LocalTime.of(8, 0), conexiones);
+
+			assertEquals(LocalTime.of(8, 20), rapido.getHoraSalida());
+			assertEquals(300, rapido.getDuracion());
+			assertEquals(lento.getDuracion(), rapido.getDuracion());
+		}
+	}
+
+	@Nested
+	@DisplayName("Salidas Ordenadas")
+	class SalidasTests {
+
+		private Linea linea;
+
+		@BeforeEach
+		void crearLinea() {
+			linea = new Linea("X", "Prueba");
+			linea.agregarFrecuencia(1, LocalTime.of(12, 0));
+			linea.agregarFrecuencia(1, LocalTime.of(6, 0));
+			linea.agregarFrecuencia(1, LocalTime.of(9, 30));
+			linea.agregarFrecuencia(2, LocalTime.of(7, 0));
+			linea.agregarFrecuencia(7, LocalTime.of(23, 0));
+		}
+
+		@Test
+		@DisplayName("Las salidas de cada día deben estar ordenadas")
+		void testSalidasOrdenadas() {
+			assertArrayEquals(new int[] { 6 * 3600, 9 * 3600 + 1800, 12 * 3600 }, linea.getSalidas(1));
+			for (Linea cargada : lineas.values())
+				for (int dia = 1; dia <= 7; dia++) {
+					int[] salidas = cargada.getSalidas(dia);
+					assertEquals(cargada.getHorasFrecuencia(dia).size(), salidas.length);
+					for (int i = 1; i < salidas.length; i++)
+						assertTrue(salidas[i - 1] <= salidas[i], "Salidas de " + cargada.getCodigo() + " ordenadas");
+				}
+		}
+
+		@Test
+		@DisplayName("Debe devolver la primera salida igual o posterior al mínimo")
+		void testProximaSalida() {
+			assertEquals(6 * 3600, linea.getProximaSalida(1, 0));
+			assertEquals(9 * 3600 + 1800, linea.getProximaSalida(1, 9 * 3600 + 1800));
+			assertEquals(12 * 3600, linea.getProximaSalida(1, 9 * 3600 + 1801));
+			assertEquals(6 * 3600, linea.getProximaSalida(1, -600), "Un mínimo negativo equivale a 0");
+		}
+
+		@Test
+		@DisplayName("Sin salidas restantes debe pasar al día siguiente")
+		void testDiaSiguiente() {
+			assertEquals(86400 + 7 * 3600, linea.getProximaSalida(1, 13 * 3600));
+			assertEquals(86400 + 6 * 3600, linea.getProximaSalida(7, 23 * 3600 + 1),
+					"Del domingo se pasa al lunes");
+			assertEquals(-1, linea.getProximaSalida(3, 0), "Sin salidas ese día ni el siguiente");
+		}
+
+		@Test
+		@DisplayName("La red compilada debe consultar las salidas sin copiarlas")
+		void testSalidasRedSinCopia() {
+			RedCompilada red = RedCompilada.compilar(tramos);
+			for (int l = 0; l < red.getCantidadLineas(); l++)
+				for (int dia = 1; dia <= 7; dia++) {
+					assertSame(red.getSalidas(l, dia), red.getSalidas(l, dia));
+					assertArrayEquals(red.getLinea(l).getSalidas(dia), red.getSalidas(l, dia));
+					for (int minimo : new int[] { -600, 0, 10 * 3600, 23 * 3600 + 59 * 60, 86400 + 3600 })
+						assertEquals(red.getLinea(l).getProximaSalida(dia, minimo), red.proximaSalida(l, dia, minimo));
+				}
+		}
+
+		@Test
+		@DisplayName("Agregar una frecuencia debe actualizar las salidas")
+		void testAgregarFrecuencia() {
+			assertEquals(-1, linea.getProximaSalida(3, 0));
+
+			linea.agregarFrecuencia(4, LocalTime.of(8, 0));
+
+			assertEquals(86400 + 8 * 3600, linea.getProximaSalida(3, 0));
+		}
+	}
+}
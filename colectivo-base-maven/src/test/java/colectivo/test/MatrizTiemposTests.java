@@ -0,0 +1,128 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaCSA.Alcance;
+import colectivo.logica.MatrizTiempos;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la exportación y lectura de la matriz de tiempos entre paradas.
+ */
+@DisplayName("Tests de Matriz de Tiempos")
+class MatrizTiemposTests {
+
+	private static final LocalTime HORA = LocalTime.of(10, 35);
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+	private Path archivo;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+		archivo = Files.createTempFile("matriz", ".bin");
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		Files.deleteIfExists(archivo);
+	}
+
+	@Nested
+	@DisplayName("Exportación y Lectura")
+	class ExportacionTests {
+
+		@Test
+		@DisplayName("Cada fila debe coincidir con la isócrona de un día desde el origen")
+		void testIgualQueIsocrona() throws IOException {
+			MatrizTiempos.exportar(red, 1, HORA, archivo, 3);
+			MatrizTiempos matriz = MatrizTiempos.abrir(archivo);
+
+			assertEquals(paradas.size(), matriz.getCantidadParadas());
+			assertEquals(1, matriz.getDiaSemana());
+			assertEquals(HORA, matriz.getHora());
+
+			BusquedaCSA csa = new BusquedaCSA();
+			for (int codigo : new int[] { 1, 31, 44, 66, 88 }) {
+				Parada origen = paradas.get(codigo);
+				Map<Parada, Integer> esperado = csa.alcanzables(origen, 1, HORA, Duration.ofDays(1), red).stream()
+						.collect(Collectors.toMap(Alcance::parada, Alcance::segundosViaje));
+				for (Parada destino : paradas.values())
+					assertEquals(esperado.getOrDefault(destino, MatrizTiempos.SIN_LLEGADA),
+							matriz.getSegundos(origen, destino), "De " + codigo + " a " + destino.getCodigo());
+			}
+		}
+
+		@Test
+		@DisplayName("Una parada sin colectivos que lleguen no debe ser alcanzable")
+		void testNoAlcanzable() throws IOException {
+			MatrizTiempos.exportar(red, 1, HORA, archivo, 1);
+			MatrizTiempos matriz = MatrizTiempos.abrir(archivo);
+
+			assertEquals(MatrizTiempos.SIN_LLEGADA, matriz.getSegundos(paradas.get(66), paradas.get(67)));
+			assertEquals(0, matriz.getSegundos(paradas.get(67), paradas.get(67)));
+		}
+
+		@Test
+		@DisplayName("El archivo no debe depender de la cantidad de hilos")
+		void testIndependienteDelParalelismo() throws IOException {
+			MatrizTiempos.exportar(red, 3, LocalTime.of(22, 50), archivo, 1);
+			byte[] secuencial = Files.readAllBytes(archivo);
+			MatrizTiempos.exportar(red, 3, LocalTime.of(22, 50), archivo, 4);
+
+			assertArrayEquals(secuencial, Files.readAllBytes(archivo));
+		}
+	}
+
+	@Nested
+	@DisplayName("Validaciones")
+	class ValidacionesTests {
+
+		@Test
+		@DisplayName("Debe rechazar parámetros inválidos y archivos que no son una matriz")
+		void testParametrosInvalidos() throws IOException {
+			assertThrows(IllegalArgumentException.class, () -> MatrizTiempos.exportar(red, 0, HORA, archivo, 1));
+			assertThrows(IllegalArgumentException.class, () -> MatrizTiempos.exportar(red, 1, HORA, archivo, 0));
+			assertThrows(IllegalArgumentException.class, () -> MatrizTiempos.exportar(null, 1, HORA, archivo, 1));
+
+			Files.write(archivo, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20 });
+			assertThrows(IOException.class, () -> MatrizTiempos.abrir(archivo));
+
+			MatrizTiempos.exportar(red, 1, HORA, archivo, 1);
+			MatrizTiempos matriz = MatrizTiempos.abrir(archivo);
+			assertThrows(IllegalArgumentException.class, () -> matriz.indice(-5));
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCaminando;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Calculo;
+import colectivo.logica.Criterio;
+import colectivo.logica.EstrategiaBusqueda;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la búsqueda de los k mejores recorridos.
+ */
+@DisplayName("Tests de Mejores Recorridos")
+class MejoresRecorridosTests {
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	/** Todas las soluciones ordenadas de forma estable por el criterio, recortadas a k. */
+	private List<List<Recorrido>> esperado(EstrategiaBusqueda estrategia, Parada origen, Parada destino, int dia,
+			LocalTime hora, int k, Criterio criterio) {
+		List<List<Recorrido>> todas = new ArrayList<>(estrategia.buscar(origen, destino, dia, hora, red));
+		todas.sort(Comparator.comparingLong(solucion -> criterio.clave(solucion, hora)));
+		return todas.subList(0, Math.min(k, todas.size()));
+	}
+
+	private static String describir(List<List<Recorrido>> recorridos) {
+		StringBuilder sb = new StringBuilder();
+		for (List<Recorrido> recorrido : recorridos) {
+			for (Recorrido tramo : recorrido)
+				sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+						.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(';');
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	private void verificar(EstrategiaBusqueda estrategia, int[][] pares) {
+		for (int[] par : pares)
+			for (LocalTime hora : new LocalTime[] { LocalTime.of(7, 10), LocalTime.of(23, 50) })
+				for (Criterio criterio : Criterio.values())
+					for (int k : new int[] { 1, 3, 5, 50 }) {
+						Parada origen = paradas.get(par[0]);
+						Parada destino = paradas.get(par[1]);
+						assertEquals(describir(esperado(estrategia, origen, destino, 1, hora, k, criterio)),
+								describir(estrategia.buscarMejores(origen, destino, 1, hora, red, k, criterio)),
+								par[0] + "->" + par[1] + " " + hora + " " + criterio + " k=" + k);
+					}
+	}
+
+	@Nested
+	@DisplayName("Orden y Recorte")
+	class OrdenTests {
+
+		@Test
+		@DisplayName("La búsqueda caminando debe devolver los k primeros del orden estable por criterio")
+		void testCaminando() {
+			verificar(new BusquedaCaminando(), new int[][] { { 6, 5 }, { 1, 5 }, { 25, 76 }, { 6, 54 }, { 31, 66 } });
+		}
+
+		@Test
+		@DisplayName("El método por defecto debe devolver los k primeros del orden estable por criterio")
+		void testPorDefecto() {
+			verificar(new BusquedaRaptor(), new int[][] { { 5, 75 }, { 5, 25 }, { 47, 76 }, { 44, 47 } });
+		}
+
+		@Test
+		@DisplayName("Los recorridos deben quedar ordenados por la clave del criterio")
+		void testOrdenados() {
+			LocalTime hora = LocalTime.of(10, 35);
+			for (Criterio criterio : Criterio.values()) {
+				List<List<Recorrido>> mejores = Calculo.calcularMejores(paradas.get(6), paradas.get(5), 1, hora,
+						red, new BusquedaCaminando(), 5, criterio);
+				assertFalse(mejores.isEmpty());
+				assertTrue(mejores.size() <= 5);
+				for (int i = 1; i < mejores.size(); i++)
+					assertTrue(criterio.clave(mejores.get(i - 1), hora) <= criterio.clave(mejores.get(i), hora),
+							criterio + " posición " + i);
+			}
+		}
+
+		@Test
+		@DisplayName("Cada tramo debe salir después de la llegada del anterior")
+		void testTramosEnOrden() {
+			LocalTime hora = LocalTime.of(10, 35);
+			BusquedaCaminando caminando = new BusquedaCaminando();
+			int verificados = 0;
+			for (int o = 0; o < red.getCantidadParadas(); o += 2) {
+				for (int d = 1; d < red.getCantidadParadas(); d += 3) {
+					for (Criterio criterio : Criterio.values()) {
+						for (List<Recorrido> recorrido : caminando.buscarMejores(red.getParada(o), red.getParada(d), 1,
+								hora, red, 5, criterio)) {
+							assertFalse(recorrido.get(0).getHoraSalida().isBefore(hora));
+							for (int i = 1; i < recorrido.size(); i++) {
+								Recorrido anterior = recorrido.get(i - 1);
+								LocalTime llegada = anterior.getHoraSalida().plusSeconds(anterior.getDuracion());
+								assertFalse(recorrido.get(i).getHoraSalida().isBefore(llegada),
+										criterio + " de " + red.getParada(o) + " a " + red.getParada(d) + ", tramo " + i);
+							}
+							verificados++;
+						}
+					}
+				}
+			}
+			assertTrue(verificados > 0);
+		}
+
+		@Test
+		@DisplayName("Sin solución debe devolver una lista vacía")
+		void testSinSolucion() {
+			assertTrue(Calculo.calcularMejores(paradas.get(1), paradas.get(67), 1, LocalTime.of(10, 35), red, 3,
+					Criterio.LLEGADA).isEmpty());
+		}
+	}
+
+	@Nested
+	@DisplayName("Validaciones")
+	class ValidacionesTests {
+
+		@Test
+		@DisplayName("Debe rechazar k menor a 1 y criterio null")
+		void testParametrosInvalidos() {
+			Parada origen = paradas.get(31);
+			Parada destino = paradas.get(66);
+			LocalTime hora = LocalTime.NOON;
+
+			assertThrows(IllegalArgumentException.class,
+					() -> Calculo.calcularMejores(origen, destino, 1, hora, red, 0, Criterio.DURACION));
+			assertThrows(IllegalArgumentException.class,
+					() -> Calculo.calcularMejores(origen, destino, 1, hora, red, 3, null));
+			assertThrows(IllegalArgumentException.class,
+					() -> new BusquedaCaminando().buscarMejores(origen, destino, 1, hora, red, 0, Criterio.LLEGADA));
+			assertThrows(IllegalArgumentException.class,
+					() -> new BusquedaCaminando().buscarMejores(origen, destino, 1, hora, red, 3, null));
+			assertThrows(IllegalArgumentException.class,
+					() -> new BusquedaRaptor().buscarMejores(origen, destino, 1, hora, red, 0, Criterio.LLEGADA));
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaCSA;
+import colectivo.logica.BusquedaConcurrente;
+import colectivo.logica.BusquedaPareto;
+import colectivo.logica.BusquedaRaptor;
+import colectivo.logica.Calculo;
+import colectivo.logica.CalculoLote;
+import colectivo.logica.CalculoLote.Consulta;
+import colectivo.logica.Motores;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la elección del motor de búsqueda desde {@code factory.properties}.
+ */
+@DisplayName("Tests de Motores de Búsqueda")
+class MotoresTests {
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	private static String describir(List<List<Recorrido>> recorridos) {
+		StringBuilder sb = new StringBuilder();
+		for (List<Recorrido> recorrido : recorridos) {
+			for (Recorrido tramo : recorrido)
+				sb.append(tramo.getLinea() == null ? "caminando" : tramo.getLinea().getCodigo()).append(' ')
+						.append(tramo.getParadas()).append(' ').append(tramo.getHoraSalida()).append(';');
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+
+	@Nested
+	@DisplayName("Configuración")
+	class ConfiguracionTests {
+
+		@Test
+		@DisplayName("El motor por defecto debe ser el de la clave ESTRATEGIA")
+		void testPredeterminado() {
+			assertInstanceOf(BusquedaRaptor.class, Motores.predeterminado());
+			assertSame(Motores.predeterminado(), Motores.predeterminado());
+		}
+
+		@Test
+		@DisplayName("Debe crear una única instancia de cada motor por nombre")
+		void testPorNombre() {
+			assertInstanceOf(BusquedaCSA.class, Motores.obtener("CSA"));
+			assertInstanceOf(BusquedaPareto.class, Motores.obtener("PARETO"));
+			assertInstanceOf(BusquedaConcurrente.class, Motores.obtener("CONCURRENTE"));
+			assertSame(Motores.obtener("CSA"), Motores.obtener("CSA"));
+		}
+
+		@Test
+		@DisplayName("Debe pasar la opción de rondas al constructor del motor")
+		void testOpcionRondas() {
+			LocalTime hora = LocalTime.of(10, 35);
+			for (int[] par : new int[][] { { 1, 3 }, { 1, 5 }, { 88, 13 } }) {
+				Parada origen = paradas.get(par[0]);
+				Parada destino = paradas.get(par[1]);
+				assertEquals(describir(new BusquedaPareto(3).buscar(origen, destino, 1, hora, red)),
+						describir(Motores.obtener("PARETO").buscar(origen, destino, 1, hora, red)));
+			}
+		}
+
+		@Test
+		@DisplayName("Debe rechazar motores no configurados")
+		void testNoConfigurado() {
+			assertThrows(IllegalArgumentException.class, () -> Motores.obtener("INEXISTENTE"));
+			assertThrows(IllegalArgumentException.class, () -> Motores.obtener(null));
+		}
+	}
+
+	@Nested
+	@DisplayName("Cálculo")
+	class CalculoTests {
+
+		@Test
+		@DisplayName("El cálculo sin motor debe usar el motor por defecto")
+		void testCalculoPorDefecto() {
+			LocalTime hora = LocalTime.of(10, 35);
+			Parada origen = paradas.get(1);
+			Parada destino = paradas.get(5);
+
+			List<List<Recorrido>> porDefecto = Calculo.calcularRecorrido(origen, destino, 1, hora, red);
+			assertFalse(porDefecto.isEmpty());
+			assertEquals(describir(Calculo.calcularRecorrido(origen, destino, 1, hora, red, Motores.predeterminado())),
+					describir(porDefecto));
+		}
+
+		@Test
+		@DisplayName("El lote debe usar el motor indicado o el motor por defecto")
+		void testLote() {
+			LocalTime hora = LocalTime.of(10, 35);
+			List<Consulta> consultas = new ArrayList<>();
+			for (int[] par : new int[][] { { 1, 3 }, { 1, 5 }, { 88, 13 }, { 44, 47 } })
+				consultas.add(new Consulta(paradas.get(par[0]), paradas.get(par[1]), 1, hora));
+
+			CalculoLote.Resultado porDefecto = new CalculoLote(red).calcular(consultas.stream());
+			CalculoLote.Resultado conCSA = new CalculoLote(red, Motores.obtener("CSA"), 2).calcular(consultas.stream());
+			for (int i = 0; i < consultas.size(); i++) {
+				Consulta consulta = consultas.get(i);
+				assertEquals(describir(Calculo.calcularRecorrido(consulta.origen(), consulta.destino(), 1, hora, red,
+						Motores.predeterminado())), describir(porDefecto.recorridos().get(i)));
+				assertEquals(describir(Calculo.calcularRecorrido(consulta.origen(), consulta.destino(), 1, hora, red,
+						Motores.obtener("CSA"))), describir(conCSA.recorridos().get(i)));
+			}
+		}
+	}
+}
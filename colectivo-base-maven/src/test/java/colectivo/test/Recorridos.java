@@ -0,0 +1,45 @@
+package colectivo.test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import colectivo.logica.Recorrido;
+
+/**
+ * Medidas de los recorridos devueltos por las búsquedas, compartidas por los tests que
+ * comparan estrategias entre sí.
+ */
+final class Recorridos {
+
+	private static final int DIA = 86_400;
+
+	private Recorridos() {
+	}
+
+	/**
+	 * Segundos desde una hora hasta la llegada al destino, esperando cada tramo y
+	 * contando medianoche.
+	 *
+	 * @param recorrido los tramos del recorrido, en orden
+	 * @param desde segundos del día desde los que se cuenta
+	 * @return segundos de viaje, con las esperas
+	 */
+	static int viaje(List<Recorrido> recorrido, int desde) {
+		int actual = desde;
+		for (Recorrido tramo : recorrido) {
+			int salida = tramo.getHoraSalida().toSecondOfDay();
+			actual += Math.floorMod(salida - actual, DIA) + tramo.getDuracion();
+		}
+		return actual - desde;
+	}
+
+	/** Como {@link #viaje(List, int)}, desde una hora del día. */
+	static int viaje(List<Recorrido> recorrido, LocalTime desde) {
+		return viaje(recorrido, desde.toSecondOfDay());
+	}
+
+	/** Cantidad de tramos en colectivo del recorrido. */
+	static int colectivos(List<Recorrido> recorrido) {
+		return (int) recorrido.stream().filter(tramo -> tramo.getLinea() != null).count();
+	}
+}
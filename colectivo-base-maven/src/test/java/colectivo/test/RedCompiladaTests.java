@@ -0,0 +1,108 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.aplicacion.Constantes;
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.RedCompilada;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de los índices densos y la adyacencia comprimida de {@link RedCompilada}.
+ */
+@DisplayName("Tests de Red Compilada")
+class RedCompiladaTests {
+
+	private Map<Integer, Parada> paradas;
+	@SuppressWarnings("unused")
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	private static String describir(int destino, int tiempo, int tipo) {
+		return destino + "/" + tiempo + "/" + tipo;
+	}
+
+	@Nested
+	@DisplayName("Índices Densos")
+	class IndicesTests {
+
+		@Test
+		@DisplayName("Cada parada debe tener un índice entre 0 y N-1 que la identifica")
+		void testIndicesDensos() {
+			assertEquals(paradas.size(), red.getCantidadParadas());
+			for (int s = 0; s < red.getCantidadParadas(); s++)
+				assertEquals(s, red.indice(red.getParada(s)));
+			for (Parada parada : paradas.values())
+				assertEquals(parada, red.getParada(red.indice(parada)));
+		}
+
+		@Test
+		@DisplayName("Una parada que no está en la red no debe tener índice")
+		void testParadaAjena() {
+			assertEquals(RedCompilada.NINGUNA, red.indice(new Parada(-100, "Ajena", 0, 0)));
+			assertEquals(RedCompilada.NINGUNA, red.indice(new Parada(1_000_000, "Ajena", 0, 0)));
+			assertEquals(RedCompilada.NINGUNA, red.indice((Parada) null));
+		}
+	}
+
+	@Nested
+	@DisplayName("Adyacencia Comprimida")
+	class AdyacenciaTests {
+
+		@Test
+		@DisplayName("Los tramos de cada parada deben ser los mismos que en el mapa de conexiones")
+		void testIgualQueConexiones() {
+			int total = 0;
+			for (int s = 0; s < red.getCantidadParadas(); s++) {
+				List<String> esperado = new ArrayList<>();
+				for (Tramo tramo : red.getConexionesParadas().getOrDefault(red.getParada(s), List.of()))
+					esperado.add(describir(red.indice(tramo.getFin()), tramo.getTiempo(), tramo.getTipo()));
+				List<String> obtenido = new ArrayList<>();
+				for (int e = red.getInicioTramos(s); e < red.getFinTramos(s); e++)
+					obtenido.add(describir(red.getDestinoTramos()[e], red.getTiempoTramos()[e], red.getTipoTramos()[e]));
+
+				esperado.sort(null);
+				obtenido.sort(null);
+				assertEquals(esperado, obtenido, "Parada " + red.getParada(s).getCodigo());
+				total += obtenido.size();
+			}
+			assertEquals(tramos.size(), total);
+		}
+
+		@Test
+		@DisplayName("Los tramos caminando deben estar al final del rango de cada parada")
+		void testCaminandoAlFinal() {
+			for (int s = 0; s < red.getCantidadParadas(); s++) {
+				assertTrue(red.getInicioTramos(s) <= red.getInicioCaminando(s));
+				assertTrue(red.getInicioCaminando(s) <= red.getFinTramos(s));
+				for (int e = red.getInicioTramos(s); e < red.getFinTramos(s); e++)
+					assertEquals(e >= red.getInicioCaminando(s), red.getTipoTramos()[e] == Constantes.CAMINANDO);
+			}
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package colectivo.test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import colectivo.datos.CargarDatos;
+import colectivo.datos.CargarParametros;
+import colectivo.logica.BusquedaConTransbordo;
+import colectivo.logica.Recorrido;
+import colectivo.logica.RedCompilada;
+import colectivo.logica.TablaTransbordos;
+import colectivo.logica.TablaTransbordos.Transbordo;
+import colectivo.modelo.Linea;
+import colectivo.modelo.Parada;
+import colectivo.modelo.Tramo;
+
+/**
+ * Tests de la tabla de transbordos entre líneas y de su uso en
+ * {@link BusquedaConTransbordo}.
+ */
+@DisplayName("Tests de Tabla de Transbordos")
+class TablaTransbordosTests {
+
+	private Map<Integer, Parada> paradas;
+	private Map<String, Linea> lineas;
+	private Map<String, Tramo> tramos;
+
+	private RedCompilada red;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		CargarParametros.parametros();
+		paradas = CargarDatos.cargarParadas(CargarParametros.getArchivoParada());
+		lineas = CargarDatos.cargarLineas(CargarParametros.getArchivoLinea(), CargarParametros.getArchivoFrecuencia(),
+				paradas);
+		tramos = CargarDatos.cargarTramos(CargarParametros.getArchivoTramo(), paradas);
+		red = RedCompilada.compilar(tramos);
+	}
+
+	@Nested
+	@DisplayName("Contenido de la Tabla")
+	class ContenidoTests {
+
+		@Test
+		@DisplayName("Cada transbordo debe estar en ambas líneas en las posiciones indicadas")
+		void testPosicionesTransbordo() {
+			TablaTransbordos tabla = red.getTransbordos();
+			for (Linea origen : lineas.values()) {
+				for (Linea destino : lineas.values()) {
+					for (Transbordo transbordo : tabla.getTransbordos(origen, destino)) {
+						assertEquals(transbordo.parada(), origen.getParadas().get(transbordo.posicionOrigen()));
+						assertEquals(transbordo.parada(), destino.getParadas().get(transbordo.posicionDestino()));
+					}
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Debe incluir todas las paradas comunes y ninguna entre una línea y sí misma")
+		void testParadasComunes() {
+			TablaTransbordos tabla = red.getTransbordos();
+			for (Linea origen : lineas.values()) {
+				assertTrue(tabla.getTransbordos(origen, origen).isEmpty(), "Sin transbordos a la misma línea");
+				for (Linea destino : lineas.values()) {
+					if (origen.equals(destino))
+						continue;
+					long comunes = origen.getParadas().stream().filter(destino.getParadas()::contains).count();
+					assertTrue(tabla.getTransbordos(origen, destino).size() >= comunes,
+							"Transbordos de " + origen.getCodigo() + " a " + destino.getCodigo());
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("Los transbordos deben estar ordenados por posición en la línea de origen")
+		void testOrdenTransbordos() {
+			TablaTransbordos tabla = red.getTransbordos();
+			for (Linea origen : lineas.values())
+				for (Linea destino : lineas.values()) {
+					List<Transbordo> lista = tabla.getTransbordos(origen, destino);
+					for (int i = 1; i < lista.size(); i++)
+						assertTrue(lista.get(i - 1).posicionOrigen() <= lista.get(i).posicionOrigen());
+				}
+		}
+	}
+
+	@Nested
+	@DisplayName("Elección del Transbordo")
+	class EleccionTests {
+
+		@Test
+		@DisplayName("Debe devolver a lo sumo un recorrido por par de líneas y con líneas distintas")
+		void testUnRecorridoPorParDeLineas() {
+			List<List<Recorrido>> recorridos = new BusquedaConTransbordo().buscar(paradas.get(88), paradas.get(13), 1,
+					LocalTime.of(10, 35), red);
+
+			assertFalse(recorridos.isEmpty(), "Debe encontrar recorridos con transbordo");
+			for (int i = 0; i < recorridos.size(); i++) {
+				List<Recorrido> recorrido = recorridos.get(i);
+				assertEquals(2, recorrido.size());
+				assertNotEquals(recorrido.get(0).getLinea(), recorrido.get(1).getLinea());
+				for (int j = i + 1; j < recorridos.size(); j++)
+					assertFalse(recorrido.get(0).getLinea().equals(recorridos.get(j).get(0).getLinea())
+							&& recorrido.get(1).getLinea().equals(recorridos.get(j).get(1).getLinea()),
+							"No debe repetir el par de líneas");
+			}
+		}
+
+		@Test
+		@DisplayName("El transbordo de cada recorrido debe figurar en la tabla")
+		void testTransbordoEnTabla() {
+			LocalTime hora = LocalTime.of(10, 35);
+			List<List<Recorrido>> recorridos = new BusquedaConTransbordo().buscar(paradas.get(88), paradas.get(13), 1,
+					hora, red);
+
+			for (List<Recorrido> recorrido : recorridos) {
+				Recorrido primero = recorrido.get(0);
+				Recorrido segundo = recorrido.get(1);
+				Parada transbordo = primero.getParadas().get(primero.getParadas().size() - 1);
+
+				assertEquals(transbordo, segundo.getParadas().get(0), "Los tramos deben estar conectados");
+				assertTrue(red.getTransbordos().getTransbordos(primero.getLinea(), segundo.getLinea()).stream()
+						.anyMatch(t -> t.parada().equals(transbordo)));
+				assertFalse(segundo.getHoraSalida().isBefore(primero.getHoraSalida().plusSeconds(primero.getDuracion())),
+						"El segundo colectivo no puede salir antes de la llegada del primero");
+			}
+		}
+	}
+}
@@ -3,7 +3,6 @@ package colectivo.test;
 import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.time.LocalTime;
@@ -61,7 +60,29 @@ class TestcalcularRecorrido {
 		List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana,
 				horaLlegaParada, tramos);
 
-		assertTrue(recorridos.isEmpty());
+		// Sin recorridos de hasta un transbordo: con cuatro colectivos se llega antes que con tres
+		assertEquals(2, recorridos.size());
+		List<Recorrido> recorrido = recorridos.get(0);
+		assertEquals(4, recorrido.size());
+
+		assertEquals(lineas.get("L6R"), recorrido.get(0).getLinea());
+		assertEquals(lineas.get("L2R"), recorrido.get(1).getLinea());
+		assertEquals(lineas.get("L5I"), recorrido.get(2).getLinea());
+		assertEquals(LocalTime.of(11, 21), recorrido.get(2).getHoraSalida());
+		assertEquals(360, recorrido.get(2).getDuracion());
+		assertEquals(lineas.get("L2I"), recorrido.get(3).getLinea());
+		assertEquals(LocalTime.of(11, 31, 30), recorrido.get(3).getHoraSalida());
+		assertEquals(780, recorrido.get(3).getDuracion());
+
+		recorrido = recorridos.get(1);
+		assertEquals(3, recorrido.size());
+
+		assertEquals(LocalTime.of(10, 45), recorrido.get(0).getHoraSalida());
+		assertEquals(660, recorrido.get(0).getDuracion());
+		assertEquals(LocalTime.of(11, 1), recorrido.get(1).getHoraSalida());
+		assertEquals(1170, recorrido.get(1).getDuracion());
+		assertEquals(LocalTime.of(11, 40), recorrido.get(2).getHoraSalida());
+		assertEquals(1470, recorrido.get(2).getDuracion());
 	}
 
 	@Test
@@ -72,39 +93,19 @@ class TestcalcularRecorrido {
 		List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana,
 				horaLlegaParada, tramos);
 
-		assertEquals(2, recorridos.size());
+		// L1I sale a las 10:50 y llega después que L5R con la misma cantidad de colectivos
+		assertEquals(1, recorridos.size());
 		assertEquals(1, recorridos.get(0).size());
-		assertEquals(1, recorridos.get(1).size());
-
-		Recorrido recorrido1;
-		Recorrido recorrido2;
-		if (recorridos.get(0).get(0).getLinea().equals(lineas.get("L1I"))) {
-			recorrido1 = recorridos.get(0).get(0);
-			recorrido2 = recorridos.get(1).get(0);
-		} else {
-			recorrido1 = recorridos.get(0).get(1);
-			recorrido2 = recorridos.get(0).get(0);
-		}
 
-		// recorrido1
-		assertEquals(lineas.get("L1I"), recorrido1.getLinea());
+		Recorrido recorrido = recorridos.get(0).get(0);
+		assertEquals(lineas.get("L5R"), recorrido.getLinea());
 		List<Parada> paradas1 = new ArrayList<Parada>();
 		paradas1.add(paradas.get(44));
 		paradas1.add(paradas.get(43));
 		paradas1.add(paradas.get(47));
-		assertIterableEquals(paradas1, recorrido1.getParadas());
-		assertEquals(LocalTime.of(10, 50), recorrido1.getHoraSalida());
-		assertEquals(180, recorrido1.getDuracion());
-
-		// recorrido2
-		assertEquals(lineas.get("L5R"), recorrido2.getLinea());
-		List<Parada> paradas2 = new ArrayList<Parada>();
-		paradas2.add(paradas.get(44));
-		paradas2.add(paradas.get(43));
-		paradas2.add(paradas.get(47));
-		assertIterableEquals(paradas2, recorrido2.getParadas());
-		assertEquals(LocalTime.of(10, 47, 30), recorrido2.getHoraSalida());
-		assertEquals(180, recorrido2.getDuracion());
+		assertIterableEquals(paradas1, recorrido.getParadas());
+		assertEquals(LocalTime.of(10, 47, 30), recorrido.getHoraSalida());
+		assertEquals(180, recorrido.getDuracion());
 	}
 
 	@Test
@@ -115,44 +116,30 @@ class TestcalcularRecorrido {
 		List<List<Recorrido>> recorridos = Calculo.calcularRecorrido(paradaOrigen, paradaDestino, diaSemana,
 				horaLlegaParada, tramos);
 
-		assertEquals(2, recorridos.size());
+		// L1I y L5R llega después que L4R y L5R con la misma cantidad de colectivos
+		assertEquals(1, recorridos.size());
 		assertEquals(2, recorridos.get(0).size());
-		assertEquals(2, recorridos.get(1).size());
-
-		Recorrido recorrido1;
-		Recorrido recorrido2;
-		Recorrido recorrido3;
-		Recorrido recorrido4;
-		if (recorridos.get(0).get(0).getLinea().equals(lineas.get("L1I"))) {
-			recorrido1 = recorridos.get(0).get(0);
-			recorrido2 = recorridos.get(0).get(1);
-			recorrido3 = recorridos.get(1).get(0);
-			recorrido4 = recorridos.get(1).get(1);
-		} else {
-			recorrido1 = recorridos.get(1).get(0);
-			recorrido2 = recorridos.get(1).get(1);
-			recorrido3 = recorridos.get(0).get(0);
-			recorrido4 = recorridos.get(0).get(1);
-		}
+
+		Recorrido recorrido1 = recorridos.get(0).get(0);
+		Recorrido recorrido2 = recorridos.get(0).get(1);
 
 		// recorrido1
-		assertEquals(lineas.get("L1I"), recorrido1.getLinea());
+		assertEquals(lineas.get("L4R"), recorrido1.getLinea());
 		List<Parada> paradas1 = new ArrayList<Parada>();
 		paradas1.add(paradas.get(88));
-		paradas1.add(paradas.get(97));
-		paradas1.add(paradas.get(44));
+		paradas1.add(paradas.get(63));
+		paradas1.add(paradas.get(65));
+		paradas1.add(paradas.get(64));
+		paradas1.add(paradas.get(77));
+		paradas1.add(paradas.get(25));
+		paradas1.add(paradas.get(5));
 		assertIterableEquals(paradas1, recorrido1.getParadas());
-		assertEquals(LocalTime.of(10, 48), recorrido1.getHoraSalida());
-		assertEquals(120, recorrido1.getDuracion());
+		assertEquals(LocalTime.of(10, 36), recorrido1.getHoraSalida());
+		assertEquals(720, recorrido1.getDuracion());
 
 		// recorrido2
 		assertEquals(lineas.get("L5R"), recorrido2.getLinea());
 		List<Parada> paradas2 = new ArrayList<Parada>();
-		paradas2.add(paradas.get(44));
-		paradas2.add(paradas.get(43));
-		paradas2.add(paradas.get(47));
-		paradas2.add(paradas.get(99));
-		paradas2.add(paradas.get(24));
 		paradas2.add(paradas.get(5));
 		paradas2.add(paradas.get(54));
 		paradas2.add(paradas.get(28));
@@ -161,36 +148,8 @@ class TestcalcularRecorrido {
 		paradas2.add(paradas.get(78));
 		paradas2.add(paradas.get(13));
 		assertIterableEquals(paradas2, recorrido2.getParadas());
-		assertEquals(LocalTime.of(11, 07, 30), recorrido2.getHoraSalida());
-		assertEquals(1110, recorrido2.getDuracion());
-
-		// recorrido3
-		assertEquals(lineas.get("L4R"), recorrido3.getLinea());
-		List<Parada> paradas3 = new ArrayList<Parada>();
-		paradas3.add(paradas.get(88));
-		paradas3.add(paradas.get(63));
-		paradas3.add(paradas.get(65));
-		paradas3.add(paradas.get(64));
-		paradas3.add(paradas.get(77));
-		paradas3.add(paradas.get(25));
-		paradas3.add(paradas.get(5));
-		assertIterableEquals(paradas3, recorrido3.getParadas());
-		assertEquals(LocalTime.of(10, 36), recorrido3.getHoraSalida());
-		assertEquals(720, recorrido3.getDuracion());
-
-		// recorrido4
-		assertEquals(lineas.get("L5R"), recorrido4.getLinea());
-		List<Parada> paradas4 = new ArrayList<Parada>();
-		paradas4.add(paradas.get(5));
-		paradas4.add(paradas.get(54));
-		paradas4.add(paradas.get(28));
-		paradas4.add(paradas.get(101));
-		paradas4.add(paradas.get(18));
-		paradas4.add(paradas.get(78));
-		paradas4.add(paradas.get(13));
-		assertIterableEquals(paradas4, recorrido4.getParadas());
-		assertEquals(LocalTime.of(10, 55), recorrido4.getHoraSalida());
-		assertEquals(660, recorrido4.getDuracion());
+		assertEquals(LocalTime.of(10, 55), recorrido2.getHoraSalida());
+		assertEquals(660, recorrido2.getDuracion());
 	}
 
 	@Test